@@ -266,4 +266,119 @@ class AccumulatorSerializerHooks {
             return true;
         }
     }
+
+    public static final class HyperLogLogAccHook implements SerializerHook<HyperLogLogAccumulator> {
+
+        @Override
+        public Class<HyperLogLogAccumulator> getSerializationType() {
+            return HyperLogLogAccumulator.class;
+        }
+
+        @Override
+        public Serializer createSerializer() {
+            return new StreamSerializer<HyperLogLogAccumulator>() {
+                @Override
+                public int getTypeId() {
+                    return SerializerHookConstants.HYPER_LOG_LOG_ACC;
+                }
+
+                @Override
+                public void destroy() {
+                }
+
+                @Override
+                public void write(ObjectDataOutput out, HyperLogLogAccumulator object) throws IOException {
+                    out.writeByte(object.precision());
+                    out.write(object.registers());
+                }
+
+                @Override
+                public HyperLogLogAccumulator read(ObjectDataInput in) throws IOException {
+                    int precision = in.readByte();
+                    byte[] registers = new byte[1 << precision];
+                    in.readFully(registers);
+                    return new HyperLogLogAccumulator(precision, registers);
+                }
+            };
+        }
+
+        @Override
+        public boolean isOverwritable() {
+            return true;
+        }
+    }
+
+    public static final class QuantilesAccHook implements SerializerHook<QuantilesAccumulator> {
+
+        @Override
+        public Class<QuantilesAccumulator> getSerializationType() {
+            return QuantilesAccumulator.class;
+        }
+
+        @Override
+        public Serializer createSerializer() {
+            return new StreamSerializer<QuantilesAccumulator>() {
+                @Override
+                public int getTypeId() {
+                    return SerializerHookConstants.QUANTILES_ACC;
+                }
+
+                @Override
+                public void destroy() {
+                }
+
+                @Override
+                public void write(ObjectDataOutput out, QuantilesAccumulator object) throws IOException {
+                    object.writeObject(out);
+                }
+
+                @Override
+                public QuantilesAccumulator read(ObjectDataInput in) throws IOException {
+                    return QuantilesAccumulator.readObject(in);
+                }
+            };
+        }
+
+        @Override
+        public boolean isOverwritable() {
+            return true;
+        }
+    }
+
+    public static final class FrequentItemsAccHook implements SerializerHook<FrequentItemsAccumulator> {
+
+        @Override
+        public Class<FrequentItemsAccumulator> getSerializationType() {
+            return FrequentItemsAccumulator.class;
+        }
+
+        @Override
+        public Serializer createSerializer() {
+            return new StreamSerializer<FrequentItemsAccumulator>() {
+                @Override
+                public int getTypeId() {
+                    return SerializerHookConstants.FREQUENT_ITEMS_ACC;
+                }
+
+                @Override
+                public void destroy() {
+                }
+
+                @Override
+                public void write(ObjectDataOutput out, FrequentItemsAccumulator object) throws IOException {
+                    object.writeObject(out);
+                }
+
+                @Override
+                public FrequentItemsAccumulator read(ObjectDataInput in) throws IOException {
+                    return FrequentItemsAccumulator.readObject(in);
+                }
+            };
+        }
+
+        @Override
+        public boolean isOverwritable() {
+            return true;
+        }
+    }
 }
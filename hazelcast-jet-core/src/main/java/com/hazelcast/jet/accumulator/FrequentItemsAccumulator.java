@@ -0,0 +1,199 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.jet.accumulator;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.util.Preconditions.checkPositive;
+import static com.hazelcast.util.Preconditions.checkTrue;
+
+/**
+ * Misra-Gries summary (the counter-based equivalent of the space-saving
+ * algorithm) that finds the frequent items in a stream. It keeps at most
+ * {@code capacity} counters. When a new item arrives and all counters are
+ * taken, every counter is decremented instead and the counters that drop
+ * to zero are removed.
+ * <p>
+ * The count of an item is underestimated by at most {@code n / (capacity
+ * + 1)}, where {@code n} is the number of accumulated items. Therefore
+ * each item that occurs more often than that is guaranteed to be in the
+ * summary. Two summaries with the same capacity can be combined with the
+ * same error bound. Items can't be removed.
+ *
+ * @param <T> type of the items
+ */
+public final class FrequentItemsAccumulator<T> {
+
+    private final int capacity;
+    private final Map<T, long[]> counters;
+    private long count;
+
+    /**
+     * Creates an empty summary with the given capacity.
+     */
+    public FrequentItemsAccumulator(int capacity) {
+        checkPositive(capacity, "capacity must be positive");
+        this.capacity = capacity;
+        this.counters = new HashMap<>();
+    }
+
+    /**
+     * Adds an item to the summary.
+     */
+    public FrequentItemsAccumulator<T> accumulate(T item) {
+        count++;
+        long[] counter = counters.get(item);
+        if (counter != null) {
+            counter[0]++;
+        } else if (counters.size() < capacity) {
+            counters.put(item, new long[] {1});
+        } else {
+            // the decrement is amortized: it removes capacity + 1 from the
+            // total of the counters, which is at most the number of items
+            for (Iterator<long[]> it = counters.values().iterator(); it.hasNext(); ) {
+                if (--it.next()[0] == 0) {
+                    it.remove();
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Combines this summary with the supplied one. Both must have the same
+     * capacity.
+     */
+    public FrequentItemsAccumulator<T> combine(FrequentItemsAccumulator<T> that) {
+        checkTrue(capacity == that.capacity,
+                "Can't combine summaries with different capacity: " + capacity + ", " + that.capacity);
+        count += that.count;
+        for (Entry<T, long[]> e : that.counters.entrySet()) {
+            counters.merge(e.getKey(), new long[] {e.getValue()[0]}, (c1, c2) -> {
+                c1[0] += c2[0];
+                return c1;
+            });
+        }
+        if (counters.size() > capacity) {
+            // subtract the (capacity + 1)-th greatest count from all counters
+            long[] counts = new long[counters.size()];
+            int i = 0;
+            for (long[] counter : counters.values()) {
+                counts[i++] = -counter[0];
+            }
+            Arrays.sort(counts);
+            long subtrahend = -counts[capacity];
+            for (Iterator<long[]> it = counters.values().iterator(); it.hasNext(); ) {
+                long[] counter = it.next();
+                counter[0] -= subtrahend;
+                if (counter[0] <= 0) {
+                    it.remove();
+                }
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Returns the number of accumulated items.
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Returns the items in the summary with their estimated counts, sorted
+     * by the count in descending order.
+     */
+    public List<Entry<T, Long>> frequentItems() {
+        List<Entry<T, Long>> result = new ArrayList<>(counters.size());
+        for (Entry<T, long[]> e : counters.entrySet()) {
+            result.add(entry(e.getKey(), e.getValue()[0]));
+        }
+        result.sort((e1, e2) -> Long.compare(e2.getValue(), e1.getValue()));
+        return result;
+    }
+
+    void writeObject(ObjectDataOutput out) throws IOException {
+        out.writeInt(capacity);
+        out.writeLong(count);
+        out.writeInt(counters.size());
+        for (Entry<T, long[]> e : counters.entrySet()) {
+            out.writeObject(e.getKey());
+            out.writeLong(e.getValue()[0]);
+        }
+    }
+
+    static <T> FrequentItemsAccumulator<T> readObject(ObjectDataInput in) throws IOException {
+        FrequentItemsAccumulator<T> acc = new FrequentItemsAccumulator<>(in.readInt());
+        acc.count = in.readLong();
+        for (int i = in.readInt(); i > 0; i--) {
+            acc.counters.put(in.readObject(), new long[] {in.readLong()});
+        }
+        return acc;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof FrequentItemsAccumulator)) {
+            return false;
+        }
+        FrequentItemsAccumulator<?> that = (FrequentItemsAccumulator<?>) obj;
+        if (capacity != that.capacity || count != that.count || counters.size() != that.counters.size()) {
+            return false;
+        }
+        for (Entry<T, long[]> e : counters.entrySet()) {
+            long[] thatCounter = that.counters.get(e.getKey());
+            if (thatCounter == null || thatCounter[0] != e.getValue()[0]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hc = 17;
+        hc = 73 * hc + capacity;
+        hc = 73 * hc + Long.hashCode(count);
+        for (Entry<T, long[]> e : counters.entrySet()) {
+            hc += Objects.hashCode(e.getKey()) ^ Long.hashCode(e.getValue()[0]);
+        }
+        return hc;
+    }
+
+    @Override
+    public String toString() {
+        return "FrequentItemsAccumulator(capacity=" + capacity + ", count=" + count + ", items="
+                + frequentItems() + ')';
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.jet.accumulator;
+
+import java.util.Arrays;
+
+import static com.hazelcast.util.Preconditions.checkTrue;
+
+/**
+ * HyperLogLog sketch that estimates the number of distinct items. It keeps
+ * {@code 2^precision} one-byte registers, the relative standard error of
+ * the estimate is about {@code 1.04 / sqrt(2^precision)}, for example
+ * 1.6% for the precision of 12 (4 kB).
+ * <p>
+ * The sketch is fed with 64-bit hashes of the items, the caller is
+ * responsible for their good distribution. Two sketches with the same
+ * precision can be combined, the result is the same as if all the items
+ * were added to one sketch. Items can't be removed.
+ */
+public final class HyperLogLogAccumulator {
+
+    /**
+     * The minimum supported precision.
+     */
+    public static final int MIN_PRECISION = 4;
+
+    /**
+     * The maximum supported precision.
+     */
+    public static final int MAX_PRECISION = 16;
+
+    // the bias correction constants for the precision of 4, 5 and 6
+    private static final double[] SMALL_ALPHAS = {0.673, 0.697, 0.709};
+    private static final double LINEAR_COUNTING_THRESHOLD = 2.5;
+
+    private final int precision;
+    private final byte[] registers;
+
+    /**
+     * Creates an empty sketch with the given precision.
+     */
+    public HyperLogLogAccumulator(int precision) {
+        this(precision, new byte[1 << checkPrecision(precision)]);
+    }
+
+    /**
+     * Creates a sketch with the given registers. Intended only for testing
+     * and deserialization.
+     */
+    public HyperLogLogAccumulator(int precision, byte[] registers) {
+        checkTrue(registers.length == 1 << checkPrecision(precision), "registers.length must be 2^precision");
+        this.precision = precision;
+        this.registers = registers;
+    }
+
+    /**
+     * Adds an item with the given 64-bit hash to the sketch.
+     */
+    public HyperLogLogAccumulator accumulate(long hash) {
+        int index = (int) (hash >>> (Long.SIZE - precision));
+        // the sentinel bit limits the rank to the bits not used for the index
+        long remainingBits = hash << precision | 1L << (precision - 1);
+        byte rank = (byte) (Long.numberOfLeadingZeros(remainingBits) + 1);
+        if (rank > registers[index]) {
+            registers[index] = rank;
+        }
+        return this;
+    }
+
+    /**
+     * Combines this sketch with the supplied one. Both must have the same
+     * precision.
+     */
+    public HyperLogLogAccumulator combine(HyperLogLogAccumulator that) {
+        checkTrue(precision == that.precision,
+                "Can't combine sketches with different precision: " + precision + ", " + that.precision);
+        for (int i = 0; i < registers.length; i++) {
+            if (that.registers[i] > registers[i]) {
+                registers[i] = that.registers[i];
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Returns the estimated number of distinct items.
+     */
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeroCount = 0;
+        for (byte rank : registers) {
+            sum += Math.scalb(1.0, -rank);
+            if (rank == 0) {
+                zeroCount++;
+            }
+        }
+        double estimate = alpha() * m * m / sum;
+        if (estimate <= LINEAR_COUNTING_THRESHOLD * m && zeroCount > 0) {
+            // linear counting is more accurate for small cardinalities
+            estimate = m * Math.log((double) m / zeroCount);
+        }
+        return Math.round(estimate);
+    }
+
+    /**
+     * Returns the precision of this sketch.
+     */
+    public int precision() {
+        return precision;
+    }
+
+    byte[] registers() {
+        return registers;
+    }
+
+    private double alpha() {
+        int index = precision - MIN_PRECISION;
+        return index < SMALL_ALPHAS.length ? SMALL_ALPHAS[index] : 0.7213 / (1 + 1.079 / registers.length);
+    }
+
+    private static int checkPrecision(int precision) {
+        checkTrue(precision >= MIN_PRECISION && precision <= MAX_PRECISION,
+                "precision must be between " + MIN_PRECISION + " and " + MAX_PRECISION + ", but is " + precision);
+        return precision;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        HyperLogLogAccumulator that;
+        return this == obj ||
+                obj instanceof HyperLogLogAccumulator
+                        && this.precision == (that = (HyperLogLogAccumulator) obj).precision
+                        && Arrays.equals(this.registers, that.registers);
+    }
+
+    @Override
+    public int hashCode() {
+        return 73 * precision + Arrays.hashCode(registers);
+    }
+
+    @Override
+    public String toString() {
+        return "HyperLogLogAccumulator(precision=" + precision + ", estimate=" + estimate() + ')';
+    }
+}
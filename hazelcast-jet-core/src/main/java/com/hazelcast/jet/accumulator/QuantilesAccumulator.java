@@ -0,0 +1,319 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.jet.accumulator;
+
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.hazelcast.util.Preconditions.checkTrue;
+
+/**
+ * KLL sketch that estimates the quantiles of a set of {@code double}
+ * values. The values are kept in levels, a value at level {@code h}
+ * represents {@code 2^h} accumulated values. When the sketch is full, the
+ * lowest full level is sorted and every other value is promoted to the
+ * next level. The capacity of a level decreases geometrically with its
+ * distance from the top level, so the sketch keeps {@code O(k)} values.
+ * The rank error of the estimated quantiles is about {@code 1.7 / k}, for
+ * example 0.85% for the default {@code k} of 200.
+ * <p>
+ * Two sketches with the same {@code k} can be combined. Values can't be
+ * removed. The minimum and the maximum value are tracked exactly.
+ */
+public final class QuantilesAccumulator {
+
+    /**
+     * The default value of the parameter {@code k}.
+     */
+    public static final int DEFAULT_K = 200;
+
+    private static final double CAPACITY_DECAY = 2.0 / 3;
+    private static final int MIN_LEVEL_CAPACITY = 8;
+    private static final int INITIAL_LEVEL_COUNT = 4;
+
+    private final int k;
+    private long count;
+    private double min = Double.NaN;
+    private double max = Double.NaN;
+    private double[][] levels = new double[INITIAL_LEVEL_COUNT][];
+    private int[] levelSizes = new int[INITIAL_LEVEL_COUNT];
+    private int levelCount = 1;
+
+    /**
+     * Creates an empty sketch with the {@linkplain #DEFAULT_K default k}.
+     */
+    public QuantilesAccumulator() {
+        this(DEFAULT_K);
+    }
+
+    /**
+     * Creates an empty sketch with the given {@code k}.
+     */
+    public QuantilesAccumulator(int k) {
+        checkTrue(k >= MIN_LEVEL_CAPACITY, "k must be at least " + MIN_LEVEL_CAPACITY);
+        this.k = k;
+        levels[0] = new double[MIN_LEVEL_CAPACITY];
+    }
+
+    /**
+     * Adds a value to the sketch.
+     */
+    public QuantilesAccumulator accumulate(double value) {
+        if (count++ == 0) {
+            min = value;
+            max = value;
+        } else {
+            min = Math.min(min, value);
+            max = Math.max(max, value);
+        }
+        add(0, value);
+        if (retainedCount() >= totalCapacity()) {
+            compactLowestFullLevel();
+        }
+        return this;
+    }
+
+    /**
+     * Combines this sketch with the supplied one. Both must have the same
+     * {@code k}.
+     */
+    public QuantilesAccumulator combine(QuantilesAccumulator that) {
+        checkTrue(k == that.k, "Can't combine sketches with different k: " + k + ", " + that.k);
+        if (that.count == 0) {
+            return this;
+        }
+        min = count == 0 ? that.min : Math.min(min, that.min);
+        max = count == 0 ? that.max : Math.max(max, that.max);
+        count += that.count;
+        for (int h = 0; h < that.levelCount; h++) {
+            for (int i = 0; i < that.levelSizes[h]; i++) {
+                add(h, that.levels[h][i]);
+            }
+        }
+        while (retainedCount() >= totalCapacity()) {
+            compactLowestFullLevel();
+        }
+        return this;
+    }
+
+    /**
+     * Returns the number of accumulated values.
+     */
+    public long count() {
+        return count;
+    }
+
+    /**
+     * Returns the estimated values at the given quantiles, each quantile
+     * must be between 0 and 1. Returns {@code NaN}s, if the sketch is
+     * empty.
+     */
+    public double[] quantiles(double... quantiles) {
+        double[] result = new double[quantiles.length];
+        if (count == 0) {
+            Arrays.fill(result, Double.NaN);
+            return result;
+        }
+        int retainedCount = retainedCount();
+        double[] values = new double[retainedCount];
+        long[] weights = new long[retainedCount];
+        sortedValuesWithWeights(values, weights);
+        for (int i = 0; i < quantiles.length; i++) {
+            double q = quantiles[i];
+            checkTrue(q >= 0 && q <= 1, "quantile must be between 0 and 1, but is " + q);
+            if (q == 0) {
+                result[i] = min;
+            } else if (q == 1) {
+                result[i] = max;
+            } else {
+                result[i] = valueAtRank(values, weights, (long) Math.ceil(q * count));
+            }
+        }
+        return result;
+    }
+
+    private void sortedValuesWithWeights(double[] values, long[] weights) {
+        // sort the values of each level and then merge the levels
+        int[] levelStarts = new int[levelCount + 1];
+        for (int h = 0; h < levelCount; h++) {
+            int start = levelStarts[h];
+            System.arraycopy(levels[h], 0, values, start, levelSizes[h]);
+            Arrays.sort(values, start, start + levelSizes[h]);
+            levelStarts[h + 1] = start + levelSizes[h];
+        }
+        double[] sortedValues = new double[values.length];
+        int[] positions = Arrays.copyOf(levelStarts, levelCount);
+        for (int i = 0; i < values.length; i++) {
+            int minLevel = -1;
+            for (int h = 0; h < levelCount; h++) {
+                if (positions[h] < levelStarts[h + 1]
+                        && (minLevel < 0 || values[positions[h]] < values[positions[minLevel]])) {
+                    minLevel = h;
+                }
+            }
+            sortedValues[i] = values[positions[minLevel]++];
+            weights[i] = 1L << minLevel;
+        }
+        System.arraycopy(sortedValues, 0, values, 0, values.length);
+    }
+
+    private static double valueAtRank(double[] values, long[] weights, long rank) {
+        long cumulativeWeight = 0;
+        for (int i = 0; i < values.length; i++) {
+            cumulativeWeight += weights[i];
+            if (cumulativeWeight >= rank) {
+                return values[i];
+            }
+        }
+        return values[values.length - 1];
+    }
+
+    private void add(int level, double value) {
+        while (level >= levelCount) {
+            addLevel();
+        }
+        double[] levelValues = levels[level];
+        if (levelSizes[level] == levelValues.length) {
+            levels[level] = levelValues = Arrays.copyOf(levelValues, levelValues.length * 2);
+        }
+        levelValues[levelSizes[level]++] = value;
+    }
+
+    private void addLevel() {
+        if (levelCount == levels.length) {
+            levels = Arrays.copyOf(levels, levelCount * 2);
+            levelSizes = Arrays.copyOf(levelSizes, levelCount * 2);
+        }
+        levels[levelCount] = new double[MIN_LEVEL_CAPACITY];
+        levelCount++;
+    }
+
+    /**
+     * Sorts the lowest level that reached its capacity and promotes either
+     * the values at the odd or at the even positions to the next level.
+     * Each promoted value then represents the two values.
+     */
+    private void compactLowestFullLevel() {
+        int level = 0;
+        while (levelSizes[level] < levelCapacity(level)) {
+            level++;
+        }
+        double[] levelValues = levels[level];
+        int size = levelSizes[level];
+        Arrays.sort(levelValues, 0, size);
+        // with an odd size the greatest value stays at this level
+        int compactedSize = size & ~1;
+        for (int i = ThreadLocalRandom.current().nextInt(2); i < compactedSize; i += 2) {
+            add(level + 1, levelValues[i]);
+        }
+        if (size > compactedSize) {
+            levelValues[0] = levelValues[size - 1];
+        }
+        levelSizes[level] = size - compactedSize;
+    }
+
+    private int levelCapacity(int level) {
+        int depth = levelCount - 1 - level;
+        return Math.max(MIN_LEVEL_CAPACITY, (int) Math.ceil(k * Math.pow(CAPACITY_DECAY, depth)));
+    }
+
+    private int totalCapacity() {
+        int capacity = 0;
+        for (int h = 0; h < levelCount; h++) {
+            capacity += levelCapacity(h);
+        }
+        return capacity;
+    }
+
+    private int retainedCount() {
+        int retainedCount = 0;
+        for (int h = 0; h < levelCount; h++) {
+            retainedCount += levelSizes[h];
+        }
+        return retainedCount;
+    }
+
+    void writeObject(ObjectDataOutput out) throws IOException {
+        out.writeInt(k);
+        out.writeLong(count);
+        out.writeDouble(min);
+        out.writeDouble(max);
+        out.writeInt(levelCount);
+        for (int h = 0; h < levelCount; h++) {
+            out.writeDoubleArray(Arrays.copyOf(levels[h], levelSizes[h]));
+        }
+    }
+
+    static QuantilesAccumulator readObject(ObjectDataInput in) throws IOException {
+        QuantilesAccumulator acc = new QuantilesAccumulator(in.readInt());
+        acc.count = in.readLong();
+        acc.min = in.readDouble();
+        acc.max = in.readDouble();
+        int levelCount = in.readInt();
+        for (int h = 0; h < levelCount; h++) {
+            for (double value : in.readDoubleArray()) {
+                acc.add(h, value);
+            }
+        }
+        while (acc.levelCount < levelCount) {
+            acc.addLevel();
+        }
+        return acc;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof QuantilesAccumulator)) {
+            return false;
+        }
+        QuantilesAccumulator that = (QuantilesAccumulator) obj;
+        if (k != that.k || count != that.count || levelCount != that.levelCount
+                || Double.compare(min, that.min) != 0 || Double.compare(max, that.max) != 0) {
+            return false;
+        }
+        for (int h = 0; h < levelCount; h++) {
+            if (!Arrays.equals(Arrays.copyOf(levels[h], levelSizes[h]),
+                    Arrays.copyOf(that.levels[h], that.levelSizes[h]))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hc = 17;
+        hc = 73 * hc + k;
+        hc = 73 * hc + Long.hashCode(count);
+        hc = 73 * hc + Double.hashCode(min);
+        hc = 73 * hc + Double.hashCode(max);
+        return hc;
+    }
+
+    @Override
+    public String toString() {
+        return "QuantilesAccumulator(k=" + k + ", count=" + count + ", min=" + min + ", max=" + max + ')';
+    }
+}
@@ -176,9 +176,11 @@ public interface AggregateOperation<A, R> extends Serializable {
      * that case it is optional, but its presence may significantly reduce the
      * computational cost. With it, the current sliding window can be obtained
      * from the previous one by deducting the trailing frame and combining the
-     * leading frame; without it, each window must be recomputed from all its
-     * constituent frames. The finer the sliding step, the more pronounced the
-     * difference in computation effort will be.
+     * leading frame; without it, Jet maintains partial aggregates of the
+     * frames in the window using only {@code combineFn}. This takes an
+     * amortized constant number of {@code combine} calls per key and slide,
+     * but it keeps an additional accumulator for each key in each frame and
+     * creates a fresh accumulator for each emitted window.
      * <p>
      * If this method returns non-null, then {@link #createFn()} <strong>must
      * </strong> return an accumulator which properly implements {@code
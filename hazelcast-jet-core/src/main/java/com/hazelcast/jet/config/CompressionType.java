@@ -0,0 +1,50 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.config;
+
+/**
+ * Defines the codec Jet uses to compress blocks of serialized data before
+ * sending them over the network or storing them in a snapshot.
+ *
+ * @see EdgeConfig#setCompression(CompressionType)
+ * @see JobConfig#setSnapshotCompression(CompressionType)
+ */
+public enum CompressionType {
+
+    /**
+     * The data is sent as it is. This is the default and the best choice
+     * when the network isn't the bottleneck or the data doesn't compress
+     * well.
+     */
+    NONE,
+
+    /**
+     * A fast codec using the LZ4 block format. It compresses less than
+     * {@link #DEFLATE}, but it costs only a fraction of the CPU time and
+     * decompression is very fast. Good for a network that is saturated by
+     * easily compressible data, such as text or repetitive records.
+     */
+    LZ4,
+
+    /**
+     * The {@code DEFLATE} algorithm at its fastest level, as implemented by
+     * {@link java.util.zip.Deflater}. It achieves a better compression ratio
+     * than {@link #LZ4}, but it takes considerably more CPU time. Use it only
+     * when the network bandwidth is scarce.
+     */
+    DEFLATE
+}
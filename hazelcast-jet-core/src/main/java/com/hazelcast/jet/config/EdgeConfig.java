@@ -18,8 +18,10 @@ package com.hazelcast.jet.config;
 
 import com.hazelcast.jet.core.Edge;
 
+import javax.annotation.Nonnull;
 import java.io.Serializable;
 
+import static com.hazelcast.util.Preconditions.checkNotNull;
 import static com.hazelcast.util.Preconditions.checkPositive;
 
 /**
@@ -44,9 +46,18 @@ public class EdgeConfig implements Serializable {
      */
     public static final int DEFAULT_PACKET_SIZE_LIMIT = 1 << 14;
 
+    /**
+     * The default {@link #setTargetQueueingDelayMs(long) target queueing delay}.
+     */
+    public static final long DEFAULT_TARGET_QUEUEING_DELAY_MS = 10;
+
     private int queueSize = DEFAULT_QUEUE_SIZE;
     private int receiveWindowMultiplier = DEFAULT_RECEIVE_WINDOW_MULTIPLIER;
     private int packetSizeLimit = DEFAULT_PACKET_SIZE_LIMIT;
+    private CompressionType compression = CompressionType.NONE;
+    private boolean lazyDeserializationEnabled;
+    private FlowControlType flowControl = FlowControlType.RATE_BASED;
+    private long targetQueueingDelayMs = DEFAULT_TARGET_QUEUEING_DELAY_MS;
 
     /**
      * Sets the capacity of processor-to-processor concurrent queues. The value
@@ -111,6 +122,58 @@ public class EdgeConfig implements Serializable {
         return this;
     }
 
+    /**
+     * Sets the algorithm the receiving member of a distributed edge uses to
+     * limit how much data the sending member can send ahead. See {@link
+     * FlowControlType} for the available algorithms.
+     * <p>
+     * The default value is {@link FlowControlType#RATE_BASED}. This setting has
+     * no effect on a non-distributed edge.
+     *
+     * @return {@code this} instance for fluent API
+     */
+    public EdgeConfig setFlowControl(@Nonnull FlowControlType flowControl) {
+        checkNotNull(flowControl, "flowControl");
+        this.flowControl = flowControl;
+        return this;
+    }
+
+    /**
+     * Returns the {@link #setFlowControl(FlowControlType) flow-control algorithm}.
+     */
+    @Nonnull
+    public FlowControlType getFlowControl() {
+        return flowControl;
+    }
+
+    /**
+     * Sets the time in milliseconds the received items should wait at the
+     * receiving member before they are passed to the processors. The
+     * {@linkplain FlowControlType#DELAY_BASED delay-based} flow control
+     * adjusts the receive window to keep the delay close to this value. A
+     * lower value reduces the latency, but it can reduce the throughput when
+     * the rate of processing fluctuates.
+     * <p>
+     * The default value is {@value #DEFAULT_TARGET_QUEUEING_DELAY_MS}. This
+     * setting has no effect with the {@linkplain FlowControlType#RATE_BASED
+     * rate-based} flow control and on a non-distributed edge.
+     *
+     * @return {@code this} instance for fluent API
+     */
+    public EdgeConfig setTargetQueueingDelayMs(long targetQueueingDelayMs) {
+        checkPositive(targetQueueingDelayMs, "targetQueueingDelayMs should be a positive number");
+        this.targetQueueingDelayMs = targetQueueingDelayMs;
+        return this;
+    }
+
+    /**
+     * Returns the {@link #setTargetQueueingDelayMs(long) target queueing
+     * delay} in milliseconds.
+     */
+    public long getTargetQueueingDelayMs() {
+        return targetQueueingDelayMs;
+    }
+
     /**
      * @return the {@link #setReceiveWindowMultiplier(int) receive window multiplier}
      */
@@ -146,4 +209,72 @@ public class EdgeConfig implements Serializable {
     public int getPacketSizeLimit() {
         return packetSizeLimit;
     }
+
+    /**
+     * Sets the codec used to compress the packets of a distributed edge.
+     * Each packet is compressed separately, therefore the compression ratio
+     * improves with a larger {@link #setPacketSizeLimit(int) packet size
+     * limit}.
+     * <p>
+     * The codec is decided when the job is submitted and all the members
+     * use the same one for this edge, so different edges of a job can use
+     * different codecs. Compression trades CPU time for network bandwidth:
+     * it pays off when the network is the bottleneck and the data
+     * compresses well. The metrics {@code distributedCompressionRatioPercent}
+     * (the size of the sent data as a percentage of its uncompressed size)
+     * and {@code distributedCompressionNanos} of the sending vertex show the
+     * achieved ratio and the CPU time spent.
+     * <p>
+     * The default value is {@link CompressionType#NONE}. This setting has no
+     * effect on a non-distributed edge.
+     *
+     * @return {@code this} instance for fluent API
+     */
+    public EdgeConfig setCompression(@Nonnull CompressionType compression) {
+        checkNotNull(compression, "compression");
+        this.compression = compression;
+        return this;
+    }
+
+    /**
+     * Returns the {@link #setCompression(CompressionType) codec} used to
+     * compress the packets of a distributed edge.
+     */
+    @Nonnull
+    public CompressionType getCompression() {
+        return compression;
+    }
+
+    /**
+     * Sets whether the items of a distributed edge are deserialized by the
+     * consuming processors instead of by the receiver.
+     * <p>
+     * On each member, a single receiver tasklet handles the packets coming
+     * from one remote member, so by default the deserialization of all the
+     * items sent by one member happens on a single thread. With lazy
+     * deserialization the receiver only splits the packets into the
+     * serialized items and the tasklets of the local processors deserialize
+     * them, spreading the cost over all their threads. An item is deserialized
+     * when the processor first accesses it in its inbox. This pays off for an
+     * edge carrying a lot of data with expensive deserialization. The cost is
+     * a copy of each serialized item and four more bytes per item on the
+     * network.
+     * <p>
+     * The default value is {@code false}. This setting has no effect on a
+     * non-distributed edge.
+     *
+     * @return {@code this} instance for fluent API
+     */
+    public EdgeConfig setLazyDeserializationEnabled(boolean lazyDeserializationEnabled) {
+        this.lazyDeserializationEnabled = lazyDeserializationEnabled;
+        return this;
+    }
+
+    /**
+     * Returns whether {@link #setLazyDeserializationEnabled(boolean) lazy
+     * deserialization} is enabled.
+     */
+    public boolean isLazyDeserializationEnabled() {
+        return lazyDeserializationEnabled;
+    }
 }
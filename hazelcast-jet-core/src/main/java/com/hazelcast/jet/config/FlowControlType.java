@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.config;
+
+/**
+ * Defines how the receiving member of a distributed edge decides how much
+ * data the sending member may send ahead of what the receiver processed.
+ *
+ * @see EdgeConfig#setFlowControl(FlowControlType)
+ */
+public enum FlowControlType {
+
+    /**
+     * The receive window is sized in proportion to the recent processing rate
+     * of the receiver, see {@link EdgeConfig#setReceiveWindowMultiplier(int)}.
+     * This is the default. It gives high throughput for a steady flow, but a
+     * burst of data can fill the receiver's queues and increase the latency.
+     */
+    RATE_BASED,
+
+    /**
+     * The receive window is adjusted to keep the time the received items
+     * wait at the receiver close to the {@linkplain
+     * EdgeConfig#setTargetQueueingDelayMs(long) target queueing delay}: it
+     * shrinks when the items wait longer and grows when they wait shorter
+     * and the sender is blocked by the window. The window never drops below
+     * the amount of data the receiver processes within the measured
+     * round-trip time. Use it to bound the latency under bursty load.
+     */
+    DELAY_BASED
+}
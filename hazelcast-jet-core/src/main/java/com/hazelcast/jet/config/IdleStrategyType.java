@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.config;
+
+/**
+ * Defines what a cooperative thread does when none of its tasklets made
+ * progress in the last iteration. The choice trades the latency of picking
+ * up newly arrived items against the CPU time burnt while waiting for them.
+ *
+ * @see InstanceConfig#setIdleStrategy(IdleStrategyType)
+ */
+public enum IdleStrategyType {
+
+    /**
+     * The thread immediately starts the next iteration. This gives the
+     * lowest latency, but each cooperative thread keeps one CPU core fully
+     * busy even when there's no data to process. Use it only with a
+     * dedicated core for each cooperative thread.
+     */
+    BUSY_SPIN,
+
+    /**
+     * The thread calls {@link Thread#yield()} before the next iteration. The
+     * latency is close to {@link #BUSY_SPIN}, but other threads that are
+     * ready to run can use the CPU.
+     */
+    YIELD,
+
+    /**
+     * The thread parks for a duration that grows exponentially, from 1
+     * microsecond up to 1 millisecond, with the number of consecutive idle
+     * iterations. This is the default and balances the latency and the CPU
+     * usage.
+     */
+    BACKOFF,
+
+    /**
+     * The thread parks for 1 millisecond right after the first idle
+     * iteration. This uses the least CPU, which is preferable on shared
+     * hosts, at the cost of up to 1 millisecond of added latency.
+     */
+    PARK
+}
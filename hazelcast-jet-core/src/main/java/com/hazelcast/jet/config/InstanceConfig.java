@@ -17,11 +17,16 @@
 package com.hazelcast.jet.config;
 
 import com.hazelcast.config.MapConfig;
+import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.core.SnapshotChunkStore;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.function.Function;
 
 import static com.hazelcast.util.Preconditions.checkBackupCount;
 import static com.hazelcast.util.Preconditions.checkNotNegative;
+import static com.hazelcast.util.Preconditions.checkNotNull;
 import static com.hazelcast.util.Preconditions.checkPositive;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
@@ -46,6 +51,12 @@ public class InstanceConfig {
     private int flowControlPeriodMs = DEFAULT_FLOW_CONTROL_PERIOD_MS;
     private int backupCount = DEFAULT_BACKUP_COUNT;
     private long scaleUpDelayMillis = SCALE_UP_DELAY_MILLIS_DEFAULT;
+    private boolean workStealingEnabled;
+    private IdleStrategyType idleStrategy = IdleStrategyType.BACKOFF;
+    private String cooperativeThreadAffinity;
+    private boolean readinessTrackingEnabled;
+    private String snapshotDirectory;
+    private Function<? super JetInstance, ? extends SnapshotChunkStore> snapshotChunkStoreFactory;
 
     /**
      * Sets the number of threads each cluster member will use to execute Jet
@@ -136,4 +147,191 @@ public class InstanceConfig {
     public long getScaleUpDelayMillis() {
         return scaleUpDelayMillis;
     }
+
+    /**
+     * Enables or disables work stealing between cooperative threads. By
+     * default it is disabled.
+     * <p>
+     * Each cooperative tasklet is assigned to a cooperative thread when the
+     * job starts. If the load is skewed, for example when a single vertex
+     * does most of the work, some threads can be saturated while the others
+     * stay idle. With work stealing enabled, an idle thread will take over a
+     * busy tasklet from the thread that currently runs the most busy
+     * tasklets. A tasklet is considered busy if it made progress in the last
+     * iteration of its thread.
+     *
+     * @return this instance for fluent API
+     */
+    @Nonnull
+    public InstanceConfig setWorkStealingEnabled(boolean workStealingEnabled) {
+        this.workStealingEnabled = workStealingEnabled;
+        return this;
+    }
+
+    /**
+     * Returns whether {@link #setWorkStealingEnabled(boolean) work stealing}
+     * between cooperative threads is enabled.
+     */
+    public boolean isWorkStealingEnabled() {
+        return workStealingEnabled;
+    }
+
+    /**
+     * Sets what the cooperative threads do when none of their tasklets made
+     * progress. The default is {@link IdleStrategyType#BACKOFF}. Threads
+     * running the blocking processors always use a backoff strategy.
+     *
+     * @return this instance for fluent API
+     */
+    @Nonnull
+    public InstanceConfig setIdleStrategy(@Nonnull IdleStrategyType idleStrategy) {
+        checkNotNull(idleStrategy, "idleStrategy");
+        this.idleStrategy = idleStrategy;
+        return this;
+    }
+
+    /**
+     * Returns the {@link #setIdleStrategy(IdleStrategyType) idle strategy} of
+     * the cooperative threads.
+     */
+    @Nonnull
+    public IdleStrategyType getIdleStrategy() {
+        return idleStrategy;
+    }
+
+    /**
+     * Sets the CPUs the cooperative threads will be pinned to. The value is a
+     * comma-separated list of CPU numbers and ranges, for example {@code
+     * "2-5,8"}. The thread {@code hz.*.jet.cooperative.thread-N} is pinned to
+     * the N-th CPU in the list; if there are more threads than CPUs, the list
+     * is used repeatedly. By default, or if {@code null}, the threads aren't
+     * pinned.
+     * <p>
+     * Pinning is only supported on Linux and requires the <a
+     * href="https://github.com/OpenHFT/Java-Thread-Affinity">OpenHFT Java
+     * Thread Affinity</a> library on the classpath. If either isn't
+     * available, a warning is logged and the threads run unpinned. Together
+     * with the {@link IdleStrategyType#BUSY_SPIN busy-spin} idle strategy and
+     * CPUs isolated from the OS scheduler, it gives the most predictable
+     * latency.
+     * <p>
+     * The list is validated when the member starts, it fails to start if the
+     * list is malformed or contains a CPU number above 8191.
+     *
+     * @return this instance for fluent API
+     */
+    @Nonnull
+    public InstanceConfig setCooperativeThreadAffinity(@Nullable String cpuList) {
+        this.cooperativeThreadAffinity = cpuList;
+        return this;
+    }
+
+    /**
+     * Returns the {@link #setCooperativeThreadAffinity(String) CPU list} the
+     * cooperative threads are pinned to or {@code null}, if they aren't
+     * pinned.
+     */
+    @Nullable
+    public String getCooperativeThreadAffinity() {
+        return cooperativeThreadAffinity;
+    }
+
+    /**
+     * Enables or disables readiness tracking for cooperative tasklets. By
+     * default it is disabled and each cooperative thread calls all its
+     * tasklets in every iteration, even those with no input to process.
+     * <p>
+     * With readiness tracking enabled, adding an item to a processor's input
+     * queue or receiving a network packet for a distributed edge marks the
+     * consuming tasklet as ready and the thread calls only the ready tasklets
+     * and those that made progress in their last call. This saves CPU on
+     * members running many mostly idle jobs. Tasklets that didn't receive
+     * input are still called every 10 milliseconds, therefore work that
+     * isn't triggered by new input, such as emitting results of
+     * asynchronous operations, can be delayed by up to this period.
+     * Sources and sender tasklets are called in every iteration, as before.
+     *
+     * @return this instance for fluent API
+     */
+    @Nonnull
+    public InstanceConfig setReadinessTrackingEnabled(boolean readinessTrackingEnabled) {
+        this.readinessTrackingEnabled = readinessTrackingEnabled;
+        return this;
+    }
+
+    /**
+     * Returns whether {@link #setReadinessTrackingEnabled(boolean) readiness
+     * tracking} for cooperative tasklets is enabled.
+     */
+    public boolean isReadinessTrackingEnabled() {
+        return readinessTrackingEnabled;
+    }
+
+    /**
+     * Sets the directory in which the member stores the snapshot data. By
+     * default, or if {@code null}, the snapshot data are stored in {@code
+     * IMap}s, which keep them in memory together with their backups.
+     * <p>
+     * If a directory is set, the member writes the snapshot chunks to files
+     * in a subdirectory it locks while it runs and copies each file to one
+     * other member. The snapshot {@code IMap}s then only hold small
+     * references to the files. On restore, the chunks are read from the local
+     * file or fetched from the member holding it.
+     * <p>
+     * The files are kept when the member shuts down and a member started
+     * later with the same directory takes them over. The references in the
+     * {@code IMap}s, however, survive a restart of the whole cluster only if
+     * the {@code IMap}s are persisted, too. A snapshot is lost if both the
+     * member holding a file and the one holding its copy lose their disks.
+     * <p>
+     * The setting must be the same on all members. Exported snapshots are
+     * always stored in {@code IMap}s.
+     *
+     * @return this instance for fluent API
+     */
+    @Nonnull
+    public InstanceConfig setSnapshotDirectory(@Nullable String snapshotDirectory) {
+        this.snapshotDirectory = snapshotDirectory;
+        return this;
+    }
+
+    /**
+     * Returns the {@link #setSnapshotDirectory(String) directory} for the
+     * snapshot data or {@code null}, if they are stored in {@code IMap}s.
+     */
+    @Nullable
+    public String getSnapshotDirectory() {
+        return snapshotDirectory;
+    }
+
+    /**
+     * Sets the factory of a custom {@link SnapshotChunkStore}, which stores
+     * the snapshot data instead of the snapshot {@code IMap}s. The member
+     * calls it once, when it starts, and closes the store when it shuts
+     * down. If set, the {@linkplain #setSnapshotDirectory(String) snapshot
+     * directory} is ignored. By default, or if {@code null}, the member uses
+     * a built-in store.
+     * <p>
+     * The setting can only be configured programmatically and the stores
+     * on all members must be able to read each other's chunks.
+     *
+     * @return this instance for fluent API
+     */
+    @Nonnull
+    public InstanceConfig setSnapshotChunkStoreFactory(
+            @Nullable Function<? super JetInstance, ? extends SnapshotChunkStore> snapshotChunkStoreFactory
+    ) {
+        this.snapshotChunkStoreFactory = snapshotChunkStoreFactory;
+        return this;
+    }
+
+    /**
+     * Returns the {@linkplain #setSnapshotChunkStoreFactory factory} of the
+     * custom snapshot chunk store or {@code null}, if the member uses a
+     * built-in one.
+     */
+    @Nullable
+    public Function<? super JetInstance, ? extends SnapshotChunkStore> getSnapshotChunkStoreFactory() {
+        return snapshotChunkStoreFactory;
+    }
 }
@@ -43,11 +43,19 @@ public class JobConfig implements Serializable {
     private String name;
     private ProcessingGuarantee processingGuarantee = ProcessingGuarantee.NONE;
     private long snapshotIntervalMillis = SNAPSHOT_INTERVAL_MILLIS_DEFAULT;
+    private int maxIncrementalSnapshots;
+    private boolean unalignedSnapshots;
+    private boolean backgroundSnapshotSaving;
+    private CompressionType snapshotCompression = CompressionType.NONE;
     private boolean autoScaling = true;
     private boolean splitBrainProtectionEnabled;
     private final List<ResourceConfig> resourceConfigs = new ArrayList<>();
     private JobClassLoaderFactory classLoaderFactory;
     private String initialSnapshotName;
+    private long groupSpillThreshold;
+    private long sortSpillThreshold;
+    private long joinSpillThreshold;
+    private String spillDirectory;
 
     /**
      * Returns the name of the job or {@code null} if no name was given.
@@ -202,6 +210,148 @@ public class JobConfig implements Serializable {
         return this;
     }
 
+    /**
+     * Returns the configured {@linkplain #setMaxIncrementalSnapshots(int)
+     * maximum number of incremental snapshots}.
+     */
+    public int getMaxIncrementalSnapshots() {
+        return maxIncrementalSnapshots;
+    }
+
+    /**
+     * Sets the maximum number of incremental snapshots taken after a full
+     * snapshot. In an incremental snapshot the processors that support it
+     * (the rolling aggregation, sliding window and session window processors)
+     * save only the keys that changed since the previous snapshot and
+     * tombstones for the removed keys. The deltas are stored on top of the
+     * last full snapshot, the restore applies the latest version of each key.
+     * After the given number of incremental snapshots the next snapshot is a
+     * full one again, which compacts the state. A full snapshot is also taken
+     * after a failed snapshot, after a snapshot export and at the start of
+     * each execution.
+     * <p>
+     * Incremental snapshots make the snapshot cost proportional to the rate
+     * of state changes instead of the state size, at the cost of a longer
+     * restore and of keeping the versions of the restored keys in memory
+     * during the restore.
+     * <p>
+     * The default value is 0, which means every snapshot is a full one.
+     *
+     * @return {@code this} instance for fluent API
+     */
+    @Nonnull
+    public JobConfig setMaxIncrementalSnapshots(int count) {
+        Preconditions.checkNotNegative(count, "count can't be negative");
+        this.maxIncrementalSnapshots = count;
+        return this;
+    }
+
+    /**
+     * Returns whether unaligned snapshots are enabled, see {@link
+     * #setUnalignedSnapshots(boolean)}.
+     */
+    public boolean isUnalignedSnapshots() {
+        return unalignedSnapshots;
+    }
+
+    /**
+     * Sets whether the {@link ProcessingGuarantee#EXACTLY_ONCE exactly-once}
+     * snapshots are unaligned. Normally a processor with several inputs
+     * saves its state only after it received the snapshot barrier from all
+     * of them and it stops consuming an input after it received the barrier
+     * from it. The barrier has to wait behind all the items queued before it,
+     * so under backpressure the snapshot takes as long as it takes to process
+     * the backlog.
+     * <p>
+     * With unaligned snapshots a processor saves its state as soon as the
+     * snapshot starts or the first barrier arrives. Then it drains its input
+     * queues up to the barrier without processing the items and saves these
+     * in-flight items to the snapshot along with its state. After a restore
+     * the in-flight items are processed before any new input. The snapshot
+     * duration then doesn't depend on the backlog in the queues, at the cost
+     * of a larger snapshot.
+     * <p>
+     * A processor uses unaligned snapshots only if all its inputs are
+     * partitioned or unicast edges with the same priority, otherwise it
+     * aligns the barriers. A terminal snapshot is always aligned.
+     * <p>
+     * Unaligned snapshots are disabled by default. They have no effect with
+     * other processing guarantees than exactly-once.
+     *
+     * @return {@code this} instance for fluent API
+     */
+    @Nonnull
+    public JobConfig setUnalignedSnapshots(boolean enabled) {
+        this.unalignedSnapshots = enabled;
+        return this;
+    }
+
+    /**
+     * Returns whether the processors save their state in the background, see
+     * {@link #setBackgroundSnapshotSaving(boolean)}.
+     */
+    public boolean isBackgroundSnapshotSaving() {
+        return backgroundSnapshotSaving;
+    }
+
+    /**
+     * Sets whether the processors that support it (the rolling aggregation,
+     * sliding window and session window processors) save their state in the
+     * background. Normally a processor emits its whole state to the snapshot
+     * before it processes more input, which for a large state stalls the
+     * pipeline for the duration of the save.
+     * <p>
+     * With background saving the processor only captures its keys when the
+     * snapshot starts and forwards the barrier downstream. Then it continues
+     * processing while its entries are written to the snapshot in small
+     * batches. Before an entry is modified for the first time, its value as
+     * it was at the capture is copied, so the snapshot stays consistent. The
+     * copying costs extra memory and CPU while the save is in progress.
+     * <p>
+     * The terminal snapshot and unaligned snapshots are always saved
+     * synchronously. Background saving is disabled by default.
+     *
+     * @return {@code this} instance for fluent API
+     */
+    @Nonnull
+    public JobConfig setBackgroundSnapshotSaving(boolean enabled) {
+        this.backgroundSnapshotSaving = enabled;
+        return this;
+    }
+
+    /**
+     * Returns the {@linkplain #setSnapshotCompression(CompressionType) codec}
+     * used to compress the snapshot data.
+     */
+    @Nonnull
+    public CompressionType getSnapshotCompression() {
+        return snapshotCompression;
+    }
+
+    /**
+     * Sets the codec used to compress the snapshot data. The data are stored
+     * in chunks of up to 128 kB in an {@code IMap}, each chunk is compressed
+     * separately before it's stored and decompressed when the job restores
+     * from the snapshot. The snapshot maps are kept in memory including their
+     * backups, so compression reduces the memory used by the snapshots at the
+     * cost of CPU time when taking the snapshot. A chunk that doesn't get
+     * smaller is stored uncompressed. The metrics {@code snapshotRawBytes} and
+     * {@code snapshotStoredBytes} of each vertex show the effect.
+     * <p>
+     * The compression type is stored with the data, the setting can be
+     * changed when the job is restarted from an exported snapshot.
+     * <p>
+     * The default value is {@link CompressionType#NONE}.
+     *
+     * @return {@code this} instance for fluent API
+     */
+    @Nonnull
+    public JobConfig setSnapshotCompression(@Nonnull CompressionType compression) {
+        checkNotNull(compression, "compression");
+        this.snapshotCompression = compression;
+        return this;
+    }
+
     /**
      * Adds the supplied classes to the list of resources that will be
      * available on the job's classpath while it's executing in the Jet
@@ -412,4 +562,127 @@ public class JobConfig implements Serializable {
         this.initialSnapshotName = initialSnapshotName;
         return this;
     }
+
+    /**
+     * Returns the configured {@linkplain #setGroupSpillThreshold(long) group
+     * spill threshold}.
+     */
+    public long getGroupSpillThreshold() {
+        return groupSpillThreshold;
+    }
+
+    /**
+     * Sets the maximum number of groups a batch group-and-aggregate
+     * processor keeps in memory. When there are more groups, the processor
+     * writes all of them to the local disk and starts over with an empty
+     * map. In the completing phase it merges the spilled accumulators using
+     * the aggregate operation's {@code combineFn}. The spilled data is
+     * partitioned by key so that only a fraction of the groups is in memory
+     * at a time during the merge.
+     * <p>
+     * Aggregate operations without a {@code combineFn} are never spilled.
+     * The keys and accumulators must be serializable.
+     * <p>
+     * The default value is 0, which disables spilling.
+     *
+     * @return {@code this} instance for fluent API
+     */
+    @Nonnull
+    public JobConfig setGroupSpillThreshold(long groupCount) {
+        Preconditions.checkNotNegative(groupCount, "groupCount can't be negative");
+        this.groupSpillThreshold = groupCount;
+        return this;
+    }
+
+    /**
+     * Returns the configured {@linkplain #setSortSpillThreshold(long) sort
+     * spill threshold}.
+     */
+    public long getSortSpillThreshold() {
+        return sortSpillThreshold;
+    }
+
+    /**
+     * Sets the maximum number of items a processor of a {@linkplain
+     * com.hazelcast.jet.pipeline.BatchStage#sort sort stage} keeps in
+     * memory. When there are more items, the processor sorts them and writes
+     * them to the local disk as a sorted run. In the completing phase it
+     * merges the runs, a bounded number at a time. The threshold also limits
+     * the items a processor routing them to the sorting processors buffers
+     * in memory before all the input was sampled.
+     * <p>
+     * The items must be serializable.
+     * <p>
+     * The default value is 0, which disables spilling of the sorted runs.
+     * The routing processors then buffer a fixed number of items in memory
+     * and spill the rest.
+     *
+     * @return {@code this} instance for fluent API
+     */
+    @Nonnull
+    public JobConfig setSortSpillThreshold(long itemCount) {
+        Preconditions.checkNotNegative(itemCount, "itemCount can't be negative");
+        this.sortSpillThreshold = itemCount;
+        return this;
+    }
+
+    /**
+     * Returns the configured {@linkplain #setJoinSpillThreshold(long) join
+     * spill threshold}.
+     */
+    public long getJoinSpillThreshold() {
+        return joinSpillThreshold;
+    }
+
+    /**
+     * Sets the maximum number of enriching items a processor of a
+     * partitioned {@linkplain com.hazelcast.jet.pipeline.JoinClause#withRightSizeHint
+     * hash-join} keeps in memory. When there are more, the processor
+     * switches to a grace hash join: it writes the enriching items and then
+     * the primary items to the local disk, partitioned by the join key, and
+     * in the completing phase joins one partition at a time. A partition
+     * that still has more enriching items than the threshold is split
+     * again, using a different hash function.
+     * <p>
+     * Only joins of a bounded primary stream spill, in a streaming job the
+     * setting is ignored. The items must be serializable.
+     * <p>
+     * The default value is 0, which disables spilling.
+     *
+     * @return {@code this} instance for fluent API
+     */
+    @Nonnull
+    public JobConfig setJoinSpillThreshold(long itemCount) {
+        Preconditions.checkNotNegative(itemCount, "itemCount can't be negative");
+        this.joinSpillThreshold = itemCount;
+        return this;
+    }
+
+    /**
+     * Returns the configured {@linkplain #setSpillDirectory(String) spill
+     * directory} or {@code null} if none is configured.
+     */
+    @Nullable
+    public String getSpillDirectory() {
+        return spillDirectory;
+    }
+
+    /**
+     * Sets the directory on the members' local disk where the processors
+     * write the data that doesn't fit into the {@linkplain
+     * #setGroupSpillThreshold(long) memory budget} of group, {@linkplain
+     * #setSortSpillThreshold(long) sort} or {@linkplain
+     * #setJoinSpillThreshold(long) hash-join} processors. Each processor creates a
+     * subdirectory and deletes it when it completes. If {@code null}, the
+     * directory in the {@code java.io.tmpdir} system property is used.
+     * <p>
+     * The default value is {@code null}.
+     *
+     * @return {@code this} instance for fluent API
+     */
+    @Nonnull
+    public JobConfig setSpillDirectory(@Nullable String spillDirectory) {
+        this.spillDirectory = spillDirectory;
+        return this;
+    }
 }
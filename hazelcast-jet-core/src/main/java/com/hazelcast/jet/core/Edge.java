@@ -73,6 +73,7 @@ public class Edge implements IdentifiedDataSerializable {
     private boolean isDistributed;
     private Partitioner<?> partitioner;
     private RoutingPolicy routingPolicy = RoutingPolicy.UNICAST;
+    private boolean isSplittingHotKeys;
 
     private EdgeConfig config;
 
@@ -368,6 +369,36 @@ public class Edge implements IdentifiedDataSerializable {
         return isDistributed;
     }
 
+    /**
+     * Allows the edge to split the items of a hot partition among all the
+     * downstream processors. Each upstream processor samples the partitions of
+     * the items it emits and, if it detects a partition that receives
+     * substantially more than the fair share of items, it stops routing that
+     * partition's items to a single processor and distributes them
+     * round-robin. This effectively salts the keys in the hot partition with
+     * the downstream processor index.
+     * <p>
+     * The option has effect only on a local edge with the {@link
+     * RoutingPolicy#PARTITIONED PARTITIONED} routing policy. It is only valid
+     * if the downstream vertex doesn't rely on observing all the items with
+     * the same key, for example if it is the first stage of a two-stage
+     * aggregation that is followed by a stage which combines the partial
+     * results by key.
+     */
+    @Nonnull
+    public Edge splitHotKeys() {
+        isSplittingHotKeys = true;
+        return this;
+    }
+
+    /**
+     * Says whether this edge can split hot keys. The effects of this property
+     * are discussed in {@link #splitHotKeys()}.
+     */
+    public boolean isSplittingHotKeys() {
+        return isSplittingHotKeys;
+    }
+
     /**
      * Returns the {@code EdgeConfig} instance associated with this edge.
      * Default value is {@code null}.
@@ -426,6 +457,9 @@ public class Edge implements IdentifiedDataSerializable {
         if (getPriority() != 0) {
             b.append(".priority(").append(getPriority()).append(')');
         }
+        if (isSplittingHotKeys()) {
+            b.append(".splitHotKeys()");
+        }
         return b.toString();
     }
 
@@ -460,6 +494,7 @@ public class Edge implements IdentifiedDataSerializable {
         out.writeInt(getDestOrdinal());
         out.writeInt(getPriority());
         out.writeBoolean(isDistributed());
+        out.writeBoolean(isSplittingHotKeys());
         out.writeObject(getRoutingPolicy());
         CustomClassLoadedObject.write(out, getPartitioner());
         out.writeObject(getConfig());
@@ -473,6 +508,7 @@ public class Edge implements IdentifiedDataSerializable {
         destOrdinal = in.readInt();
         priority = in.readInt();
         isDistributed = in.readBoolean();
+        isSplittingHotKeys = in.readBoolean();
         routingPolicy = in.readObject();
         try {
             partitioner = CustomClassLoadedObject.read(in);
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.core;
+
+import com.hazelcast.core.IMap;
+import com.hazelcast.nio.serialization.Data;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Stores the chunks of the job snapshots and reads them back when a job
+ * restores from a snapshot. The snapshot {@code IMap} always holds the key
+ * of each chunk, the value is either the chunk itself or a reference to
+ * where the store keeps it. The reference must be serializable by
+ * Hazelcast, it's stored in the map and read on any member.
+ * <p>
+ * A custom store is configured with {@link
+ * com.hazelcast.jet.config.InstanceConfig#setSnapshotChunkStoreFactory}.
+ * Otherwise the member writes the chunks to files, if the {@linkplain
+ * com.hazelcast.jet.config.InstanceConfig#setSnapshotDirectory(String)
+ * snapshot directory} is set, or into the map. The configuration must be
+ * the same on all members. Exported snapshots are always stored in the
+ * map, so that they don't depend on the store.
+ * <p>
+ * Each member has one instance, it's used concurrently by the snapshot
+ * tasklets of all jobs. The tasklets run on cooperative threads: the
+ * methods must not block, the I/O must be done asynchronously and the
+ * returned futures can be completed on any thread.
+ */
+public interface SnapshotChunkStore {
+
+    /**
+     * Stores the chunk and puts the value referring to it to the snapshot
+     * map under the given key. The returned future is completed, when both
+     * are done, with the previous value in the map.
+     *
+     * @param map   the snapshot map
+     * @param key   the key of the chunk in the map
+     * @param chunk a serialized {@code byte[]} with the entries of the chunk
+     */
+    @Nonnull
+    CompletableFuture<Object> put(@Nonnull IMap<Object, Object> map, @Nonnull Object key, @Nonnull Data chunk);
+
+    /**
+     * Returns the chunk for a value {@link #put} to the snapshot map: the
+     * bytes of the serialized chunk, as {@link Data#toByteArray()} returns
+     * them. Not called for the chunks stored in the map itself.
+     */
+    @Nonnull
+    CompletableFuture<byte[]> read(@Nonnull Object value);
+
+    /**
+     * Deletes the chunks stored for the given snapshot map. Called on all
+     * members, when the map is cleared or destroyed.
+     */
+    void delete(@Nonnull String mapName);
+
+    /**
+     * Releases the resources of the store when the member shuts down.
+     */
+    default void close() {
+    }
+}
@@ -17,6 +17,7 @@
 package com.hazelcast.jet.core.test;
 
 import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.config.JobConfig;
 import com.hazelcast.jet.config.ProcessingGuarantee;
 import com.hazelcast.jet.core.Processor;
 import com.hazelcast.logging.ILogger;
@@ -99,6 +100,11 @@ public class TestProcessorContext extends TestProcessorSupplierContext implement
         return (TestProcessorContext) super.setProcessingGuarantee(processingGuarantee);
     }
 
+    @Nonnull @Override
+    public TestProcessorContext setJobConfig(@Nonnull JobConfig jobConfig) {
+        return (TestProcessorContext) super.setJobConfig(jobConfig);
+    }
+
     @Override
     protected String loggerName() {
         return vertexName() + "#" + globalProcessorIndex;
@@ -17,6 +17,7 @@
 package com.hazelcast.jet.core.test;
 
 import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.config.JobConfig;
 import com.hazelcast.jet.config.ProcessingGuarantee;
 import com.hazelcast.jet.core.ProcessorSupplier;
 import com.hazelcast.logging.ILogger;
@@ -62,6 +63,11 @@ public class TestProcessorSupplierContext
         return (TestProcessorSupplierContext) super.setProcessingGuarantee(processingGuarantee);
     }
 
+    @Nonnull @Override
+    public TestProcessorSupplierContext setJobConfig(@Nonnull JobConfig jobConfig) {
+        return (TestProcessorSupplierContext) super.setJobConfig(jobConfig);
+    }
+
     @Override
     public int memberIndex() {
         assert memberIndex >= 0 && memberIndex < memberCount()
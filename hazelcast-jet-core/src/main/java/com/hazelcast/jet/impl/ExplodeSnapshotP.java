@@ -18,30 +18,56 @@ package com.hazelcast.jet.impl;
 
 import com.hazelcast.instance.HazelcastInstanceImpl;
 import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.HeapData;
 import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.config.CompressionType;
 import com.hazelcast.jet.core.AbstractProcessor;
 import com.hazelcast.jet.core.BroadcastKey;
+import com.hazelcast.jet.core.SnapshotChunkStore;
 import com.hazelcast.jet.impl.execution.BroadcastEntry;
+import com.hazelcast.jet.impl.execution.InFlightItemKey;
+import com.hazelcast.jet.impl.execution.SnapshotTombstone;
+import com.hazelcast.jet.impl.execution.VersionedSnapshotValue;
 import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataKey;
 import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataValueTerminator;
+import com.hazelcast.jet.impl.util.BlockCodec;
+import com.hazelcast.nio.Bits;
 import com.hazelcast.nio.BufferObjectDataInput;
 
 import javax.annotation.Nonnull;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
 
 import static com.hazelcast.jet.Util.entry;
 import static com.hazelcast.jet.impl.util.Util.uncheckCall;
 
 public class ExplodeSnapshotP extends AbstractProcessor {
 
-    private final Map<String, FlatMapper<byte[], Object>> vertexToFlatMapper = new HashMap<>();
+    private final Map<String, FlatMapper<Entry<SnapshotDataKey, byte[]>, Object>> vertexToFlatMapper = new HashMap<>();
     private final long expectedSnapshotId;
+    private final long baseSnapshotId;
+    private final Map<CompressionType, BlockCodec> codecs = new EnumMap<>(CompressionType.class);
     private InternalSerializationService serializationService;
+    private SnapshotChunkStore chunkStore;
+    private CompletableFuture<byte[]> pendingRead;
+    private Entry<SnapshotDataKey, byte[]> resolvedChunk;
 
-    ExplodeSnapshotP(Map<String, Integer> vertexToOrdinal, long expectedSnapshotId) {
+    /**
+     * @param expectedSnapshotId the ID of the snapshot to restore
+     * @param baseSnapshotId the ID of the last full snapshot. If it's lower
+     *      than {@code expectedSnapshotId}, the snapshot is incremental: the
+     *      {@linkplain SnapshotDataKey#isIncremental() incremental} chunks of
+     *      all the snapshots since the base are restored and their values are
+     *      wrapped in {@link VersionedSnapshotValue}s
+     */
+    public ExplodeSnapshotP(Map<String, Integer> vertexToOrdinal, long expectedSnapshotId, long baseSnapshotId) {
+        assert baseSnapshotId <= expectedSnapshotId
+                : "baseSnapshotId=" + baseSnapshotId + ", expectedSnapshotId=" + expectedSnapshotId;
         this.expectedSnapshotId = expectedSnapshotId;
+        this.baseSnapshotId = baseSnapshotId;
         for (Entry<String, Integer> en : vertexToOrdinal.entrySet()) {
             Object oldValue = vertexToFlatMapper.put(en.getKey(), flatMapper(en.getValue(), this::traverser));
             assert oldValue == null : "Duplicate ordinal: " + en.getValue();
@@ -50,35 +76,72 @@ public class ExplodeSnapshotP extends AbstractProcessor {
 
     @Override
     protected void init(@Nonnull Context context) {
-        serializationService =
-                ((HazelcastInstanceImpl) context.jetInstance().getHazelcastInstance()).getSerializationService();
+        HazelcastInstanceImpl hzInstance = (HazelcastInstanceImpl) context.jetInstance().getHazelcastInstance();
+        serializationService = hzInstance.getSerializationService();
+        JetService jetService = hzInstance.node.nodeEngine.getService(JetService.SERVICE_NAME);
+        chunkStore = jetService.getSnapshotChunkStore();
     }
 
-    private Traverser<Object> traverser(byte[] data) {
-        BufferObjectDataInput in = serializationService.createObjectDataInput(data);
+    @Override
+    public void close() {
+        codecs.values().forEach(BlockCodec::close);
+    }
+
+    private Traverser<Object> traverser(Entry<SnapshotDataKey, byte[]> chunk) {
+        BufferObjectDataInput in = serializationService.createObjectDataInput(decompress(chunk));
+        long snapshotId = chunk.getKey().snapshotId();
+        boolean versioned = chunk.getKey().isIncremental() && baseSnapshotId != expectedSnapshotId;
 
         return () -> uncheckCall(() -> {
-            Object key = in.readObject();
-            if (key == SnapshotDataValueTerminator.INSTANCE) {
-                in.close();
-                return null;
+            for (;;) {
+                Object key = in.readObject();
+                if (key == SnapshotDataValueTerminator.INSTANCE) {
+                    in.close();
+                    return null;
+                }
+                Object value = in.readObject();
+                if (key instanceof InFlightItemKey) {
+                    // the in-flight items were processed after the snapshot that saved them,
+                    // only those of the restored snapshot are processed again
+                    if (snapshotId != expectedSnapshotId) {
+                        continue;
+                    }
+                } else if (versioned) {
+                    value = new VersionedSnapshotValue(snapshotId, value == SnapshotTombstone.INSTANCE ? null : value);
+                }
+                return key instanceof BroadcastKey
+                        ? new BroadcastEntry(key, value)
+                        : entry(key, value);
             }
-            Object value = in.readObject();
-            return key instanceof BroadcastKey
-                    ? new BroadcastEntry(key, value)
-                    : entry(key, value);
         });
     }
 
+    /**
+     * Returns the uncompressed chunk. See {@link
+     * com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl} for the format.
+     */
+    public byte[] decompress(@Nonnull Entry<SnapshotDataKey, byte[]> chunk) {
+        CompressionType compression = chunk.getKey().compression();
+        byte[] bytes = chunk.getValue();
+        if (compression == CompressionType.NONE) {
+            return bytes;
+        }
+        BlockCodec codec = codecs.computeIfAbsent(compression, BlockCodec::newCodec);
+        byte[] chunkBytes = new byte[Bits.readInt(bytes, 0, true)];
+        codec.decompress(bytes, Bits.INT_SIZE_IN_BYTES, bytes.length - Bits.INT_SIZE_IN_BYTES,
+                chunkBytes, 0, chunkBytes.length);
+        return chunkBytes;
+    }
+
     @Override
     protected boolean tryProcess0(@Nonnull Object item) {
         if (((Entry) item).getKey() instanceof SnapshotValidationRecord.SnapshotValidationKey) {
             // ignore the validation record
             return true;
         }
-        Entry<SnapshotDataKey, byte[]> casted = (Entry<SnapshotDataKey, byte[]>) item;
+        Entry<SnapshotDataKey, Object> casted = (Entry<SnapshotDataKey, Object>) item;
         String vertexName = casted.getKey().vertexName();
-        FlatMapper<byte[], Object> flatMapper = vertexToFlatMapper.get(vertexName);
+        FlatMapper<Entry<SnapshotDataKey, byte[]>, Object> flatMapper = vertexToFlatMapper.get(vertexName);
         if (flatMapper == null) {
             if (!vertexToFlatMapper.containsKey(vertexName)) {
                 // log only once
@@ -88,11 +151,46 @@ public class ExplodeSnapshotP extends AbstractProcessor {
             return true;
         }
         long snapshotId = casted.getKey().snapshotId();
-        if (snapshotId != expectedSnapshotId) {
-            getLogger().warning("Data for unexpected snapshot ID encountered, ignoring. Expected="
-                    + expectedSnapshotId + ", found=" + snapshotId);
+        boolean isCurrent = casted.getKey().isIncremental()
+                ? snapshotId >= baseSnapshotId && snapshotId <= expectedSnapshotId
+                : snapshotId == expectedSnapshotId;
+        if (!isCurrent) {
+            // a vertex without incremental snapshots saves its whole state in each snapshot,
+            // its chunks from the earlier snapshots since the base are expected
+            if (snapshotId < baseSnapshotId || snapshotId > expectedSnapshotId) {
+                getLogger().warning("Data for unexpected snapshot ID encountered, ignoring. Expected="
+                        + expectedSnapshotId + ", found=" + snapshotId);
+            }
             return true;
         }
-        return flatMapper.tryProcess(casted.getValue());
+        Entry<SnapshotDataKey, byte[]> chunk = resolveChunk(casted);
+        if (chunk == null || !flatMapper.tryProcess(chunk)) {
+            return false;
+        }
+        resolvedChunk = null;
+        return true;
+    }
+
+    /**
+     * Returns the chunk with its contents or {@code null}, if they are still
+     * being read from the {@link SnapshotChunkStore}. The map contains the
+     * contents only if the chunks aren't stored outside of it.
+     */
+    @SuppressWarnings("unchecked")
+    private Entry<SnapshotDataKey, byte[]> resolveChunk(Entry<SnapshotDataKey, Object> item) {
+        if (item.getValue() instanceof byte[]) {
+            return (Entry) item;
+        }
+        if (resolvedChunk == null) {
+            if (pendingRead == null) {
+                pendingRead = chunkStore.read(item.getValue());
+            }
+            if (!pendingRead.isDone()) {
+                return null;
+            }
+            resolvedChunk = entry(item.getKey(), serializationService.toObject(new HeapData(pendingRead.join())));
+            pendingRead = null;
+        }
+        return resolvedChunk;
     }
 }
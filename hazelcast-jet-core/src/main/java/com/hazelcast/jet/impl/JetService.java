@@ -18,15 +18,21 @@ package com.hazelcast.jet.impl;
 
 import com.hazelcast.client.impl.ClientEngineImpl;
 import com.hazelcast.core.ExecutionCallback;
+import com.hazelcast.core.Member;
 import com.hazelcast.instance.HazelcastInstanceImpl;
 import com.hazelcast.internal.partition.InternalPartitionService;
 import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.config.InstanceConfig;
 import com.hazelcast.jet.config.JetConfig;
 import com.hazelcast.jet.config.JobConfig;
 import com.hazelcast.jet.core.JobNotFoundException;
+import com.hazelcast.jet.core.SnapshotChunkStore;
 import com.hazelcast.jet.impl.execution.TaskletExecutionService;
+import com.hazelcast.jet.impl.operation.DeleteSnapshotChunksOperation;
 import com.hazelcast.jet.impl.operation.NotifyMemberShutdownOperation;
 import com.hazelcast.jet.impl.util.ExceptionUtil;
+import com.hazelcast.jet.impl.util.LocalDiskSnapshotChunkStore;
+import com.hazelcast.jet.impl.util.MapSnapshotChunkStore;
 import com.hazelcast.jet.impl.util.Util;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.nio.Packet;
@@ -42,6 +48,7 @@ import com.hazelcast.spi.Operation;
 import com.hazelcast.spi.impl.NodeEngineImpl;
 
 import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.Properties;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -78,6 +85,7 @@ public class JetService
     private JobRepository jobRepository;
     private JobCoordinationService jobCoordinationService;
     private JobExecutionService jobExecutionService;
+    private SnapshotChunkStore snapshotChunkStore;
 
     private final AtomicInteger numConcurrentAsyncOps = new AtomicInteger();
 
@@ -105,10 +113,13 @@ public class JetService
         }
 
         jetInstance = new JetInstanceImpl((HazelcastInstanceImpl) engine.getHazelcastInstance(), config);
-        taskletExecutionService = new TaskletExecutionService(nodeEngine,
-                config.getInstanceConfig().getCooperativeThreadCount());
+        taskletExecutionService = new TaskletExecutionService(nodeEngine, config.getInstanceConfig());
 
         jobRepository = new JobRepository(jetInstance);
+        snapshotChunkStore = createSnapshotChunkStore(config.getInstanceConfig());
+        if (snapshotChunkStore != MapSnapshotChunkStore.INSTANCE) {
+            jobRepository.setSnapshotChunkDeleter(this::deleteSnapshotChunks);
+        }
 
         jobExecutionService = new JobExecutionService(nodeEngine, taskletExecutionService, jobRepository);
         jobCoordinationService = new JobCoordinationService(nodeEngine, this, config, jobRepository);
@@ -179,6 +190,7 @@ public class JetService
         taskletExecutionService.shutdown(false);
         taskletExecutionService.awaitWorkerTermination();
         networking.shutdown();
+        snapshotChunkStore.close();
     }
 
     @Override
@@ -207,6 +219,41 @@ public class JetService
         return jobExecutionService;
     }
 
+    public SnapshotChunkStore getSnapshotChunkStore() {
+        return snapshotChunkStore;
+    }
+
+    private SnapshotChunkStore createSnapshotChunkStore(InstanceConfig instanceConfig) {
+        if (instanceConfig.getSnapshotChunkStoreFactory() != null) {
+            SnapshotChunkStore store = instanceConfig.getSnapshotChunkStoreFactory().apply(jetInstance);
+            logger.info("Storing the snapshot data in " + store);
+            return store;
+        }
+        if (instanceConfig.getSnapshotDirectory() != null) {
+            return new LocalDiskSnapshotChunkStore(nodeEngine, Paths.get(instanceConfig.getSnapshotDirectory()));
+        }
+        return MapSnapshotChunkStore.INSTANCE;
+    }
+
+    /**
+     * Deletes the snapshot chunks stored for the given snapshot map on all
+     * members. Failures are only logged. The files of a member that isn't
+     * in the cluster stay on its disk until the map is cleared again while
+     * a member using its directory is.
+     */
+    private void deleteSnapshotChunks(String mapName) {
+        for (Member member : nodeEngine.getClusterService().getMembers()) {
+            Operation op = new DeleteSnapshotChunksOperation(mapName);
+            try {
+                nodeEngine.getOperationService()
+                          .invokeOnTarget(JetService.SERVICE_NAME, op, member.getAddress())
+                          .join();
+            } catch (Exception e) {
+                logger.warning("Failed to delete snapshot chunks of " + mapName + " on " + member, e);
+            }
+        }
+    }
+
     /**
      * Returns the job config or fails with {@link JobNotFoundException}
      * if the requested job is not found.
@@ -241,6 +288,9 @@ public class JetService
     public void memberRemoved(MembershipServiceEvent event) {
         jobExecutionService.onMemberLeave(event.getMember().getAddress());
         jobCoordinationService.onMemberLeave(event.getMember().getUuid());
+        if (snapshotChunkStore instanceof LocalDiskSnapshotChunkStore) {
+            ((LocalDiskSnapshotChunkStore) snapshotChunkStore).onMemberLeave(event.getMember().getAddress());
+        }
     }
 
     @Override
@@ -57,6 +57,7 @@ public class JobExecutionRecord implements IdentifiedDataSerializable {
     private volatile long ongoingSnapshotId = NO_SNAPSHOT;
     private volatile long ongoingSnapshotStartTime = Long.MIN_VALUE;
     private volatile String exportedSnapshotMapName;
+    private volatile boolean ongoingSnapshotIncremental;
     @Nullable
     private volatile String lastSnapshotFailure;
     @Nullable
@@ -100,10 +101,11 @@ public class JobExecutionRecord implements IdentifiedDataSerializable {
     @SuppressWarnings("NonAtomicOperationOnVolatileField")
     @SuppressFBWarnings(value = "VO_VOLATILE_INCREMENT",
             justification = "all updates to ongoingSnapshotId are synchronized")
-    public void startNewSnapshot(String exportedSnapshotMapName) {
+    public void startNewSnapshot(String exportedSnapshotMapName, boolean incremental) {
         ongoingSnapshotId++;
         ongoingSnapshotStartTime = Clock.currentTimeMillis();
         this.exportedSnapshotMapName = exportedSnapshotMapName;
+        this.ongoingSnapshotIncremental = incremental;
     }
 
     public SnapshotStats ongoingSnapshotDone(long numBytes, long numKeys, long numChunks, @Nullable String failureText) {
@@ -111,13 +113,17 @@ public class JobExecutionRecord implements IdentifiedDataSerializable {
         SnapshotStats res = new SnapshotStats(
                 ongoingSnapshotId, ongoingSnapshotStartTime, Clock.currentTimeMillis(), numBytes, numKeys, numChunks
         );
-        // switch dataMapIndex only if the snapshot was successful and it wasn't an exported one
+        // switch dataMapIndex only if the snapshot was successful and it wasn't an exported one.
+        // An incremental snapshot is written to the current data map.
         if (failureText == null && exportedSnapshotMapName == null) {
-            dataMapIndex = ongoingDataMapIndex();
+            if (!ongoingSnapshotIncremental) {
+                dataMapIndex = ongoingDataMapIndex();
+            }
             snapshotId = ongoingSnapshotId;
             snapshotStats = res;
         }
         exportedSnapshotMapName = null;
+        ongoingSnapshotIncremental = false;
         ongoingSnapshotStartTime = Long.MIN_VALUE;
         return res;
     }
@@ -175,6 +181,14 @@ public class JobExecutionRecord implements IdentifiedDataSerializable {
         return exportedSnapshotMapName;
     }
 
+    /**
+     * Returns true while writing an incremental snapshot, that is one that
+     * is stored on top of the current successful snapshot.
+     */
+    public boolean ongoingSnapshotIncremental() {
+        return ongoingSnapshotIncremental;
+    }
+
     /**
      * Stats for the last successful snapshot (except for the exported ones).
      * {@code null} if no successful snapshot exists.
@@ -238,6 +252,7 @@ public class JobExecutionRecord implements IdentifiedDataSerializable {
         out.writeObject(lastSnapshotFailure);
         out.writeObject(snapshotStats);
         out.writeObject(exportedSnapshotMapName);
+        out.writeBoolean(ongoingSnapshotIncremental);
         out.writeBoolean(suspended);
         out.writeLong(timestamp.get());
     }
@@ -253,6 +268,7 @@ public class JobExecutionRecord implements IdentifiedDataSerializable {
         lastSnapshotFailure = in.readObject();
         snapshotStats = in.readObject();
         exportedSnapshotMapName = in.readObject();
+        ongoingSnapshotIncremental = in.readBoolean();
         suspended = in.readBoolean();
         timestamp.set(in.readLong());
     }
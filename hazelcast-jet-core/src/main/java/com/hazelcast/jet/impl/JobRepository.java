@@ -51,6 +51,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.jar.JarEntry;
 import java.util.jar.JarInputStream;
 import java.util.zip.DeflaterOutputStream;
@@ -143,6 +144,9 @@ public class JobRepository {
      */
     private final Set<Long> deletedJobs = newSetFromMap(new ConcurrentHashMap<>());
 
+    // deletes the chunks a snapshot map refers to, if they are stored outside of it
+    private Consumer<String> snapshotChunkDeleter = mapName -> { };
+
     public JobRepository(JetInstance jetInstance) {
         this.instance = jetInstance.getHazelcastInstance();
         this.logger = instance.getLoggingService().getLogger(getClass());
@@ -154,6 +158,10 @@ public class JobRepository {
         this.exportedSnapshotDetailsCache = instance.getMap(EXPORTED_SNAPSHOTS_DETAIL_CACHE);
     }
 
+    void setSnapshotChunkDeleter(Consumer<String> snapshotChunkDeleter) {
+        this.snapshotChunkDeleter = snapshotChunkDeleter;
+    }
+
     // for tests
     void setResourcesExpirationMillis(long resourcesExpirationMillis) {
         this.resourcesExpirationMillis = resourcesExpirationMillis;
@@ -453,8 +461,11 @@ public class JobRepository {
      * Delete all snapshots for a given job.
      */
     private void destroySnapshotDataMaps(long jobId) {
-        instance.getMap(snapshotDataMapName(jobId, 0)).destroy();
-        instance.getMap(snapshotDataMapName(jobId, 1)).destroy();
+        for (int i = 0; i < 2; i++) {
+            String mapName = snapshotDataMapName(jobId, i);
+            instance.getMap(mapName).destroy();
+            snapshotChunkDeleter.accept(mapName);
+        }
         logFine(logger, "Destroyed both snapshot maps for job %s", idToString(jobId));
     }
 
@@ -462,6 +473,7 @@ public class JobRepository {
         String mapName = snapshotDataMapName(jobId, dataMapIndex);
         try {
             instance.getMap(mapName).clear();
+            snapshotChunkDeleter.accept(mapName);
             logFine(logger, "Cleared snapshot data map %s", mapName);
         } catch (Exception logged) {
             logger.warning("Cannot delete old snapshot data  " + idToString(jobId), logged);
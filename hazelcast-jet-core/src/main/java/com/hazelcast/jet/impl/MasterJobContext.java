@@ -24,8 +24,10 @@ import com.hazelcast.internal.cluster.impl.ClusterServiceImpl;
 import com.hazelcast.internal.cluster.impl.MembersView;
 import com.hazelcast.jet.Job;
 import com.hazelcast.jet.core.DAG;
+import com.hazelcast.jet.core.DefaultPartitionStrategy;
 import com.hazelcast.jet.core.Edge;
 import com.hazelcast.jet.core.JobStatus;
+import com.hazelcast.jet.core.Partitioner;
 import com.hazelcast.jet.core.TopologyChangedException;
 import com.hazelcast.jet.core.Vertex;
 import com.hazelcast.jet.datamodel.Tuple2;
@@ -33,6 +35,7 @@ import com.hazelcast.jet.impl.TerminationMode.ActionAfterTerminate;
 import com.hazelcast.jet.impl.exception.JobTerminateRequestedException;
 import com.hazelcast.jet.impl.exception.ShutdownInProgressException;
 import com.hazelcast.jet.impl.exception.TerminatedWithSnapshotException;
+import com.hazelcast.jet.impl.execution.InFlightItemKey;
 import com.hazelcast.jet.impl.execution.init.ExecutionPlan;
 import com.hazelcast.jet.impl.operation.CompleteExecutionOperation;
 import com.hazelcast.jet.impl.operation.InitExecutionOperation;
@@ -338,8 +341,13 @@ public class MasterJobContext {
 
     private void rewriteDagWithSnapshotRestore(DAG dag, long snapshotId, String mapName) {
         IMap<Object, Object> snapshotMap = mc.nodeEngine().getHazelcastInstance().getMap(mapName);
-        snapshotId = SnapshotValidator.validateSnapshot(snapshotId, mc.jobIdString(), snapshotMap);
-        logger.info("State of " + mc.jobIdString() + " will be restored from snapshot " + snapshotId + ", map=" + mapName);
+        SnapshotValidationRecord validationRecord =
+                SnapshotValidator.validateSnapshot(snapshotId, mc.jobIdString(), snapshotMap);
+        snapshotId = validationRecord.snapshotId();
+        long baseSnapshotId = validationRecord.baseSnapshotId();
+        logger.info("State of " + mc.jobIdString() + " will be restored from snapshot " + snapshotId
+                + (baseSnapshotId != snapshotId ? " (incremental on top of snapshot " + baseSnapshotId + ')' : "")
+                + ", map=" + mapName);
 
         List<Vertex> originalVertices = new ArrayList<>();
         dag.iterator().forEachRemaining(originalVertices::add);
@@ -349,7 +357,7 @@ public class MasterJobContext {
                 readMapP(mapName));
         long finalSnapshotId = snapshotId;
         Vertex explodeVertex = dag.newVertex(SNAPSHOT_VERTEX_PREFIX + "explode",
-                () -> new ExplodeSnapshotP(vertexToOrdinal, finalSnapshotId));
+                () -> new ExplodeSnapshotP(vertexToOrdinal, finalSnapshotId, baseSnapshotId));
         dag.edge(between(readSnapshotVertex, explodeVertex).isolated());
 
         int index = 0;
@@ -775,7 +783,7 @@ public class MasterJobContext {
         SnapshotRestoreEdge(Vertex source, int sourceOrdinal, Vertex destination, int destOrdinal) {
             super(source, sourceOrdinal, destination, destOrdinal);
             distributed();
-            partitioned(entryKey());
+            partitioned(entryKey(), new SnapshotRestorePartitioner());
         }
 
         @Override
@@ -784,6 +792,29 @@ public class MasterJobContext {
         }
     }
 
+    /**
+     * Routes the {@link InFlightItemKey}s of unaligned snapshots to the
+     * partition they were saved with, other keys to their default partition.
+     */
+    static class SnapshotRestorePartitioner implements Partitioner<Object> {
+
+        private static final long serialVersionUID = 1L;
+
+        private transient DefaultPartitionStrategy defaultPartitioning;
+
+        @Override
+        public void init(@Nonnull DefaultPartitionStrategy strat) {
+            this.defaultPartitioning = strat;
+        }
+
+        @Override
+        public int getPartition(@Nonnull Object key, int partitionCount) {
+            return key instanceof InFlightItemKey
+                    ? ((InFlightItemKey) key).partitionId()
+                    : defaultPartitioning.getPartition(key);
+        }
+    }
+
     /**
      * Registered to {@link StartExecutionOperation} invocations to cancel invocations in case of a failure or restart
      */
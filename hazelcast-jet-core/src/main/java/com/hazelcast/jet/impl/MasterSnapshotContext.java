@@ -20,13 +20,18 @@ import com.hazelcast.core.IMap;
 import com.hazelcast.internal.cluster.MemberInfo;
 import com.hazelcast.jet.JetException;
 import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.config.EdgeConfig;
+import com.hazelcast.jet.config.JobConfig;
+import com.hazelcast.jet.core.DAG;
 import com.hazelcast.jet.core.JobStatus;
+import com.hazelcast.jet.core.Vertex;
 import com.hazelcast.jet.datamodel.Tuple3;
 import com.hazelcast.jet.impl.JobExecutionRecord.SnapshotStats;
 import com.hazelcast.jet.impl.execution.init.ExecutionPlan;
 import com.hazelcast.jet.impl.operation.SnapshotOperation;
 import com.hazelcast.jet.impl.operation.SnapshotOperation.SnapshotOperationResult;
 import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl;
+import com.hazelcast.jet.impl.util.MapSnapshotChunkStore;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.spi.Operation;
 
@@ -39,9 +44,12 @@ import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 
 import static com.hazelcast.jet.Util.idToString;
+import static com.hazelcast.jet.core.Edge.between;
 import static com.hazelcast.jet.core.JobStatus.RUNNING;
 import static com.hazelcast.jet.core.JobStatus.SUSPENDED;
 import static com.hazelcast.jet.core.JobStatus.SUSPENDED_EXPORTING_SNAPSHOT;
+import static com.hazelcast.jet.core.processor.SinkProcessors.writeMapP;
+import static com.hazelcast.jet.core.processor.SourceProcessors.readMapP;
 import static com.hazelcast.jet.datamodel.Tuple3.tuple3;
 import static com.hazelcast.jet.impl.JobRepository.EXPORTED_SNAPSHOTS_PREFIX;
 import static com.hazelcast.jet.impl.JobRepository.exportedSnapshotMapName;
@@ -69,6 +77,19 @@ class MasterSnapshotContext {
      */
     private boolean snapshotInProgress;
 
+    /**
+     * True if the last snapshot in the current execution was a successful
+     * regular (not exported) snapshot. Only then the processors track the
+     * changes since a snapshot stored in the current data map and the next
+     * snapshot can be incremental.
+     */
+    private boolean hasIncrementalBase;
+
+    /**
+     * The number of incremental snapshots since the last full snapshot.
+     */
+    private int numIncrementalSnapshots;
+
     /**
      * A future (re)created when the job is started and completed when terminal
      * snapshot is completed (successfully or not).
@@ -130,8 +151,12 @@ class MasterSnapshotContext {
         if (localStatus == SUSPENDED_EXPORTING_SNAPSHOT) {
             String sourceMapName = mc.jobExecutionRecord().successfulSnapshotDataMapName(mc.jobId());
             String targetMapName = EXPORTED_SNAPSHOTS_PREFIX + name;
-            JetInstance jetInstance = mc.coordinationService().getJetService().getJetInstance();
-            return copyMapUsingJob(jetInstance, COPY_MAP_JOB_QUEUE_SIZE, sourceMapName, targetMapName)
+            JetService jetService = mc.coordinationService().getJetService();
+            JetInstance jetInstance = jetService.getJetInstance();
+            CompletableFuture<Void> copyFuture = jetService.getSnapshotChunkStore() instanceof MapSnapshotChunkStore
+                    ? copyMapUsingJob(jetInstance, COPY_MAP_JOB_QUEUE_SIZE, sourceMapName, targetMapName)
+                    : copySnapshotChunksUsingJob(jetInstance, sourceMapName, targetMapName);
+            return copyFuture
                     .whenComplete(withTryCatch(logger, (r, t) -> {
                         SnapshotValidationRecord validationRecord =
                                 (SnapshotValidationRecord) jetInstance.getMap(targetMapName)
@@ -187,6 +212,7 @@ class MasterSnapshotContext {
 
     void tryBeginSnapshot() {
         boolean isTerminal;
+        boolean isIncremental;
         String snapshotMapName;
         CompletableFuture<Void> future;
         mc.lock();
@@ -212,7 +238,9 @@ class MasterSnapshotContext {
             snapshotMapName = requestedSnapshot.f0();
             isTerminal = requestedSnapshot.f1();
             future = requestedSnapshot.f2();
-            mc.jobExecutionRecord().startNewSnapshot(snapshotMapName);
+            isIncremental = snapshotMapName == null && hasIncrementalBase
+                    && numIncrementalSnapshots < mc.jobConfig().getMaxIncrementalSnapshots();
+            mc.jobExecutionRecord().startNewSnapshot(snapshotMapName, isIncremental);
         } finally {
             mc.unlock();
         }
@@ -220,17 +248,22 @@ class MasterSnapshotContext {
         mc.writeJobExecutionRecord(false);
         long newSnapshotId = mc.jobExecutionRecord().ongoingSnapshotId();
         boolean isExport = snapshotMapName != null;
+        // an incremental snapshot is stored on top of the current snapshot, a full one to the other map
         String finalMapName = isExport ? exportedSnapshotMapName(snapshotMapName)
-                : snapshotDataMapName(mc.jobId(), mc.jobExecutionRecord().ongoingDataMapIndex());
+                : snapshotDataMapName(mc.jobId(), isIncremental
+                        ? mc.jobExecutionRecord().dataMapIndex()
+                        : mc.jobExecutionRecord().ongoingDataMapIndex());
         if (isExport) {
             mc.nodeEngine().getHazelcastInstance().getMap(finalMapName).clear();
         }
         logger.info(String.format("Starting snapshot %d for %s", newSnapshotId, mc.jobIdString())
                 + (isTerminal ? ", terminal" : "")
+                + (isIncremental ? ", incremental" : "")
                 + (isExport ? ", exporting to '" + snapshotMapName + '\'' : ""));
 
         Function<ExecutionPlan, Operation> factory =
-                plan -> new SnapshotOperation(mc.jobId(), mc.executionId(), newSnapshotId, finalMapName, isTerminal);
+                plan -> new SnapshotOperation(mc.jobId(), mc.executionId(), newSnapshotId, finalMapName, isTerminal,
+                        isIncremental);
 
         // Need to take a copy of executionId: we don't cancel the scheduled task when the execution
         // finalizes. If a new execution is started in the meantime, we'll use the execution ID to detect it.
@@ -261,20 +294,34 @@ class MasterSnapshotContext {
             mergedResult.merge((SnapshotOperationResult) response);
         }
 
+        boolean wasIncremental = mc.jobExecutionRecord().ongoingSnapshotIncremental();
         IMap<Object, Object> snapshotMap = mc.nodeEngine().getHazelcastInstance().getMap(snapshotMapName);
         try {
-            SnapshotValidationRecord validationRecord = new SnapshotValidationRecord(snapshotId,
-                    mergedResult.getNumChunks(), mergedResult.getNumBytes(),
-                    mc.jobExecutionRecord().ongoingSnapshotStartTime(), mc.jobId(), mc.jobName(),
-                    mc.jobRecord().getDagJson());
-            Object oldValue = snapshotMap.put(SnapshotValidationRecord.KEY, validationRecord);
-            if (snapshotMapName.startsWith(EXPORTED_SNAPSHOTS_PREFIX)) {
-                String snapshotName = snapshotMapName.substring(EXPORTED_SNAPSHOTS_PREFIX.length());
-                mc.jobRepository().cacheValidationRecord(snapshotName, validationRecord);
-            }
-            if (oldValue != null) {
-                logger.severe("SnapshotValidationRecord overwritten after writing to '" + snapshotMapName + "' for "
-                        + mc.jobIdString() + ": snapshot data might be corrupted");
+            if (!wasIncremental) {
+                SnapshotValidationRecord validationRecord = new SnapshotValidationRecord(snapshotId,
+                        mergedResult.getNumChunks(), mergedResult.getNumBytes(),
+                        mc.jobExecutionRecord().ongoingSnapshotStartTime(), mc.jobId(), mc.jobName(),
+                        mc.jobRecord().getDagJson());
+                Object oldValue = snapshotMap.put(SnapshotValidationRecord.KEY, validationRecord);
+                if (snapshotMapName.startsWith(EXPORTED_SNAPSHOTS_PREFIX)) {
+                    String snapshotName = snapshotMapName.substring(EXPORTED_SNAPSHOTS_PREFIX.length());
+                    mc.jobRepository().cacheValidationRecord(snapshotName, validationRecord);
+                }
+                if (oldValue != null) {
+                    logger.severe("SnapshotValidationRecord overwritten after writing to '" + snapshotMapName
+                            + "' for " + mc.jobIdString() + ": snapshot data might be corrupted");
+                }
+            } else if (mergedResult.getError() == null) {
+                // the incremental snapshot becomes a part of the current snapshot: replace its record
+                SnapshotValidationRecord baseRecord =
+                        (SnapshotValidationRecord) snapshotMap.get(SnapshotValidationRecord.KEY);
+                if (baseRecord == null) {
+                    throw new JetException("Incremental snapshot written to '" + snapshotMapName + "' for "
+                            + mc.jobIdString() + ", but the map has no validation record of the base snapshot");
+                }
+                snapshotMap.put(SnapshotValidationRecord.KEY, baseRecord.withIncrement(snapshotId,
+                        mergedResult.getNumChunks(), mergedResult.getNumBytes(),
+                        mc.jobExecutionRecord().ongoingSnapshotStartTime()));
             }
         } catch (Exception e) {
             mergedResult.merge(new SnapshotOperationResult(0, 0, 0, e));
@@ -284,11 +331,16 @@ class MasterSnapshotContext {
         if (!isSuccess) {
             logger.warning(mc.jobIdString() + " snapshot " + snapshotId + " failed on some member(s), " +
                     "one of the failures: " + mergedResult.getError());
-            try {
-                snapshotMap.clear();
-            } catch (Exception e) {
-                logger.warning(mc.jobIdString() + ": failed to clear snapshot map '" + snapshotMapName
-                                + "' after a failure", e);
+            // A failed incremental snapshot was written to the map with the current snapshot, we
+            // can't clear it. Its chunks have a higher ID than the validation record and are ignored
+            // on restore. The next snapshot will be a full one written to the other map.
+            if (!wasIncremental) {
+                try {
+                    snapshotMap.clear();
+                } catch (Exception e) {
+                    logger.warning(mc.jobIdString() + ": failed to clear snapshot map '" + snapshotMapName
+                                    + "' after a failure", e);
+                }
             }
         }
         SnapshotStats stats = mc.jobExecutionRecord().ongoingSnapshotDone(
@@ -319,6 +371,13 @@ class MasterSnapshotContext {
             }
             assert snapshotInProgress : "snapshot not in progress";
             snapshotInProgress = false;
+            if (isSuccess && !wasExport) {
+                numIncrementalSnapshots = wasIncremental ? numIncrementalSnapshots + 1 : 0;
+                hasIncrementalBase = true;
+            } else {
+                // the processors forgot the changes saved to a failed or exported snapshot
+                hasIncrementalBase = false;
+            }
             if (wasTerminal) {
                 // after a terminal snapshot, no more snapshots are scheduled in this execution
                 boolean completedNow = terminalSnapshotFuture.complete(null);
@@ -339,6 +398,8 @@ class MasterSnapshotContext {
 
     void onExecutionStarted() {
         snapshotInProgress = false;
+        // the processors don't track the changes since the restored snapshot
+        hasIncrementalBase = false;
         assert snapshotQueue.isEmpty() : "snapshotQueue not empty";
         terminalSnapshotFuture = new CompletableFuture<>();
     }
@@ -352,4 +413,24 @@ class MasterSnapshotContext {
         }
         snapshotQueue.clear();
     }
+
+    /**
+     * Like {@link com.hazelcast.jet.impl.util.Util#copyMapUsingJob}, but
+     * replaces the references to the chunks stored outside of the source map
+     * with the chunks, so that the exported snapshot is self-contained.
+     */
+    private static CompletableFuture<Void> copySnapshotChunksUsingJob(
+            JetInstance instance, String sourceMap, String targetMap
+    ) {
+        DAG dag = new DAG();
+        Vertex source = dag.newVertex("readMap(" + sourceMap + ')', readMapP(sourceMap));
+        Vertex resolve = dag.newVertex("resolveSnapshotChunks", ResolveSnapshotChunksP::new)
+                            .localParallelism(1);
+        Vertex sink = dag.newVertex("writeMap(" + targetMap + ')', writeMapP(targetMap));
+        dag.edge(between(source, resolve).setConfig(new EdgeConfig().setQueueSize(COPY_MAP_JOB_QUEUE_SIZE)))
+           .edge(between(resolve, sink).setConfig(new EdgeConfig().setQueueSize(COPY_MAP_JOB_QUEUE_SIZE)));
+        JobConfig jobConfig = new JobConfig()
+                .setName("copy-" + sourceMap + "-to-" + targetMap);
+        return instance.newJob(dag, jobConfig).getFuture();
+    }
 }
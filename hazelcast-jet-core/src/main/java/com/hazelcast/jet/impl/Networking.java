@@ -72,6 +72,7 @@ public class Networking {
     }
 
     private void handleStreamPacket(Packet packet) throws IOException {
+        // reads the packet's own payload array, the received bytes aren't copied
         BufferObjectDataInput in = createObjectDataInput(nodeEngine, packet.toByteArray());
         long executionId = in.readLong();
         int vertexId = in.readInt();
@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.jet.impl;
+
+import com.hazelcast.instance.HazelcastInstanceImpl;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.HeapData;
+import com.hazelcast.jet.core.AbstractProcessor;
+import com.hazelcast.jet.core.SnapshotChunkStore;
+import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataKey;
+
+import javax.annotation.Nonnull;
+import java.util.Map.Entry;
+
+import static com.hazelcast.jet.Util.entry;
+
+/**
+ * Replaces the references to the chunks stored by the {@link
+ * SnapshotChunkStore} in the snapshot map entries with the chunks they
+ * refer to, other entries are passed unchanged. Used when
+ * exporting a snapshot whose chunks are stored outside of the map.
+ */
+class ResolveSnapshotChunksP extends AbstractProcessor {
+
+    private InternalSerializationService serializationService;
+    private SnapshotChunkStore chunkStore;
+    private Entry<Object, Object> resolvedItem;
+
+    @Override
+    public boolean isCooperative() {
+        return false;
+    }
+
+    @Override
+    protected void init(@Nonnull Context context) {
+        HazelcastInstanceImpl hzInstance = (HazelcastInstanceImpl) context.jetInstance().getHazelcastInstance();
+        serializationService = hzInstance.getSerializationService();
+        JetService jetService = hzInstance.node.nodeEngine.getService(JetService.SERVICE_NAME);
+        chunkStore = jetService.getSnapshotChunkStore();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected boolean tryProcess0(@Nonnull Object item) {
+        Entry<Object, Object> entry = (Entry<Object, Object>) item;
+        if (!(entry.getKey() instanceof SnapshotDataKey) || entry.getValue() instanceof byte[]) {
+            return tryEmit(entry);
+        }
+        if (resolvedItem == null) {
+            byte[] chunk = chunkStore.read(entry.getValue()).join();
+            resolvedItem = entry(entry.getKey(), serializationService.toObject(new HeapData(chunk)));
+        }
+        if (!tryEmit(resolvedItem)) {
+            return false;
+        }
+        resolvedItem = null;
+        return true;
+    }
+}
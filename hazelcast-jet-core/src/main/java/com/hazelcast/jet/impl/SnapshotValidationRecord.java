@@ -28,6 +28,7 @@ public class SnapshotValidationRecord implements IdentifiedDataSerializable {
     public static final SnapshotValidationKey KEY = SnapshotValidationKey.KEY;
 
     private long snapshotId;
+    private long baseSnapshotId;
     private long numChunks;
     private long numBytes;
 
@@ -42,6 +43,7 @@ public class SnapshotValidationRecord implements IdentifiedDataSerializable {
     SnapshotValidationRecord(long snapshotId, long numChunks, long numBytes, long creationTime, long jobId,
                                     @Nonnull String jobName, @Nonnull String dagJsonString) {
         this.snapshotId = snapshotId;
+        this.baseSnapshotId = snapshotId;
         this.numChunks = numChunks;
         this.numBytes = numBytes;
         this.creationTime = creationTime;
@@ -50,10 +52,30 @@ public class SnapshotValidationRecord implements IdentifiedDataSerializable {
         this.dagJsonString = dagJsonString;
     }
 
+    /**
+     * Returns a record for an incremental snapshot stored on top of the
+     * snapshot described by this record. The chunk and byte counts are the
+     * totals of all the snapshots since the last full one.
+     */
+    SnapshotValidationRecord withIncrement(long snapshotId, long numChunks, long numBytes, long creationTime) {
+        SnapshotValidationRecord res = new SnapshotValidationRecord(snapshotId, this.numChunks + numChunks,
+                this.numBytes + numBytes, creationTime, jobId, jobName, dagJsonString);
+        res.baseSnapshotId = baseSnapshotId;
+        return res;
+    }
+
     public long snapshotId() {
         return snapshotId;
     }
 
+    /**
+     * Returns the ID of the last full snapshot in the map. It's equal to
+     * {@link #snapshotId()}, if the last snapshot was a full one.
+     */
+    public long baseSnapshotId() {
+        return baseSnapshotId;
+    }
+
     public long numChunks() {
         return numChunks;
     }
@@ -91,6 +113,7 @@ public class SnapshotValidationRecord implements IdentifiedDataSerializable {
     @Override
     public void writeData(ObjectDataOutput out) throws IOException {
         out.writeLong(snapshotId);
+        out.writeLong(baseSnapshotId);
         out.writeLong(numChunks);
         out.writeLong(numBytes);
         out.writeLong(creationTime);
@@ -102,6 +125,7 @@ public class SnapshotValidationRecord implements IdentifiedDataSerializable {
     @Override
     public void readData(ObjectDataInput in) throws IOException {
         snapshotId = in.readLong();
+        baseSnapshotId = in.readLong();
         numChunks = in.readLong();
         numBytes = in.readLong();
         creationTime = in.readLong();
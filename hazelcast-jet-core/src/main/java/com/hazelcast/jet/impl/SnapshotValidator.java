@@ -35,18 +35,22 @@ final class SnapshotValidator {
      *      if snapshot id is not known
      * @param jobIdString name and id of the job (for debug output)
      * @param map snapshot map to validate
-     * @return the snapshot id of the snapshot being validated
+     * @return the validation record of the snapshot being validated
      */
-    static long validateSnapshot(long snapshotId, String jobIdString, IMap<Object, Object> map) {
+    static SnapshotValidationRecord validateSnapshot(long snapshotId, String jobIdString, IMap<Object, Object> map) {
         SnapshotValidationRecord validationRecord = (SnapshotValidationRecord) map.get(SnapshotValidationRecord.KEY);
         if (validationRecord == null) {
             throw new JetException("State for " + jobIdString + " was supposed to be restored from '" + map.getName()
                     + "', but that map doesn't contain the validation key: not an IMap with Jet snapshot or corrupted");
         }
         if (validationRecord.numChunks() != map.size() - 1) {
-            // fallback validation that counts using aggregate(), ignoring different snapshot IDs
+            // fallback validation that counts using aggregate(), ignoring different snapshot IDs.
+            // Incremental snapshots keep the chunks of all the snapshots since the last full one.
+            long minSnapshotId = validationRecord.baseSnapshotId();
+            long maxSnapshotId = validationRecord.snapshotId();
             Long filteredCount = map.aggregate(Aggregators.count(), e -> e.getKey() instanceof SnapshotDataKey
-                    && ((SnapshotDataKey) e.getKey()).snapshotId() == snapshotId);
+                    && ((SnapshotDataKey) e.getKey()).snapshotId() >= minSnapshotId
+                    && ((SnapshotDataKey) e.getKey()).snapshotId() <= maxSnapshotId);
             if (validationRecord.numChunks() != filteredCount) {
                 throw new JetException("State for " + jobIdString + " in '" + map.getName() + "' corrupted: it should " +
                         "have " + validationRecord.numChunks() + " entries, but has " + (map.size() - 1));
@@ -56,6 +60,6 @@ final class SnapshotValidator {
             throw new JetException(jobIdString + ": '" + map.getName() + "' was supposed to contain snapshotId="
                     + snapshotId + ", but it contains snapshotId=" + validationRecord.snapshotId());
         }
-        return validationRecord.snapshotId();
+        return validationRecord;
     }
 }
@@ -26,7 +26,10 @@ import com.hazelcast.config.XmlConfigBuilder;
 import com.hazelcast.instance.BuildInfo;
 import com.hazelcast.instance.BuildInfoProvider;
 import com.hazelcast.instance.JetBuildInfo;
+import com.hazelcast.jet.config.CompressionType;
 import com.hazelcast.jet.config.EdgeConfig;
+import com.hazelcast.jet.config.FlowControlType;
+import com.hazelcast.jet.config.IdleStrategyType;
 import com.hazelcast.jet.config.InstanceConfig;
 import com.hazelcast.jet.config.JetConfig;
 import com.hazelcast.jet.config.MetricsConfig;
@@ -200,6 +203,21 @@ public final class XmlJetConfigBuilder extends AbstractConfigBuilder {
                 case "scale-up-delay-millis":
                     instanceConfig.setScaleUpDelayMillis(longValue(node));
                     break;
+                case "work-stealing-enabled":
+                    instanceConfig.setWorkStealingEnabled(booleanValue(node));
+                    break;
+                case "idle-strategy":
+                    instanceConfig.setIdleStrategy(IdleStrategyType.valueOf(stringValue(node)));
+                    break;
+                case "cooperative-thread-affinity":
+                    instanceConfig.setCooperativeThreadAffinity(stringValue(node));
+                    break;
+                case "readiness-tracking-enabled":
+                    instanceConfig.setReadinessTrackingEnabled(booleanValue(node));
+                    break;
+                case "snapshot-directory":
+                    instanceConfig.setSnapshotDirectory(stringValue(node));
+                    break;
                 default:
                     throw new AssertionError("Unrecognized XML element: " + name);
             }
@@ -220,6 +238,18 @@ public final class XmlJetConfigBuilder extends AbstractConfigBuilder {
                 case "receive-window-multiplier":
                     config.setReceiveWindowMultiplier(intValue(child));
                     break;
+                case "compression":
+                    config.setCompression(CompressionType.valueOf(stringValue(child)));
+                    break;
+                case "lazy-deserialization-enabled":
+                    config.setLazyDeserializationEnabled(booleanValue(child));
+                    break;
+                case "flow-control":
+                    config.setFlowControl(FlowControlType.valueOf(stringValue(child)));
+                    break;
+                case "target-queueing-delay-ms":
+                    config.setTargetQueueingDelayMs(longValue(child));
+                    break;
                 default:
                     throw new AssertionError("Unrecognized XML element: " + name);
             }
@@ -244,6 +274,9 @@ public final class XmlJetConfigBuilder extends AbstractConfigBuilder {
                 case "metrics-for-data-structures":
                     config.setMetricsForDataStructuresEnabled(booleanValue(child));
                     break;
+                case "tasklet-call-timing":
+                    config.setTaskletCallTimingEnabled(booleanValue(child));
+                    break;
                 default:
                     throw new AssertionError("Unrecognized XML element: " + name);
             }
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.config.JobConfig;
+import com.hazelcast.jet.core.Processor;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Map.Entry;
+import java.util.function.UnaryOperator;
+
+/**
+ * Implemented by processors which can save their state while they keep
+ * processing, see {@link JobConfig#setBackgroundSnapshotSaving(boolean)}.
+ * <p>
+ * Instead of calling {@link Processor#saveToSnapshot()}, the tasklet calls
+ * {@link #captureSnapshot} once and emits the entries returned by the
+ * traverser to the snapshot between the calls to the other processor
+ * methods. The processor must keep returning the entries as they were at
+ * the time of the capture: before it modifies a value in place for the
+ * first time after the capture, it must copy it with the given function.
+ * <p>
+ * If the processor implements {@link IncrementalSnapshotAware}, {@code
+ * setIncrementalSnapshot()} is called before the capture.
+ */
+public interface BackgroundSnapshotAware {
+
+    /**
+     * Takes a logical snapshot of the processor's state and returns a
+     * traverser over its entries. Returns {@code null}, if the processor
+     * can't save its state in the background this time, the tasklet then
+     * calls {@link Processor#saveToSnapshot()} instead.
+     * <p>
+     * Called only after the traverser returned by the previous call is
+     * exhausted.
+     *
+     * @param copyFn the function to copy a value with, it returns an
+     *      object that will be saved to the snapshot unchanged
+     */
+    @Nullable
+    Traverser<? extends Entry<?, ?>> captureSnapshot(@Nonnull UnaryOperator<Object> copyFn);
+}
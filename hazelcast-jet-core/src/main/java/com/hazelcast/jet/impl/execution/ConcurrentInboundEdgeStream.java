@@ -50,6 +50,7 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
 
     private final WatermarkCoalescer watermarkCoalescer;
     private final BitSet receivedBarriers; // indicates if current snapshot is received on the queue
+    private final ToIntFunction<Object> inFlightPartitionFn;
     private final ILogger logger;
 
     // Tells whether we are operating in exactly-once or at-least-once mode.
@@ -68,10 +69,22 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
      */
     public ConcurrentInboundEdgeStream(ConcurrentConveyor<Object> conveyor, int ordinal, int priority,
                                        boolean waitForAllBarriers, String debugName) {
+        this(conveyor, ordinal, priority, waitForAllBarriers, null, debugName);
+    }
+
+    /**
+     * @param inFlightPartitionFn the function returning the partition to
+     *          which an item is restored after it's saved to an unaligned
+     *          snapshot or {@code null}, if the edge doesn't support it
+     */
+    public ConcurrentInboundEdgeStream(ConcurrentConveyor<Object> conveyor, int ordinal, int priority,
+                                       boolean waitForAllBarriers, ToIntFunction<Object> inFlightPartitionFn,
+                                       String debugName) {
         this.conveyor = conveyor;
         this.ordinal = ordinal;
         this.priority = priority;
         this.waitForAllBarriers = waitForAllBarriers;
+        this.inFlightPartitionFn = inFlightPartitionFn;
 
         watermarkCoalescer = WatermarkCoalescer.create(conveyor.queueCount());
 
@@ -264,4 +277,14 @@ public class ConcurrentInboundEdgeStream implements InboundEdgeStream {
     public long coalescedWm() {
         return watermarkCoalescer.coalescedWm();
     }
+
+    @Override
+    public boolean canSaveInFlightItems() {
+        return inFlightPartitionFn != null;
+    }
+
+    @Override
+    public int inFlightItemPartition(Object item) {
+        return inFlightPartitionFn.applyAsInt(item);
+    }
 }
@@ -19,16 +19,34 @@ package com.hazelcast.jet.impl.execution;
 import com.hazelcast.internal.util.concurrent.ConcurrentConveyor;
 import com.hazelcast.jet.impl.util.ProgressState;
 
+import javax.annotation.Nullable;
+
 public class ConveyorCollector implements OutboundCollector {
 
     private final ConcurrentConveyor<Object> conveyor;
     private final int queueIndex;
     private final int[] partitions;
+    private final TaskletReadiness producerReadiness;
+    private final TaskletReadiness consumerReadiness;
+    private long lastWakeUpFlushCount = -1;
 
     public ConveyorCollector(ConcurrentConveyor<Object> conveyor, int queueIndex, int[] partitions) {
+        this(conveyor, queueIndex, partitions, null, null);
+    }
+
+    /**
+     * If both {@code producerReadiness} and {@code consumerReadiness} are
+     * given, the consumer will be marked ready at the end of the producer's
+     * call in which an item was added to the conveyor.
+     */
+    public ConveyorCollector(ConcurrentConveyor<Object> conveyor, int queueIndex, int[] partitions,
+                             @Nullable TaskletReadiness producerReadiness,
+                             @Nullable TaskletReadiness consumerReadiness) {
         this.conveyor = conveyor;
         this.queueIndex = queueIndex;
         this.partitions = partitions;
+        this.producerReadiness = consumerReadiness != null ? producerReadiness : null;
+        this.consumerReadiness = consumerReadiness;
     }
 
     @Override
@@ -47,7 +65,13 @@ public class ConveyorCollector implements OutboundCollector {
     }
 
     protected ProgressState offerToConveyor(Object item) {
-        return conveyor.offer(queueIndex, item) ? ProgressState.DONE : ProgressState.NO_PROGRESS;
+        if (!conveyor.offer(queueIndex, item)) {
+            return ProgressState.NO_PROGRESS;
+        }
+        if (producerReadiness != null) {
+            lastWakeUpFlushCount = producerReadiness.requestWakeUp(consumerReadiness, lastWakeUpFlushCount);
+        }
+        return ProgressState.DONE;
     }
 }
 
@@ -208,12 +208,12 @@ public class ExecutionContext {
      * Starts a new snapshot by incrementing the current snapshot id
      */
     public CompletionStage<SnapshotOperationResult> beginSnapshot(long snapshotId, String mapName,
-                                                                  boolean isTerminal) {
+                                                                  boolean isTerminal, boolean isIncremental) {
         synchronized (executionLock) {
             if (cancellationFuture.isDone() || executionFuture != null && executionFuture.isDone()) {
                 throw new CancellationException();
             }
-            return snapshotContext.startNewSnapshot(snapshotId, mapName, isTerminal);
+            return snapshotContext.startNewSnapshot(snapshotId, mapName, isTerminal, isIncremental);
         }
     }
 
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.jet.impl.execution.init.JetInitDataSerializerHook;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+
+import java.io.IOException;
+import java.util.Comparator;
+
+import static java.util.Comparator.comparingInt;
+import static java.util.Comparator.comparingLong;
+
+/**
+ * The snapshot key of an item that a {@link ProcessorTasklet} received on
+ * an input edge, but didn't process before it saved an unaligned snapshot.
+ * After a restore, the item is processed again on the same ordinal.
+ * <p>
+ * The key is restored to the processor that owns its {@link #partitionId()}
+ * and the items restored to a processor are processed in the order of
+ * their {@link #COMPARATOR}, that is in the order in which each tasklet
+ * received them.
+ */
+public final class InFlightItemKey implements IdentifiedDataSerializable {
+
+    /**
+     * Orders the keys by the tasklet that saved them and by the sequence in
+     * it.
+     */
+    public static final Comparator<InFlightItemKey> COMPARATOR =
+            comparingInt(InFlightItemKey::processorIndex).thenComparing(comparingLong(InFlightItemKey::sequence));
+
+    private int ordinal;
+    private int processorIndex;
+    private long sequence;
+    private int partitionId;
+
+    // for deserialization
+    public InFlightItemKey() {
+    }
+
+    public InFlightItemKey(int ordinal, int processorIndex, long sequence, int partitionId) {
+        this.ordinal = ordinal;
+        this.processorIndex = processorIndex;
+        this.sequence = sequence;
+        this.partitionId = partitionId;
+    }
+
+    /**
+     * Returns the ordinal of the edge the item was received from.
+     */
+    public int ordinal() {
+        return ordinal;
+    }
+
+    /**
+     * Returns the global index of the processor that saved the item.
+     */
+    public int processorIndex() {
+        return processorIndex;
+    }
+
+    public long sequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns the partition the item is restored to: the partition the edge
+     * routed it to for a partitioned edge, an arbitrary one for a unicast
+     * edge.
+     */
+    public int partitionId() {
+        return partitionId;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        InFlightItemKey that = (InFlightItemKey) o;
+        return ordinal == that.ordinal
+                && processorIndex == that.processorIndex
+                && sequence == that.sequence
+                && partitionId == that.partitionId;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = ordinal;
+        result = 31 * result + processorIndex;
+        result = 31 * result + Long.hashCode(sequence);
+        result = 31 * result + partitionId;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "InFlightItemKey{ordinal=" + ordinal + ", processorIndex=" + processorIndex
+                + ", sequence=" + sequence + ", partitionId=" + partitionId + '}';
+    }
+
+    @Override
+    public int getFactoryId() {
+        return JetInitDataSerializerHook.FACTORY_ID;
+    }
+
+    @Override
+    public int getId() {
+        return JetInitDataSerializerHook.IN_FLIGHT_ITEM_KEY;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeInt(ordinal);
+        out.writeInt(processorIndex);
+        out.writeLong(sequence);
+        out.writeInt(partitionId);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        ordinal = in.readInt();
+        processorIndex = in.readInt();
+        sequence = in.readLong();
+        partitionId = in.readInt();
+    }
+}
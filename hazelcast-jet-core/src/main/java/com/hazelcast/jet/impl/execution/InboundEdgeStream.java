@@ -65,4 +65,21 @@ public interface InboundEdgeStream {
      * Returns the last coalesced WM that was forwarded from the edge.
      */
     long coalescedWm();
+
+    /**
+     * Returns true, if the items received from this edge can be saved to an
+     * unaligned snapshot, that is if {@link #inFlightItemPartition} is
+     * supported.
+     */
+    default boolean canSaveInFlightItems() {
+        return false;
+    }
+
+    /**
+     * Returns the partition to which the given item received from this edge
+     * is restored, if it's saved to an unaligned snapshot.
+     */
+    default int inFlightItemPartition(Object item) {
+        throw new UnsupportedOperationException("in-flight items of the edge can't be saved");
+    }
 }
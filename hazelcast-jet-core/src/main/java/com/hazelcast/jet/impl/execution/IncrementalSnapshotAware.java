@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.jet.config.JobConfig;
+import com.hazelcast.jet.core.Processor;
+
+/**
+ * Implemented by processors which can save only the keys changed since the
+ * previous snapshot, see {@link JobConfig#setMaxIncrementalSnapshots(int)}.
+ * <p>
+ * In an incremental snapshot the processor saves the current value of each
+ * changed key and a {@link SnapshotTombstone} for each removed key. The
+ * broadcast keys are saved as in a full snapshot. When restoring a snapshot
+ * that has deltas, the processor receives each value wrapped in a {@link
+ * VersionedSnapshotValue} and must apply only the latest version of a key.
+ * The restored entries arrive in no particular order.
+ */
+public interface IncrementalSnapshotAware {
+
+    /**
+     * Called before each {@link Processor#saveToSnapshot()} call. If {@code
+     * true}, the processor must save only the changes since its previous
+     * snapshot, otherwise it must save its whole state. In either case,
+     * after the snapshot is saved the processor starts tracking the changes
+     * anew.
+     */
+    void setIncrementalSnapshot(boolean incremental);
+}
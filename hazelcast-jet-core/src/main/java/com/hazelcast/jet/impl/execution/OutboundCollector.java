@@ -24,9 +24,13 @@ import com.hazelcast.jet.impl.util.ProgressTracker;
 
 import java.util.Arrays;
 import java.util.BitSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+import static com.hazelcast.jet.impl.util.Util.lazyIncrement;
+
 @FunctionalInterface
 public interface OutboundCollector {
     /**
@@ -68,7 +72,8 @@ public interface OutboundCollector {
             case ISOLATED:
                 return new RoundRobin(collectors);
             case PARTITIONED:
-                return new Partitioned(collectors, outboundEdge.partitioner(), partitionCount);
+                return new Partitioned(collectors, outboundEdge.partitioner(), partitionCount,
+                        outboundEdge.splitsHotKeys());
             case BROADCAST:
                 return new Broadcast(collectors);
             default:
@@ -169,20 +174,64 @@ public interface OutboundCollector {
         }
     }
 
+    /**
+     * Routes each item to the collector that handles its partition.
+     * <p>
+     * The collector samples the partitions of the offered items and, at the
+     * end of each sampling window, computes the skew: the sampled load of the
+     * busiest collector relative to the mean load. If hot-key splitting is
+     * enabled, the partitions that received more than {@link
+     * #HOT_PARTITION_FACTOR_PERCENT} percent of the fair share of a single
+     * collector during the last window are marked as hot and their items are
+     * distributed round-robin to all collectors during the next window.
+     */
     class Partitioned extends Composite {
 
+        /**
+         * The mean distance between sampled items. The actual distance is
+         * random so that the sampling doesn't alias with periodic patterns in
+         * the stream.
+         */
+        static final int SAMPLE_INTERVAL = 16;
+        /** The number of samples after which the hot partitions are determined. */
+        static final int SAMPLES_PER_WINDOW = 1024;
+        static final int HOT_PARTITION_FACTOR_PERCENT = 150;
+        private static final long PERCENT_100 = 100;
+
         private final Partitioner partitioner;
         private final OutboundCollector[] partitionLookupTable;
+        private final boolean splitHotKeys;
+        private final int[] partitionToCollectorIndex;
+        private final int[] sampledCounts;
+        private final long[] collectorLoads;
+        private final BitSet hotPartitions;
+        private final AtomicLong skewPercent = new AtomicLong(PERCENT_100);
+        private final AtomicLong splitItemCount = new AtomicLong();
         private int partitionId = -1;
+        private OutboundCollector splitCollector;
+        private int splitCursor;
+        private int sampleCountdown = nextSampleDistance();
+        private int samplesInWindow;
 
         Partitioned(OutboundCollector[] collectors, Partitioner partitioner, int partitionCount) {
+            this(collectors, partitioner, partitionCount, false);
+        }
+
+        Partitioned(OutboundCollector[] collectors, Partitioner partitioner, int partitionCount,
+                    boolean splitHotKeys) {
             super(collectors);
             this.partitioner = partitioner;
             this.partitionLookupTable = new OutboundCollector[partitionCount];
+            this.splitHotKeys = splitHotKeys;
+            this.partitionToCollectorIndex = new int[partitionCount];
+            this.sampledCounts = new int[partitionCount];
+            this.collectorLoads = new long[collectors.length];
+            this.hotPartitions = new BitSet(partitionCount);
 
-            for (OutboundCollector collector : collectors) {
-                for (int partitionId : collector.getPartitions()) {
-                    partitionLookupTable[partitionId] = collector;
+            for (int i = 0; i < collectors.length; i++) {
+                for (int partitionId : collectors[i].getPartitions()) {
+                    partitionLookupTable[partitionId] = collectors[i];
+                    partitionToCollectorIndex[partitionId] = i;
                 }
             }
         }
@@ -193,9 +242,20 @@ public interface OutboundCollector {
                 partitionId = partitioner.getPartition(item, partitionLookupTable.length);
                 assert partitionId >= 0 && partitionId < partitionLookupTable.length
                         : "Partition number out of range: " + partitionId + ", offending item: " + item;
+                if (splitHotKeys && hotPartitions.get(partitionId)) {
+                    splitCollector = collectors[splitCursor];
+                    splitCursor = splitCursor + 1 == collectors.length ? 0 : splitCursor + 1;
+                }
+                sample(partitionId);
             }
-            ProgressState result = offer(item, partitionId);
+            ProgressState result = splitCollector != null
+                    ? splitCollector.offer(item, partitionId)
+                    : offer(item, partitionId);
             if (result.isDone()) {
+                if (splitCollector != null) {
+                    lazyIncrement(splitItemCount);
+                    splitCollector = null;
+                }
                 partitionId = -1;
             }
             return result;
@@ -208,5 +268,61 @@ public interface OutboundCollector {
                     + "requested partitionId is not present";
             return collector.offer(item, partitionId);
         }
+
+        /**
+         * Returns the sampled load of the busiest collector relative to the
+         * mean load during the last complete window, in percent. 100 means
+         * the load is perfectly balanced.
+         */
+        public long skewPercent() {
+            return skewPercent.get();
+        }
+
+        /**
+         * Returns the number of items that were not sent to the collector
+         * owning their partition because the partition was hot.
+         */
+        public long splitItemCount() {
+            return splitItemCount.get();
+        }
+
+        boolean isHot(int partitionId) {
+            return hotPartitions.get(partitionId);
+        }
+
+        private void sample(int partitionId) {
+            if (--sampleCountdown > 0) {
+                return;
+            }
+            sampleCountdown = nextSampleDistance();
+            sampledCounts[partitionId]++;
+            if (++samplesInWindow == SAMPLES_PER_WINDOW) {
+                completeWindow();
+            }
+        }
+
+        private static int nextSampleDistance() {
+            return 1 + ThreadLocalRandom.current().nextInt(2 * SAMPLE_INTERVAL - 1);
+        }
+
+        private void completeWindow() {
+            Arrays.fill(collectorLoads, 0);
+            hotPartitions.clear();
+            // a partition is hot if it alone exceeds the fair share of a collector by the factor
+            long hotThreshold = (long) samplesInWindow * HOT_PARTITION_FACTOR_PERCENT / collectors.length;
+            for (int i = 0; i < sampledCounts.length; i++) {
+                collectorLoads[partitionToCollectorIndex[i]] += sampledCounts[i];
+                if ((long) sampledCounts[i] * PERCENT_100 > hotThreshold) {
+                    hotPartitions.set(i);
+                }
+                sampledCounts[i] = 0;
+            }
+            long maxLoad = 0;
+            for (long load : collectorLoads) {
+                maxLoad = Math.max(maxLoad, load);
+            }
+            skewPercent.lazySet(maxLoad * PERCENT_100 * collectors.length / samplesInWindow);
+            samplesInWindow = 0;
+        }
     }
 }
@@ -247,6 +247,10 @@ public class OutboxImpl implements OutboxInternal {
         return offerInternal(allEdgesAndSnapshot, item);
     }
 
+    final boolean offerToSnapshotEdge(Object item) {
+        return offerInternal(snapshotEdge, item);
+    }
+
     @Override
     public long lastForwardedWm() {
         return lastForwardedWm.get();
@@ -50,15 +50,26 @@ enum ProcessorState {
 
     /**
      * Making calls to {@link Processor#saveToSnapshot()} until it returns
-     * {@code true}.
+     * {@code true}, or capturing the state to save it in the background, see
+     * {@link BackgroundSnapshotAware}.
      */
     SAVE_SNAPSHOT,
 
     /**
-     * Waiting for the outbox to accept the {@link SnapshotBarrier}.
+     * Waiting for the outbox to accept the {@link SnapshotBarrier}. If the
+     * state is saved in the background, the barrier is offered to the
+     * snapshot queue only after the last saved entry.
      */
     EMIT_BARRIER,
 
+    /**
+     * During an unaligned snapshot: draining the inputs up to the {@link
+     * SnapshotBarrier} into the in-flight item buffers and saving the
+     * buffered items to the snapshot, then waiting for the outbox to accept
+     * the barrier to the snapshot queue.
+     */
+    CAPTURE_IN_FLIGHT_ITEMS,
+
     /**
      * Waiting for the outbox to accept the {@code DONE_ITEM}.
      */
@@ -21,6 +21,7 @@ import com.hazelcast.internal.metrics.ProbeBuilder;
 import com.hazelcast.internal.metrics.ProbeLevel;
 import com.hazelcast.internal.metrics.ProbeUnit;
 import com.hazelcast.jet.JetException;
+import com.hazelcast.jet.Traverser;
 import com.hazelcast.jet.config.ProcessingGuarantee;
 import com.hazelcast.jet.core.Processor;
 import com.hazelcast.jet.core.Processor.Context;
@@ -43,13 +44,17 @@ import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.List;
+import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.Queue;
 import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.UnaryOperator;
 
+import static com.hazelcast.jet.Util.entry;
 import static com.hazelcast.jet.impl.execution.DoneItem.DONE_ITEM;
+import static com.hazelcast.jet.impl.execution.ProcessorState.CAPTURE_IN_FLIGHT_ITEMS;
 import static com.hazelcast.jet.impl.execution.ProcessorState.COMPLETE;
 import static com.hazelcast.jet.impl.execution.ProcessorState.COMPLETE_EDGE;
 import static com.hazelcast.jet.impl.execution.ProcessorState.EMIT_BARRIER;
@@ -61,6 +66,9 @@ import static com.hazelcast.jet.impl.execution.ProcessorState.SAVE_SNAPSHOT;
 import static com.hazelcast.jet.impl.execution.WatermarkCoalescer.IDLE_MESSAGE;
 import static com.hazelcast.jet.impl.execution.WatermarkCoalescer.NO_NEW_WM;
 import static com.hazelcast.jet.impl.util.ExceptionUtil.sneakyThrow;
+import static com.hazelcast.jet.impl.util.LoggingUtil.logFine;
+import static com.hazelcast.jet.impl.util.ProgressState.DONE;
+import static com.hazelcast.jet.impl.util.ProgressState.MADE_PROGRESS;
 import static com.hazelcast.jet.impl.util.ProgressState.NO_PROGRESS;
 import static com.hazelcast.jet.impl.util.Util.jobNameAndExecutionId;
 import static com.hazelcast.jet.impl.util.Util.lazyAdd;
@@ -69,10 +77,13 @@ import static com.hazelcast.jet.impl.util.Util.sum;
 import static java.util.Comparator.comparing;
 import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.toCollection;
+import static java.util.stream.Collectors.toList;
 
 public class ProcessorTasklet implements Tasklet {
 
     private static final int OUTBOX_BATCH_SIZE = 2048;
+    // the max number of entries of a background snapshot offered in one call
+    private static final int BACKGROUND_SNAPSHOT_BATCH_SIZE = 1024;
 
     private final ProgressTracker progTracker = new ProgressTracker();
     private final OutboundEdgeStream[] outstreams;
@@ -83,7 +94,7 @@ public class ProcessorTasklet implements Tasklet {
     private final SnapshotContext ssContext;
     private final BitSet receivedBarriers; // indicates if current snapshot is received on the ordinal
 
-    private final ArrayDequeInbox inbox = new ArrayDequeInbox(progTracker);
+    private final ArrayDequeInbox inbox = new ArrayDequeInbox(progTracker, this::deserialize);
     private final Queue<ArrayList<InboundEdgeStream>> instreamGroupQueue;
     private final WatermarkCoalescer watermarkCoalescer;
     private final ILogger logger;
@@ -104,14 +115,52 @@ public class ProcessorTasklet implements Tasklet {
     // Once a terminal snapshot barrier is reached, this is always true.
     private boolean waitForAllBarriers;
 
+    // Tells whether the snapshots are unaligned: the processor saves its state
+    // without waiting for the barriers and the items received from each input
+    // after that until its barrier are saved as in-flight items. Terminal
+    // snapshots are always aligned.
+    private final boolean unalignedSnapshots;
+    // true from the start of an unaligned snapshot until the barrier is sent to the snapshot queue
+    private boolean unalignedSnapshotInProgress;
+    private final InboundEdgeStream[] instreamByOrdinal;
+    // The received, but not yet processed items per ordinal: the items drained
+    // during an unaligned snapshot or restored from it. They are processed
+    // before the items from the input queues.
+    private final ArrayDeque<Object>[] inFlightItems;
+    // the in-flight items not yet offered to the current unaligned snapshot
+    private final ArrayDeque<Entry<InFlightItemKey, Object>> inFlightItemsToSave = new ArrayDeque<>();
+    private final List<Entry<InFlightItemKey, Object>> restoredInFlightItems = new ArrayList<>();
+    private long inFlightItemSequence;
+    private int captureOrdinal;
+    private final Predicate<Object> captureInFlightItemFunction = this::captureInFlightItem;
+    private final AtomicLong savedInFlightItems = new AtomicLong();
+
+    // Tells whether the processor saves its state in the background, see
+    // BackgroundSnapshotAware. The entries are offered directly to the
+    // snapshot collector, so that a full snapshot queue doesn't leave an
+    // unfinished item in the outbox the processor uses.
+    private final boolean backgroundSnapshotSaving;
+    private final OutboundCollector ssCollector;
+    private final UnaryOperator<Object> copyToDataFn;
+    // the entries of the snapshot being saved in the background, null if there's none
+    private Traverser<? extends Entry<?, ?>> backgroundSnapshotTraverser;
+    // the barrier offered to the snapshot queue after the last entry of the background snapshot
+    private SnapshotBarrier backgroundSnapshotBarrier;
+    // the serialized entry or the barrier rejected by the snapshot queue
+    private Object pendingBackgroundSnapshotItem;
+
     private final AtomicLongArray receivedCounts;
     private final AtomicLongArray receivedBatches;
     private final AtomicLongArray emittedCounts;
     private final AtomicLong queuesSize = new AtomicLong();
     private final AtomicLong queuesCapacity = new AtomicLong();
-    private final Predicate<Object> addToInboxFunction = inbox.queue()::add;
+    private final TaskletCallStats callStats;
+    private final TaskletReadiness readiness;
+    // whether the last fillInbox() call found all input queues empty
+    private boolean inputExhausted;
+    private final Predicate<Object> addToInboxFunction = this::addToInbox;
 
-    @SuppressWarnings("checkstyle:ExecutableStatementCount")
+    @SuppressWarnings({"checkstyle:ExecutableStatementCount", "unchecked"})
     public ProcessorTasklet(@Nonnull Context context,
                             @Nonnull SerializationService serializationService,
                             @Nonnull Processor processor,
@@ -119,7 +168,9 @@ public class ProcessorTasklet implements Tasklet {
                             @Nonnull List<? extends OutboundEdgeStream> outstreams,
                             @Nonnull SnapshotContext ssContext,
                             @Nonnull OutboundCollector ssCollector,
-                            @Nullable ProbeBuilder probeBuilder
+                            @Nullable ProbeBuilder probeBuilder,
+                            @Nullable TaskletCallStats callStats,
+                            @Nullable TaskletReadiness readiness
     ) {
         Preconditions.checkNotNull(processor, "processor");
         this.context = context;
@@ -134,6 +185,9 @@ public class ProcessorTasklet implements Tasklet {
                                     .sorted(comparing(OutboundEdgeStream::ordinal))
                                     .toArray(OutboundEdgeStream[]::new);
         this.ssContext = ssContext;
+        this.ssCollector = ssCollector;
+        this.callStats = callStats;
+        this.readiness = readiness;
         this.logger = getLogger(context);
 
         instreamCursor = popInstreamGroup();
@@ -145,6 +199,16 @@ public class ProcessorTasklet implements Tasklet {
         state = initialProcessingState();
         pendingSnapshotId = ssContext.activeSnapshotId() + 1;
         waitForAllBarriers = ssContext.processingGuarantee() == ProcessingGuarantee.EXACTLY_ONCE;
+        unalignedSnapshots = waitForAllBarriers && useUnalignedSnapshots(context, instreams);
+        backgroundSnapshotSaving = processor instanceof BackgroundSnapshotAware
+                && ssContext.processingGuarantee() != ProcessingGuarantee.NONE
+                && context.jobConfig().isBackgroundSnapshotSaving();
+        copyToDataFn = serializationService::toData;
+        instreamByOrdinal = new InboundEdgeStream[instreams.size()];
+        for (InboundEdgeStream instream : instreams) {
+            instreamByOrdinal[instream.ordinal()] = instream;
+        }
+        inFlightItems = new ArrayDeque[instreams.size()];
 
         watermarkCoalescer = WatermarkCoalescer.create(instreams.size());
         if (probeBuilder != null) {
@@ -152,6 +216,23 @@ public class ProcessorTasklet implements Tasklet {
         }
     }
 
+    /**
+     * Unaligned snapshots are used only if the in-flight items of all the
+     * inputs can be saved. The inputs must have the same priority, the
+     * tasklet drains all of them during the snapshot.
+     */
+    private static boolean useUnalignedSnapshots(Context context, List<? extends InboundEdgeStream> instreams) {
+        if (!context.jobConfig().isUnalignedSnapshots()) {
+            return false;
+        }
+        List<InboundEdgeStream> regularInstreams = instreams.stream()
+                                                            .filter(s -> !isSnapshotRestoreStream(s))
+                                                            .collect(toList());
+        return !regularInstreams.isEmpty()
+                && regularInstreams.stream().allMatch(InboundEdgeStream::canSaveInFlightItems)
+                && regularInstreams.stream().mapToInt(InboundEdgeStream::priority).distinct().count() == 1;
+    }
+
     @SuppressFBWarnings(value = "RCN_REDUNDANT_NULLCHECK_OF_NONNULL_VALUE",
             justification = "jetInstance() can be null in TestProcessorContext")
     private ILogger getLogger(@Nonnull Context context) {
@@ -197,6 +278,13 @@ public class ProcessorTasklet implements Tasklet {
                 (LongProbeFunction<ProcessorTasklet>) t -> t.queuesSize.get());
         probeBuilder.register(this, "queuesCapacity", ProbeLevel.INFO, ProbeUnit.COUNT,
                 (LongProbeFunction<ProcessorTasklet>) t -> t.queuesCapacity.get());
+        if (unalignedSnapshots) {
+            probeBuilder.register(this, "savedInFlightItems", ProbeLevel.INFO, ProbeUnit.COUNT,
+                    (LongProbeFunction<ProcessorTasklet>) t -> t.savedInFlightItems.get());
+        }
+        if (callStats != null) {
+            callStats.registerMetrics(this, probeBuilder);
+        }
     }
 
     private OutboxImpl createOutbox(@Nonnull OutboundCollector ssCollector) {
@@ -224,12 +312,30 @@ public class ProcessorTasklet implements Tasklet {
         }
     }
 
+    @Nullable @Override
+    public TaskletCallStats callStats() {
+        return callStats;
+    }
+
+    @Nullable @Override
+    public TaskletReadiness readiness() {
+        return readiness;
+    }
+
     @Override @Nonnull
     public ProgressState call() {
         assert !processorClosed : "processor closed";
         progTracker.reset();
         outbox.reset();
+        inputExhausted = false;
+        saveSnapshotInBackground();
         stateMachineStep();
+        if (readiness != null) {
+            readiness.flushWakeUps();
+            if (!isWaitingForInput()) {
+                readiness.markReady();
+            }
+        }
         ProgressState progressState = progTracker.toProgressState();
         if (progressState.isDone()) {
             closeProcessor();
@@ -238,6 +344,20 @@ public class ProcessorTasklet implements Tasklet {
         return progressState;
     }
 
+    /**
+     * Returns true, if the processor can't do anything until new input
+     * arrives: the input queues were empty, the inbox is empty and there's
+     * nothing pending to be emitted.
+     */
+    private boolean isWaitingForInput() {
+        return inputExhausted
+                && state == PROCESS_WATERMARK
+                && pendingWatermark == null
+                && inbox.isEmpty()
+                && !outbox.hasUnfinishedItem()
+                && backgroundSnapshotTraverser == null;
+    }
+
     private void closeProcessor() {
         assert !processorClosed : "processor already closed";
         try {
@@ -278,6 +398,11 @@ public class ProcessorTasklet implements Tasklet {
                         assert !outbox.hasUnfinishedItem() : isSnapshotInbox()
                                 ? "Unfinished item before fillInbox call"
                                 : "Processor.tryProcess() returned true, but there's unfinished item in the outbox";
+                        if (startUnalignedSnapshot()) {
+                            progTracker.madeProgress();
+                            state = SAVE_SNAPSHOT;
+                            return;
+                        }
                         fillInbox();
                     } else {
                         return;
@@ -293,7 +418,12 @@ public class ProcessorTasklet implements Tasklet {
 
                 if (inbox.isEmpty()) {
                     // there is either snapshot or instream is done, not both
-                    if (currInstream != null && currInstream.isDone()) {
+                    if (unalignedSnapshotInProgress) {
+                        // a barrier was received by fillInbox()
+                        state = SAVE_SNAPSHOT;
+                        return;
+                    } else if (currInstream != null && currInstream.isDone()
+                            && !hasInFlightItems(currInstream.ordinal())) {
                         state = COMPLETE_EDGE;
                         progTracker.madeProgress();
                         return;
@@ -317,6 +447,9 @@ public class ProcessorTasklet implements Tasklet {
                         ? processor.finishSnapshotRestore() : processor.completeEdge(currInstream.ordinal())) {
                     assert !outbox.hasUnfinishedItem() :
                             "outbox has unfinished item after successful completeEdge() or finishSnapshotRestore()";
+                    if (isSnapshotInbox()) {
+                        restoreInFlightItems();
+                    }
                     progTracker.madeProgress();
                     state = initialProcessingState();
                 }
@@ -324,6 +457,18 @@ public class ProcessorTasklet implements Tasklet {
 
             case SAVE_SNAPSHOT:
                 progTracker.notDone();
+                if (backgroundSnapshotTraverser != null) {
+                    // the previous snapshot is still being saved in the background
+                    return;
+                }
+                if (processor instanceof IncrementalSnapshotAware) {
+                    ((IncrementalSnapshotAware) processor).setIncrementalSnapshot(ssContext.isIncrementalSnapshot());
+                }
+                if (startBackgroundSnapshot()) {
+                    progTracker.madeProgress();
+                    state = EMIT_BARRIER;
+                    return;
+                }
                 if (processor.saveToSnapshot()) {
                     progTracker.madeProgress();
                     state = EMIT_BARRIER;
@@ -332,6 +477,29 @@ public class ProcessorTasklet implements Tasklet {
 
             case EMIT_BARRIER:
                 assert currentBarrier != null : "currentBarrier == null";
+                if (unalignedSnapshotInProgress) {
+                    // the barrier goes downstream now and to the snapshot queue after the in-flight items
+                    if (outbox.offer(currentBarrier)) {
+                        progTracker.madeProgress();
+                        startInFlightItemCapture();
+                        state = CAPTURE_IN_FLIGHT_ITEMS;
+                    }
+                    progTracker.notDone();
+                    return;
+                }
+                if (backgroundSnapshotTraverser != null) {
+                    // the barrier goes downstream now and to the snapshot queue after the saved entries
+                    if (outbox.offer(currentBarrier)) {
+                        progTracker.madeProgress();
+                        backgroundSnapshotBarrier = currentBarrier;
+                        currentBarrier = null;
+                        receivedBarriers.clear();
+                        pendingSnapshotId++;
+                        state = initialProcessingState();
+                    }
+                    progTracker.notDone();
+                    return;
+                }
                 if (outbox.offerToEdgesAndSnapshot(currentBarrier)) {
                     progTracker.madeProgress();
                     if (currentBarrier.isTerminal()) {
@@ -346,6 +514,19 @@ public class ProcessorTasklet implements Tasklet {
                 progTracker.notDone();
                 return;
 
+            case CAPTURE_IN_FLIGHT_ITEMS:
+                progTracker.notDone();
+                boolean allBarriersReceived = captureInFlightItems();
+                if (saveInFlightItems() && allBarriersReceived && outbox.offerToSnapshotEdge(currentBarrier)) {
+                    progTracker.madeProgress();
+                    currentBarrier = null;
+                    receivedBarriers.clear();
+                    pendingSnapshotId++;
+                    unalignedSnapshotInProgress = false;
+                    state = initialProcessingState();
+                }
+                return;
+
             case COMPLETE:
                 progTracker.notDone();
                 // check ssContext to see if a barrier should be emitted
@@ -370,7 +551,7 @@ public class ProcessorTasklet implements Tasklet {
                 return;
 
             case EMIT_DONE_ITEM:
-                if (!outbox.offerToEdgesAndSnapshot(DONE_ITEM)) {
+                if (backgroundSnapshotTraverser != null || !outbox.offerToEdgesAndSnapshot(DONE_ITEM)) {
                     progTracker.notDone();
                     return;
                 }
@@ -383,6 +564,213 @@ public class ProcessorTasklet implements Tasklet {
         }
     }
 
+    @SuppressWarnings("unchecked")
+    private boolean addToInbox(Object item) {
+        if (!isSnapshotInbox()) {
+            // items received with lazy deserialization are deserialized by the inbox
+            // when the processor first accesses them
+            return inbox.queue().add(item);
+        }
+        Object deserialized = deserialize(item);
+        if (deserialized instanceof Entry && ((Entry) deserialized).getKey() instanceof InFlightItemKey) {
+            // restored in-flight items are processed after the restore is finished
+            restoredInFlightItems.add((Entry<InFlightItemKey, Object>) deserialized);
+            return true;
+        }
+        return inbox.queue().add(deserialized);
+    }
+
+    private Object deserialize(Object item) {
+        return item instanceof SerializedItem
+                ? ((SerializedItem) item).deserialize(serializationService)
+                : item;
+    }
+
+    /**
+     * Starts an unaligned snapshot, if the current snapshot was started on this
+     * member and we're not restoring from a snapshot. The barrier doesn't wait
+     * behind the items in the input queues, these become in-flight items of
+     * the snapshot. Called only when the inbox is empty.
+     */
+    private boolean startUnalignedSnapshot() {
+        if (!unalignedSnapshots
+                || unalignedSnapshotInProgress
+                || !receivedBarriers.isEmpty()
+                || instreamCursor == null
+                || isSnapshotRestoreStream(instreamCursor.value())
+                || ssContext.activeSnapshotId() != pendingSnapshotId
+                || ssContext.isTerminalSnapshot()) {
+            return false;
+        }
+        currentBarrier = new SnapshotBarrier(pendingSnapshotId, false);
+        unalignedSnapshotInProgress = true;
+        return true;
+    }
+
+    /**
+     * Captures the processor's state to save it in the background, if the
+     * processor supports it and the current snapshot isn't terminal or
+     * unaligned. Returns true, if the state was captured.
+     */
+    private boolean startBackgroundSnapshot() {
+        if (!backgroundSnapshotSaving || unalignedSnapshotInProgress || currentBarrier.isTerminal()) {
+            return false;
+        }
+        backgroundSnapshotTraverser = ((BackgroundSnapshotAware) processor).captureSnapshot(copyToDataFn);
+        return backgroundSnapshotTraverser != null;
+    }
+
+    /**
+     * Offers the next batch of the entries of the snapshot being saved in
+     * the background to the snapshot queue, followed by the snapshot barrier
+     * after the last entry.
+     */
+    private void saveSnapshotInBackground() {
+        if (backgroundSnapshotTraverser == null || backgroundSnapshotBarrier == null) {
+            // nothing to save or the barrier wasn't emitted downstream yet
+            return;
+        }
+        progTracker.notDone();
+        for (int i = 0; i < BACKGROUND_SNAPSHOT_BATCH_SIZE; i++) {
+            if (pendingBackgroundSnapshotItem == null) {
+                Entry<?, ?> e = backgroundSnapshotTraverser.next();
+                // the entries are serialized right away, the values can change after this call
+                pendingBackgroundSnapshotItem = e != null
+                        ? entry(serializationService.toData(e.getKey()), serializationService.toData(e.getValue()))
+                        : backgroundSnapshotBarrier;
+            }
+            if (!ssCollector.offer(pendingBackgroundSnapshotItem).isDone()) {
+                return;
+            }
+            progTracker.madeProgress();
+            if (pendingBackgroundSnapshotItem == backgroundSnapshotBarrier) {
+                pendingBackgroundSnapshotItem = null;
+                backgroundSnapshotBarrier = null;
+                backgroundSnapshotTraverser = null;
+                return;
+            }
+            pendingBackgroundSnapshotItem = null;
+            lazyIncrement(emittedCounts, emittedCounts.length() - 1);
+        }
+    }
+
+    /**
+     * Adds the unprocessed in-flight items to the items to save: they aren't
+     * part of the saved state and the upstream won't send them again.
+     */
+    private void startInFlightItemCapture() {
+        assert inFlightItemsToSave.isEmpty() : "inFlightItemsToSave not empty";
+        for (int ordinal = 0; ordinal < inFlightItems.length; ordinal++) {
+            if (inFlightItems[ordinal] == null) {
+                continue;
+            }
+            for (Object item : inFlightItems[ordinal]) {
+                // watermarks aren't saved, they are generated again after a restore
+                if (!(item instanceof BroadcastItem)) {
+                    inFlightItemsToSave.add(inFlightItemEntry(ordinal, item));
+                }
+            }
+        }
+    }
+
+    /**
+     * Drains the inputs that didn't deliver the current barrier yet into the
+     * in-flight items. Returns true, if all the active inputs delivered it.
+     */
+    private boolean captureInFlightItems() {
+        boolean allBarriersReceived = true;
+        for (InboundEdgeStream instream : instreamCursor.getList()) {
+            captureOrdinal = instream.ordinal();
+            if (receivedBarriers.get(captureOrdinal) || instream.isDone()) {
+                continue;
+            }
+            ProgressState result = instream.drainTo(captureInFlightItemFunction);
+            progTracker.madeProgress(result.isMadeProgress());
+            allBarriersReceived &= receivedBarriers.get(captureOrdinal) || instream.isDone();
+        }
+        return allBarriersReceived;
+    }
+
+    private boolean captureInFlightItem(Object item) {
+        if (item instanceof SnapshotBarrier) {
+            observeBarrier(captureOrdinal, (SnapshotBarrier) item);
+            return true;
+        }
+        Object deserialized = deserialize(item);
+        inFlightItemQueue(captureOrdinal).add(deserialized);
+        if (!(deserialized instanceof BroadcastItem)) {
+            inFlightItemsToSave.add(inFlightItemEntry(captureOrdinal, deserialized));
+        }
+        return true;
+    }
+
+    private Entry<InFlightItemKey, Object> inFlightItemEntry(int ordinal, Object item) {
+        int partitionId = instreamByOrdinal[ordinal].inFlightItemPartition(item);
+        return entry(new InFlightItemKey(ordinal, context.globalProcessorIndex(), inFlightItemSequence++,
+                partitionId), item);
+    }
+
+    /**
+     * Offers the in-flight items to the snapshot, returns true, if all were
+     * accepted.
+     */
+    private boolean saveInFlightItems() {
+        for (Entry<InFlightItemKey, Object> e; (e = inFlightItemsToSave.peek()) != null; ) {
+            if (!outbox.offerToSnapshot(e.getKey(), e.getValue())) {
+                return false;
+            }
+            inFlightItemsToSave.remove();
+            lazyIncrement(savedInFlightItems);
+        }
+        return true;
+    }
+
+    /**
+     * Adds the in-flight items restored from the snapshot to the items to
+     * process, in the order in which they were received.
+     */
+    private void restoreInFlightItems() {
+        if (restoredInFlightItems.isEmpty()) {
+            return;
+        }
+        restoredInFlightItems.sort(comparing(Entry::getKey, InFlightItemKey.COMPARATOR));
+        for (Entry<InFlightItemKey, Object> e : restoredInFlightItems) {
+            int ordinal = e.getKey().ordinal();
+            if (ordinal >= instreamByOrdinal.length || isSnapshotRestoreStream(instreamByOrdinal[ordinal])) {
+                throw new JetException("In-flight item restored to ordinal " + ordinal + ", but the vertex "
+                        + context.vertexName() + " has no such input edge");
+            }
+            inFlightItemQueue(ordinal).add(e.getValue());
+        }
+        logFine(logger, "Restored %d in-flight items", restoredInFlightItems.size());
+        restoredInFlightItems.clear();
+    }
+
+    private boolean hasInFlightItems(int ordinal) {
+        return inFlightItems[ordinal] != null && !inFlightItems[ordinal].isEmpty();
+    }
+
+    private ArrayDeque<Object> inFlightItemQueue(int ordinal) {
+        if (inFlightItems[ordinal] == null) {
+            inFlightItems[ordinal] = new ArrayDeque<>();
+        }
+        return inFlightItems[ordinal];
+    }
+
+    /**
+     * Moves the in-flight items of the ordinal to the inbox, up to and
+     * including the first watermark.
+     */
+    private ProgressState drainInFlightItems(ArrayDeque<Object> queue) {
+        for (Object item; (item = queue.poll()) != null; ) {
+            inbox.queue().add(item);
+            if (item instanceof BroadcastItem) {
+                break;
+            }
+        }
+        return MADE_PROGRESS;
+    }
+
     private void fillInbox() {
         assert inbox.isEmpty() : "inbox is not empty";
         assert pendingWatermark == null : "null wm expected, but was " + pendingWatermark;
@@ -401,7 +789,15 @@ public class ProcessorTasklet implements Tasklet {
                 instreamCursor.advance();
                 continue;
             }
-            result = currInstream.drainTo(addToInboxFunction);
+            if (hasInFlightItems(currInstream.ordinal())) {
+                result = drainInFlightItems(inFlightItems[currInstream.ordinal()]);
+                // an input that completed while its items were in flight is done with the last of them
+                if (currInstream.isDone() && !hasInFlightItems(currInstream.ordinal())) {
+                    result = DONE;
+                }
+            } else {
+                result = currInstream.drainTo(addToInboxFunction);
+            }
             progTracker.madeProgress(result.isMadeProgress());
 
             // check if the last drained item is special
@@ -415,6 +811,14 @@ public class ProcessorTasklet implements Tasklet {
             } else if (lastItem instanceof SnapshotBarrier) {
                 SnapshotBarrier barrier = (SnapshotBarrier) inbox.queue().removeLast();
                 observeBarrier(currInstream.ordinal(), barrier);
+                if (unalignedSnapshots && !barrier.isTerminal()) {
+                    // the barrier overtakes the items received before it, they become in-flight items
+                    ArrayDeque<Object> queue = inFlightItemQueue(currInstream.ordinal());
+                    for (Object item; (item = inbox.queue().poll()) != null; ) {
+                        queue.add(deserialize(item));
+                    }
+                    unalignedSnapshotInProgress = true;
+                }
             } else if (lastItem != null && !(lastItem instanceof BroadcastItem)) {
                 watermarkCoalescer.observeEvent(currInstream.ordinal());
             }
@@ -439,6 +843,8 @@ public class ProcessorTasklet implements Tasklet {
                 break;
             }
         } while (!result.isMadeProgress() && instreamCursor.value() != first);
+        // if we moved to the next priority group, its queues weren't checked yet
+        inputExhausted = !result.isMadeProgress() && instreamCursor != null && instreamCursor.value() == first;
 
         // we are the only updating thread, no need for CAS operations
         lazyAdd(receivedCounts, currInstream.ordinal(), inbox.size());
@@ -490,7 +896,11 @@ public class ProcessorTasklet implements Tasklet {
      * Returns, if the inbox we are currently on is the snapshot restoring inbox.
      */
     private boolean isSnapshotInbox() {
-        return currInstream != null && currInstream.priority() == Integer.MIN_VALUE;
+        return currInstream != null && isSnapshotRestoreStream(currInstream);
+    }
+
+    private static boolean isSnapshotRestoreStream(InboundEdgeStream instream) {
+        return instream.priority() == Integer.MIN_VALUE;
     }
 
     @Override
@@ -17,15 +17,20 @@
 package com.hazelcast.jet.impl.execution;
 
 import com.hazelcast.internal.util.concurrent.MPSCQueue;
+import com.hazelcast.jet.config.EdgeConfig;
+import com.hazelcast.jet.config.FlowControlType;
 import com.hazelcast.jet.config.InstanceConfig;
+import com.hazelcast.jet.impl.util.BlockCodec;
 import com.hazelcast.jet.impl.util.ObjectWithPartitionId;
 import com.hazelcast.jet.impl.util.ProgressState;
 import com.hazelcast.jet.impl.util.ProgressTracker;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.logging.LoggingService;
+import com.hazelcast.nio.Bits;
 import com.hazelcast.nio.BufferObjectDataInput;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.ArrayDeque;
 import java.util.Queue;
@@ -68,23 +73,47 @@ public class ReceiverTasklet implements Tasklet {
      */
     static final int INITIAL_RECEIVE_WINDOW_COMPRESSED = 800;
 
+    /**
+     * The smallest receive window the {@linkplain FlowControlType#DELAY_BASED
+     * delay-based} flow control shrinks to.
+     */
+    static final int MIN_RECEIVE_WINDOW_COMPRESSED = 1;
+
+    /**
+     * The weight of a new sample in the smoothed round-trip time, as in TCP.
+     */
+    private static final double RTT_SAMPLE_WEIGHT = 0.125;
+
     /**
      * Receive Window converges towards the amount of data processed per flow-control
      * period multiplied by this number.
      */
     private final int rwinMultiplier;
     private final double flowControlPeriodNs;
+    private final boolean delayBasedFlowControl;
+    private final long targetQueueingDelayNanos;
     private final ILogger logger;
 
     private final Queue<BufferObjectDataInput> incoming = new MPSCQueue<>(null);
     private final ProgressTracker tracker = new ProgressTracker();
     private final ArrayDeque<ObjWithPtionIdAndSize> inbox = new ArrayDeque<>();
     private final OutboundCollector collector;
+    private final TaskletReadiness readiness;
 
     private boolean receptionDone;
 
     private final AtomicLong itemsInCounter = new AtomicLong();
     private final AtomicLong bytesInCounter = new AtomicLong();
+    private final AtomicLong uncompressedBytesInCounter = new AtomicLong();
+    private final AtomicLong decompressionNanosCounter = new AtomicLong();
+    private final AtomicLong receiveWindowGauge = new AtomicLong();
+    private final AtomicLong rttEstimateGauge = new AtomicLong();
+    private final AtomicLong senderStallNanosCounter = new AtomicLong();
+
+    private final BlockCodec codec;
+    private final boolean lazyDeserialization;
+    private byte[] compressedBuffer = new byte[0];
+    private byte[] decompressedBuffer = new byte[0];
 
     //                    FLOW-CONTROL STATE
     //            All arrays are indexed by sender ID.
@@ -93,32 +122,70 @@ public class ReceiverTasklet implements Tasklet {
     private volatile long ackedSeq;
     private volatile int numWaitingInInbox;
 
+    // The following fields are only used by the delay-based flow control.
+
+    // read by a task scheduler thread, written by a tasklet execution thread
+    private volatile long queueingDelayNanos;
+    private volatile long rttSampleNanos;
+    // set by a tasklet execution thread when it detects that the sender can't
+    // send more data, cleared by a task scheduler thread when it grants more
+    private final AtomicLong windowExhaustedSince = new AtomicLong();
+
+    // written by a task scheduler thread, read and cleared by a tasklet execution thread
+    private volatile int sendSeqLimitCompressed;
+    private volatile long rttProbeStartNanos;
+
+    // read and written by a tasklet execution thread
+    private long receivedSeq;
+    private long stallSeq = -1;
+
     // read and written by updateAndGetSendSeqLimitCompressed(), which is invoked sequentially by a task scheduler
     private int receiveWindowCompressed;
     private int prevAckedSeqCompressed;
     private long prevTimestamp;
+    private long smoothedRttNanos;
 
     //                 END FLOW-CONTROL STATE
 
     public ReceiverTasklet(
-            OutboundCollector collector, int rwinMultiplier, int flowControlPeriodMs,
-            LoggingService loggingService, String debugName
+            OutboundCollector collector, @Nonnull EdgeConfig edgeConfig, int flowControlPeriodMs,
+            LoggingService loggingService, String debugName, @Nullable TaskletReadiness readiness
     ) {
         this.collector = collector;
-        this.rwinMultiplier = rwinMultiplier;
+        this.codec = BlockCodec.newCodec(edgeConfig.getCompression());
+        this.lazyDeserialization = edgeConfig.isLazyDeserializationEnabled();
+        this.readiness = readiness;
+        this.rwinMultiplier = edgeConfig.getReceiveWindowMultiplier();
         this.flowControlPeriodNs = (double) MILLISECONDS.toNanos(flowControlPeriodMs);
+        this.delayBasedFlowControl = edgeConfig.getFlowControl() == FlowControlType.DELAY_BASED;
+        this.targetQueueingDelayNanos = MILLISECONDS.toNanos(edgeConfig.getTargetQueueingDelayMs());
         this.logger = loggingService.getLogger(getClass().getName() + '.' + debugName);
         this.receiveWindowCompressed = INITIAL_RECEIVE_WINDOW_COMPRESSED;
     }
 
+    @Nullable @Override
+    public TaskletReadiness readiness() {
+        return readiness;
+    }
+
     @Override @Nonnull
     public ProgressState call() {
-        if (receptionDone) {
-            return collector.offerBroadcast(DONE_ITEM);
+        ProgressState result = receptionDone ? collector.offerBroadcast(DONE_ITEM) : receive();
+        if (readiness != null) {
+            readiness.flushWakeUps();
+            if (receptionDone || !inbox.isEmpty()) {
+                // we have items to forward that don't depend on new packets
+                readiness.markReady();
+            }
         }
+        return result;
+    }
+
+    private ProgressState receive() {
         tracker.reset();
         tracker.notDone();
-        tryFillInbox();
+        final long now = delayBasedFlowControl ? System.nanoTime() : 0;
+        tryFillInbox(now);
         for (ObjWithPtionIdAndSize o; (o = inbox.peek()) != null; ) {
             final Object item = o.getItem();
             if (item == DONE_ITEM) {
@@ -139,11 +206,49 @@ public class ReceiverTasklet implements Tasklet {
             ackItem(o.estimatedMemoryFootprint);
         }
         numWaitingInInbox = inbox.size();
+        if (delayBasedFlowControl) {
+            observeDelay(now);
+        }
         return tracker.toProgressState();
     }
 
+    /**
+     * Records the state the delay-based flow control needs: the time the
+     * oldest item waits in the inbox, whether the sender exhausted the
+     * receive window and the round-trip time after a window was raised.
+     */
+    private void observeDelay(long now) {
+        final ObjWithPtionIdAndSize head = inbox.peek();
+        queueingDelayNanos = head != null ? now - head.receivedNanos : 0;
+        if (stallSeq < 0) {
+            if (compressSeq(receivedSeq) - sendSeqLimitCompressed > 0) {
+                // the sender can't send anything more until we raise the limit
+                stallSeq = receivedSeq;
+                windowExhaustedSince.compareAndSet(0, now);
+            }
+        } else if (receivedSeq > stallSeq) {
+            // data sent after the limit was raised arrived
+            final long probeStart = rttProbeStartNanos;
+            if (probeStart != 0) {
+                rttSampleNanos = now - probeStart;
+                rttProbeStartNanos = 0;
+            }
+            stallSeq = -1;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (codec != null) {
+            codec.close();
+        }
+    }
+
     void receiveStreamPacket(BufferObjectDataInput packetInput) {
         incoming.add(packetInput);
+        if (readiness != null) {
+            readiness.markReady();
+        }
     }
 
     /**
@@ -180,12 +285,23 @@ public class ReceiverTasklet implements Tasklet {
      *     Return the {@code sentSeq} limit as the current acked seq plus the current
      *     receive window.
      * </li></ol>
+     * These steps apply to the {@linkplain FlowControlType#RATE_BASED rate-based}
+     * flow control, see {@link #delayBasedSendSeqLimitCompressed(long)} for the
+     * delay-based one.
      *
      * @param timestampNow value of the timestamp at the time the method is called. The timestamp
      *                     must be obtained from {@code System.nanoTime()}.
      */
     // Invoked sequentially by a task scheduler
     int updateAndGetSendSeqLimitCompressed(long timestampNow) {
+        final int limit = delayBasedFlowControl
+                ? delayBasedSendSeqLimitCompressed(timestampNow)
+                : rateBasedSendSeqLimitCompressed(timestampNow);
+        receiveWindowGauge.lazySet((long) receiveWindowCompressed << COMPRESSED_SEQ_UNIT_LOG2);
+        return limit;
+    }
+
+    private int rateBasedSendSeqLimitCompressed(long timestampNow) {
         final boolean hadPrevStats = prevTimestamp != 0 || prevAckedSeqCompressed != 0;
 
         final long ackTimeDelta = timestampNow - prevTimestamp;
@@ -215,6 +331,73 @@ public class ReceiverTasklet implements Tasklet {
         return ackedSeqCompressed + receiveWindowCompressed;
     }
 
+    /**
+     * Calculates the limit for the {@linkplain FlowControlType#DELAY_BASED
+     * delay-based} flow control. The receive window is adjusted in proportion
+     * to the difference between the target and the current queueing delay,
+     * measured as the time the oldest item waits in the inbox:
+     * <ul><li>
+     *     if the delay is above the target, the window shrinks by up to a half
+     * </li><li>
+     *     if the delay is below the target and the sender exhausted the window
+     *     since the last call, the window grows by up to a factor of two
+     * </li></ul>
+     * The window never shrinks below the amount of data the receiver
+     * processes during one smoothed round-trip time, so that the window
+     * doesn't limit the throughput.
+     */
+    private int delayBasedSendSeqLimitCompressed(long timestampNow) {
+        final boolean hadPrevStats = prevTimestamp != 0 || prevAckedSeqCompressed != 0;
+
+        final long ackTimeDelta = timestampNow - prevTimestamp;
+        prevTimestamp = timestampNow;
+
+        final int ackedSeqCompressed = compressSeq(ackedSeq);
+        final int ackedSeqCompressedDelta = ackedSeqCompressed - prevAckedSeqCompressed;
+        prevAckedSeqCompressed = ackedSeqCompressed;
+
+        final long rttSample = rttSampleNanos;
+        if (rttSample != 0) {
+            rttSampleNanos = 0;
+            smoothedRttNanos = smoothedRttNanos == 0
+                    ? rttSample
+                    : (long) (smoothedRttNanos + RTT_SAMPLE_WEIGHT * (rttSample - smoothedRttNanos));
+            rttEstimateGauge.lazySet(smoothedRttNanos);
+        }
+        final long exhaustedSince = windowExhaustedSince.getAndSet(0);
+        final boolean windowLimited = exhaustedSince != 0;
+        if (windowLimited) {
+            lazyAdd(senderStallNanosCounter, timestampNow - exhaustedSince);
+        }
+
+        if (hadPrevStats) {
+            final double offTarget = Math.max(-1d,
+                    (double) (targetQueueingDelayNanos - queueingDelayNanos) / targetQueueingDelayNanos);
+            int newRwin = receiveWindowCompressed;
+            if (offTarget < 0) {
+                newRwin = (int) (newRwin * (1 + offTarget / 2));
+            } else if (windowLimited) {
+                newRwin += (int) ceil(newRwin * offTarget);
+            }
+            final double ackedSeqsPerRtt = ackTimeDelta > 0
+                    ? (double) ackedSeqCompressedDelta * smoothedRttNanos / ackTimeDelta
+                    : 0;
+            newRwin = Math.max(newRwin, Math.max(MIN_RECEIVE_WINDOW_COMPRESSED, (int) ceil(ackedSeqsPerRtt)));
+            if (newRwin != receiveWindowCompressed) {
+                logFinest(logger, "receiveWindowCompressed changed by %d to %d, queueing delay %d ns",
+                        newRwin - receiveWindowCompressed, newRwin, queueingDelayNanos);
+            }
+            receiveWindowCompressed = newRwin;
+        }
+        final int limit = ackedSeqCompressed + receiveWindowCompressed;
+        if (windowLimited && limit - sendSeqLimitCompressed > 0) {
+            // measure the time until the data sent thanks to the new limit arrives
+            rttProbeStartNanos = timestampNow;
+        }
+        sendSeqLimitCompressed = limit;
+        return limit;
+    }
+
     // Only one thread writes to ackedSeq
     @SuppressWarnings("NonAtomicOperationOnVolatileField")
     long ackItem(long itemWeight) {
@@ -228,6 +411,20 @@ public class ReceiverTasklet implements Tasklet {
         this.numWaitingInInbox = value;
     }
 
+    /**
+     * To be called only from testing code.
+     */
+    void setQueueingDelayNanos(long value) {
+        this.queueingDelayNanos = value;
+    }
+
+    /**
+     * To be called only from testing code.
+     */
+    void setWindowExhaustedSince(long timestamp) {
+        windowExhaustedSince.set(timestamp);
+    }
+
     @Override
     public String toString() {
         return "ReceiverTasklet";
@@ -250,20 +447,22 @@ public class ReceiverTasklet implements Tasklet {
         return overhead + itemBlobSize;
     }
 
-    private void tryFillInbox() {
+    private void tryFillInbox(long now) {
         try {
             long totalBytes = 0;
             long totalItems = 0;
             for (BufferObjectDataInput received; (received = incoming.poll()) != null; ) {
+                final int packetSize = codec != null ? decompress(received) : -1;
                 final int itemCount = received.readInt();
                 for (int i = 0; i < itemCount; i++) {
                     final int mark = received.position();
-                    final Object item = received.readObject();
+                    final Object item = lazyDeserialization ? readLazily(received) : received.readObject();
                     final int itemSize = received.position() - mark;
-                    inbox.add(new ObjWithPtionIdAndSize(item, received.readInt(), itemSize));
+                    inbox.add(new ObjWithPtionIdAndSize(item, received.readInt(), itemSize, now));
+                    receivedSeq += estimatedMemoryFootprint(itemSize);
                 }
                 totalItems += itemCount;
-                totalBytes += received.position();
+                totalBytes += packetSize >= 0 ? packetSize : received.position();
                 received.close();
                 tracker.madeProgress();
             }
@@ -274,12 +473,57 @@ public class ReceiverTasklet implements Tasklet {
         }
     }
 
+    /**
+     * Reads an item written by {@link SenderTasklet} with lazy
+     * deserialization: it only copies the serialized form of a data item and
+     * leaves its deserialization to the consuming processor tasklet.
+     */
+    private static Object readLazily(BufferObjectDataInput received) throws IOException {
+        final int length = received.readInt();
+        if (length < 0) {
+            // a control item, we need it deserialized to route it
+            return received.readObject();
+        }
+        final byte[] bytes = new byte[length];
+        received.readFully(bytes);
+        return new SerializedItem(bytes);
+    }
+
+    /**
+     * Decompresses the body of a packet compressed by {@link SenderTasklet}
+     * and re-initializes the input to read from the decompressed body. The
+     * buffers are reused because the items of the packet are deserialized
+     * before the next packet is decompressed.
+     *
+     * @return the size of the received packet
+     */
+    private int decompress(BufferObjectDataInput received) throws IOException {
+        long start = System.nanoTime();
+        int bodyLength = received.readInt();
+        int compressedLength = received.readInt();
+        if (compressedBuffer.length < compressedLength) {
+            compressedBuffer = new byte[compressedLength];
+        }
+        received.readFully(compressedBuffer, 0, compressedLength);
+        int packetSize = received.position();
+        if (decompressedBuffer.length < bodyLength) {
+            decompressedBuffer = new byte[bodyLength];
+        }
+        codec.decompress(compressedBuffer, 0, compressedLength, decompressedBuffer, 0, bodyLength);
+        received.init(decompressedBuffer, 0);
+        lazyAdd(uncompressedBytesInCounter, packetSize - compressedLength - 2 * Bits.INT_SIZE_IN_BYTES + bodyLength);
+        lazyAdd(decompressionNanosCounter, System.nanoTime() - start);
+        return packetSize;
+    }
+
     private static class ObjWithPtionIdAndSize extends ObjectWithPartitionId {
         final long estimatedMemoryFootprint;
+        final long receivedNanos;
 
-        ObjWithPtionIdAndSize(Object item, int partitionId, int itemBlobSize) {
+        ObjWithPtionIdAndSize(Object item, int partitionId, int itemBlobSize, long receivedNanos) {
             super(item, partitionId);
             this.estimatedMemoryFootprint = estimatedMemoryFootprint(itemBlobSize);
+            this.receivedNanos = receivedNanos;
         }
     }
 
@@ -290,4 +534,43 @@ public class ReceiverTasklet implements Tasklet {
     public AtomicLong getBytesInCounter() {
         return bytesInCounter;
     }
+
+    /**
+     * Returns the number of bytes the received packets would have without
+     * compression. Stays at zero if the edge isn't compressed.
+     */
+    public AtomicLong getUncompressedBytesInCounter() {
+        return uncompressedBytesInCounter;
+    }
+
+    /**
+     * Returns the total time spent decompressing the packets, in nanoseconds.
+     */
+    public AtomicLong getDecompressionNanosCounter() {
+        return decompressionNanosCounter;
+    }
+
+    /**
+     * Returns the current receive window, in bytes.
+     */
+    public AtomicLong getReceiveWindowGauge() {
+        return receiveWindowGauge;
+    }
+
+    /**
+     * Returns the smoothed round-trip time measured by the delay-based flow
+     * control, in nanoseconds.
+     */
+    public AtomicLong getRttEstimateGauge() {
+        return rttEstimateGauge;
+    }
+
+    /**
+     * Returns the total time the sender couldn't send because it exhausted
+     * the receive window, as observed by the delay-based flow control, in
+     * nanoseconds.
+     */
+    public AtomicLong getSenderStallNanosCounter() {
+        return senderStallNanosCounter;
+    }
 }
@@ -16,6 +16,8 @@
 
 package com.hazelcast.jet.impl.execution;
 
+import com.hazelcast.jet.config.EdgeConfig;
+import com.hazelcast.jet.impl.util.BlockCodec;
 import com.hazelcast.jet.impl.util.ObjectWithPartitionId;
 import com.hazelcast.jet.impl.util.ProgressState;
 import com.hazelcast.jet.impl.util.ProgressTracker;
@@ -29,7 +31,9 @@ import com.hazelcast.util.function.Predicate;
 
 import javax.annotation.Nonnull;
 import java.io.IOException;
+import java.nio.ByteOrder;
 import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Queue;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -41,6 +45,7 @@ import static com.hazelcast.jet.impl.util.ExceptionUtil.rethrow;
 import static com.hazelcast.jet.impl.util.Util.createObjectDataOutput;
 import static com.hazelcast.jet.impl.util.Util.getMemberConnection;
 import static com.hazelcast.jet.impl.util.Util.lazyAdd;
+import static com.hazelcast.jet.impl.util.Util.lazyIncrement;
 import static com.hazelcast.jet.impl.util.Util.uncheckRun;
 
 public class SenderTasklet implements Tasklet {
@@ -52,8 +57,14 @@ public class SenderTasklet implements Tasklet {
     private final BufferObjectDataOutput outputBuffer;
     private final int bufPosPastHeader;
     private final int packetSizeLimit;
+    private final boolean lazyDeserialization;
     private final AtomicLong itemsOutCounter = new AtomicLong();
     private final AtomicLong bytesOutCounter = new AtomicLong();
+    private final AtomicLong packetsOutCounter = new AtomicLong();
+    private final AtomicLong uncompressedBytesOutCounter = new AtomicLong();
+    private final AtomicLong compressionNanosCounter = new AtomicLong();
+    private final BlockCodec codec;
+    private byte[] compressBuffer = new byte[0];
 
     private boolean instreamExhausted;
     // read and written by Jet thread
@@ -64,9 +75,11 @@ public class SenderTasklet implements Tasklet {
     private Predicate<Object> addToInboxFunction = inbox::add;
 
     public SenderTasklet(InboundEdgeStream inboundEdgeStream, NodeEngine nodeEngine, Address destinationAddress,
-                         long executionId, int destinationVertexId, int packetSizeLimit) {
+                         long executionId, int destinationVertexId, @Nonnull EdgeConfig edgeConfig) {
         this.inboundEdgeStream = inboundEdgeStream;
-        this.packetSizeLimit = packetSizeLimit;
+        this.packetSizeLimit = edgeConfig.getPacketSizeLimit();
+        this.lazyDeserialization = edgeConfig.isLazyDeserializationEnabled();
+        this.codec = BlockCodec.newCodec(edgeConfig.getCompression());
         this.connection = getMemberConnection(nodeEngine, destinationAddress);
         this.outputBuffer = createObjectDataOutput(nodeEngine);
         uncheckRun(() -> outputBuffer.write(createStreamPacketHeader(
@@ -83,11 +96,53 @@ public class SenderTasklet implements Tasklet {
         }
         if (tryFillOutputBuffer()) {
             progTracker.madeProgress();
-            connection.write(new Packet(outputBuffer.toByteArray()).setPacketType(Packet.Type.JET));
+            // The networking layer holds on to the payload until an I/O thread
+            // writes it and doesn't notify us when that happens, therefore we can't
+            // hand it our reusable buffer and have to copy it into a new array.
+            byte[] payload = outputBuffer.toByteArray();
+            if (codec != null) {
+                payload = compress(payload);
+            }
+            connection.write(new Packet(payload).setPacketType(Packet.Type.JET));
+            lazyAdd(bytesOutCounter, payload.length);
+            lazyIncrement(packetsOutCounter);
         }
         return progTracker.toProgressState();
     }
 
+    @Override
+    public void close() {
+        if (codec != null) {
+            codec.close();
+        }
+    }
+
+    /**
+     * Compresses the part of the payload following the header. The
+     * compressed payload consists of the header, the uncompressed length of
+     * the body, the compressed length of the body and the compressed body.
+     */
+    private byte[] compress(byte[] payload) {
+        long start = System.nanoTime();
+        int bodyLength = payload.length - bufPosPastHeader;
+        int compressedBodyOffset = bufPosPastHeader + 2 * Bits.INT_SIZE_IN_BYTES;
+        int maxLength = compressedBodyOffset + codec.maxCompressedLength(bodyLength);
+        if (compressBuffer.length < maxLength) {
+            compressBuffer = new byte[maxLength];
+        }
+        System.arraycopy(payload, 0, compressBuffer, 0, bufPosPastHeader);
+        int compressedLength = codec.compress(payload, bufPosPastHeader, bodyLength,
+                compressBuffer, compressedBodyOffset);
+        // the receiver reads the lengths using the byte order of the serialization service
+        boolean bigEndian = outputBuffer.getByteOrder() == ByteOrder.BIG_ENDIAN;
+        Bits.writeInt(compressBuffer, bufPosPastHeader, bodyLength, bigEndian);
+        Bits.writeInt(compressBuffer, bufPosPastHeader + Bits.INT_SIZE_IN_BYTES, compressedLength, bigEndian);
+        byte[] compressed = Arrays.copyOf(compressBuffer, compressedBodyOffset + compressedLength);
+        lazyAdd(uncompressedBytesOutCounter, payload.length);
+        lazyAdd(compressionNanosCounter, System.nanoTime() - start);
+        return compressed;
+    }
+
     private void tryFillInbox() {
         if (!inbox.isEmpty()) {
             progTracker.notDone();
@@ -101,7 +156,7 @@ public class SenderTasklet implements Tasklet {
         progTracker.madeProgress(result.isMadeProgress());
         instreamExhausted = result.isDone();
         if (instreamExhausted) {
-            inbox.add(new ObjectWithPartitionId(DONE_ITEM, -1));
+            inbox.add(DONE_ITEM);
         }
     }
 
@@ -116,15 +171,19 @@ public class SenderTasklet implements Tasklet {
                          && (item = inbox.poll()) != null;
                  writtenCount++
             ) {
-                ObjectWithPartitionId itemWithPId = item instanceof ObjectWithPartitionId ?
-                        (ObjectWithPartitionId) item : new ObjectWithPartitionId(item, - 1);
+                // don't wrap items without a partition to avoid an allocation per item
+                final boolean hasPartition = item instanceof ObjectWithPartitionId;
+                final Object payload = hasPartition ? ((ObjectWithPartitionId) item).getItem() : item;
                 final int mark = outputBuffer.position();
-                outputBuffer.writeObject(itemWithPId.getItem());
+                if (lazyDeserialization) {
+                    writeLazilyDeserialized(payload);
+                } else {
+                    outputBuffer.writeObject(payload);
+                }
                 sentSeq += estimatedMemoryFootprint(outputBuffer.position() - mark);
-                outputBuffer.writeInt(itemWithPId.getPartitionId());
+                outputBuffer.writeInt(hasPartition ? ((ObjectWithPartitionId) item).getPartitionId() : -1);
             }
             outputBuffer.writeInt(bufPosPastHeader, writtenCount);
-            lazyAdd(bytesOutCounter, outputBuffer.position());
             lazyAdd(itemsOutCounter, writtenCount);
             return writtenCount > 0;
         } catch (IOException e) {
@@ -132,6 +191,23 @@ public class SenderTasklet implements Tasklet {
         }
     }
 
+    /**
+     * Writes the item prefixed by the length of its serialized form, so that
+     * the receiver can pass it on without deserializing it. Control items are
+     * prefixed by -1, the receiver has to deserialize them to act on them.
+     */
+    private void writeLazilyDeserialized(Object item) throws IOException {
+        if (item instanceof BroadcastItem) {
+            outputBuffer.writeInt(-1);
+            outputBuffer.writeObject(item);
+            return;
+        }
+        final int lengthPos = outputBuffer.position();
+        outputBuffer.writeInt(0);
+        outputBuffer.writeObject(item);
+        outputBuffer.writeInt(lengthPos, outputBuffer.position() - lengthPos - Bits.INT_SIZE_IN_BYTES);
+    }
+
     /**
      * Updates the upper limit on {@link #sentSeq}, which constrains how much more data this tasklet can send.
      *
@@ -166,4 +242,27 @@ public class SenderTasklet implements Tasklet {
     public AtomicLong getBytesOutCounter() {
         return bytesOutCounter;
     }
+
+    /**
+     * Returns the number of packets sent. Each packet allocates a new payload
+     * array which receives a copy of the serialized data.
+     */
+    public AtomicLong getPacketsOutCounter() {
+        return packetsOutCounter;
+    }
+
+    /**
+     * Returns the number of bytes the sent packets would have without
+     * compression. Stays at zero if the edge isn't compressed.
+     */
+    public AtomicLong getUncompressedBytesOutCounter() {
+        return uncompressedBytesOutCounter;
+    }
+
+    /**
+     * Returns the total time spent compressing the packets, in nanoseconds.
+     */
+    public AtomicLong getCompressionNanosCounter() {
+        return compressionNanosCounter;
+    }
 }
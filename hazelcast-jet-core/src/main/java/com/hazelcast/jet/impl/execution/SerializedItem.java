@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.spi.serialization.SerializationService;
+
+import java.io.IOException;
+
+import static com.hazelcast.jet.impl.util.ExceptionUtil.rethrow;
+
+/**
+ * An item received over a distributed edge with {@linkplain
+ * com.hazelcast.jet.config.EdgeConfig#setLazyDeserializationEnabled(boolean)
+ * lazy deserialization} which is still in its serialized form. The {@link
+ * ProcessorTasklet} consuming it deserializes it when the processor first
+ * accesses it in the inbox.
+ */
+final class SerializedItem {
+
+    private final byte[] bytes;
+
+    SerializedItem(byte[] bytes) {
+        this.bytes = bytes;
+    }
+
+    Object deserialize(SerializationService serializationService) {
+        try {
+            return ((InternalSerializationService) serializationService).createObjectDataInput(bytes).readObject();
+        } catch (IOException e) {
+            throw rethrow(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "SerializedItem{length=" + bytes.length + '}';
+    }
+}
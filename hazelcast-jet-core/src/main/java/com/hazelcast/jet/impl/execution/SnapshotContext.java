@@ -41,6 +41,12 @@ public class SnapshotContext {
      */
     private volatile boolean isTerminal;
 
+    /**
+     * If true, the {@link IncrementalSnapshotAware} processors should save
+     * only the changes since the previous snapshot.
+     */
+    private volatile boolean isIncremental;
+
     /**
      * Current number of {@link StoreSnapshotTasklet}s in the job. It's
      * decremented as the tasklets complete (this is when they receive
@@ -134,6 +140,10 @@ public class SnapshotContext {
         return isTerminal;
     }
 
+    boolean isIncrementalSnapshot() {
+        return isIncremental;
+    }
+
     ProcessingGuarantee processingGuarantee() {
         return guarantee;
     }
@@ -154,7 +164,7 @@ public class SnapshotContext {
      * SnapshotOperation}.
      */
     synchronized CompletableFuture<SnapshotOperationResult> startNewSnapshot(
-            long snapshotId, String mapName, boolean isTerminal) {
+            long snapshotId, String mapName, boolean isTerminal, boolean isIncremental) {
         assert snapshotId == currentSnapshotId + 1
                 : "new snapshotId not incremented by 1. Previous=" + currentSnapshotId + ", new=" + snapshotId;
         assert currentSnapshotId == activeSnapshotId : "last snapshot was postponed but not started";
@@ -163,6 +173,7 @@ public class SnapshotContext {
             throw new CancellationException("execution cancelled");
         }
         this.isTerminal = isTerminal;
+        this.isIncremental = isIncremental;
 
         boolean success = numRemainingTasklets.compareAndSet(0, numTasklets);
         assert success : "numRemainingTasklets wasn't 0, but " + numRemainingTasklets.get();
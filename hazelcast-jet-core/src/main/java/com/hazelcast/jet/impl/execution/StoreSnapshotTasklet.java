@@ -150,6 +150,11 @@ public class StoreSnapshotTasklet implements Tasklet {
         return true;
     }
 
+    @Override
+    public void close() {
+        ssWriter.close();
+    }
+
     @Override
     public String toString() {
         return StoreSnapshotTasklet.class.getSimpleName() + '{' + vertexName + '}';
@@ -19,6 +19,7 @@ package com.hazelcast.jet.impl.execution;
 import com.hazelcast.jet.impl.util.ProgressState;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 
 public interface Tasklet {
 
@@ -35,4 +36,23 @@ public interface Tasklet {
     default void close() {
     }
 
+    /**
+     * Returns the object to record the durations of {@link #call()}
+     * invocations to or {@code null}, if they shouldn't be measured.
+     */
+    @Nullable
+    default TaskletCallStats callStats() {
+        return null;
+    }
+
+    /**
+     * Returns the object through which the producers of this tasklet's input
+     * signal that new input is available or {@code null}, if the tasklet must
+     * be called in every iteration of its worker.
+     */
+    @Nullable
+    default TaskletReadiness readiness() {
+        return null;
+    }
+
 }
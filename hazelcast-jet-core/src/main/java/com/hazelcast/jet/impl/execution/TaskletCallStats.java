@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.internal.metrics.LongProbeFunction;
+import com.hazelcast.internal.metrics.ProbeBuilder;
+import com.hazelcast.internal.metrics.ProbeLevel;
+import com.hazelcast.internal.metrics.ProbeUnit;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static com.hazelcast.jet.impl.util.Util.lazyAdd;
+import static com.hazelcast.jet.impl.util.Util.lazyIncrement;
+
+/**
+ * Statistics of the durations of {@link Tasklet#call()} invocations: the
+ * number of calls, the cumulative busy time, the longest call and a
+ * histogram of call durations.
+ * <p>
+ * The histogram is log-linear, like an HDR histogram: each power-of-two
+ * range of durations is split into {@value #SUB_BUCKET_COUNT} equally wide
+ * buckets, so the relative error of a recorded duration is at most 12.5%.
+ * Durations of 2^36 ns (about 69 s) and longer share the last bucket. The
+ * histogram isn't published bucket by bucket, the metrics contain the
+ * percentiles computed from it.
+ * <p>
+ * Only the thread calling the tasklet updates the statistics, other threads
+ * can read them at any time.
+ */
+public final class TaskletCallStats {
+
+    static final int SUB_BUCKET_COUNT = 8;
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int MAX_SHIFT = 32;
+    // the last bucket counts the durations which don't fit to the others
+    static final int BUCKET_COUNT = (MAX_SHIFT + 2) * SUB_BUCKET_COUNT + 1;
+
+    // the published percentiles, in per mille
+    private static final int[] PERCENTILES = {500, 900, 990, 999};
+
+    private final AtomicLong callCount = new AtomicLong();
+    private final AtomicLong busyNanos = new AtomicLong();
+    private final AtomicLong maxCallNanos = new AtomicLong();
+    private final AtomicLongArray histogram = new AtomicLongArray(BUCKET_COUNT);
+
+    /**
+     * Records a tasklet call that took the given number of nanoseconds.
+     */
+    public void record(long nanos) {
+        lazyIncrement(callCount);
+        lazyAdd(busyNanos, nanos);
+        if (nanos > maxCallNanos.get()) {
+            maxCallNanos.lazySet(nanos);
+        }
+        lazyIncrement(histogram, bucketIndex(nanos));
+    }
+
+    public long callCount() {
+        return callCount.get();
+    }
+
+    public long busyNanos() {
+        return busyNanos.get();
+    }
+
+    public long maxCallNanos() {
+        return maxCallNanos.get();
+    }
+
+    public long histogramCount(int bucketIndex) {
+        return histogram.get(bucketIndex);
+    }
+
+    /**
+     * Returns the duration which the given per mille of the calls didn't
+     * exceed, with the precision of the histogram. It's never more than the
+     * longest call. Returns 0, if no call was recorded.
+     */
+    public long percentileNanos(int perMille) {
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            total += histogram.get(i);
+        }
+        long rank = (total * perMille + 999) / 1000;
+        long cumulative = 0;
+        for (int i = 0; i < BUCKET_COUNT && rank > 0; i++) {
+            cumulative += histogram.get(i);
+            if (cumulative >= rank) {
+                return Math.min(bucketUpperBound(i) - 1, maxCallNanos.get());
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Registers the statistics as metrics of the given source. The
+     * percentiles are distinguished by the {@code percentile} tag.
+     */
+    <S> void registerMetrics(S source, ProbeBuilder probeBuilder) {
+        probeBuilder.register(source, "taskletCallCount", ProbeLevel.INFO, ProbeUnit.COUNT,
+                (LongProbeFunction<S>) s -> callCount.get());
+        probeBuilder.register(source, "taskletBusyNanos", ProbeLevel.INFO, ProbeUnit.COUNT,
+                (LongProbeFunction<S>) s -> busyNanos.get());
+        probeBuilder.register(source, "taskletMaxCallNanos", ProbeLevel.INFO, ProbeUnit.COUNT,
+                (LongProbeFunction<S>) s -> maxCallNanos.get());
+        for (int perMille : PERCENTILES) {
+            probeBuilder
+                    .withTag("percentile", String.valueOf(perMille / 10d))
+                    .register(source, "taskletCallNanos", ProbeLevel.INFO, ProbeUnit.COUNT,
+                            (LongProbeFunction<S>) s -> percentileNanos(perMille));
+        }
+    }
+
+    static int bucketIndex(long nanos) {
+        int bitLength = Long.SIZE - Long.numberOfLeadingZeros(nanos);
+        int shift = Math.max(0, bitLength - SUB_BUCKET_BITS - 1);
+        if (shift > MAX_SHIFT) {
+            return BUCKET_COUNT - 1;
+        }
+        // the top bits of the value are in [SUB_BUCKET_COUNT, 2 * SUB_BUCKET_COUNT) if shift > 0
+        return shift * SUB_BUCKET_COUNT + (int) (nanos >>> shift);
+    }
+
+    /**
+     * Returns the exclusive upper bound of the bucket with the given index or
+     * {@code Long.MAX_VALUE} for the last bucket.
+     */
+    static long bucketUpperBound(int bucketIndex) {
+        if (bucketIndex == BUCKET_COUNT - 1) {
+            return Long.MAX_VALUE;
+        }
+        int shift = Math.max(0, bucketIndex / SUB_BUCKET_COUNT - 1);
+        return (long) (bucketIndex - shift * SUB_BUCKET_COUNT + 1) << shift;
+    }
+}
@@ -18,10 +18,13 @@ package com.hazelcast.jet.impl.execution;
 
 import com.hazelcast.internal.metrics.Probe;
 import com.hazelcast.jet.JetException;
+import com.hazelcast.jet.config.IdleStrategyType;
+import com.hazelcast.jet.config.InstanceConfig;
 import com.hazelcast.jet.impl.exception.ShutdownInProgressException;
 import com.hazelcast.jet.impl.util.NonCompletableFuture;
 import com.hazelcast.jet.impl.util.ProgressState;
 import com.hazelcast.jet.impl.util.ProgressTracker;
+import com.hazelcast.jet.impl.util.ThreadAffinity;
 import com.hazelcast.logging.ILogger;
 import com.hazelcast.spi.impl.NodeEngineImpl;
 import com.hazelcast.util.concurrent.BackoffIdleStrategy;
@@ -63,8 +66,15 @@ import static java.util.stream.Collectors.toList;
 
 public class TaskletExecutionService {
 
-    private static final IdleStrategy IDLER_COOPERATIVE =
-            new BackoffIdleStrategy(0, 0, MICROSECONDS.toNanos(1), MILLISECONDS.toNanos(1));
+    /**
+     * With readiness tracking enabled, a tasklet which wasn't marked ready is
+     * still called after this interval. This bounds the delay of work that
+     * isn't signalled by the producers, such as watermark idle timeouts or
+     * results of asynchronous operations.
+     */
+    static final long IDLE_TASKLET_CALL_INTERVAL_NANOS = MILLISECONDS.toNanos(10);
+
+    private static final long COOPERATIVE_MAX_PARK_NANOS = MILLISECONDS.toNanos(1);
     private static final IdleStrategy IDLER_NON_COOPERATIVE =
             new BackoffIdleStrategy(0, 0, MICROSECONDS.toNanos(1), MILLISECONDS.toNanos(5));
 
@@ -73,6 +83,8 @@ public class TaskletExecutionService {
     private final Thread[] cooperativeThreadPool;
     private final String hzInstanceName;
     private final ILogger logger;
+    private final boolean workStealingEnabled;
+    private final IdleStrategy idlerCooperative;
     private int cooperativeThreadIndex;
     @Probe
     private final AtomicInteger blockingWorkerCount = new AtomicInteger();
@@ -84,8 +96,11 @@ public class TaskletExecutionService {
     private final AtomicReference<Boolean> gracefulShutdown = new AtomicReference<>(null);
     private final Object lock = new Object();
 
-    public TaskletExecutionService(NodeEngineImpl nodeEngine, int threadCount) {
+    public TaskletExecutionService(NodeEngineImpl nodeEngine, InstanceConfig config) {
+        int threadCount = config.getCooperativeThreadCount();
         this.hzInstanceName = nodeEngine.getHazelcastInstance().getName();
+        this.workStealingEnabled = config.isWorkStealingEnabled();
+        this.idlerCooperative = createCooperativeIdler(config.getIdleStrategy());
         this.cooperativeWorkers = new CooperativeWorker[threadCount];
         this.cooperativeThreadPool = new Thread[threadCount];
         this.logger = nodeEngine.getLoggingService().getLogger(TaskletExecutionService.class);
@@ -94,7 +109,8 @@ public class TaskletExecutionService {
                        .withTag("module", "jet")
                        .scanAndRegister(this);
 
-        Arrays.setAll(cooperativeWorkers, i -> new CooperativeWorker());
+        int[] cpus = cooperativeThreadCpus(config.getCooperativeThreadAffinity());
+        Arrays.setAll(cooperativeWorkers, i -> new CooperativeWorker(cpus.length > 0 ? cpus[i % cpus.length] : -1));
         Arrays.setAll(cooperativeThreadPool, i -> new Thread(cooperativeWorkers[i],
                 String.format("hz.%s.jet.cooperative.thread-%d", hzInstanceName, i)));
         Arrays.stream(cooperativeThreadPool).forEach(Thread::start);
@@ -106,6 +122,38 @@ public class TaskletExecutionService {
         }
     }
 
+    static IdleStrategy createCooperativeIdler(IdleStrategyType type) {
+        switch (type) {
+            case BUSY_SPIN:
+                return n -> false;
+            case YIELD:
+                return n -> {
+                    Thread.yield();
+                    return false;
+                };
+            case BACKOFF:
+                return new BackoffIdleStrategy(0, 0, MICROSECONDS.toNanos(1), COOPERATIVE_MAX_PARK_NANOS);
+            case PARK:
+                return new BackoffIdleStrategy(0, 0, COOPERATIVE_MAX_PARK_NANOS, COOPERATIVE_MAX_PARK_NANOS);
+            default:
+                throw new IllegalArgumentException("Unknown idle strategy: " + type);
+        }
+    }
+
+    private int[] cooperativeThreadCpus(String cpuList) {
+        if (cpuList == null) {
+            return new int[0];
+        }
+        // parse even if unsupported, so that a malformed list fails on every platform
+        int[] cpus = ThreadAffinity.parseCpuList(cpuList);
+        if (!ThreadAffinity.isSupported()) {
+            logger.warning("Cooperative thread affinity '" + cpuList + "' is ignored: it is only supported on Linux"
+                    + " with the OpenHFT Java Thread Affinity library on the classpath");
+            return new int[0];
+        }
+        return cpus;
+    }
+
     /**
      * Submits the tasklets for execution and returns a future which gets
      * completed when the execution of all the tasklets has completed. If an
@@ -180,7 +228,9 @@ public class TaskletExecutionService {
         // some worker might have no tasklet.
         synchronized (lock) {
             for (Tasklet t : tasklets) {
-                trackersByThread[cooperativeThreadIndex].add(new TaskletTracker(t, executionTracker, jobClassLoader));
+                TaskletTracker tracker = new TaskletTracker(t, executionTracker, jobClassLoader);
+                tracker.owner.set(cooperativeWorkers[cooperativeThreadIndex]);
+                trackersByThread[cooperativeThreadIndex].add(tracker);
                 cooperativeThreadIndex = (cooperativeThreadIndex + 1) % trackersByThread.length;
             }
         }
@@ -240,10 +290,15 @@ public class TaskletExecutionService {
 
                 startedLatch.countDown();
                 t.init();
+                final TaskletCallStats callStats = tracker.callStats;
                 long idleCount = 0;
                 ProgressState result;
                 do {
+                    long start = callStats != null ? System.nanoTime() : 0;
                     result = t.call();
+                    if (callStats != null) {
+                        callStats.record(System.nanoTime() - start);
+                    }
                     if (result.isMadeProgress()) {
                         idleCount = 0;
                     } else {
@@ -271,14 +326,35 @@ public class TaskletExecutionService {
         private final CopyOnWriteArrayList<TaskletTracker> trackers;
         @Probe
         private final AtomicLong iterationCount = new AtomicLong();
+        @Probe
+        private final AtomicLong stealCount = new AtomicLong();
+        // number of tasklets that made progress in the last iteration, used as
+        // the load of this worker when choosing whom to steal from
+        @Probe
+        private volatile int busyTaskletCount;
+        // number of calls skipped because the tasklet wasn't ready
+        @Probe
+        private final AtomicLong skippedCallCount = new AtomicLong();
         private final ProgressTracker progressTracker = new ProgressTracker();
+        private int busyTaskletCountInIteration;
+        private long iterationStartNanos;
+        // the tasklet this worker stole and which its previous owner did not yet
+        // hand over, if any
+        private TaskletTracker pendingSteal;
+
+        // the CPU to pin the thread to or -1, if the thread isn't pinned
+        private final int cpu;
 
-        CooperativeWorker() {
+        CooperativeWorker(int cpu) {
             this.trackers = new CopyOnWriteArrayList<>();
+            this.cpu = cpu;
         }
 
         @Override
         public void run() {
+            if (cpu >= 0) {
+                pinToCpu();
+            }
             long idleCount = 0;
             // capture thread once and prevent lambda allocation on each iteration
             Consumer<TaskletTracker> runTasklet = t -> runTasklet(Thread.currentThread(), t);
@@ -290,30 +366,60 @@ public class TaskletExecutionService {
                     break;
                 }
                 progressTracker.reset();
+                busyTaskletCountInIteration = 0;
+                iterationStartNanos = System.nanoTime();
                 // use garbage-free iterator -- relies on implementation in COWArrayList that doesn't use an Iterator
                 trackers.forEach(runTasklet);
                 lazyIncrement(iterationCount);
+                busyTaskletCount = busyTaskletCountInIteration;
                 if (progressTracker.isMadeProgress()) {
                     idleCount = 0;
                 } else {
-                    IDLER_COOPERATIVE.idle(++idleCount);
+                    if (workStealingEnabled) {
+                        stealWork();
+                    }
+                    idlerCooperative.idle(++idleCount);
                 }
             }
             trackers.forEach(t -> t.executionTracker.taskletDone());
             trackers.clear();
         }
 
+        private void pinToCpu() {
+            try {
+                ThreadAffinity.pinCurrentThread(cpu);
+                logger.fine(currentThread().getName() + " pinned to CPU " + cpu);
+            } catch (Exception e) {
+                logger.warning("Failed to pin " + currentThread().getName() + " to CPU " + cpu, e);
+            }
+        }
+
         private void runTasklet(Thread thread, TaskletTracker t) {
-            long start = 0;
-            if (logger.isFinestEnabled()) {
-                start = System.nanoTime();
+            if (workStealingEnabled && handOverIfStolen(t)) {
+                return;
             }
+            if (t.readiness != null && !isReady(t)) {
+                lazyIncrement(skippedCallCount);
+                if (t.executionTracker.executionCompletedExceptionally()) {
+                    dismissTasklet(t);
+                }
+                return;
+            }
+            final boolean timed = t.callStats != null || logger.isFinestEnabled();
+            final long start = timed ? System.nanoTime() : 0;
             try {
                 thread.setContextClassLoader(t.jobClassLoader);
                 final ProgressState result = t.tasklet.call();
+                if (timed) {
+                    recordCallDuration(t, System.nanoTime() - start);
+                }
                 if (result.isDone()) {
                     dismissTasklet(t);
                 }
+                t.madeProgress = result.isMadeProgress();
+                if (t.madeProgress) {
+                    busyTaskletCountInIteration++;
+                }
                 progressTracker.mergeWith(result);
             } catch (Throwable e) {
                 logger.warning("Exception in " + t.tasklet, e);
@@ -322,9 +428,28 @@ public class TaskletExecutionService {
             if (t.executionTracker.executionCompletedExceptionally()) {
                 dismissTasklet(t);
             }
+        }
 
+        /**
+         * Decides whether a tasklet with readiness tracking should be called
+         * in this iteration. Clears the ready mark, if it will be called.
+         */
+        private boolean isReady(TaskletTracker t) {
+            boolean marked = t.readiness.checkAndClear();
+            if (marked || t.madeProgress
+                    || iterationStartNanos - t.lastCallNanos >= IDLE_TASKLET_CALL_INTERVAL_NANOS) {
+                t.lastCallNanos = iterationStartNanos;
+                return true;
+            }
+            return false;
+        }
+
+        private void recordCallDuration(TaskletTracker t, long elapsedNanos) {
+            if (t.callStats != null) {
+                t.callStats.record(elapsedNanos);
+            }
             if (logger.isFinestEnabled()) {
-                long elapsedMs = NANOSECONDS.toMillis((System.nanoTime() - start));
+                long elapsedMs = NANOSECONDS.toMillis(elapsedNanos);
                 if (elapsedMs > COOPERATIVE_LOGGING_THRESHOLD) {
                     logger.finest("Cooperative tasklet call of '" + t.tasklet + "' took more than "
                             + COOPERATIVE_LOGGING_THRESHOLD + " ms: " + elapsedMs + "ms");
@@ -332,10 +457,70 @@ public class TaskletExecutionService {
             }
         }
 
+        /**
+         * If another worker took over the given tasklet, moves it to that
+         * worker's list. The stealing worker takes the ownership with a single
+         * CAS, but only the previous owner moves the tasklet, between two calls
+         * to it. This ensures that it's never called by two threads at the same
+         * time.
+         *
+         * @return true, if the tasklet was handed over
+         */
+        private boolean handOverIfStolen(TaskletTracker t) {
+            CooperativeWorker owner = t.owner.get();
+            if (owner == this) {
+                return false;
+            }
+            if (gracefulShutdown.get() != null) {
+                // don't hand over during shutdown: the thief might have already exited
+                // and the tasklet would never be reported as done
+                t.owner.set(this);
+                return false;
+            }
+            trackers.remove(t);
+            owner.trackers.add(t);
+            logFinest(logger, "Tasklet %s was stolen from this worker", t.tasklet);
+            return true;
+        }
+
+        /**
+         * Called when this worker made no progress in the last iteration. Finds
+         * the worker with the most busy tasklets and, if it has at least two,
+         * takes over one of them. That worker then hands it over.
+         */
+        private void stealWork() {
+            if (pendingSteal != null && pendingSteal.owner.get() == this && !trackers.contains(pendingSteal)) {
+                // the previously stolen tasklet is still waiting for the handover
+                return;
+            }
+            pendingSteal = null;
+            CooperativeWorker victim = null;
+            int victimLoad = busyTaskletCount + 1;
+            for (CooperativeWorker w : cooperativeWorkers) {
+                int load = w.busyTaskletCount;
+                if (w != this && load > victimLoad) {
+                    victim = w;
+                    victimLoad = load;
+                }
+            }
+            if (victim == null) {
+                return;
+            }
+            for (TaskletTracker t : victim.trackers) {
+                if (t.madeProgress && t.owner.compareAndSet(victim, this)) {
+                    pendingSteal = t;
+                    lazyIncrement(stealCount);
+                    return;
+                }
+            }
+        }
+
         private void dismissTasklet(TaskletTracker t) {
             logFinest(logger, "Tasklet %s is done", t.tasklet);
             t.executionTracker.taskletDone();
             trackers.remove(t);
+            // a thief waiting for the handover of this tasklet stops waiting
+            t.owner.set(null);
         }
     }
 
@@ -343,11 +528,24 @@ public class TaskletExecutionService {
         final Tasklet tasklet;
         final ExecutionTracker executionTracker;
         final ClassLoader jobClassLoader;
+        final TaskletCallStats callStats;
+        final TaskletReadiness readiness;
+        // the cooperative worker which runs this tasklet. A stealing worker changes
+        // it and the previous owner then moves the tasklet to the new owner's list.
+        // Null for a blocking or a dismissed tasklet
+        final AtomicReference<CooperativeWorker> owner = new AtomicReference<>();
+        // whether the last call to the tasklet made progress. Written only by the
+        // owning worker, a stale read by a stealing worker is harmless
+        boolean madeProgress;
+        // the time of the last call, maintained only for tasklets with readiness
+        long lastCallNanos;
 
         TaskletTracker(Tasklet tasklet, ExecutionTracker executionTracker, ClassLoader jobClassLoader) {
             this.tasklet = tasklet;
             this.executionTracker = executionTracker;
             this.jobClassLoader = jobClassLoader;
+            this.callStats = tasklet.callStats();
+            this.readiness = tasklet.readiness();
         }
 
         @Override
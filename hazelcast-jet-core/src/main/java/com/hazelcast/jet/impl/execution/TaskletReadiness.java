@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tracks whether a cooperative tasklet has work to do. Used when {@link
+ * com.hazelcast.jet.config.InstanceConfig#setReadinessTrackingEnabled
+ * readiness tracking} is enabled: the worker calls the tasklet only if it
+ * was marked ready since its last call, if the last call made progress or if
+ * it wasn't called for {@link TaskletExecutionService#IDLE_TASKLET_CALL_INTERVAL_NANOS}.
+ * <p>
+ * The tasklet is marked ready by:<ul>
+ *     <li>its producers, after they added items to its input queues. To
+ *     avoid a volatile write for each item, the producer only collects the
+ *     consumers it offered to and marks them all at the end of its call, see
+ *     {@link #requestWakeUp} and {@link #flushWakeUps()}
+ *     <li>the network thread, when a packet for a receiver tasklet arrives
+ *     <li>the tasklet itself, when it has work to do that doesn't depend on
+ *     new input, for example when its outbox is full
+ * </ul>
+ */
+public final class TaskletReadiness {
+
+    private final AtomicBoolean ready = new AtomicBoolean(true);
+
+    // consumers to mark ready at the end of the current call, accessed only
+    // by the thread running the owning tasklet
+    private final List<TaskletReadiness> pendingWakeUps = new ArrayList<>();
+    private long flushCount;
+
+    /**
+     * Marks the tasklet as ready. Can be called from any thread.
+     */
+    public void markReady() {
+        ready.set(true);
+    }
+
+    /**
+     * Returns whether the tasklet was marked ready and clears the mark. Called
+     * only by the worker running the tasklet, right before calling it.
+     * <p>
+     * A producer always sets the mark after it added the items, so if we
+     * clear a mark set concurrently with the call, the tasklet will see the
+     * items in this call. A mark set after we cleared it will cause another
+     * call.
+     */
+    boolean checkAndClear() {
+        return ready.get() && ready.getAndSet(false);
+    }
+
+    /**
+     * Called by the owning tasklet's collectors: adds the consumer to the
+     * consumers to mark ready in the next {@link #flushWakeUps()}.
+     *
+     * @param lastRequestFlushCount the value this method returned to the
+     *      caller the last time, used to request each consumer only once
+     *      between flushes
+     * @return the value to pass in the next call
+     */
+    long requestWakeUp(TaskletReadiness consumer, long lastRequestFlushCount) {
+        if (lastRequestFlushCount != flushCount) {
+            pendingWakeUps.add(consumer);
+        }
+        return flushCount;
+    }
+
+    /**
+     * Marks ready all consumers requested since the last flush. Called by the
+     * owning tasklet at the end of each call.
+     */
+    public void flushWakeUps() {
+        if (pendingWakeUps.isEmpty()) {
+            return;
+        }
+        for (TaskletReadiness consumer : pendingWakeUps) {
+            consumer.markReady();
+        }
+        pendingWakeUps.clear();
+        flushCount++;
+    }
+}
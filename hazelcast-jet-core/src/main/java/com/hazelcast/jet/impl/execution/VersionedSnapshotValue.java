@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.jet.impl.execution.init.JetInitDataSerializerHook;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+
+/**
+ * A value restored to an {@link IncrementalSnapshotAware} processor from a
+ * snapshot with deltas, together with the ID of the snapshot that saved it.
+ * The value is {@code null} if the key was removed in that snapshot.
+ */
+public final class VersionedSnapshotValue implements IdentifiedDataSerializable {
+
+    private long snapshotId;
+    private Object value;
+
+    // for deserialization
+    public VersionedSnapshotValue() {
+    }
+
+    public VersionedSnapshotValue(long snapshotId, @Nullable Object value) {
+        this.snapshotId = snapshotId;
+        this.value = value;
+    }
+
+    public long snapshotId() {
+        return snapshotId;
+    }
+
+    /**
+     * Returns the value or {@code null} for a removed key.
+     */
+    @Nullable
+    public Object value() {
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "VersionedSnapshotValue{snapshotId=" + snapshotId + ", value=" + value + '}';
+    }
+
+    @Override
+    public int getFactoryId() {
+        return JetInitDataSerializerHook.FACTORY_ID;
+    }
+
+    @Override
+    public int getId() {
+        return JetInitDataSerializerHook.VERSIONED_SNAPSHOT_VALUE;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeLong(snapshotId);
+        out.writeObject(value);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        snapshotId = in.readLong();
+        value = in.readObject();
+    }
+}
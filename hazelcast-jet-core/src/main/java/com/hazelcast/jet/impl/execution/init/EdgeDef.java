@@ -35,6 +35,7 @@ public class EdgeDef implements IdentifiedDataSerializable {
     private int destOrdinal;
     private int priority;
     private boolean isDistributed;
+    private boolean isSplittingHotKeys;
     private RoutingPolicy routingPolicy;
     private Partitioner partitioner;
     private EdgeConfig config;
@@ -54,6 +55,7 @@ public class EdgeDef implements IdentifiedDataSerializable {
         this.destOrdinal = edge.getDestOrdinal();
         this.priority = edge.getPriority();
         this.isDistributed = isJobDistributed && edge.isDistributed();
+        this.isSplittingHotKeys = edge.isSplittingHotKeys();
         this.routingPolicy = edge.getRoutingPolicy();
         this.partitioner = edge.getPartitioner();
         this.config = config;
@@ -106,6 +108,16 @@ public class EdgeDef implements IdentifiedDataSerializable {
         return isDistributed;
     }
 
+    /**
+     * Says whether the collectors of this edge should split hot partitions
+     * among the downstream processors. Only local edges split hot keys: on a
+     * distributed edge the partition ID is used to route the item to the
+     * member that owns the partition.
+     */
+    public boolean splitsHotKeys() {
+        return isSplittingHotKeys && !isDistributed && routingPolicy == RoutingPolicy.PARTITIONED;
+    }
+
     EdgeConfig getConfig() {
         return config;
     }
@@ -130,6 +142,7 @@ public class EdgeDef implements IdentifiedDataSerializable {
         out.writeInt(sourceOrdinal);
         out.writeInt(priority);
         out.writeBoolean(isDistributed);
+        out.writeBoolean(isSplittingHotKeys);
         out.writeObject(routingPolicy);
         CustomClassLoadedObject.write(out, partitioner);
         out.writeObject(config);
@@ -142,6 +155,7 @@ public class EdgeDef implements IdentifiedDataSerializable {
         sourceOrdinal = in.readInt();
         priority = in.readInt();
         isDistributed = in.readBoolean();
+        isSplittingHotKeys = in.readBoolean();
         routingPolicy = in.readObject();
         partitioner = CustomClassLoadedObject.read(in);
         config = in.readObject();
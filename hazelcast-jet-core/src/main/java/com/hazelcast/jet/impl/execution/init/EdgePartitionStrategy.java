@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.jet.impl.execution.init;
+
+import com.hazelcast.jet.core.DefaultPartitionStrategy;
+
+import java.util.function.Supplier;
+
+import static com.hazelcast.jet.impl.util.Util.memoizeConcurrent;
+
+/**
+ * The {@link DefaultPartitionStrategy} a partitioned edge passes to its
+ * {@link com.hazelcast.jet.core.Partitioner}. Besides the default
+ * partitioning it tells which partition ID routes an item to a given
+ * processor of the destination vertex, so that a partitioner can choose
+ * the target processor directly instead of hashing the key.
+ */
+public class EdgePartitionStrategy implements DefaultPartitionStrategy {
+
+    private final DefaultPartitionStrategy defaultStrategy;
+    private final Supplier<int[]> processorPartitions;
+
+    public EdgePartitionStrategy(DefaultPartitionStrategy defaultStrategy, Supplier<int[]> processorPartitions) {
+        this.defaultStrategy = defaultStrategy;
+        this.processorPartitions = memoizeConcurrent(processorPartitions);
+    }
+
+    @Override
+    public int getPartition(Object object) {
+        return defaultStrategy.getPartition(object);
+    }
+
+    /**
+     * Returns an array indexed by the global processor index of the
+     * destination vertex. The element is a partition ID the edge routes to
+     * that processor or -1, if the processor is assigned no partition. For a
+     * non-distributed edge the array only covers the local processors.
+     */
+    public int[] processorPartitions() {
+        return processorPartitions.get();
+    }
+}
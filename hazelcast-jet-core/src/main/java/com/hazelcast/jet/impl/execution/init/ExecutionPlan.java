@@ -25,10 +25,13 @@ import com.hazelcast.internal.util.concurrent.OneToOneConcurrentArrayQueue;
 import com.hazelcast.internal.util.concurrent.QueuedPipe;
 import com.hazelcast.jet.JetException;
 import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.config.CompressionType;
+import com.hazelcast.jet.config.FlowControlType;
 import com.hazelcast.jet.config.JetConfig;
 import com.hazelcast.jet.config.JobConfig;
 import com.hazelcast.jet.config.ProcessingGuarantee;
 import com.hazelcast.jet.core.Edge.RoutingPolicy;
+import com.hazelcast.jet.core.Partitioner;
 import com.hazelcast.jet.core.Processor;
 import com.hazelcast.jet.core.ProcessorSupplier;
 import com.hazelcast.jet.impl.JetService;
@@ -36,7 +39,9 @@ import com.hazelcast.jet.impl.execution.ConcurrentInboundEdgeStream;
 import com.hazelcast.jet.impl.execution.ConveyorCollector;
 import com.hazelcast.jet.impl.execution.ConveyorCollectorWithPartition;
 import com.hazelcast.jet.impl.execution.InboundEdgeStream;
+import com.hazelcast.jet.impl.execution.IncrementalSnapshotAware;
 import com.hazelcast.jet.impl.execution.OutboundCollector;
+import com.hazelcast.jet.impl.execution.OutboundCollector.Partitioned;
 import com.hazelcast.jet.impl.execution.OutboundEdgeStream;
 import com.hazelcast.jet.impl.execution.ProcessorTasklet;
 import com.hazelcast.jet.impl.execution.ReceiverTasklet;
@@ -44,6 +49,8 @@ import com.hazelcast.jet.impl.execution.SenderTasklet;
 import com.hazelcast.jet.impl.execution.SnapshotContext;
 import com.hazelcast.jet.impl.execution.StoreSnapshotTasklet;
 import com.hazelcast.jet.impl.execution.Tasklet;
+import com.hazelcast.jet.impl.execution.TaskletCallStats;
+import com.hazelcast.jet.impl.execution.TaskletReadiness;
 import com.hazelcast.jet.impl.execution.init.Contexts.ProcCtx;
 import com.hazelcast.jet.impl.execution.init.Contexts.ProcSupplierCtx;
 import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl;
@@ -64,12 +71,14 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static com.hazelcast.internal.util.concurrent.ConcurrentConveyor.concurrentConveyor;
 import static com.hazelcast.jet.Util.idToString;
@@ -88,6 +97,7 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
     // use same size as DEFAULT_QUEUE_SIZE from Edges. In the future we might
     // want to make this configurable
     private static final int SNAPSHOT_QUEUE_SIZE = DEFAULT_QUEUE_SIZE;
+    private static final long PERCENT_100 = 100;
 
     private final List<Tasklet> tasklets = new ArrayList<>();
     /** dest vertex id --> dest ordinal --> sender addr -> receiver tasklet */
@@ -97,6 +107,8 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
 
     /** Snapshot of partition table used to route items on partitioned edges */
     private Address[] partitionOwners;
+    /** Addresses of the members executing the job, indexed by member index */
+    private Address[] memberAddresses;
 
     private JobConfig jobConfig;
     private List<VertexDef> vertices = new ArrayList<>();
@@ -107,6 +119,9 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
     private final Map<String, ConcurrentConveyor<Object>[]> localConveyorMap = new HashMap<>();
     private final Map<String, Map<Address, ConcurrentConveyor<Object>>> edgeSenderConveyorMap = new HashMap<>();
     private final List<Processor> processors = new ArrayList<>();
+    /** vertex id --> readiness of the processor tasklets, indexed by local processor index */
+    private final Map<Integer, TaskletReadiness[]> readinessMap = new HashMap<>();
+    private boolean readinessTrackingEnabled;
 
     private PartitionArrangement ptionArrgmt;
 
@@ -124,9 +139,10 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
     ExecutionPlan() {
     }
 
-    ExecutionPlan(Address[] partitionOwners, JobConfig jobConfig, long lastSnapshotId,
+    ExecutionPlan(Address[] partitionOwners, Address[] memberAddresses, JobConfig jobConfig, long lastSnapshotId,
                   int memberIndex, int memberCount) {
         this.partitionOwners = partitionOwners;
+        this.memberAddresses = memberAddresses;
         this.jobConfig = jobConfig;
         this.lastSnapshotId = lastSnapshotId;
         this.memberIndex = memberIndex;
@@ -137,24 +153,51 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
         this.nodeEngine = (NodeEngineImpl) nodeEngine;
         this.executionId = executionId;
         initProcSuppliers(jobId, executionId);
+        this.ptionArrgmt = new PartitionArrangement(partitionOwners, nodeEngine.getThisAddress());
         initDag();
 
-        this.ptionArrgmt = new PartitionArrangement(partitionOwners, nodeEngine.getThisAddress());
         JetInstance instance = getJetInstance(nodeEngine);
+        boolean taskletCallTimingEnabled = getConfig().getMetricsConfig().isTaskletCallTimingEnabled();
+        readinessTrackingEnabled = getConfig().getInstanceConfig().isReadinessTrackingEnabled();
         for (VertexDef vertex : vertices) {
             Collection<? extends Processor> processors = createProcessors(vertex, vertex.localParallelism());
 
-            // create StoreSnapshotTasklet and the queues to it
+            ProbeBuilder probeBuilder = this.nodeEngine.getMetricsRegistry().newProbeBuilder()
+                    .withTag("module", "jet")
+                    .withTag("job", idToString(jobId))
+                    .withTag("exec", idToString(executionId))
+                    .withTag("vertex", vertex.name());
+
+            // ignore vertices which are only used for snapshot restore and do not
+            // consider snapshot restore edges for determining source tag
+            if (vertex.inboundEdges().stream().allMatch(EdgeDef::isSnapshotRestoreEdge)
+                    && !vertex.isSnapshotVertex()) {
+                probeBuilder = probeBuilder.withTag("source", "true");
+            }
+            if (vertex.outboundEdges().size() == 0) {
+                probeBuilder = probeBuilder.withTag("sink", "true");
+            }
+
+            // create StoreSnapshotTasklet and the queues to it. The chunks of vertices
+            // that support incremental snapshots are marked so that the restore can
+            // apply the deltas on top of the last full snapshot.
+            boolean incrementalSnapshots = processors.stream().allMatch(IncrementalSnapshotAware.class::isInstance);
             QueuedPipe<Object>[] snapshotQueues = new QueuedPipe[vertex.localParallelism()];
             Arrays.setAll(snapshotQueues, i -> new OneToOneConcurrentArrayQueue<>(SNAPSHOT_QUEUE_SIZE));
             ConcurrentConveyor<Object> ssConveyor = ConcurrentConveyor.concurrentConveyor(null, snapshotQueues);
+            AsyncSnapshotWriterImpl ssWriter = new AsyncSnapshotWriterImpl(nodeEngine, snapshotContext, vertex.name(),
+                    memberIndex, memberCount, incrementalSnapshots, jobConfig.getSnapshotCompression());
             StoreSnapshotTasklet ssTasklet = new StoreSnapshotTasklet(snapshotContext,
                     new ConcurrentInboundEdgeStream(ssConveyor, 0, 0, true,
                             "ssFrom:" + vertex.name()),
-                    new AsyncSnapshotWriterImpl(nodeEngine, snapshotContext, vertex.name(), memberIndex, memberCount),
+                    ssWriter,
                     nodeEngine.getLogger(StoreSnapshotTasklet.class.getName() + "." + vertex.name()),
                     vertex.name(), vertex.isHigherPriorityUpstream());
             tasklets.add(ssTasklet);
+            probeBuilder.register(ssTasklet, "snapshotRawBytes", ProbeLevel.INFO, ProbeUnit.BYTES,
+                    (LongProbeFunction<StoreSnapshotTasklet>) t -> ssWriter.getRawBytesCounter().get());
+            probeBuilder.register(ssTasklet, "snapshotStoredBytes", ProbeLevel.INFO, ProbeUnit.BYTES,
+                    (LongProbeFunction<StoreSnapshotTasklet>) t -> ssWriter.getStoredBytesCounter().get());
 
             int localProcessorIdx = 0;
             for (Processor processor : processors) {
@@ -180,21 +223,6 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                         memberCount
                 );
 
-                ProbeBuilder probeBuilder = this.nodeEngine.getMetricsRegistry().newProbeBuilder()
-                        .withTag("module", "jet")
-                        .withTag("job", idToString(jobId))
-                        .withTag("exec", idToString(executionId))
-                        .withTag("vertex", vertex.name());
-
-                // ignore vertices which are only used for snapshot restore and do not
-                // consider snapshot restore edges for determining source tag
-                if (vertex.inboundEdges().stream().allMatch(EdgeDef::isSnapshotRestoreEdge)
-                        && !vertex.isSnapshotVertex()) {
-                    probeBuilder = probeBuilder.withTag("source", "true");
-                }
-                if (vertex.outboundEdges().size() == 0) {
-                    probeBuilder = probeBuilder.withTag("sink", "true");
-                }
                 ProbeBuilder processorProbeBuilder = probeBuilder
                         .withTag("proc", String.valueOf(globalProcessorIndex));
                 processorProbeBuilder
@@ -214,7 +242,8 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
 
                 ProcessorTasklet processorTasklet = new ProcessorTasklet(context, nodeEngine.getSerializationService(),
                         processor, inboundStreams, outboundStreams, snapshotContext, snapshotCollector,
-                        processorProbeBuilder);
+                        processorProbeBuilder, taskletCallTimingEnabled ? new TaskletCallStats() : null,
+                        processorReadiness(vertex, localProcessorIdx));
                 tasklets.add(processorTasklet);
                 this.processors.add(processor);
                 localProcessorIdx++;
@@ -283,6 +312,10 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
             out.writeObject(address);
         }
         out.writeObject(jobConfig);
+        out.writeInt(memberAddresses.length);
+        for (Address address : memberAddresses) {
+            out.writeObject(address);
+        }
         out.writeInt(memberIndex);
         out.writeInt(memberCount);
     }
@@ -297,6 +330,10 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
             partitionOwners[i] = in.readObject();
         }
         jobConfig = in.readObject();
+        memberAddresses = new Address[in.readInt()];
+        for (int i = 0; i < memberAddresses.length; i++) {
+            memberAddresses[i] = in.readObject();
+        }
         memberIndex = in.readInt();
         memberCount = in.readInt();
     }
@@ -337,12 +374,13 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
             v.outboundEdges().forEach(e -> e.initTransientFields(vMap, v, true));
         });
         final IPartitionService partitionService = nodeEngine.getPartitionService();
+        // the partitioners of the inbound edges are used for the in-flight items of unaligned snapshots
         vertices.stream()
-                .map(VertexDef::outboundEdges)
-                .flatMap(List::stream)
-                .map(EdgeDef::partitioner)
-                .filter(Objects::nonNull)
-                .forEach(p -> p.init(partitionService::getPartitionId));
+                .flatMap(v -> Stream.concat(v.outboundEdges().stream(), v.inboundEdges().stream()))
+                .filter(e -> e.partitioner() != null)
+                .forEach(e -> e.partitioner().init(new EdgePartitionStrategy(partitionService::getPartitionId,
+                        () -> ptionArrgmt.firstPartitionPerProcessor(
+                                memberAddresses, e.destVertex().localParallelism(), e.isDistributed()))));
     }
 
     private static Collection<? extends Processor> createProcessors(VertexDef vertexDef, int parallelism) {
@@ -387,6 +425,9 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
             final Map<Address, ConcurrentConveyor<Object>> addrToConveyor = new HashMap<>();
             List<AtomicLong> bytesCounters = new ArrayList<>();
             List<AtomicLong> itemsCounters = new ArrayList<>();
+            List<AtomicLong> packetsCounters = new ArrayList<>();
+            List<AtomicLong> uncompressedBytesCounters = new ArrayList<>();
+            List<AtomicLong> compressionNanosCounters = new ArrayList<>();
             Tasklet firstTasklet = null;
             for (Address destAddr : remoteMembers.get()) {
                 final ConcurrentConveyor<Object> conveyor = createConveyorArray(
@@ -396,12 +437,15 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                                 + destAddr.toString().replace('.', '-'));
                 final int destVertexId = edge.destVertex().vertexId();
                 final SenderTasklet t = new SenderTasklet(inboundEdgeStream, nodeEngine,
-                        destAddr, executionId, destVertexId, edge.getConfig().getPacketSizeLimit());
+                        destAddr, executionId, destVertexId, edge.getConfig());
                 if (firstTasklet == null) {
                     firstTasklet = t;
                 }
                 bytesCounters.add(t.getBytesOutCounter());
                 itemsCounters.add(t.getItemsOutCounter());
+                packetsCounters.add(t.getPacketsOutCounter());
+                uncompressedBytesCounters.add(t.getUncompressedBytesOutCounter());
+                compressionNanosCounters.add(t.getCompressionNanosCounter());
                 senderMap.computeIfAbsent(destVertexId, xx -> new HashMap<>())
                          .computeIfAbsent(edge.destOrdinal(), xx -> new HashMap<>())
                          .put(destAddr, t);
@@ -417,6 +461,16 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                         addCountersProbeFunction(bytesCounters));
                 probeBuilder.register(firstTasklet, "distributedItemsOut", ProbeLevel.INFO, ProbeUnit.BYTES,
                         addCountersProbeFunction(itemsCounters));
+                probeBuilder.register(firstTasklet, "distributedPacketsOut", ProbeLevel.INFO, ProbeUnit.COUNT,
+                        addCountersProbeFunction(packetsCounters));
+                if (edge.getConfig().getCompression() != CompressionType.NONE) {
+                    probeBuilder.register(firstTasklet, "distributedUncompressedBytesOut", ProbeLevel.INFO,
+                            ProbeUnit.BYTES, addCountersProbeFunction(uncompressedBytesCounters));
+                    probeBuilder.register(firstTasklet, "distributedCompressionNanos", ProbeLevel.INFO,
+                            ProbeUnit.COUNT, addCountersProbeFunction(compressionNanosCounters));
+                    probeBuilder.register(firstTasklet, "distributedCompressionRatioPercent", ProbeLevel.INFO,
+                            ProbeUnit.COUNT, ratioPercentProbeFunction(bytesCounters, uncompressedBytesCounters));
+                }
             }
             return addrToConveyor;
         });
@@ -453,9 +507,25 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                 edge, processorIndex, senderConveyorMap, probeBuilder
         );
         OutboundCollector compositeCollector = compositeCollector(outboundCollectors, edge, totalPtionCount);
+        if (compositeCollector instanceof Partitioned) {
+            registerPartitionedCollectorMetrics((Partitioned) compositeCollector, edge, processorIndex, probeBuilder);
+        }
         return new OutboundEdgeStream(edge.sourceOrdinal(), compositeCollector);
     }
 
+    private void registerPartitionedCollectorMetrics(
+            Partitioned collector, EdgeDef edge, int processorIndex, ProbeBuilder probeBuilder
+    ) {
+        int globalProcessorIndex = memberIndex * edge.sourceVertex().localParallelism() + processorIndex;
+        ProbeBuilder procProbeBuilder = probeBuilder.withTag("proc", String.valueOf(globalProcessorIndex));
+        procProbeBuilder.register(collector, "edgeSkewPercent", ProbeLevel.INFO, ProbeUnit.COUNT,
+                (LongProbeFunction<Partitioned>) Partitioned::skewPercent);
+        if (edge.splitsHotKeys()) {
+            procProbeBuilder.register(collector, "edgeHotKeySplitItems", ProbeLevel.INFO, ProbeUnit.COUNT,
+                    (LongProbeFunction<Partitioned>) Partitioned::splitItemCount);
+        }
+    }
+
     private OutboundCollector[] createOutboundCollectors(
             EdgeDef edge, int processorIndex, Map<Address, ConcurrentConveyor<Object>> senderConveyorMap,
             ProbeBuilder probeBuilder
@@ -484,7 +554,9 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                     e -> createConveyorArray(downstreamParallelism, 1, queueSize));
             return IntStream.range(0, downstreamParallelism)
                             .filter(i -> i % upstreamParallelism == processorIndex)
-                            .mapToObj(i -> new ConveyorCollector(localConveyors[i], 0, ptionsPerProcessor[i]))
+                            .mapToObj(i -> new ConveyorCollector(localConveyors[i], 0, ptionsPerProcessor[i],
+                                    processorReadiness(edge.sourceVertex(), processorIndex),
+                                    processorReadiness(edge.destVertex(), i)))
                             .toArray(OutboundCollector[]::new);
         }
 
@@ -503,7 +575,9 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                 });
         final OutboundCollector[] localCollectors = new OutboundCollector[downstreamParallelism];
         Arrays.setAll(localCollectors, n ->
-                new ConveyorCollector(localConveyors[n], processorIndex, ptionsPerProcessor[n]));
+                new ConveyorCollector(localConveyors[n], processorIndex, ptionsPerProcessor[n],
+                        processorReadiness(edge.sourceVertex(), processorIndex),
+                        processorReadiness(edge.destVertex(), n)));
 
         // in a local edge, we only have the local collectors.
         if (!edge.isDistributed()) {
@@ -528,6 +602,38 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
         return allCollectors;
     }
 
+    private static <T> LongProbeFunction<T> maxCounterProbeFunction(List<AtomicLong> counters) {
+        AtomicLong[] countersArray = counters.toArray(new AtomicLong[0]);
+        return source -> {
+            long max = 0;
+            for (AtomicLong counter : countersArray) {
+                max = Math.max(max, counter.get());
+            }
+            return max;
+        };
+    }
+
+    /**
+     * Returns a probe function of the sum of {@code numerators} as a percentage
+     * of the sum of {@code denominators} or 100, if the denominators are zero.
+     * The lists must have the same size.
+     */
+    private static <T> LongProbeFunction<T> ratioPercentProbeFunction(
+            List<AtomicLong> numerators, List<AtomicLong> denominators
+    ) {
+        AtomicLong[] numeratorsArray = numerators.toArray(new AtomicLong[0]);
+        AtomicLong[] denominatorsArray = denominators.toArray(new AtomicLong[0]);
+        return source -> {
+            long numerator = 0;
+            long denominator = 0;
+            for (int i = 0; i < numeratorsArray.length; i++) {
+                numerator += numeratorsArray[i].get();
+                denominator += denominatorsArray[i].get();
+            }
+            return denominator == 0 ? PERCENT_100 : PERCENT_100 * numerator / denominator;
+        };
+    }
+
     private void createIfAbsentReceiverTasklet(
             EdgeDef edge, int[][] ptionsPerProcessor, int totalPtionCount, ProbeBuilder probeBuilder
     ) {
@@ -540,26 +646,40 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                        int offset = 0;
                        List<AtomicLong> itemCounters = new ArrayList<>();
                        List<AtomicLong> bytesCounters = new ArrayList<>();
+                       List<AtomicLong> uncompressedBytesCounters = new ArrayList<>();
+                       List<AtomicLong> decompressionNanosCounters = new ArrayList<>();
+                       List<AtomicLong> receiveWindowGauges = new ArrayList<>();
+                       List<AtomicLong> rttEstimateGauges = new ArrayList<>();
+                       List<AtomicLong> senderStallNanosCounters = new ArrayList<>();
                        Tasklet firstTasklet = null;
                        for (Address addr : ptionArrgmt.remotePartitionAssignment.get().keySet()) {
                            final OutboundCollector[] collectors = new OutboundCollector[ptionsPerProcessor.length];
                            // assign the queues starting from end
                            final int queueOffset = --offset;
+                           final TaskletReadiness receiverReadiness =
+                                   readinessTrackingEnabled ? new TaskletReadiness() : null;
                            Arrays.setAll(collectors, n -> new ConveyorCollector(
                                    localConveyors[n], localConveyors[n].queueCount() + queueOffset,
-                                   ptionsPerProcessor[n]));
+                                   ptionsPerProcessor[n], receiverReadiness,
+                                   processorReadiness(edge.destVertex(), n)));
                            final OutboundCollector collector = compositeCollector(collectors, edge, totalPtionCount);
                            ReceiverTasklet receiverTasklet = new ReceiverTasklet(
-                                   collector, edge.getConfig().getReceiveWindowMultiplier(),
+                                   collector, edge.getConfig(),
                                    getConfig().getInstanceConfig().getFlowControlPeriodMs(),
                                    nodeEngine.getLoggingService(),
-                                   "receiverFor:" + edge.destVertex().name() + "#" + edge.destOrdinal());
+                                   "receiverFor:" + edge.destVertex().name() + "#" + edge.destOrdinal(),
+                                   receiverReadiness);
                            addrToTasklet.put(addr, receiverTasklet);
                            if (firstTasklet == null) {
                                firstTasklet = receiverTasklet;
                            }
                            itemCounters.add(receiverTasklet.getItemsInCounter());
                            bytesCounters.add(receiverTasklet.getBytesInCounter());
+                           uncompressedBytesCounters.add(receiverTasklet.getUncompressedBytesInCounter());
+                           decompressionNanosCounters.add(receiverTasklet.getDecompressionNanosCounter());
+                           receiveWindowGauges.add(receiverTasklet.getReceiveWindowGauge());
+                           rttEstimateGauges.add(receiverTasklet.getRttEstimateGauge());
+                           senderStallNanosCounters.add(receiverTasklet.getSenderStallNanosCounter());
                        }
                        if (firstTasklet != null) {
                            // We register the metrics to the first tasklet. The metrics itself aggregate counters from
@@ -569,11 +689,40 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                                    addCountersProbeFunction(itemCounters));
                            probeBuilder.register(firstTasklet, "distributedBytesIn", ProbeLevel.INFO, ProbeUnit.COUNT,
                                    addCountersProbeFunction(bytesCounters));
+                           if (edge.getConfig().getCompression() != CompressionType.NONE) {
+                               probeBuilder.register(firstTasklet, "distributedUncompressedBytesIn", ProbeLevel.INFO,
+                                       ProbeUnit.BYTES, addCountersProbeFunction(uncompressedBytesCounters));
+                               probeBuilder.register(firstTasklet, "distributedDecompressionNanos", ProbeLevel.INFO,
+                                       ProbeUnit.COUNT, addCountersProbeFunction(decompressionNanosCounters));
+                           }
+                           probeBuilder.register(firstTasklet, "distributedReceiveWindow", ProbeLevel.INFO,
+                                   ProbeUnit.BYTES, addCountersProbeFunction(receiveWindowGauges));
+                           if (edge.getConfig().getFlowControl() == FlowControlType.DELAY_BASED) {
+                               probeBuilder.register(firstTasklet, "distributedMaxRttEstimateNanos", ProbeLevel.INFO,
+                                       ProbeUnit.COUNT, maxCounterProbeFunction(rttEstimateGauges));
+                               probeBuilder.register(firstTasklet, "distributedSenderStallNanos", ProbeLevel.INFO,
+                                       ProbeUnit.COUNT, addCountersProbeFunction(senderStallNanosCounters));
+                           }
                        }
                        return addrToTasklet;
                    });
     }
 
+    /**
+     * Returns the readiness of the tasklet of the given processor or {@code
+     * null}, if readiness tracking is disabled.
+     */
+    private TaskletReadiness processorReadiness(VertexDef vertex, int localProcessorIdx) {
+        if (!readinessTrackingEnabled) {
+            return null;
+        }
+        return readinessMap.computeIfAbsent(vertex.vertexId(), x -> {
+            TaskletReadiness[] readiness = new TaskletReadiness[vertex.localParallelism()];
+            Arrays.setAll(readiness, i -> new TaskletReadiness());
+            return readiness;
+        })[localProcessorIdx];
+    }
+
     private JetConfig getConfig() {
         JetService service = nodeEngine.getService(JetService.SERVICE_NAME);
         return service.getJetInstance().getConfig();
@@ -595,7 +744,33 @@ public class ExecutionPlan implements IdentifiedDataSerializable {
                                                       String debugName) {
         return new ConcurrentInboundEdgeStream(conveyor, inEdge.destOrdinal(), inEdge.priority(),
                 jobConfig.getProcessingGuarantee() == ProcessingGuarantee.EXACTLY_ONCE,
-                debugName);
+                inFlightPartitionFn(inEdge), debugName);
+    }
+
+    /**
+     * Returns the function that tells the partition to restore an in-flight
+     * item of the given edge to, or null if unaligned snapshots are disabled or
+     * the edge doesn't support them. Items of a partitioned edge are restored
+     * to the partition the edge routes them to, items of a unicast edge to a
+     * random partition. The items of a broadcast or isolated edge must reach a
+     * particular processor, which can't be expressed as a partition.
+     */
+    @SuppressWarnings("unchecked")
+    private ToIntFunction<Object> inFlightPartitionFn(EdgeDef inEdge) {
+        if (jobConfig.getProcessingGuarantee() != ProcessingGuarantee.EXACTLY_ONCE
+                || !jobConfig.isUnalignedSnapshots()) {
+            return null;
+        }
+        int partitionCount = nodeEngine.getPartitionService().getPartitionCount();
+        switch (inEdge.routingPolicy()) {
+            case PARTITIONED:
+                Partitioner<Object> partitioner = inEdge.partitioner();
+                return item -> partitioner.getPartition(item, partitionCount);
+            case UNICAST:
+                return item -> ThreadLocalRandom.current().nextInt(partitionCount);
+            default:
+                return null;
+        }
     }
 
     public List<Processor> getProcessors() {
@@ -65,13 +65,15 @@ public final class ExecutionPlanBuilder {
         initPartitionOwnersAndMembers(nodeEngine, membersView, members, partitionOwners);
 
         final List<Address> addresses = members.stream().map(MemberInfo::getAddress).collect(toList());
+        final Address[] memberAddresses = addresses.toArray(new Address[0]);
         final int clusterSize = members.size();
         final boolean isJobDistributed = clusterSize > 1;
         final EdgeConfig defaultEdgeConfig = instance.getConfig().getDefaultEdgeConfig();
         final Map<MemberInfo, ExecutionPlan> plans = new HashMap<>();
         int memberIndex = 0;
         for (MemberInfo member : members) {
-            plans.put(member, new ExecutionPlan(partitionOwners, jobConfig, lastSnapshotId, memberIndex++, clusterSize));
+            plans.put(member, new ExecutionPlan(partitionOwners, memberAddresses, jobConfig, lastSnapshotId,
+                    memberIndex++, clusterSize));
         }
         final Map<String, Integer> vertexIdMap = assignVertexIds(dag);
         for (Entry<String, Integer> entry : vertexIdMap.entrySet()) {
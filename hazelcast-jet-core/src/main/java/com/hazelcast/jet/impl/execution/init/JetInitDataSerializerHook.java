@@ -30,7 +30,11 @@ import com.hazelcast.jet.impl.JobRepository.UpdateJobExecutionRecordEntryProcess
 import com.hazelcast.jet.impl.JobResult;
 import com.hazelcast.jet.impl.JobSummary;
 import com.hazelcast.jet.impl.SnapshotValidationRecord;
+import com.hazelcast.jet.impl.execution.InFlightItemKey;
+import com.hazelcast.jet.impl.execution.SnapshotTombstone;
+import com.hazelcast.jet.impl.execution.VersionedSnapshotValue;
 import com.hazelcast.jet.impl.operation.CompleteExecutionOperation;
+import com.hazelcast.jet.impl.operation.DeleteSnapshotChunksOperation;
 import com.hazelcast.jet.impl.operation.ExportSnapshotOperation;
 import com.hazelcast.jet.impl.operation.GetClusterMetadataOperation;
 import com.hazelcast.jet.impl.operation.GetJobConfigOperation;
@@ -43,6 +47,7 @@ import com.hazelcast.jet.impl.operation.InitExecutionOperation;
 import com.hazelcast.jet.impl.operation.JoinSubmittedJobOperation;
 import com.hazelcast.jet.impl.operation.NotifyMemberShutdownOperation;
 import com.hazelcast.jet.impl.operation.PrepareForPassiveClusterOperation;
+import com.hazelcast.jet.impl.operation.ReadSnapshotChunkOperation;
 import com.hazelcast.jet.impl.operation.ResumeJobOperation;
 import com.hazelcast.jet.impl.operation.SnapshotOperation;
 import com.hazelcast.jet.impl.operation.SnapshotOperation.SnapshotOperationResult;
@@ -50,9 +55,12 @@ import com.hazelcast.jet.impl.operation.StartExecutionOperation;
 import com.hazelcast.jet.impl.operation.SubmitJobOperation;
 import com.hazelcast.jet.impl.operation.TerminateExecutionOperation;
 import com.hazelcast.jet.impl.operation.TerminateJobOperation;
+import com.hazelcast.jet.impl.operation.WriteSnapshotChunkOperation;
+import com.hazelcast.jet.impl.processor.IntervalJoinP;
 import com.hazelcast.jet.impl.processor.SessionWindowP;
 import com.hazelcast.jet.impl.processor.SlidingWindowP.SnapshotKey;
 import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl;
+import com.hazelcast.jet.impl.util.SnapshotChunkRef;
 import com.hazelcast.nio.serialization.DataSerializableFactory;
 import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
 
@@ -100,6 +108,14 @@ public final class JetInitDataSerializerHook implements DataSerializerHook {
     public static final int SNAPSHOT_VALIDATION_RECORD = 37;
     public static final int CLUSTER_METADATA = 38;
     public static final int GET_CLUSTER_METADATA_OP = 39;
+    public static final int INTERVAL_JOIN_P_SNAPSHOT_KEY = 40;
+    public static final int VERSIONED_SNAPSHOT_VALUE = 41;
+    public static final int SNAPSHOT_TOMBSTONE = 42;
+    public static final int IN_FLIGHT_ITEM_KEY = 43;
+    public static final int SNAPSHOT_CHUNK_REF = 44;
+    public static final int WRITE_SNAPSHOT_CHUNK_OP = 45;
+    public static final int READ_SNAPSHOT_CHUNK_OP = 46;
+    public static final int DELETE_SNAPSHOT_CHUNKS_OP = 47;
 
     public static final int FACTORY_ID = FactoryIdHelper.getFactoryId(JET_IMPL_DS_FACTORY, JET_IMPL_DS_FACTORY_ID);
 
@@ -197,6 +213,22 @@ public final class JetInitDataSerializerHook implements DataSerializerHook {
                     return new ClusterMetadata();
                 case GET_CLUSTER_METADATA_OP:
                     return new GetClusterMetadataOperation();
+                case INTERVAL_JOIN_P_SNAPSHOT_KEY:
+                    return new IntervalJoinP.SnapshotKey();
+                case VERSIONED_SNAPSHOT_VALUE:
+                    return new VersionedSnapshotValue();
+                case SNAPSHOT_TOMBSTONE:
+                    return SnapshotTombstone.INSTANCE;
+                case IN_FLIGHT_ITEM_KEY:
+                    return new InFlightItemKey();
+                case SNAPSHOT_CHUNK_REF:
+                    return new SnapshotChunkRef();
+                case WRITE_SNAPSHOT_CHUNK_OP:
+                    return new WriteSnapshotChunkOperation();
+                case READ_SNAPSHOT_CHUNK_OP:
+                    return new ReadSnapshotChunkOperation();
+                case DELETE_SNAPSHOT_CHUNKS_OP:
+                    return new DeleteSnapshotChunksOperation();
                 default:
                     throw new IllegalArgumentException("Unknown type id " + typeId);
             }
@@ -39,8 +39,10 @@ class PartitionArrangement {
     final Supplier<Map<Address, int[]>> remotePartitionAssignment;
     private final Supplier<int[]> localPartitions;
     private final Supplier<int[]> allPartitions;
+    private final Address[] partitionOwners;
 
     PartitionArrangement(Address[] partitionOwners, Address thisAddress) {
+        this.partitionOwners = partitionOwners;
         localPartitions = memoize(() -> arrangeLocalPartitions(partitionOwners, thisAddress));
         allPartitions = memoize(() -> arrangeAllPartitions(partitionOwners, localPartitions.get()));
         remotePartitionAssignment = memoize(() -> remotePartitionAssignment(partitionOwners, thisAddress));
@@ -75,6 +77,34 @@ class PartitionArrangement {
         return ptionsPerProcessor;
     }
 
+    /**
+     * Returns, for each processor of the destination vertex in the whole
+     * cluster (identified by its global index), the first partition ID
+     * {@link #assignPartitionsToProcessors} assigns to it on its member, or
+     * -1 if it gets no partition. An item with that partition ID is routed to
+     * that processor.
+     *
+     * @param memberAddresses   addresses of the members, indexed by member index
+     * @param localParallelism  local parallelism of the destination vertex
+     * @param isEdgeDistributed whether the edge is distributed
+     */
+    int[] firstPartitionPerProcessor(Address[] memberAddresses, int localParallelism, boolean isEdgeDistributed) {
+        if (!isEdgeDistributed) {
+            int[] arrangedPtions = allPartitions.get();
+            return IntStream.range(0, localParallelism)
+                            .map(i -> i < arrangedPtions.length ? arrangedPtions[i] : -1)
+                            .toArray();
+        }
+        int[] result = new int[memberAddresses.length * localParallelism];
+        for (int m = 0; m < memberAddresses.length; m++) {
+            int[] memberPtions = arrangeLocalPartitions(partitionOwners, memberAddresses[m]);
+            for (int i = 0; i < localParallelism; i++) {
+                result[m * localParallelism + i] = i < memberPtions.length ? memberPtions[i] : -1;
+            }
+        }
+        return result;
+    }
+
     private static int[] arrangeLocalPartitions(Address[] partitionOwners, Address thisAddress) {
         return IntStream.range(0, partitionOwners.length)
                 .filter(partitionId -> thisAddress.equals(partitionOwners[partitionId]))
@@ -41,17 +41,20 @@ public class SnapshotOperation extends AsyncJobOperation {
     private long snapshotId;
     private String mapName;
     private boolean isTerminal;
+    private boolean isIncremental;
 
     // for deserialization
     public SnapshotOperation() {
     }
 
-    public SnapshotOperation(long jobId, long executionId, long snapshotId, String mapName, boolean isTerminal) {
+    public SnapshotOperation(long jobId, long executionId, long snapshotId, String mapName, boolean isTerminal,
+                             boolean isIncremental) {
         super(jobId);
         this.executionId = executionId;
         this.snapshotId = snapshotId;
         this.mapName = mapName;
         this.isTerminal = isTerminal;
+        this.isIncremental = isIncremental;
     }
 
     @Override
@@ -60,7 +63,7 @@ public class SnapshotOperation extends AsyncJobOperation {
         ExecutionContext ctx = service.getJobExecutionService().assertExecutionContext(
                 getCallerAddress(), jobId(), executionId, getClass().getSimpleName()
         );
-        ctx.beginSnapshot(snapshotId, mapName, isTerminal).whenComplete(withTryCatch(getLogger(),
+        ctx.beginSnapshot(snapshotId, mapName, isTerminal, isIncremental).whenComplete(withTryCatch(getLogger(),
                 (result, exc) -> {
                     if (exc != null) {
                         result = new SnapshotOperationResult(0, 0, 0, exc);
@@ -99,6 +102,7 @@ public class SnapshotOperation extends AsyncJobOperation {
         out.writeLong(snapshotId);
         out.writeUTF(mapName);
         out.writeBoolean(isTerminal);
+        out.writeBoolean(isIncremental);
     }
 
     @Override
@@ -108,6 +112,7 @@ public class SnapshotOperation extends AsyncJobOperation {
         snapshotId = in.readLong();
         mapName = in.readUTF();
         isTerminal = in.readBoolean();
+        isIncremental = in.readBoolean();
     }
 
     /**
@@ -24,12 +24,16 @@ import com.hazelcast.jet.aggregate.AggregateOperation3;
 import com.hazelcast.jet.core.ProcessorMetaSupplier;
 import com.hazelcast.jet.function.DistributedBiFunction;
 import com.hazelcast.jet.function.DistributedBiPredicate;
+import com.hazelcast.jet.function.DistributedComparator;
 import com.hazelcast.jet.function.DistributedFunction;
 import com.hazelcast.jet.function.DistributedPredicate;
+import com.hazelcast.jet.function.DistributedToLongFunction;
 import com.hazelcast.jet.function.DistributedTriFunction;
 import com.hazelcast.jet.impl.pipeline.transform.AbstractTransform;
 import com.hazelcast.jet.impl.pipeline.transform.AggregateTransform;
+import com.hazelcast.jet.impl.pipeline.transform.SortTransform;
 import com.hazelcast.jet.impl.pipeline.transform.Transform;
+import com.hazelcast.jet.impl.util.LongKeyFunction;
 import com.hazelcast.jet.pipeline.BatchStage;
 import com.hazelcast.jet.pipeline.BatchStageWithKey;
 import com.hazelcast.jet.pipeline.ContextFactory;
@@ -62,6 +66,12 @@ public class BatchStageImpl<T> extends ComputeStageImplBase<T> implements BatchS
         return new BatchStageWithKeyImpl<>(this, keyFn);
     }
 
+    @Nonnull @Override
+    public BatchStageWithKey<T, Long> groupingLongKey(@Nonnull DistributedToLongFunction<? super T> keyFn) {
+        checkSerializable(keyFn, "keyFn");
+        return new BatchStageWithKeyImpl<>(this, new LongKeyFunction<>(keyFn));
+    }
+
     @Nonnull @Override
     public <R> BatchStage<R> map(@Nonnull DistributedFunction<? super T, ? extends R> mapFn) {
         return attachMap(mapFn);
@@ -134,6 +144,12 @@ public class BatchStageImpl<T> extends ComputeStageImplBase<T> implements BatchS
         return attachGlobalRollingAggregate(aggrOp);
     }
 
+    @Nonnull @Override
+    public BatchStage<T> sort(@Nonnull DistributedComparator<? super T> comparator) {
+        checkSerializable(comparator, "comparator");
+        return attach(new SortTransform<>(transform, comparator), fnAdapter);
+    }
+
     @Nonnull @Override
     public BatchStage<T> merge(@Nonnull BatchStage<? extends T> other) {
         return attachMerge(other);
@@ -34,6 +34,7 @@ import com.hazelcast.jet.function.KeyedWindowResultFunction;
 import com.hazelcast.jet.function.WindowResultFunction;
 import com.hazelcast.jet.impl.JetEvent;
 import com.hazelcast.jet.impl.processor.ProcessorWrapper;
+import com.hazelcast.jet.impl.util.LongKeyFunction;
 import com.hazelcast.jet.impl.util.WrappingProcessorMetaSupplier;
 import com.hazelcast.jet.pipeline.JoinClause;
 
@@ -228,6 +229,14 @@ class JetEventFunctionAdapter extends FunctionAdapter {
     <T, K> DistributedFunction<? super JetEvent<T>, ? extends K> adaptKeyFn(
             @Nonnull DistributedFunction<? super T, ? extends K> keyFn
     ) {
+        if (keyFn instanceof LongKeyFunction) {
+            // keep the primitive key visible to the processors
+            @SuppressWarnings("unchecked")
+            DistributedFunction<? super JetEvent<T>, ? extends K> adapted =
+                    (DistributedFunction<? super JetEvent<T>, ? extends K>)
+                            ((LongKeyFunction<T>) keyFn).compose(JetEvent<T>::payload);
+            return adapted;
+        }
         return e -> keyFn.apply(e.payload());
     }
 
@@ -294,7 +303,8 @@ class JetEventFunctionAdapter extends FunctionAdapter {
             @Nonnull JoinClause<? extends K, ? super T0, ? super T1, ? extends T1_OUT> joinClause
     ) {
         return JoinClause.<K, JetEvent<T0>, T1>onKeys(adaptKeyFn(joinClause.leftKeyFn()), joinClause.rightKeyFn())
-                .projecting(joinClause.rightProjectFn());
+                .projecting(joinClause.rightProjectFn())
+                .withRightSizeHint(joinClause.rightSizeHint());
     }
 
     @Nonnull @Override
@@ -337,6 +347,14 @@ class JetEventFunctionAdapter extends FunctionAdapter {
         return (jetEvent, key, result) -> jetEvent(mapToOutputFn.apply(key, result), jetEvent.timestamp());
     }
 
+    @Nonnull
+    static <T0, T1, R> DistributedBiFunction<? super JetEvent<T0>, ? super JetEvent<T1>, ? extends JetEvent<R>>
+    adaptIntervalJoinOutputFn(@Nonnull DistributedBiFunction<? super T0, ? super T1, ? extends R> mapToOutputFn) {
+        // the joined item is emitted when the later of the two items arrives
+        return (e0, e1) -> jetEvent(mapToOutputFn.apply(e0.payload(), e1.payload()),
+                Math.max(e0.timestamp(), e1.timestamp()));
+    }
+
     @Nonnull
     @SuppressWarnings("unchecked")
     <A, R> AggregateOperation<A, ? extends R> adaptAggregateOperation(
@@ -24,6 +24,7 @@ import com.hazelcast.jet.core.ProcessorMetaSupplier;
 import com.hazelcast.jet.core.ProcessorSupplier;
 import com.hazelcast.jet.core.Vertex;
 import com.hazelcast.jet.function.DistributedSupplier;
+import com.hazelcast.jet.impl.pipeline.transform.FusedTransform;
 import com.hazelcast.jet.impl.pipeline.transform.SinkTransform;
 import com.hazelcast.jet.impl.pipeline.transform.StreamSourceTransform;
 import com.hazelcast.jet.impl.pipeline.transform.TimestampTransform;
@@ -34,8 +35,10 @@ import com.hazelcast.logging.ILogger;
 import com.hazelcast.logging.Logger;
 
 import javax.annotation.Nonnull;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -104,6 +107,7 @@ public class Planner {
             }
         }
 
+        adjacencyMap = fuseStatelessTransforms(adjacencyMap);
         checkTopologicalSort(adjacencyMap.entrySet());
         for (Transform transform : adjacencyMap.keySet()) {
             transform.addToDag(this);
@@ -123,6 +127,56 @@ public class Planner {
         }
     }
 
+    /**
+     * Replaces each chain of two or more stateless transforms (see {@link
+     * FusedTransform#isFusible}) with a single {@link FusedTransform}. A
+     * transform joins the chain if it's the only downstream of the previous
+     * transform and has the same local parallelism. Such transforms would be
+     * connected with a local round-robin edge, so running them in a single
+     * processor doesn't change the semantics, but saves a queue hop per item.
+     */
+    private static Map<Transform, List<Transform>> fuseStatelessTransforms(
+            Map<Transform, List<Transform>> adjacencyMap
+    ) {
+        Map<Transform, List<Transform>> result = new LinkedHashMap<>();
+        Map<Transform, Transform> headToFused = new HashMap<>();
+        Set<Transform> fused = new HashSet<>();
+        for (Entry<Transform, List<Transform>> entry : adjacencyMap.entrySet()) {
+            Transform head = entry.getKey();
+            if (fused.contains(head)) {
+                continue;
+            }
+            List<Transform> chain = new ArrayList<>();
+            chain.add(head);
+            List<Transform> downstream = entry.getValue();
+            if (FusedTransform.isFusible(head)) {
+                while (downstream.size() == 1 && canFuse(chain.get(chain.size() - 1), downstream.get(0))) {
+                    chain.add(downstream.get(0));
+                    downstream = adjacencyMap.get(downstream.get(0));
+                }
+            }
+            if (chain.size() == 1) {
+                result.put(head, downstream);
+                continue;
+            }
+            FusedTransform fusedTransform = new FusedTransform(chain);
+            LoggingUtil.logFine(LOGGER, "Fusing %s into a single vertex", chain);
+            fused.addAll(chain);
+            headToFused.put(head, fusedTransform);
+            result.put(fusedTransform, downstream);
+        }
+        result.replaceAll((t, downstream) -> downstream.stream()
+                                                       .map(d -> headToFused.getOrDefault(d, d))
+                                                       .collect(toList()));
+        return result;
+    }
+
+    private static boolean canFuse(Transform upstream, Transform downstream) {
+        return FusedTransform.isFusible(downstream)
+                && downstream.upstream().size() == 1
+                && downstream.localParallelism() == upstream.localParallelism();
+    }
+
     public PlannerVertex addVertex(Transform transform, String name, int localParallelism,
                                    DistributedSupplier<Processor> procSupplier) {
         return addVertex(transform, name, localParallelism, ProcessorMetaSupplier.of(procSupplier));
@@ -24,9 +24,11 @@ import com.hazelcast.jet.function.DistributedBiFunction;
 import com.hazelcast.jet.function.DistributedBiPredicate;
 import com.hazelcast.jet.function.DistributedFunction;
 import com.hazelcast.jet.function.DistributedPredicate;
+import com.hazelcast.jet.function.DistributedToLongFunction;
 import com.hazelcast.jet.function.DistributedTriFunction;
 import com.hazelcast.jet.impl.pipeline.transform.AbstractTransform;
 import com.hazelcast.jet.impl.pipeline.transform.Transform;
+import com.hazelcast.jet.impl.util.LongKeyFunction;
 import com.hazelcast.jet.pipeline.BatchStage;
 import com.hazelcast.jet.pipeline.ContextFactory;
 import com.hazelcast.jet.pipeline.JoinClause;
@@ -56,6 +58,12 @@ public class StreamStageImpl<T> extends ComputeStageImplBase<T> implements Strea
         return new StreamStageWithKeyImpl<>(this, keyFn);
     }
 
+    @Nonnull @Override
+    public StreamStageWithKey<T, Long> groupingLongKey(@Nonnull DistributedToLongFunction<? super T> keyFn) {
+        checkSerializable(keyFn, "keyFn");
+        return new StreamStageWithKeyImpl<>(this, new LongKeyFunction<>(keyFn));
+    }
+
     @Nonnull @Override
     public StageWithWindow<T> window(WindowDefinition wDef) {
         return new StageWithWindowImpl<>(this, wDef);
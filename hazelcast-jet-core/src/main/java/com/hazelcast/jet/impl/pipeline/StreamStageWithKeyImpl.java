@@ -24,6 +24,8 @@ import com.hazelcast.jet.function.DistributedBiFunction;
 import com.hazelcast.jet.function.DistributedFunction;
 import com.hazelcast.jet.function.DistributedTriFunction;
 import com.hazelcast.jet.function.DistributedTriPredicate;
+import com.hazelcast.jet.impl.pipeline.transform.IntervalJoinTransform;
+import com.hazelcast.jet.impl.pipeline.transform.StreamDistinctTransform;
 import com.hazelcast.jet.pipeline.ContextFactory;
 import com.hazelcast.jet.pipeline.StreamStage;
 import com.hazelcast.jet.pipeline.StreamStageWithKey;
@@ -32,6 +34,13 @@ import com.hazelcast.jet.pipeline.WindowDefinition;
 import javax.annotation.Nonnull;
 import java.util.concurrent.CompletableFuture;
 
+import static com.hazelcast.jet.impl.pipeline.ComputeStageImplBase.ADAPT_TO_JET_EVENT;
+import static com.hazelcast.jet.impl.pipeline.ComputeStageImplBase.ensureJetEvents;
+import static com.hazelcast.jet.impl.pipeline.JetEventFunctionAdapter.adaptIntervalJoinOutputFn;
+import static com.hazelcast.jet.impl.util.Util.checkSerializable;
+import static com.hazelcast.util.Preconditions.checkTrue;
+import static java.util.Arrays.asList;
+
 public class StreamStageWithKeyImpl<T, K> extends StageWithGroupingBase<T, K> implements StreamStageWithKey<T, K> {
 
     StreamStageWithKeyImpl(
@@ -46,6 +55,49 @@ public class StreamStageWithKeyImpl<T, K> extends StageWithGroupingBase<T, K> im
         return new StageWithKeyAndWindowImpl<>((StreamStageImpl<T>) computeStage, keyFn(), wDef);
     }
 
+    @Nonnull @Override
+    public <T1, R> StreamStage<R> intervalJoin(
+            @Nonnull StreamStageWithKey<T1, ? extends K> stage1,
+            long lowerBound,
+            long upperBound,
+            @Nonnull DistributedBiFunction<? super T, ? super T1, ? extends R> mapToOutputFn
+    ) {
+        ensureJetEvents(computeStage, "This pipeline stage");
+        ensureJetEvents(((StageWithGroupingBase) stage1).computeStage, "stage1");
+        checkSerializable(mapToOutputFn, "mapToOutputFn");
+        checkTrue(lowerBound <= upperBound, "lowerBound must not be greater than upperBound");
+        JetEventFunctionAdapter fnAdapter = ADAPT_TO_JET_EVENT;
+        return computeStage.attach(new IntervalJoinTransform<K>(
+                        asList(computeStage.transform, ((StageWithGroupingBase) stage1).computeStage.transform),
+                        asList(fnAdapter.adaptKeyFn(keyFn()), fnAdapter.adaptKeyFn(stage1.keyFn())),
+                        lowerBound,
+                        upperBound,
+                        adaptIntervalJoinOutputFn(mapToOutputFn)
+                ),
+                fnAdapter);
+    }
+
+    @Nonnull @Override
+    public StreamStage<T> distinct(long timeToLive, long maxKeys) {
+        checkTrue(timeToLive > 0, "timeToLive must be positive");
+        checkTrue(maxKeys > 0, "maxKeys must be positive");
+        ensureJetEvents(computeStage, "This pipeline stage");
+        JetEventFunctionAdapter fnAdapter = ADAPT_TO_JET_EVENT;
+        return computeStage.attach(new StreamDistinctTransform<>(
+                computeStage.transform, fnAdapter.adaptKeyFn(keyFn()), timeToLive, maxKeys), fnAdapter);
+    }
+
+    @Nonnull @Override
+    public StreamStage<T> approximateDistinct(long timeToLive, long expectedKeys, double falsePositiveRate) {
+        checkTrue(timeToLive > 0, "timeToLive must be positive");
+        checkTrue(expectedKeys > 0, "expectedKeys must be positive");
+        checkTrue(falsePositiveRate > 0 && falsePositiveRate < 1, "falsePositiveRate must be between 0 and 1");
+        ensureJetEvents(computeStage, "This pipeline stage");
+        JetEventFunctionAdapter fnAdapter = ADAPT_TO_JET_EVENT;
+        return computeStage.attach(new StreamDistinctTransform<>(computeStage.transform,
+                fnAdapter.adaptKeyFn(keyFn()), timeToLive, expectedKeys, falsePositiveRate), fnAdapter);
+    }
+
     @Nonnull @Override
     public <C, R> StreamStage<R> mapUsingContext(
             @Nonnull ContextFactory<C> contextFactory,
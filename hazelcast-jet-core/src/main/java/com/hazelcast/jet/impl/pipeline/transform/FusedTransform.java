@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.pipeline.transform;
+
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.Traversers;
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.jet.function.DistributedFunction;
+import com.hazelcast.jet.function.DistributedPredicate;
+import com.hazelcast.jet.function.DistributedSupplier;
+import com.hazelcast.jet.impl.pipeline.Planner;
+import com.hazelcast.jet.impl.pipeline.Planner.PlannerVertex;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+
+import static com.hazelcast.jet.core.processor.Processors.flatMapP;
+import static com.hazelcast.jet.core.processor.Processors.mapP;
+import static java.util.stream.Collectors.joining;
+
+/**
+ * A chain of stateless transforms ({@link MapTransform}, {@link
+ * FilterTransform} and {@link FlatMapTransform}) that the {@link Planner}
+ * fused into a single vertex. The items are passed from one function to the
+ * next directly, without going through a queue.
+ */
+public class FusedTransform extends AbstractTransform {
+    @Nonnull
+    private final List<Transform> chain;
+
+    public FusedTransform(@Nonnull List<Transform> chain) {
+        super(chain.stream().map(Transform::name).collect(joining(", ", "fused(", ")")),
+                chain.get(0).upstream());
+        assert chain.size() > 1 && chain.stream().allMatch(FusedTransform::isFusible) : "Invalid chain: " + chain;
+        this.chain = chain;
+        localParallelism(chain.get(0).localParallelism());
+    }
+
+    /**
+     * Tells whether the given transform can be a part of a fused chain.
+     */
+    public static boolean isFusible(Transform transform) {
+        return transform instanceof MapTransform
+                || transform instanceof FilterTransform
+                || transform instanceof FlatMapTransform;
+    }
+
+    @Nonnull
+    public List<Transform> chain() {
+        return chain;
+    }
+
+    @Override
+    public void addToDag(Planner p) {
+        PlannerVertex pv = p.addVertex(this, name(), localParallelism(), fusedP());
+        for (Transform t : chain) {
+            p.xform2vertex.put(t, pv);
+        }
+        p.addEdges(this, pv.v);
+    }
+
+    /**
+     * Creates the processor supplier for the chain. Consecutive map and filter
+     * functions are composed into a single mapping function which returns
+     * {@code null} for a filtered-out item. Only a flat-mapping function
+     * requires a traverser per item.
+     */
+    @SuppressWarnings("unchecked")
+    private DistributedSupplier<Processor> fusedP() {
+        DistributedFunction<Object, Object> mapFn = null;
+        DistributedFunction<Object, Traverser<Object>> flatMapFn = null;
+        for (Transform t : chain) {
+            if (t instanceof MapTransform) {
+                mapFn = andThen(mapFn, (DistributedFunction<Object, Object>) ((MapTransform) t).mapFn());
+            } else if (t instanceof FilterTransform) {
+                mapFn = andThen(mapFn, filterToMapFn(((FilterTransform) t).filterFn()));
+            } else {
+                DistributedFunction<Object, Traverser<Object>> stageFn = flatMapAfter(mapFn,
+                        (DistributedFunction<Object, Traverser<Object>>) ((FlatMapTransform) t).flatMapFn());
+                flatMapFn = flatMapFn == null ? stageFn : flatMapThen(flatMapFn, stageFn);
+                mapFn = null;
+            }
+        }
+        if (flatMapFn == null) {
+            return mapP(mapFn);
+        }
+        return flatMapP(mapFn == null ? flatMapFn : mapAfterFlatMap(flatMapFn, mapFn));
+    }
+
+    private static DistributedFunction<Object, Object> filterToMapFn(DistributedPredicate<Object> filterFn) {
+        return item -> filterFn.test(item) ? item : null;
+    }
+
+    private static DistributedFunction<Object, Object> andThen(
+            DistributedFunction<Object, Object> first, DistributedFunction<Object, Object> second
+    ) {
+        if (first == null) {
+            return second;
+        }
+        return item -> {
+            Object result = first.apply(item);
+            return result != null ? second.apply(result) : null;
+        };
+    }
+
+    private static DistributedFunction<Object, Traverser<Object>> flatMapAfter(
+            DistributedFunction<Object, Object> mapFn, DistributedFunction<Object, Traverser<Object>> flatMapFn
+    ) {
+        if (mapFn == null) {
+            return flatMapFn;
+        }
+        return item -> {
+            Object mapped = mapFn.apply(item);
+            return mapped != null ? flatMapFn.apply(mapped) : Traversers.empty();
+        };
+    }
+
+    private static DistributedFunction<Object, Traverser<Object>> flatMapThen(
+            DistributedFunction<Object, Traverser<Object>> first, DistributedFunction<Object, Traverser<Object>> second
+    ) {
+        return item -> first.apply(item).flatMap(second);
+    }
+
+    private static DistributedFunction<Object, Traverser<Object>> mapAfterFlatMap(
+            DistributedFunction<Object, Traverser<Object>> flatMapFn, DistributedFunction<Object, Object> mapFn
+    ) {
+        return item -> flatMapFn.apply(item).map(mapFn);
+    }
+}
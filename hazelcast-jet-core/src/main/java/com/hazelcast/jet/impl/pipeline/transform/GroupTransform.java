@@ -17,14 +17,18 @@
 package com.hazelcast.jet.impl.pipeline.transform;
 
 import com.hazelcast.jet.aggregate.AggregateOperation;
+import com.hazelcast.jet.core.Edge;
 import com.hazelcast.jet.core.Vertex;
 import com.hazelcast.jet.function.DistributedBiFunction;
 import com.hazelcast.jet.function.DistributedFunction;
 import com.hazelcast.jet.impl.pipeline.Planner;
 import com.hazelcast.jet.impl.pipeline.Planner.PlannerVertex;
+import com.hazelcast.jet.impl.processor.GroupP;
+import com.hazelcast.jet.impl.util.LongKeyFunction;
 
 import javax.annotation.Nonnull;
 import java.util.List;
+import java.util.Map.Entry;
 
 import static com.hazelcast.jet.core.Edge.between;
 import static com.hazelcast.jet.core.Partitioner.HASH_CODE;
@@ -32,6 +36,7 @@ import static com.hazelcast.jet.core.processor.Processors.accumulateByKeyP;
 import static com.hazelcast.jet.core.processor.Processors.aggregateByKeyP;
 import static com.hazelcast.jet.core.processor.Processors.combineByKeyP;
 import static com.hazelcast.jet.function.DistributedFunctions.entryKey;
+import static com.hazelcast.jet.function.DistributedFunctions.wholeItem;
 import static com.hazelcast.jet.impl.pipeline.transform.AbstractTransform.Optimization.MEMORY;
 import static com.hazelcast.jet.impl.pipeline.transform.AggregateTransform.FIRST_STAGE_VERTEX_NAME_SUFFIX;
 
@@ -86,7 +91,11 @@ public class GroupTransform<K, A, R, OUT> extends AbstractTransform {
     private void addToDagSingleStage(Planner p) {
         PlannerVertex pv = p.addVertex(this, name(), localParallelism(),
                 aggregateByKeyP(groupKeyFns, aggrOp, mapToOutputFn));
-        p.addEdges(this, pv.v, (e, ord) -> e.distributed().partitioned(groupKeyFns.get(ord)));
+        if (hasLongKeys()) {
+            p.addEdges(this, pv.v, (e, ord) -> partitionedByLongKey(e.distributed(), groupKeyFns.get(ord)));
+        } else {
+            p.addEdges(this, pv.v, (e, ord) -> e.distributed().partitioned(groupKeyFns.get(ord)));
+        }
     }
 
     //                   ---------        ---------
@@ -107,12 +116,46 @@ public class GroupTransform<K, A, R, OUT> extends AbstractTransform {
     //                        | combineByKeyP |
     //                         ---------------
     private void addToDagTwoStage(Planner p) {
+        if (hasLongKeys()) {
+            addToDagTwoStageLongKeys(p);
+            return;
+        }
         List<DistributedFunction<?, ? extends K>> groupKeyFns = this.groupKeyFns;
         Vertex v1 = p.dag.newVertex(name() + FIRST_STAGE_VERTEX_NAME_SUFFIX, accumulateByKeyP(groupKeyFns, aggrOp))
                 .localParallelism(localParallelism());
         PlannerVertex pv2 = p.addVertex(this, name(), localParallelism(),
                 combineByKeyP(aggrOp, mapToOutputFn));
-        p.addEdges(this, v1, (e, ord) -> e.partitioned(groupKeyFns.get(ord), HASH_CODE));
+        // the combining stage merges partial results by key, so the first stage can split hot keys
+        p.addEdges(this, v1, (e, ord) -> e.partitioned(groupKeyFns.get(ord), HASH_CODE).splitHotKeys());
         p.dag.edge(between(v1, pv2.v).distributed().partitioned(entryKey()));
     }
+
+    /**
+     * The same DAG as {@link #addToDagTwoStage}, but both stages keep the
+     * groups in a primitive long-keyed map and the edges partition by the
+     * primitive key.
+     */
+    @SuppressWarnings("unchecked")
+    private void addToDagTwoStageLongKeys(Planner p) {
+        List<DistributedFunction<?, ? extends K>> groupKeyFns = this.groupKeyFns;
+        AggregateOperation<A, R> aggrOp = this.aggrOp;
+        DistributedBiFunction<? super K, ? super R, OUT> mapToOutputFn = this.mapToOutputFn;
+        LongKeyFunction<Entry<Long, A>> entryKeyFn = new LongKeyFunction<>(Entry::getKey);
+        Vertex v1 = p.dag.newVertex(name() + FIRST_STAGE_VERTEX_NAME_SUFFIX, accumulateByKeyP(groupKeyFns, aggrOp))
+                .localParallelism(localParallelism());
+        PlannerVertex pv2 = p.addVertex(this, name(), localParallelism(),
+                () -> new GroupP<>((DistributedFunction<Entry<Long, A>, K>) (DistributedFunction<?, ?>) entryKeyFn,
+                        aggrOp.withCombiningAccumulateFn(Entry<Long, A>::getValue), mapToOutputFn));
+        p.addEdges(this, v1, (e, ord) -> partitionedByLongKey(e, groupKeyFns.get(ord)).splitHotKeys());
+        p.dag.edge(partitionedByLongKey(between(v1, pv2.v).distributed(), entryKeyFn));
+    }
+
+    private boolean hasLongKeys() {
+        return groupKeyFns.stream().allMatch(LongKeyFunction.class::isInstance);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Edge partitionedByLongKey(Edge edge, DistributedFunction<?, ?> keyFn) {
+        return edge.partitioned(wholeItem(), ((LongKeyFunction<Object>) keyFn).partitioner());
+    }
 }
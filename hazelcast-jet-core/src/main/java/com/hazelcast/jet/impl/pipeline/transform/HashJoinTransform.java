@@ -25,6 +25,7 @@ import com.hazelcast.jet.impl.pipeline.Planner;
 import com.hazelcast.jet.impl.pipeline.Planner.PlannerVertex;
 import com.hazelcast.jet.impl.processor.HashJoinCollectP;
 import com.hazelcast.jet.impl.processor.HashJoinP;
+import com.hazelcast.jet.impl.processor.PartitionedHashJoinP;
 import com.hazelcast.jet.pipeline.JoinClause;
 
 import javax.annotation.Nonnull;
@@ -92,6 +93,13 @@ public class HashJoinTransform<T0, R> extends AbstractTransform {
     //                              --------
     //                             | joiner |
     //                              --------
+    //
+    // If a clause has a size hint of at least BROADCAST_SIZE_LIMIT, the
+    // clause with the largest hint is partitioned: its stream goes to the
+    // joiner directly over a distributed edge partitioned by the right-hand
+    // key and the primary stream over a distributed edge partitioned by the
+    // left-hand key. The joiner builds the lookup table from its share of
+    // the items and, in a batch job, can spill it to disk.
     @Override
     @SuppressWarnings("unchecked")
     public void addToDag(Planner p) {
@@ -103,15 +111,37 @@ public class HashJoinTransform<T0, R> extends AbstractTransform {
         List<Tag> tags = this.tags;
         DistributedBiFunction mapToOutputBiFn = this.mapToOutputBiFn;
         DistributedTriFunction mapToOutputTriFn = this.mapToOutputTriFn;
-        Vertex joiner = p.addVertex(this, name() + "-joiner", localParallelism(),
-                () -> new HashJoinP<>(keyFns, tags, mapToOutputBiFn, mapToOutputTriFn)).v;
-        p.dag.edge(from(primary.v, primary.nextAvailableOrdinal()).to(joiner, 0));
+        int partitionedOrdinal = partitionedOrdinal();
+        Vertex joiner;
+        if (partitionedOrdinal < 0) {
+            joiner = p.addVertex(this, name() + "-joiner", localParallelism(),
+                    () -> new HashJoinP<>(keyFns, tags, mapToOutputBiFn, mapToOutputTriFn)).v;
+            p.dag.edge(from(primary.v, primary.nextAvailableOrdinal()).to(joiner, 0));
+        } else {
+            JoinClause<?, ?, ?, ?> clause = this.clauses.get(partitionedOrdinal - 1);
+            DistributedFunction<?, ?> buildKeyFn = clause.rightKeyFn();
+            DistributedFunction<?, ?> buildProjectFn = clause.rightProjectFn();
+            boolean spillAllowed = !isStreaming(this.upstream().get(0));
+            joiner = p.addVertex(this, name() + "-joiner", localParallelism(),
+                    () -> new PartitionedHashJoinP<>(keyFns, tags, mapToOutputBiFn, mapToOutputTriFn,
+                            partitionedOrdinal, buildKeyFn, buildProjectFn, spillAllowed)).v;
+            p.dag.edge(from(primary.v, primary.nextAvailableOrdinal()).to(joiner, 0)
+                    .distributed().partitioned((DistributedFunction<Object, Object>) clause.leftKeyFn()));
+        }
 
         String collectorName = name() + "-collector";
         int collectorOrdinal = 1;
         for (Transform fromTransform : tailList(this.upstream())) {
             PlannerVertex fromPv = p.xform2vertex.get(fromTransform);
             JoinClause<?, ?, ?, ?> clause = this.clauses.get(collectorOrdinal - 1);
+            if (collectorOrdinal == partitionedOrdinal) {
+                p.dag.edge(from(fromPv.v, fromPv.nextAvailableOrdinal())
+                        .to(joiner, collectorOrdinal)
+                        .distributed().partitioned((DistributedFunction<Object, Object>) clause.rightKeyFn())
+                        .priority(-1));
+                collectorOrdinal++;
+                continue;
+            }
             DistributedFunction<Object, Object> getKeyFn =
                     (DistributedFunction<Object, Object>) clause.rightKeyFn();
             DistributedFunction<Object, Object> projectFn =
@@ -128,4 +158,31 @@ public class HashJoinTransform<T0, R> extends AbstractTransform {
             collectorOrdinal++;
         }
     }
+
+    /**
+     * Returns the ordinal of the clause with the largest size hint, if it
+     * reaches {@link JoinClause#BROADCAST_SIZE_LIMIT}, otherwise -1.
+     */
+    private int partitionedOrdinal() {
+        int result = -1;
+        long maxHint = JoinClause.BROADCAST_SIZE_LIMIT - 1;
+        for (int i = 0; i < clauses.size(); i++) {
+            if (clauses.get(i).rightSizeHint() > maxHint) {
+                maxHint = clauses.get(i).rightSizeHint();
+                result = i + 1;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Tells whether the items of the transform have timestamps. The joiner
+     * must then not hold back the primary items, the watermarks would
+     * overtake them.
+     */
+    private static boolean isStreaming(Transform transform) {
+        return transform instanceof StreamSourceTransform
+                || transform instanceof TimestampTransform
+                || transform.upstream().stream().anyMatch(HashJoinTransform::isStreaming);
+    }
 }
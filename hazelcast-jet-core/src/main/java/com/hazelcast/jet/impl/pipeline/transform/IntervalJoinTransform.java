@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.jet.impl.pipeline.transform;
+
+import com.hazelcast.jet.function.DistributedBiFunction;
+import com.hazelcast.jet.function.DistributedFunction;
+import com.hazelcast.jet.function.DistributedToLongFunction;
+import com.hazelcast.jet.impl.JetEvent;
+import com.hazelcast.jet.impl.pipeline.Planner;
+import com.hazelcast.jet.impl.pipeline.Planner.PlannerVertex;
+import com.hazelcast.jet.impl.processor.IntervalJoinP;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+
+import static java.util.Collections.nCopies;
+
+public class IntervalJoinTransform<K> extends AbstractTransform {
+    @Nonnull
+    private final List<DistributedFunction<?, ? extends K>> keyFns;
+    private final long lowerBound;
+    private final long upperBound;
+    @Nonnull
+    private final DistributedBiFunction<?, ?, ?> mapToOutputFn;
+
+    public IntervalJoinTransform(
+            @Nonnull List<Transform> upstream,
+            @Nonnull List<DistributedFunction<?, ? extends K>> keyFns,
+            long lowerBound,
+            long upperBound,
+            @Nonnull DistributedBiFunction<?, ?, ?> mapToOutputFn
+    ) {
+        super("interval-join", upstream);
+        this.keyFns = keyFns;
+        this.lowerBound = lowerBound;
+        this.upperBound = upperBound;
+        this.mapToOutputFn = mapToOutputFn;
+    }
+
+    //              ---------       ---------
+    //             | source0 |     | source1 |
+    //              ---------       ---------
+    //                  |               |
+    //             distributed     distributed
+    //             partitioned     partitioned
+    //                   \             /
+    //                    v           v
+    //                  ---------------
+    //                 | IntervalJoinP |
+    //                  ---------------
+    @Override
+    public void addToDag(Planner p) {
+        List<DistributedFunction<?, ? extends K>> keyFns = this.keyFns;
+        List<DistributedToLongFunction<JetEvent>> timestampFns =
+                nCopies(2, (DistributedToLongFunction<JetEvent>) JetEvent::timestamp);
+        long lowerBound = this.lowerBound;
+        long upperBound = this.upperBound;
+        DistributedBiFunction<?, ?, ?> mapToOutputFn = this.mapToOutputFn;
+        PlannerVertex pv = p.addVertex(this, name(), localParallelism(),
+                () -> new IntervalJoinP<>(keyFns, timestampFns, lowerBound, upperBound, mapToOutputFn));
+        p.addEdges(this, pv.v, (e, ord) -> e.distributed().partitioned(keyFns.get(ord)));
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.jet.impl.pipeline.transform;
+
+import com.hazelcast.jet.core.Vertex;
+import com.hazelcast.jet.function.DistributedComparator;
+import com.hazelcast.jet.impl.pipeline.Planner;
+import com.hazelcast.jet.impl.pipeline.Planner.PlannerVertex;
+import com.hazelcast.jet.impl.processor.RangePartitioner;
+import com.hazelcast.jet.impl.processor.SortP;
+import com.hazelcast.jet.impl.processor.SortRouteP;
+import com.hazelcast.jet.impl.processor.SortSampleP;
+
+import static com.hazelcast.jet.core.Edge.between;
+import static com.hazelcast.jet.core.Edge.from;
+import static com.hazelcast.jet.function.DistributedFunctions.entryKey;
+import static com.hazelcast.jet.impl.processor.SortRouteP.RANGE_COUNT;
+
+public class SortTransform<T> extends AbstractTransform {
+    private static final String SAMPLE_VERTEX_NAME_SUFFIX = "-sample";
+    private static final String ROUTE_VERTEX_NAME_SUFFIX = "-route";
+
+    private final DistributedComparator<? super T> comparator;
+
+    public SortTransform(Transform upstream, DistributedComparator<? super T> comparator) {
+        super("sort", upstream);
+        this.comparator = comparator;
+    }
+
+    @Override
+    public void addToDag(Planner p) {
+        String vertexName = name();
+        DistributedComparator<? super T> comparator = this.comparator;
+        Vertex sample = p.dag.newVertex(vertexName + SAMPLE_VERTEX_NAME_SUFFIX, SortSampleP::new)
+                             .localParallelism(localParallelism());
+        Vertex route = p.dag.newVertex(vertexName + ROUTE_VERTEX_NAME_SUFFIX, () -> new SortRouteP<>(comparator))
+                            .localParallelism(localParallelism());
+        PlannerVertex pv = p.addVertex(this, vertexName, localParallelism(), () -> new SortP<>(comparator));
+        p.addEdges(this, sample);
+        p.dag.edge(between(sample, route));
+        p.dag.edge(from(sample, 1).to(route, 1).distributed().broadcast());
+        p.dag.edge(between(route, pv.v).distributed().partitioned(entryKey(), new RangePartitioner(RANGE_COUNT)));
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.pipeline.transform;
+
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.jet.function.DistributedFunction;
+import com.hazelcast.jet.function.DistributedSupplier;
+import com.hazelcast.jet.function.DistributedToLongFunction;
+import com.hazelcast.jet.impl.JetEvent;
+import com.hazelcast.jet.impl.pipeline.Planner;
+import com.hazelcast.jet.impl.pipeline.Planner.PlannerVertex;
+import com.hazelcast.jet.impl.processor.StreamDistinctP;
+
+import javax.annotation.Nonnull;
+
+public class StreamDistinctTransform<K> extends AbstractTransform {
+    @Nonnull
+    private final DistributedFunction<?, ? extends K> keyFn;
+    private final long timeToLive;
+    private final long maxKeys;
+    private final long expectedKeys;
+    private final double falsePositiveRate;
+
+    /**
+     * Creates a transform that stores the keys exactly. See {@link
+     * StreamDistinctP}.
+     */
+    public StreamDistinctTransform(
+            @Nonnull Transform upstream,
+            @Nonnull DistributedFunction<?, ? extends K> keyFn,
+            long timeToLive,
+            long maxKeys
+    ) {
+        this(upstream, keyFn, timeToLive, maxKeys, 0, 0);
+    }
+
+    /**
+     * Creates a transform that stores the keys in Bloom filters. See {@link
+     * StreamDistinctP}.
+     */
+    public StreamDistinctTransform(
+            @Nonnull Transform upstream,
+            @Nonnull DistributedFunction<?, ? extends K> keyFn,
+            long timeToLive,
+            long expectedKeys,
+            double falsePositiveRate
+    ) {
+        this(upstream, keyFn, timeToLive, Long.MAX_VALUE, expectedKeys, falsePositiveRate);
+    }
+
+    private StreamDistinctTransform(
+            @Nonnull Transform upstream,
+            @Nonnull DistributedFunction<?, ? extends K> keyFn,
+            long timeToLive,
+            long maxKeys,
+            long expectedKeys,
+            double falsePositiveRate
+    ) {
+        super("distinct", upstream);
+        this.keyFn = keyFn;
+        this.timeToLive = timeToLive;
+        this.maxKeys = maxKeys;
+        this.expectedKeys = expectedKeys;
+        this.falsePositiveRate = falsePositiveRate;
+    }
+
+    //                    --------
+    //                   | source |
+    //                    --------
+    //                        |
+    //                   distributed
+    //                   partitioned
+    //                        v
+    //                 -----------------
+    //                | StreamDistinctP |
+    //                 -----------------
+    @Override
+    public void addToDag(Planner p) {
+        DistributedFunction<?, ? extends K> keyFn = this.keyFn;
+        DistributedToLongFunction<JetEvent> timestampFn = JetEvent::timestamp;
+        long timeToLive = this.timeToLive;
+        long maxKeys = this.maxKeys;
+        long expectedKeys = this.expectedKeys;
+        double falsePositiveRate = this.falsePositiveRate;
+        DistributedSupplier<Processor> supplier = expectedKeys > 0
+                ? () -> new StreamDistinctP<>(keyFn, timestampFn, timeToLive, expectedKeys, falsePositiveRate)
+                : () -> new StreamDistinctP<>(keyFn, timestampFn, timeToLive, maxKeys);
+        PlannerVertex pv = p.addVertex(this, name(), localParallelism(), supplier);
+        p.addEdges(this, pv.v, (e, ord) -> e.distributed().partitioned(keyFn));
+    }
+}
@@ -143,7 +143,8 @@ public class WindowGroupTransform<K, R, OUT> extends AbstractTransform {
         v1.localParallelism(localParallelism());
         PlannerVertex pv2 = p.addVertex(this, name(), localParallelism(),
                 combineToSlidingWindowP(winPolicy, aggrOp, mapToOutputFn));
-        p.addEdges(this, v1, (e, ord) -> e.partitioned(keyFns.get(ord), HASH_CODE));
+        // the combining stage merges partial results by key, so the first stage can split hot keys
+        p.addEdges(this, v1, (e, ord) -> e.partitioned(keyFns.get(ord), HASH_CODE).splitHotKeys());
         p.dag.edge(between(v1, pv2.v).distributed().partitioned(entryKey()));
     }
 
@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import javax.annotation.Nonnull;
+
+import static com.hazelcast.jet.impl.util.Util.stableHash64;
+import static com.hazelcast.util.Preconditions.checkTrue;
+import static java.lang.Math.floorMod;
+import static java.lang.Math.log;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Math.round;
+
+/**
+ * A Bloom filter of keys: it can tell that a key certainly wasn't added,
+ * but it may answer that a key was added when it wasn't (a false
+ * positive). It uses a fixed amount of memory chosen from the expected
+ * number of keys and the desired false-positive rate.
+ * <p>
+ * The key is hashed with {@link
+ * com.hazelcast.jet.impl.util.Util#stableHash64}, so that the filters of
+ * processors on different members, which are merged after a restore, set
+ * the same bits for the same key. The bit indexes are derived from the two
+ * halves of the hash as {@code h1 + i * h2} (the Kirsch-Mitzenmacher
+ * technique), so the key is hashed just once.
+ */
+final class BloomFilter implements DistinctKeyStore {
+
+    private static final double LN2 = log(2);
+    private static final int MAX_WORDS = Integer.MAX_VALUE / Long.SIZE;
+
+    private final long[] words;
+    private final long bitCount;
+    private final int hashCount;
+    private int size;
+
+    BloomFilter(long expectedKeys, double falsePositiveRate) {
+        checkTrue(expectedKeys > 0, "expectedKeys must be positive");
+        checkTrue(falsePositiveRate > 0 && falsePositiveRate < 1, "falsePositiveRate must be between 0 and 1");
+        double optimalBits = -expectedKeys * log(falsePositiveRate) / (LN2 * LN2);
+        words = new long[(int) min(MAX_WORDS, max(1, (long) Math.ceil(optimalBits / Long.SIZE)))];
+        bitCount = (long) words.length * Long.SIZE;
+        hashCount = (int) max(1, round((double) bitCount / expectedKeys * LN2));
+    }
+
+    @Override
+    public boolean add(Object key) {
+        long hash = stableHash64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> Integer.SIZE);
+        boolean added = false;
+        for (int i = 0; i < hashCount; i++) {
+            long index = floorMod(h1 + (long) i * h2, bitCount);
+            long mask = 1L << index;
+            int word = (int) (index / Long.SIZE);
+            if ((words[word] & mask) == 0) {
+                words[word] |= mask;
+                added = true;
+            }
+        }
+        if (added) {
+            size++;
+        }
+        return added;
+    }
+
+    @Override
+    public boolean contains(Object key) {
+        long hash = stableHash64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> Integer.SIZE);
+        for (int i = 0; i < hashCount; i++) {
+            long index = floorMod(h1 + (long) i * h2, bitCount);
+            if ((words[(int) (index / Long.SIZE)] & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of keys that changed the filter. Keys added by
+     * {@link #merge} aren't counted.
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the bits of the filter. The caller must not modify the array.
+     */
+    @Nonnull
+    long[] words() {
+        return words;
+    }
+
+    /**
+     * Adds all keys of another filter with the given bits. The filter must
+     * have been created with the same parameters.
+     */
+    void merge(@Nonnull long[] otherWords) {
+        checkTrue(otherWords.length == words.length, "Bloom filters of different size");
+        for (int i = 0; i < words.length; i++) {
+            words[i] |= otherWords[i];
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.impl.execution.BackgroundSnapshotAware;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+import static com.hazelcast.jet.Util.entry;
+
+/**
+ * A logical snapshot of a map of keyed processor state, which is saved in
+ * the background while the processor keeps changing the map, see {@link
+ * BackgroundSnapshotAware}.
+ * <p>
+ * Only the keys are captured upfront. Before the processor modifies a value
+ * in place, it calls {@link #beforeUpdate}, which copies the value the first
+ * time it's called for the key. Before it removes a key, it calls {@link
+ * #beforeRemove}, which keeps the removed value without copying it. The
+ * traverser returns the kept value, if there's one, otherwise the current
+ * one. We don't track which keys the traverser already returned, so a value
+ * can be copied after it was saved.
+ *
+ * @param <K> type of the key
+ * @param <V> type of the value
+ */
+final class CopyOnWriteSnapshot<K, V> {
+
+    // marks a key which had no value at the time of the capture
+    private static final Object ABSENT = new Object();
+
+    private final Traverser<K> keys;
+    private final Function<? super K, ? extends V> currentValueFn;
+    private final UnaryOperator<Object> copyFn;
+    // the values as they were at the capture, for the keys changed since then
+    private final Map<K, Object> keptValues = new HashMap<>();
+
+    /**
+     * @param keys the captured keys, the traverser must not be affected by
+     *      the later changes to the state
+     * @param currentValueFn returns the current value for a key or {@code
+     *      null}, if there's none
+     * @param copyFn the function to copy a value with
+     */
+    CopyOnWriteSnapshot(
+            @Nonnull Traverser<K> keys,
+            @Nonnull Function<? super K, ? extends V> currentValueFn,
+            @Nonnull UnaryOperator<Object> copyFn
+    ) {
+        this.keys = keys;
+        this.currentValueFn = currentValueFn;
+        this.copyFn = copyFn;
+    }
+
+    /**
+     * Must be called before the value of the key is modified in place or
+     * replaced, or before the key is added.
+     *
+     * @param currentValue the current value or {@code null}, if the key is
+     *      being added
+     */
+    void beforeUpdate(@Nonnull K key, @Nullable V currentValue) {
+        if (!keptValues.containsKey(key)) {
+            keptValues.put(key, currentValue != null ? copyFn.apply(currentValue) : ABSENT);
+        }
+    }
+
+    /**
+     * Must be called before the key is removed. The removed value must not
+     * be modified later.
+     */
+    void beforeRemove(@Nonnull K key, @Nonnull V currentValue) {
+        keptValues.putIfAbsent(key, currentValue);
+    }
+
+    /**
+     * Returns the traverser over the captured entries. The value is {@code
+     * null} for a captured key which had no value at the time of the
+     * capture.
+     */
+    @Nonnull
+    Traverser<Entry<K, Object>> traverser() {
+        return keys
+                .map(key -> {
+                    Object value = keptValues.get(key);
+                    if (value == null) {
+                        value = currentValueFn.apply(key);
+                    }
+                    return entry(key, value != ABSENT ? value : null);
+                })
+                .onFirstNull(keptValues::clear);
+    }
+}
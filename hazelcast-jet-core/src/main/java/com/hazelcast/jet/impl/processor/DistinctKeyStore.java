@@ -0,0 +1,39 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+/**
+ * The keys seen by {@link StreamDistinctP} in one time bucket.
+ */
+interface DistinctKeyStore {
+
+    /**
+     * Adds the key to the store.
+     */
+    boolean add(Object key);
+
+    /**
+     * Tells whether the key was added to the store. The answer may be a
+     * false positive, depending on the implementation.
+     */
+    boolean contains(Object key);
+
+    /**
+     * Returns the number of added keys.
+     */
+    int size();
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.impl.processor.SlidingWindowP.SnapshotKey;
+import com.hazelcast.util.collection.Long2ObjectHashMap;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.UnaryOperator;
+
+/**
+ * The frame state of {@link SlidingWindowP}: for each frame timestamp, a map
+ * from the grouping key to the accumulator of the frame.
+ *
+ * @param <K> type of the grouping key
+ * @param <A> type of the accumulator
+ */
+interface FrameStore<K, A> {
+
+    /**
+     * Applies the {@code accumulateFn} to the accumulator for the given frame
+     * and key, creating the frame and the accumulator if needed.
+     */
+    <T> void accumulate(long frameTs, @Nonnull K key, @Nonnull BiConsumer<? super A, ? super T> accumulateFn,
+                        @Nonnull T item);
+
+    /**
+     * Merges the given accumulator to the accumulator for the given frame and
+     * key. If there's no accumulator yet, the given one is stored, otherwise
+     * the result of the {@code mergeFn} is stored.
+     */
+    void merge(long frameTs, @Nonnull K key, @Nonnull A value, @Nonnull BinaryOperator<A> mergeFn);
+
+    /**
+     * Returns the frame with the given timestamp or {@code null}, if there's
+     * none. The caller must not modify the returned map. The accumulators in
+     * it can be used after the frame is removed, but they might not reflect
+     * any later changes to the frame.
+     */
+    @Nullable
+    Map<K, A> get(long frameTs);
+
+    /**
+     * Passes all the key-accumulator pairs of the given frame to the action.
+     * The action must not modify or retain the accumulator: the store may
+     * reuse the same instance for all calls.
+     */
+    void forEach(long frameTs, @Nonnull BiConsumer<? super K, ? super A> action);
+
+    /**
+     * Removes the frame with the given timestamp, if present.
+     */
+    void remove(long frameTs);
+
+    boolean isEmpty();
+
+    /**
+     * Returns the lowest frame timestamp. Must not be called when the store
+     * is empty.
+     */
+    long minFrameTs();
+
+    /**
+     * Returns the timestamps of all the frames. The store must not be
+     * modified while the returned set is being iterated.
+     */
+    @Nonnull
+    Set<Long> frameTimestamps();
+
+    /**
+     * Returns the total number of keys in all frames.
+     */
+    long keyCount();
+
+    /**
+     * Captures the accumulators for a snapshot which is saved while the
+     * store keeps changing. The returned traverser returns the accumulators
+     * as they were at the time of the call. The capture ends when the
+     * traverser is exhausted, there can be only one at a time.
+     *
+     * @param keysByFrame the keys to capture in each frame, {@code null} to
+     *      capture all the keys of all the frames
+     * @param copyFn the function to copy an accumulator with before it's
+     *      modified
+     */
+    @Nonnull
+    Traverser<Entry<SnapshotKey, Object>> capture(
+            @Nullable Long2ObjectHashMap<Set<K>> keysByFrame, @Nonnull UnaryOperator<Object> copyFn);
+}
@@ -16,36 +16,102 @@
 
 package com.hazelcast.jet.impl.processor;
 
+import com.hazelcast.internal.metrics.Probe;
 import com.hazelcast.jet.Traverser;
 import com.hazelcast.jet.aggregate.AggregateOperation;
 import com.hazelcast.jet.aggregate.AggregateOperation1;
+import com.hazelcast.jet.config.JobConfig;
 import com.hazelcast.jet.core.AbstractProcessor;
 import com.hazelcast.jet.function.DistributedFunction;
+import com.hazelcast.jet.impl.util.LongKeyFunction;
+import com.hazelcast.jet.impl.util.ProgressState;
+import com.hazelcast.util.collection.Long2ObjectHashMap;
 
 import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
+import static com.hazelcast.jet.Traversers.traverseIterable;
 import static com.hazelcast.jet.Traversers.traverseStream;
+import static com.hazelcast.jet.impl.util.ExceptionUtil.sneakyThrow;
+import static com.hazelcast.jet.impl.util.ProgressState.DONE;
+import static com.hazelcast.jet.impl.util.ProgressState.MADE_PROGRESS;
+import static com.hazelcast.jet.impl.util.Util.lazyIncrement;
+import static com.hazelcast.jet.impl.util.Util.uncheckRun;
 import static com.hazelcast.util.Preconditions.checkTrue;
 import static java.util.Collections.singletonList;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
 /**
  * Batch processor that groups items by key and computes the supplied
  * aggregate operation on each group. The items may originate from one or
  * more inbound edges. The supplied aggregate operation must have as many
  * accumulation functions as there are inbound edges.
+ * <p>
+ * If the job has a {@linkplain JobConfig#setGroupSpillThreshold(long) group
+ * spill threshold} and the number of groups reaches it, the processor
+ * writes the groups to {@link SpillFiles} and clears the map. In {@link
+ * #complete()} it spills the remaining groups too and then merges one
+ * spill partition at a time using the {@code combineFn}. If a partition
+ * reaches the threshold while it's merged, the processor splits it into
+ * spill files of the next level and merges those first. The file I/O runs
+ * on the spill I/O executor, the processor doesn't wait for it.
+ * <p>
+ * If all key functions are {@link LongKeyFunction}s, the groups are kept in
+ * a {@link Long2ObjectHashMap} and the keys are only boxed when emitting or
+ * spilling the results.
  */
 public class GroupP<K, A, R, OUT> extends AbstractProcessor {
+    static final int SPILL_PARTITION_COUNT = 16;
+
     @Nonnull private final List<DistributedFunction<?, ? extends K>> groupKeyFns;
     @Nonnull private final AggregateOperation<A, R> aggrOp;
+    @Nonnull private final BiFunction<? super K, ? super R, OUT> mapToOutputFn;
 
-    private final Map<K, A> keyToAcc = new HashMap<>();
+    private final Map<K, A> keyToAcc;
+    // the same map as keyToAcc, if all keys are primitive longs
+    private final Long2ObjectHashMap<A> longKeyToAcc;
     private final Traverser<OUT> resultTraverser;
 
+    // package-visible for test
+    @Probe
+    final AtomicLong spilledBytes = new AtomicLong();
+    @Probe
+    final AtomicLong spillRuns = new AtomicLong();
+    @Probe
+    final AtomicLong spillSplits = new AtomicLong();
+    @Probe
+    private final AtomicLong spillMergeTimeMillis = new AtomicLong();
+
+    private long spillThreshold;
+    private SpillDirectory spillDirectory;
+    // the files written in tryProcess()
+    private SpillFiles spillFiles;
+    // the files to which the groups are being written
+    private SpillFiles spillTarget;
+    private Iterator<Entry<K, A>> spillIterator;
+    private Entry<K, A> unwrittenEntry;
+    // the files being merged, the top ones are merged first
+    private final ArrayDeque<SpillFiles> mergeStack = new ArrayDeque<>();
+    // the files to which the current partition is being split
+    private SpillFiles splitFiles;
+    private long mergeNanos;
+    private Traverser<OUT> mergedTraverser;
+
+    // extracted lambdas to reduce GC litter
+    private final BiConsumer<Object, Object> mergeFn;
+    private final BiConsumer<Object, Object> splitFn = (key, acc) -> uncheckRun(() -> splitFiles.write(key, acc));
+
+    @SuppressWarnings("unchecked")
     public GroupP(
             @Nonnull List<DistributedFunction<?, ? extends K>> groupKeyFns,
             @Nonnull AggregateOperation<A, R> aggrOp,
@@ -55,9 +121,21 @@ public class GroupP<K, A, R, OUT> extends AbstractProcessor {
                 "provided for " + aggrOp.arity() + "-arity aggregate operation");
         this.groupKeyFns = groupKeyFns;
         this.aggrOp = aggrOp;
+        this.mapToOutputFn = mapToOutputFn;
+        if (groupKeyFns.stream().allMatch(LongKeyFunction.class::isInstance)) {
+            longKeyToAcc = new Long2ObjectHashMap<>();
+            keyToAcc = (Map<K, A>) longKeyToAcc;
+        } else {
+            longKeyToAcc = null;
+            keyToAcc = new HashMap<>();
+        }
         this.resultTraverser = traverseStream(keyToAcc
                 .entrySet().stream()
                 .map(e -> mapToOutputFn.apply(e.getKey(), aggrOp.finishFn().apply(e.getValue()))));
+        this.mergeFn = (key, acc) -> keyToAcc.merge((K) key, (A) acc, (acc1, acc2) -> {
+            aggrOp.combineFn().accept(acc1, acc2);
+            return acc1;
+        });
     }
 
     public <T> GroupP(
@@ -68,18 +146,182 @@ public class GroupP<K, A, R, OUT> extends AbstractProcessor {
         this(singletonList(groupKeyFn), aggrOp, mapToOutputFn);
     }
 
+    @Override
+    protected void init(@Nonnull Context context) {
+        spillThreshold = context.jobConfig().getGroupSpillThreshold();
+        if (spillThreshold > 0 && aggrOp.combineFn() == null) {
+            getLogger().warning("The aggregate operation has no combineFn, spilling to disk is disabled");
+            spillThreshold = 0;
+        }
+        if (spillThreshold > 0) {
+            spillDirectory = new SpillDirectory(context, "jet-group-");
+        }
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     protected boolean tryProcess(int ordinal, @Nonnull Object item) {
-        Function<Object, ? extends K> keyFn = (Function<Object, ? extends K>) groupKeyFns.get(ordinal);
-        K key = keyFn.apply(item);
-        A acc = keyToAcc.computeIfAbsent(key, k -> aggrOp.createFn().get());
+        if (spillIterator != null && !spill()) {
+            return false;
+        }
+        A acc;
+        if (longKeyToAcc != null) {
+            long key = ((LongKeyFunction<Object>) groupKeyFns.get(ordinal)).applyAsLong(item);
+            acc = longKeyToAcc.get(key);
+            if (acc == null) {
+                acc = aggrOp.createFn().get();
+                longKeyToAcc.put(key, acc);
+            }
+        } else {
+            Function<Object, ? extends K> keyFn = (Function<Object, ? extends K>) groupKeyFns.get(ordinal);
+            K key = keyFn.apply(item);
+            acc = keyToAcc.computeIfAbsent(key, k -> aggrOp.createFn().get());
+        }
         aggrOp.accumulateFn(ordinal).accept(acc, item);
+        if (spillThreshold > 0 && keyToAcc.size() >= spillThreshold) {
+            if (spillFiles == null) {
+                spillFiles = new SpillFiles(spillDirectory, SPILL_PARTITION_COUNT, 0);
+            }
+            startSpill(spillFiles);
+        }
         return true;
     }
 
     @Override
     public boolean complete() {
-        return emitFromTraverser(resultTraverser);
+        if (spillFiles == null) {
+            return emitFromTraverser(resultTraverser);
+        }
+        if (mergeStack.isEmpty()) {
+            if (spillIterator == null) {
+                startSpill(spillFiles);
+            }
+            if (!spill() || !spillFiles.flush()) {
+                return false;
+            }
+            mergeStack.push(spillFiles);
+        }
+        while (!mergeStack.isEmpty()) {
+            if (!mergeStep(mergeStack.peek())) {
+                return false;
+            }
+        }
+        spillFiles = null;
+        spillDirectory.delete();
+        spillDirectory = null;
+        return true;
+    }
+
+    @Override
+    public void close() {
+        if (spillDirectory != null) {
+            spillDirectory.delete();
+        }
+    }
+
+    private void startSpill(SpillFiles target) {
+        spillTarget = target;
+        spillIterator = keyToAcc.entrySet().iterator();
+        if (!keyToAcc.isEmpty() && target == spillFiles) {
+            lazyIncrement(spillRuns);
+        }
+    }
+
+    /**
+     * Continues the spill started by {@link #startSpill}. Returns {@code
+     * true}, if all groups are written to the spill files and the map was
+     * cleared. Serializes at most one block per call.
+     */
+    private boolean spill() {
+        long bytesWritten = spillDirectory.bytesWritten();
+        try {
+            while (unwrittenEntry != null || spillIterator.hasNext()) {
+                if (unwrittenEntry == null) {
+                    unwrittenEntry = spillIterator.next();
+                }
+                if (!spillTarget.tryWrite(unwrittenEntry.getKey(), unwrittenEntry.getValue())) {
+                    return false;
+                }
+                unwrittenEntry = null;
+                if (spillDirectory.bytesWritten() != bytesWritten) {
+                    spilledBytes.lazySet(spillDirectory.bytesWritten());
+                    return false;
+                }
+            }
+        } catch (IOException e) {
+            throw sneakyThrow(e);
+        }
+        keyToAcc.clear();
+        spillIterator = null;
+        return true;
+    }
+
+    /**
+     * Merges, splits or emits the current partition of the given files.
+     * Returns {@code false}, if the processor should return from this call.
+     */
+    private boolean mergeStep(SpillFiles files) {
+        if (files.currentPartition() == files.partitionCount()) {
+            mergeStack.pop();
+            return true;
+        }
+        if (mergedTraverser != null) {
+            if (!emitFromTraverser(mergedTraverser)) {
+                return false;
+            }
+            mergedTraverser = null;
+            keyToAcc.clear();
+            files.nextPartition();
+            return true;
+        }
+        if (splitFiles != null) {
+            return split(files);
+        }
+        long start = System.nanoTime();
+        ProgressState state = readBlock(files, mergeFn);
+        mergeNanos += System.nanoTime() - start;
+        spillMergeTimeMillis.lazySet(NANOSECONDS.toMillis(mergeNanos));
+        if (state == DONE) {
+            mergedTraverser = traverseIterable(keyToAcc.entrySet())
+                    .map(e -> mapToOutputFn.apply(e.getKey(), aggrOp.finishFn().apply(e.getValue())));
+            return true;
+        }
+        if (state == MADE_PROGRESS && keyToAcc.size() >= spillThreshold && files.canSplit()) {
+            // The partition doesn't fit into memory. We write the groups merged
+            // so far and the rest of the partition to the next level, where the
+            // keys are partitioned with a different hash function.
+            splitFiles = new SpillFiles(spillDirectory, SPILL_PARTITION_COUNT, files.level() + 1);
+            startSpill(splitFiles);
+            lazyIncrement(spillSplits);
+        }
+        // read at most one block per call
+        return false;
+    }
+
+    /**
+     * Continues splitting the current partition of the given files into
+     * {@link #splitFiles}. Returns {@code true}, if the whole partition was
+     * written and the split files were pushed to the merge stack.
+     */
+    private boolean split(SpillFiles files) {
+        if (spillIterator != null && !spill()) {
+            return false;
+        }
+        if (splitFiles.isFull() || readBlock(files, splitFn) != DONE || !splitFiles.flush()) {
+            spilledBytes.lazySet(spillDirectory.bytesWritten());
+            return false;
+        }
+        files.nextPartition();
+        mergeStack.push(splitFiles);
+        splitFiles = null;
+        return true;
+    }
+
+    private static ProgressState readBlock(SpillFiles files, BiConsumer<Object, Object> consumer) {
+        try {
+            return files.readBlock(consumer);
+        } catch (IOException e) {
+            throw sneakyThrow(e);
+        }
     }
 }
@@ -60,8 +60,8 @@ import static java.util.Collections.singletonList;
  */
 public class HashJoinP<E0> extends AbstractProcessor {
 
-    private final List<Function<E0, Object>> keyFns;
-    private final List<Map<Object, Object>> lookupTables;
+    final List<Function<E0, Object>> keyFns;
+    final List<Map<Object, Object>> lookupTables;
     private final List<Tag> tags;
     private final BiFunction mapToOutputBiFn;
     private final TriFunction mapToOutputTriFn;
@@ -91,20 +91,28 @@ public class HashJoinP<E0> extends AbstractProcessor {
     @Override
     @SuppressWarnings("unchecked")
     protected boolean tryProcess0(@Nonnull Object item) {
-        E0 e0 = (E0) item;
         ordinal0consumed = true;
+        Object result = join((E0) item);
+        return result == null || tryEmit(result);
+    }
+
+    /**
+     * Looks up the joined items for the given primary item and returns the
+     * output item or {@code null}, if the output function returned it.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    Object join(E0 e0) {
         if (tags.isEmpty()) {
-            Object result = keyFns.size() == 2
+            return keyFns.size() == 2
                     ? mapToOutputBiFn.apply(e0, lookupJoined(1, e0))
                     : mapToOutputTriFn.apply(e0, lookupJoined(1, e0), lookupJoined(2, e0));
-            return result == null || tryEmit(result);
         }
         ItemsByTag map = new ItemsByTag();
         for (int i = 1; i < keyFns.size(); i++) {
             map.put(tags.get(i), lookupJoined(i, e0));
         }
-        Object result = mapToOutputBiFn.apply(e0, map);
-        return result == null || tryEmit(result);
+        return mapToOutputBiFn.apply(e0, map);
     }
 
     @Nullable
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.impl.processor.SlidingWindowP.SnapshotKey;
+import com.hazelcast.util.collection.Long2ObjectHashMap;
+import com.hazelcast.util.function.LongFunction;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+
+import static com.hazelcast.jet.Traversers.traverseArray;
+import static com.hazelcast.jet.Traversers.traverseIterable;
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.impl.util.Util.lazyAdd;
+import static com.hazelcast.jet.impl.util.Util.lazyIncrement;
+import static java.util.Comparator.naturalOrder;
+
+/**
+ * A {@link FrameStore} that keeps a {@code HashMap} of accumulator objects
+ * per frame. Works with any type of accumulator.
+ * <p>
+ * While a {@linkplain #capture capture} is in progress, an accumulator of a
+ * captured frame is copied before it's first modified, see {@link
+ * CopyOnWriteSnapshot}. A removed captured frame is kept until the capture
+ * ends.
+ */
+class HashMapFrameStore<K, A> implements FrameStore<K, A> {
+
+    private final Long2ObjectHashMap<Map<K, A>> tsToKeyToAcc = new Long2ObjectHashMap<>();
+    private final AtomicLong totalFrames;
+    private final AtomicLong totalKeysInFrames;
+
+    // the captured frames, null if no capture is in progress
+    private Long2ObjectHashMap<CopyOnWriteSnapshot<K, A>> capturedFrames;
+    // the captured frames removed during the capture
+    private final Long2ObjectHashMap<Map<K, A>> removedFrames = new Long2ObjectHashMap<>();
+
+    // extracted lambdas to reduce GC litter
+    private final LongFunction<Map<K, A>> createMapPerTsFunction;
+    private final Function<K, A> createAccFunction;
+
+    HashMapFrameStore(
+            @Nonnull Supplier<A> createFn, @Nonnull AtomicLong totalFrames, @Nonnull AtomicLong totalKeysInFrames
+    ) {
+        this.totalFrames = totalFrames;
+        this.totalKeysInFrames = totalKeysInFrames;
+        this.createMapPerTsFunction = x -> {
+            lazyIncrement(totalFrames);
+            return new HashMap<>();
+        };
+        this.createAccFunction = k -> {
+            lazyIncrement(totalKeysInFrames);
+            return createFn.get();
+        };
+    }
+
+    @Override
+    public <T> void accumulate(
+            long frameTs, @Nonnull K key, @Nonnull BiConsumer<? super A, ? super T> accumulateFn, @Nonnull T item
+    ) {
+        Map<K, A> frame = tsToKeyToAcc.computeIfAbsent(frameTs, createMapPerTsFunction);
+        if (capturedFrames != null) {
+            beforeUpdate(frameTs, frame, key);
+        }
+        A acc = frame.computeIfAbsent(key, createAccFunction);
+        accumulateFn.accept(acc, item);
+    }
+
+    @Override
+    public void merge(long frameTs, @Nonnull K key, @Nonnull A value, @Nonnull BinaryOperator<A> mergeFn) {
+        Map<K, A> frame = tsToKeyToAcc.computeIfAbsent(frameTs, createMapPerTsFunction);
+        if (capturedFrames != null) {
+            beforeUpdate(frameTs, frame, key);
+        }
+        A oldValue = frame.get(key);
+        if (oldValue == null) {
+            frame.put(key, value);
+            lazyIncrement(totalKeysInFrames);
+        } else {
+            frame.put(key, mergeFn.apply(oldValue, value));
+        }
+    }
+
+    @Nullable @Override
+    public Map<K, A> get(long frameTs) {
+        return tsToKeyToAcc.get(frameTs);
+    }
+
+    @Override
+    public void forEach(long frameTs, @Nonnull BiConsumer<? super K, ? super A> action) {
+        Map<K, A> frame = tsToKeyToAcc.get(frameTs);
+        if (frame != null) {
+            frame.forEach(action);
+        }
+    }
+
+    @Override
+    public void remove(long frameTs) {
+        Map<K, A> removed = tsToKeyToAcc.remove(frameTs);
+        if (removed != null) {
+            if (capturedFrames != null && capturedFrames.containsKey(frameTs)) {
+                removedFrames.putIfAbsent(frameTs, removed);
+            }
+            lazyAdd(totalFrames, -1);
+            lazyAdd(totalKeysInFrames, -removed.size());
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return tsToKeyToAcc.isEmpty();
+    }
+
+    @Override
+    public long minFrameTs() {
+        return tsToKeyToAcc
+                .keySet().stream()
+                .min(naturalOrder())
+                .orElseThrow(() -> new AssertionError("Failed to find the min key in a non-empty map"));
+    }
+
+    @Nonnull @Override
+    public Set<Long> frameTimestamps() {
+        return tsToKeyToAcc.keySet();
+    }
+
+    @Override
+    public long keyCount() {
+        return tsToKeyToAcc.values().stream().mapToInt(Map::size).sum();
+    }
+
+    @Nonnull @Override
+    @SuppressWarnings("unchecked")
+    public Traverser<Entry<SnapshotKey, Object>> capture(
+            @Nullable Long2ObjectHashMap<Set<K>> keysByFrame, @Nonnull UnaryOperator<Object> copyFn
+    ) {
+        assert capturedFrames == null : "previous capture not finished";
+        capturedFrames = new Long2ObjectHashMap<>();
+        List<Traverser<Entry<SnapshotKey, Object>>> frameTraversers = new ArrayList<>();
+        for (Long ts : keysByFrame != null ? keysByFrame.keySet() : tsToKeyToAcc.keySet()) {
+            long frameTs = ts;
+            Traverser<K> keys = keysByFrame != null
+                    ? traverseIterable(keysByFrame.get(frameTs))
+                    : traverseArray((K[]) tsToKeyToAcc.get(frameTs).keySet().toArray());
+            CopyOnWriteSnapshot<K, A> frameSnapshot = new CopyOnWriteSnapshot<>(keys, key -> {
+                Map<K, A> frame = removedFrames.get(frameTs);
+                if (frame == null) {
+                    frame = tsToKeyToAcc.get(frameTs);
+                }
+                return frame != null ? frame.get(key) : null;
+            }, copyFn);
+            capturedFrames.put(frameTs, frameSnapshot);
+            frameTraversers.add(frameSnapshot.traverser()
+                    .map(e -> e.getValue() != null
+                            ? entry(new SnapshotKey(frameTs, e.getKey()), e.getValue())
+                            : null));
+        }
+        return traverseIterable(frameTraversers)
+                .<Entry<SnapshotKey, Object>>flatMap(t -> t)
+                .onFirstNull(() -> {
+                    capturedFrames = null;
+                    removedFrames.clear();
+                });
+    }
+
+    @Override
+    public String toString() {
+        return tsToKeyToAcc.toString();
+    }
+
+    private void beforeUpdate(long frameTs, Map<K, A> frame, K key) {
+        CopyOnWriteSnapshot<K, A> frameSnapshot = capturedFrames.get(frameTs);
+        // a captured frame removed and then created again doesn't affect the capture
+        if (frameSnapshot != null && !removedFrames.containsKey(frameTs)) {
+            frameSnapshot.beforeUpdate(key, frame.get(key));
+        }
+    }
+}
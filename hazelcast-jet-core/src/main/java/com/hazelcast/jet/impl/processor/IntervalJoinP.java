@@ -0,0 +1,323 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.core.PartitionAware;
+import com.hazelcast.internal.metrics.Probe;
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.JetException;
+import com.hazelcast.jet.core.AbstractProcessor;
+import com.hazelcast.jet.core.BroadcastKey;
+import com.hazelcast.jet.core.Watermark;
+import com.hazelcast.jet.impl.execution.init.JetInitDataSerializerHook;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import static com.hazelcast.jet.Traversers.traverseIterable;
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.core.BroadcastKey.broadcastKey;
+import static com.hazelcast.jet.impl.util.Util.addClamped;
+import static com.hazelcast.jet.impl.util.Util.lazyAdd;
+import static com.hazelcast.jet.impl.util.Util.lazyIncrement;
+import static com.hazelcast.jet.impl.util.Util.logLateEvent;
+import static com.hazelcast.jet.impl.util.Util.subtractClamped;
+import static com.hazelcast.util.Preconditions.checkTrue;
+import static java.lang.Math.floorMod;
+import static java.lang.Math.max;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+
+/**
+ * Joins the items of two keyed streams whose timestamps are within the
+ * given bounds: an item {@code t0} from ordinal 0 is joined with an item
+ * {@code t1} from ordinal 1 with the same key, if {@code lowerBound <=
+ * timestamp(t1) - timestamp(t0) <= upperBound}. Both inbound edges must be
+ * partitioned by the key.
+ * <p>
+ * The items of each ordinal are buffered in time buckets, each bucket
+ * maps the key to the items. When an item arrives, the processor emits its
+ * joins with the buffered items of the other ordinal and then buffers it.
+ * On a watermark it drops the buckets of the items that can no longer join
+ * any future item: the items from ordinal 0 older than {@code watermark -
+ * upperBound} and the items from ordinal 1 older than {@code watermark +
+ * lowerBound}. Items behind the watermark are dropped as late.
+ *
+ * @param <K> type of the key
+ */
+public class IntervalJoinP<K> extends AbstractProcessor {
+
+    private static final int BUCKETS_PER_INTERVAL = 4;
+
+    @Probe
+    private final AtomicLong lateEventsDropped = new AtomicLong();
+    @Probe
+    private final AtomicLong bufferedItems = new AtomicLong();
+
+    private final List<Function<Object, ? extends K>> keyFns;
+    private final List<ToLongFunction<Object>> timestampFns;
+    private final long lowerBound;
+    private final long upperBound;
+    private final BiFunction<Object, Object, ?> mapToOutputFn;
+    private final long bucketSize;
+
+    // package-visible for test
+    final List<NavigableMap<Long, Map<K, List<Object>>>> buffers = new ArrayList<>();
+
+    private long currentWatermark = Long.MIN_VALUE;
+    private long minRestoredCurrentWatermark = Long.MAX_VALUE;
+    private Traverser<Object> joinTraverser;
+    private Traverser<Entry<?, ?>> snapshotTraverser;
+
+    @SuppressWarnings("unchecked")
+    public IntervalJoinP(
+            @Nonnull List<? extends Function<?, ? extends K>> keyFns,
+            @Nonnull List<? extends ToLongFunction<?>> timestampFns,
+            long lowerBound,
+            long upperBound,
+            @Nonnull BiFunction<?, ?, ?> mapToOutputFn
+    ) {
+        checkTrue(keyFns.size() == 2 && timestampFns.size() == 2, "two key and timestamp functions required");
+        checkTrue(lowerBound <= upperBound, "lowerBound must not be greater than upperBound");
+        this.keyFns = (List<Function<Object, ? extends K>>) keyFns;
+        this.timestampFns = (List<ToLongFunction<Object>>) timestampFns;
+        this.lowerBound = lowerBound;
+        this.upperBound = upperBound;
+        this.mapToOutputFn = (BiFunction<Object, Object, ?>) mapToOutputFn;
+        this.bucketSize = max(1, subtractClamped(upperBound, lowerBound) / BUCKETS_PER_INTERVAL);
+        buffers.add(new TreeMap<>());
+        buffers.add(new TreeMap<>());
+    }
+
+    @Override
+    protected boolean tryProcess(int ordinal, @Nonnull Object item) {
+        long timestamp = timestampFns.get(ordinal).applyAsLong(item);
+        if (timestamp < currentWatermark) {
+            logLateEvent(getLogger(), currentWatermark, item);
+            lazyIncrement(lateEventsDropped);
+            return true;
+        }
+        K key = keyFns.get(ordinal).apply(item);
+        if (joinTraverser == null) {
+            joinTraverser = ordinal == 0
+                    ? joinedItems(1, key, addClamped(timestamp, lowerBound), addClamped(timestamp, upperBound))
+                            .map(t1 -> mapToOutputFn.apply(item, t1))
+                    : joinedItems(0, key, subtractClamped(timestamp, upperBound), subtractClamped(timestamp, lowerBound))
+                            .map(t0 -> mapToOutputFn.apply(t0, item));
+        }
+        if (!emitFromTraverser(joinTraverser)) {
+            return false;
+        }
+        joinTraverser = null;
+        buffers.get(ordinal)
+               .computeIfAbsent(bucket(timestamp), x -> new HashMap<>())
+               .computeIfAbsent(key, x -> new ArrayList<>())
+               .add(item);
+        lazyIncrement(bufferedItems);
+        return true;
+    }
+
+    @Override
+    public boolean tryProcessWatermark(@Nonnull Watermark watermark) {
+        currentWatermark = watermark.timestamp();
+        evict(0, subtractClamped(currentWatermark, upperBound));
+        evict(1, addClamped(currentWatermark, lowerBound));
+        return tryEmit(watermark);
+    }
+
+    @Override
+    public boolean saveToSnapshot() {
+        if (snapshotTraverser == null) {
+            snapshotTraverser = traverseIterable(asList(0, 1))
+                    .<Entry<?, ?>>flatMap(ordinal -> traverseIterable(buffers.get(ordinal).entrySet())
+                            .flatMap(e -> snapshotEntries(ordinal, e.getKey(), e.getValue())))
+                    .append(entry(broadcastKey(Keys.CURRENT_WATERMARK), currentWatermark))
+                    .onFirstNull(() -> snapshotTraverser = null);
+        }
+        return emitFromTraverserToSnapshot(snapshotTraverser);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void restoreFromSnapshot(@Nonnull Object key, @Nonnull Object value) {
+        if (key instanceof BroadcastKey) {
+            BroadcastKey bcastKey = (BroadcastKey) key;
+            if (!Keys.CURRENT_WATERMARK.equals(bcastKey.key())) {
+                throw new JetException("Unexpected broadcast key: " + bcastKey.key());
+            }
+            minRestoredCurrentWatermark = Math.min((long) value, minRestoredCurrentWatermark);
+            return;
+        }
+        SnapshotKey k = (SnapshotKey) key;
+        List<Object> items = (List<Object>) value;
+        // the bucket size can be different if the bounds were changed in the updated DAG
+        for (Object item : items) {
+            long timestamp = timestampFns.get(k.ordinal).applyAsLong(item);
+            buffers.get(k.ordinal)
+                   .computeIfAbsent(bucket(timestamp), x -> new HashMap<>())
+                   .computeIfAbsent((K) k.key, x -> new ArrayList<>())
+                   .add(item);
+        }
+        lazyAdd(bufferedItems, items.size());
+    }
+
+    @Override
+    public boolean finishSnapshotRestore() {
+        if (minRestoredCurrentWatermark != Long.MAX_VALUE) {
+            currentWatermark = minRestoredCurrentWatermark;
+        }
+        return true;
+    }
+
+    private long bucket(long timestamp) {
+        // clamped to not overflow for timestamps near Long.MIN_VALUE
+        return subtractClamped(timestamp, floorMod(timestamp, bucketSize));
+    }
+
+    /**
+     * Returns the buffered items of the given ordinal with the given key and
+     * with a timestamp in the given range (inclusive).
+     */
+    private Traverser<Object> joinedItems(int ordinal, K key, long fromTimestamp, long toTimestamp) {
+        ToLongFunction<Object> timestampFn = timestampFns.get(ordinal);
+        return traverseIterable(buffers.get(ordinal).subMap(bucket(fromTimestamp), true, bucket(toTimestamp), true)
+                                       .values())
+                .flatMap(keyToItems -> traverseIterable(keyToItems.getOrDefault(key, emptyList())))
+                .filter(item -> {
+                    long timestamp = timestampFn.applyAsLong(item);
+                    return timestamp >= fromTimestamp && timestamp <= toTimestamp;
+                });
+    }
+
+    /**
+     * Removes the buckets of the given ordinal that only contain items older
+     * than the given timestamp.
+     */
+    private void evict(int ordinal, long olderThan) {
+        NavigableMap<Long, Map<K, List<Object>>> expired = buffers.get(ordinal).headMap(bucket(olderThan), false);
+        if (expired.isEmpty()) {
+            return;
+        }
+        long count = 0;
+        for (Map<K, List<Object>> keyToItems : expired.values()) {
+            for (List<Object> items : keyToItems.values()) {
+                count += items.size();
+            }
+        }
+        expired.clear();
+        lazyAdd(bufferedItems, -count);
+    }
+
+    private Traverser<Entry<SnapshotKey, List<Object>>> snapshotEntries(
+            int ordinal, long bucket, Map<K, List<Object>> keyToItems
+    ) {
+        return traverseIterable(keyToItems.entrySet())
+                .map(e -> entry(new SnapshotKey(ordinal, bucket, e.getKey()), e.getValue()));
+    }
+
+    enum Keys {
+        CURRENT_WATERMARK
+    }
+
+    /**
+     * The key of the buffered items in the snapshot. It's partitioned by
+     * the join key so that the items are restored to the processor that
+     * receives the key.
+     */
+    public static final class SnapshotKey implements PartitionAware<Object>, IdentifiedDataSerializable {
+        int ordinal;
+        long bucket;
+        Object key;
+
+        public SnapshotKey() {
+        }
+
+        SnapshotKey(int ordinal, long bucket, @Nonnull Object key) {
+            this.ordinal = ordinal;
+            this.bucket = bucket;
+            this.key = key;
+        }
+
+        @Override
+        public Object getPartitionKey() {
+            return key;
+        }
+
+        @Override
+        public int getFactoryId() {
+            return JetInitDataSerializerHook.FACTORY_ID;
+        }
+
+        @Override
+        public int getId() {
+            return JetInitDataSerializerHook.INTERVAL_JOIN_P_SNAPSHOT_KEY;
+        }
+
+        @Override
+        public void writeData(ObjectDataOutput out) throws IOException {
+            out.writeInt(ordinal);
+            out.writeLong(bucket);
+            out.writeObject(key);
+        }
+
+        @Override
+        public void readData(ObjectDataInput in) throws IOException {
+            ordinal = in.readInt();
+            bucket = in.readLong();
+            key = in.readObject();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            SnapshotKey that;
+            return this == o
+                    || o instanceof SnapshotKey
+                    && this.ordinal == (that = (SnapshotKey) o).ordinal
+                    && this.bucket == that.bucket
+                    && Objects.equals(this.key, that.key);
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = ordinal;
+            hash = 31 * hash + Long.hashCode(bucket);
+            hash = 31 * hash + Objects.hashCode(key);
+            return hash;
+        }
+
+        @Override
+        public String toString() {
+            return "SnapshotKey{ordinal=" + ordinal + ", bucket=" + bucket + ", key=" + key + '}';
+        }
+    }
+}
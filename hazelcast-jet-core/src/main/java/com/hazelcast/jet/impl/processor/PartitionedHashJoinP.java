@@ -0,0 +1,345 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.internal.metrics.Probe;
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.config.JobConfig;
+import com.hazelcast.jet.datamodel.Tag;
+import com.hazelcast.jet.function.TriFunction;
+import com.hazelcast.jet.impl.pipeline.transform.HashJoinTransform;
+import com.hazelcast.jet.impl.util.ProgressState;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import static com.hazelcast.jet.Traversers.traverseIterable;
+import static com.hazelcast.jet.impl.util.ExceptionUtil.sneakyThrow;
+import static com.hazelcast.jet.impl.util.ProgressState.DONE;
+import static com.hazelcast.jet.impl.util.ProgressState.MADE_PROGRESS;
+import static com.hazelcast.jet.impl.util.Util.lazyIncrement;
+import static com.hazelcast.jet.impl.util.Util.uncheckRun;
+
+/**
+ * Variant of {@link HashJoinP} for the {@linkplain HashJoinTransform
+ * partitioned hash-join}. On the partitioned ordinal it receives its share
+ * of the enriching items, partitioned by the join key, and builds the
+ * lookup table itself. The other ordinals receive broadcast lookup tables
+ * as in {@code HashJoinP}.
+ * <p>
+ * If spilling is allowed and the job has a {@linkplain
+ * JobConfig#setJoinSpillThreshold(long) join spill threshold}, the
+ * processor switches to a grace hash join when the lookup table reaches
+ * it: it writes the table to {@link SpillFiles}, partitioned by the key,
+ * and then writes there all the further enriching and primary items too.
+ * In {@link #complete()} it loads one spill partition of the lookup table
+ * at a time and joins the primary items of the same partition. If a
+ * partition of the lookup table reaches the threshold while it's loaded,
+ * the processor splits it and the primary partition into spill files of
+ * the next level and joins those first. The file I/O runs on the spill I/O
+ * executor, the processor doesn't wait for it.
+ */
+public class PartitionedHashJoinP<E0> extends HashJoinP<E0> {
+
+    static final int SPILL_PARTITION_COUNT = 16;
+
+    // package-visible for test
+    @Probe
+    final AtomicLong spilledBytes = new AtomicLong();
+    @Probe
+    final AtomicLong spillSplits = new AtomicLong();
+
+    private final int partitionedOrdinal;
+    private final Function<Object, Object> buildKeyFn;
+    private final Function<Object, Object> buildProjectFn;
+    private final boolean spillAllowed;
+    private final Map<Object, Object> buildTable = new HashMap<>();
+
+    private long spillThreshold;
+    private SpillDirectory spillDirectory;
+    // the files written in tryProcess()
+    private SpillFiles buildSpill;
+    private SpillFiles probeSpill;
+    // the files to which the lookup table is being written
+    private SpillFiles spillTarget;
+    private Iterator<Entry<Object, Object>> spillIterator;
+    private Entry<Object, Object> unwrittenEntry;
+    // the files being joined, the top ones are joined first
+    private final ArrayDeque<SpillFiles> buildStack = new ArrayDeque<>();
+    private final ArrayDeque<SpillFiles> probeStack = new ArrayDeque<>();
+    // the files to which the current partitions are being split
+    private SpillFiles buildSplit;
+    private SpillFiles probeSplit;
+    private boolean tableLoaded;
+    private final List<Object> probeBlock = new ArrayList<>();
+    private Traverser<Object> probeTraverser;
+
+    // extracted lambdas to reduce GC litter
+    private final BiConsumer<Object, Object> loadFn = this::putToTable;
+    private final BiConsumer<Object, Object> probeFn = (key, item) -> probeBlock.add(item);
+    private final BiConsumer<Object, Object> buildSplitFn =
+            (key, value) -> uncheckRun(() -> buildSplit.write(key, value));
+    private final BiConsumer<Object, Object> probeSplitFn =
+            (key, item) -> uncheckRun(() -> probeSplit.write(key, item));
+
+    @SuppressWarnings("unchecked")
+    public PartitionedHashJoinP(
+            @Nonnull List<Function<E0, Object>> keyFns,
+            @Nonnull List<Tag> tags,
+            @Nullable BiFunction mapToOutputBiFn,
+            @Nullable TriFunction mapToOutputTriFn,
+            int partitionedOrdinal,
+            @Nonnull Function<?, ?> buildKeyFn,
+            @Nonnull Function<?, ?> buildProjectFn,
+            boolean spillAllowed
+    ) {
+        super(keyFns, tags, mapToOutputBiFn, mapToOutputTriFn);
+        this.partitionedOrdinal = partitionedOrdinal;
+        this.buildKeyFn = (Function<Object, Object>) buildKeyFn;
+        this.buildProjectFn = (Function<Object, Object>) buildProjectFn;
+        this.spillAllowed = spillAllowed;
+        lookupTables.set(partitionedOrdinal, buildTable);
+    }
+
+    @Override
+    protected void init(@Nonnull Context context) {
+        spillThreshold = spillAllowed ? context.jobConfig().getJoinSpillThreshold() : 0;
+        if (spillThreshold > 0) {
+            spillDirectory = new SpillDirectory(context, "jet-join-");
+        }
+    }
+
+    @Override
+    protected boolean tryProcess(int ordinal, @Nonnull Object item) {
+        if (ordinal != partitionedOrdinal) {
+            return super.tryProcess(ordinal, item);
+        }
+        if (spillIterator != null && !spill()) {
+            return false;
+        }
+        Object key = buildKeyFn.apply(item);
+        Object value = buildProjectFn.apply(item);
+        if (buildSpill != null) {
+            return tryWrite(buildSpill, key, value);
+        }
+        putToTable(key, value);
+        if (spillThreshold > 0 && buildTable.size() >= spillThreshold) {
+            startSpill();
+        }
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected boolean tryProcess0(@Nonnull Object item) {
+        if (buildSpill == null) {
+            return super.tryProcess0(item);
+        }
+        if (spillIterator != null && !spill()) {
+            return false;
+        }
+        return tryWrite(probeSpill, keyFns.get(partitionedOrdinal).apply((E0) item), item);
+    }
+
+    @Override
+    public boolean complete() {
+        if (buildSpill == null) {
+            return true;
+        }
+        if (spillIterator != null && !spill()) {
+            return false;
+        }
+        if (buildStack.isEmpty()) {
+            // flush both, even if the first one isn't flushed yet
+            if (!buildSpill.flush() | !probeSpill.flush()) {
+                return false;
+            }
+            buildStack.push(buildSpill);
+            probeStack.push(probeSpill);
+        }
+        while (!buildStack.isEmpty()) {
+            if (!joinStep(buildStack.peek(), probeStack.peek())) {
+                return false;
+            }
+        }
+        buildSpill = null;
+        spillDirectory.delete();
+        spillDirectory = null;
+        return true;
+    }
+
+    @Override
+    public void close() {
+        if (spillDirectory != null) {
+            spillDirectory.delete();
+        }
+    }
+
+    private void putToTable(Object key, Object value) {
+        Object previous = buildTable.put(key, value);
+        if (previous != null) {
+            throw new IllegalStateException("Duplicate values for key '" + key + "': '" + previous + "' and '" + value
+                    + "'");
+        }
+    }
+
+    private void startSpill() {
+        buildSpill = new SpillFiles(spillDirectory, SPILL_PARTITION_COUNT, 0);
+        probeSpill = new SpillFiles(spillDirectory, SPILL_PARTITION_COUNT, 0);
+        startSpill(buildSpill);
+    }
+
+    private void startSpill(SpillFiles target) {
+        spillTarget = target;
+        spillIterator = buildTable.entrySet().iterator();
+    }
+
+    /**
+     * Continues writing the lookup table started by {@link #startSpill}.
+     * Returns {@code true}, if all entries are written and the table was
+     * cleared. Serializes at most one block per call.
+     */
+    private boolean spill() {
+        long bytesWritten = spillDirectory.bytesWritten();
+        while (unwrittenEntry != null || spillIterator.hasNext()) {
+            if (unwrittenEntry == null) {
+                unwrittenEntry = spillIterator.next();
+            }
+            if (!tryWrite(spillTarget, unwrittenEntry.getKey(), unwrittenEntry.getValue())) {
+                return false;
+            }
+            unwrittenEntry = null;
+            if (spillDirectory.bytesWritten() != bytesWritten) {
+                return false;
+            }
+        }
+        buildTable.clear();
+        spillIterator = null;
+        return true;
+    }
+
+    /**
+     * Joins, splits or moves past the current partitions of the given files.
+     * Returns {@code false}, if the processor should return from this call.
+     */
+    @SuppressWarnings("unchecked")
+    private boolean joinStep(SpillFiles build, SpillFiles probe) {
+        if (build.currentPartition() == build.partitionCount()) {
+            buildStack.pop();
+            probeStack.pop();
+            return true;
+        }
+        if (buildSplit != null) {
+            return split(build, probe);
+        }
+        if (!tableLoaded) {
+            ProgressState state = readBlock(build, loadFn);
+            if (state != DONE) {
+                if (state == MADE_PROGRESS && buildTable.size() >= spillThreshold && build.canSplit()) {
+                    // The partition doesn't fit into memory. We write the loaded
+                    // items, the rest of the partition and the primary partition
+                    // to the next level, where the keys are partitioned with a
+                    // different hash function.
+                    buildSplit = new SpillFiles(spillDirectory, SPILL_PARTITION_COUNT, build.level() + 1);
+                    probeSplit = new SpillFiles(spillDirectory, SPILL_PARTITION_COUNT, build.level() + 1);
+                    startSpill(buildSplit);
+                    lazyIncrement(spillSplits);
+                }
+                return false;
+            }
+            tableLoaded = true;
+        }
+        if (probeTraverser != null) {
+            if (!emitFromTraverser(probeTraverser)) {
+                return false;
+            }
+            probeTraverser = null;
+        }
+        probeBlock.clear();
+        ProgressState state = readBlock(probe, probeFn);
+        if (state != DONE) {
+            if (state == MADE_PROGRESS) {
+                probeTraverser = traverseIterable(probeBlock).map(e0 -> join((E0) e0));
+            }
+            return false;
+        }
+        buildTable.clear();
+        tableLoaded = false;
+        build.nextPartition();
+        probe.nextPartition();
+        return true;
+    }
+
+    /**
+     * Continues splitting the current partitions of the given files into
+     * {@link #buildSplit} and {@link #probeSplit}. Returns {@code true}, if
+     * both partitions were written and the split files were pushed to the
+     * stacks.
+     */
+    private boolean split(SpillFiles build, SpillFiles probe) {
+        if (spillIterator != null && !spill()) {
+            return false;
+        }
+        // readBlock() keeps returning DONE for an exhausted partition
+        if (buildSplit.isFull() || readBlock(build, buildSplitFn) != DONE
+                || probeSplit.isFull() || readBlock(probe, probeSplitFn) != DONE) {
+            spilledBytes.lazySet(spillDirectory.bytesWritten());
+            return false;
+        }
+        if (!buildSplit.flush() | !probeSplit.flush()) {
+            return false;
+        }
+        build.nextPartition();
+        probe.nextPartition();
+        buildStack.push(buildSplit);
+        probeStack.push(probeSplit);
+        buildSplit = null;
+        probeSplit = null;
+        return true;
+    }
+
+    private boolean tryWrite(SpillFiles files, Object key, Object value) {
+        try {
+            boolean written = files.tryWrite(key, value);
+            spilledBytes.lazySet(spillDirectory.bytesWritten());
+            return written;
+        } catch (IOException e) {
+            throw sneakyThrow(e);
+        }
+    }
+
+    private static ProgressState readBlock(SpillFiles files, BiConsumer<Object, Object> consumer) {
+        try {
+            return files.readBlock(consumer);
+        } catch (IOException e) {
+            throw sneakyThrow(e);
+        }
+    }
+}
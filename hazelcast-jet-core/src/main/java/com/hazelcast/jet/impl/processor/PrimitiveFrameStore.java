@@ -0,0 +1,530 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.accumulator.DoubleAccumulator;
+import com.hazelcast.jet.accumulator.LongAccumulator;
+import com.hazelcast.jet.impl.processor.SlidingWindowP.SnapshotKey;
+import com.hazelcast.util.collection.Long2ObjectHashMap;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.IntStream;
+
+import static com.hazelcast.jet.Traversers.traverseIterable;
+import static com.hazelcast.jet.Traversers.traverseStream;
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.impl.util.Util.lazyAdd;
+import static com.hazelcast.jet.impl.util.Util.lazyIncrement;
+import static java.util.Comparator.naturalOrder;
+
+/**
+ * A {@link FrameStore} for accumulators whose whole state is a single
+ * primitive value: {@link LongAccumulator} and {@link DoubleAccumulator}.
+ * <p>
+ * Instead of a {@code HashMap} of accumulator objects per frame, it keeps:
+ * <ul>
+ *     <li>one dictionary that assigns an {@code int} ID to each key, shared
+ *     by all frames
+ *     <li>for each frame, an open-addressing table of key IDs and a parallel
+ *     array of {@code long} values
+ * </ul>
+ * An entry then takes about 16 bytes in two flat arrays instead of a map
+ * node, a key reference and an accumulator object per key per frame. The
+ * accumulate, combine and deduct functions are applied to a reused
+ * accumulator instance which is loaded from and stored back to the flat
+ * array.
+ * <p>
+ * A {@linkplain #capture capture} copies the keys and values of the frames
+ * to flat arrays right away, which is cheaper than copying the values on
+ * write.
+ */
+abstract class PrimitiveFrameStore<K, A> implements FrameStore<K, A> {
+
+    private final Long2ObjectHashMap<Frame> frames = new Long2ObjectHashMap<>();
+    private final KeyDictionary keyDictionary = new KeyDictionary();
+    private final Supplier<A> createFn;
+    private final long emptyValue;
+    private final A accumulateAcc;
+    private final A iterationAcc;
+    private final AtomicLong totalFrames;
+    private final AtomicLong totalKeysInFrames;
+
+    PrimitiveFrameStore(
+            @Nonnull Supplier<A> createFn, @Nonnull AtomicLong totalFrames, @Nonnull AtomicLong totalKeysInFrames
+    ) {
+        this.createFn = createFn;
+        this.accumulateAcc = createFn.get();
+        this.iterationAcc = createFn.get();
+        this.emptyValue = valueOf(accumulateAcc);
+        this.totalFrames = totalFrames;
+        this.totalKeysInFrames = totalKeysInFrames;
+    }
+
+    /**
+     * Returns a primitive store if the accumulator returned by {@code
+     * createFn} is exactly a {@code LongAccumulator} or a {@code
+     * DoubleAccumulator}, {@code null} otherwise. Subclasses could have
+     * additional state, therefore they aren't supported.
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    static <K, A> FrameStore<K, A> tryCreate(
+            @Nonnull Supplier<A> createFn, @Nonnull AtomicLong totalFrames, @Nonnull AtomicLong totalKeysInFrames
+    ) {
+        Class<?> accClass = createFn.get().getClass();
+        if (accClass == LongAccumulator.class) {
+            return (FrameStore<K, A>) new LongAccumulatorFrameStore<K>(
+                    (Supplier<LongAccumulator>) createFn, totalFrames, totalKeysInFrames);
+        }
+        if (accClass == DoubleAccumulator.class) {
+            return (FrameStore<K, A>) new DoubleAccumulatorFrameStore<K>(
+                    (Supplier<DoubleAccumulator>) createFn, totalFrames, totalKeysInFrames);
+        }
+        return null;
+    }
+
+    abstract long valueOf(A acc);
+
+    abstract void setValue(A acc, long value);
+
+    @Override
+    public <T> void accumulate(
+            long frameTs, @Nonnull K key, @Nonnull BiConsumer<? super A, ? super T> accumulateFn, @Nonnull T item
+    ) {
+        Frame frame = getOrCreateFrame(frameTs);
+        int slot = slotFor(frame, key);
+        setValue(accumulateAcc, frame.values[slot]);
+        accumulateFn.accept(accumulateAcc, item);
+        frame.values[slot] = valueOf(accumulateAcc);
+    }
+
+    @Override
+    public void merge(long frameTs, @Nonnull K key, @Nonnull A value, @Nonnull BinaryOperator<A> mergeFn) {
+        Frame frame = getOrCreateFrame(frameTs);
+        int sizeBefore = frame.size;
+        int slot = slotFor(frame, key);
+        if (frame.size != sizeBefore) {
+            frame.values[slot] = valueOf(value);
+        } else {
+            A oldValue = createFn.get();
+            setValue(oldValue, frame.values[slot]);
+            frame.values[slot] = valueOf(mergeFn.apply(oldValue, value));
+        }
+    }
+
+    @Nullable @Override
+    @SuppressWarnings("unchecked")
+    public Map<K, A> get(long frameTs) {
+        Frame frame = frames.get(frameTs);
+        if (frame == null) {
+            return null;
+        }
+        Map<K, A> result = new HashMap<>();
+        for (int i = 0; i < frame.keyIds.length; i++) {
+            if (frame.keyIds[i] != 0) {
+                A acc = createFn.get();
+                setValue(acc, frame.values[i]);
+                result.put((K) keyDictionary.key(frame.keyIds[i] - 1), acc);
+            }
+        }
+        return result;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void forEach(long frameTs, @Nonnull BiConsumer<? super K, ? super A> action) {
+        Frame frame = frames.get(frameTs);
+        if (frame == null) {
+            return;
+        }
+        for (int i = 0; i < frame.keyIds.length; i++) {
+            if (frame.keyIds[i] != 0) {
+                setValue(iterationAcc, frame.values[i]);
+                action.accept((K) keyDictionary.key(frame.keyIds[i] - 1), iterationAcc);
+            }
+        }
+    }
+
+    @Override
+    public void remove(long frameTs) {
+        Frame frame = frames.remove(frameTs);
+        if (frame == null) {
+            return;
+        }
+        for (int keyIdPlusOne : frame.keyIds) {
+            if (keyIdPlusOne != 0) {
+                keyDictionary.release(keyIdPlusOne - 1);
+            }
+        }
+        lazyAdd(totalFrames, -1);
+        lazyAdd(totalKeysInFrames, -frame.size);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return frames.isEmpty();
+    }
+
+    @Override
+    public long minFrameTs() {
+        return frames
+                .keySet().stream()
+                .min(naturalOrder())
+                .orElseThrow(() -> new AssertionError("Failed to find the min key in a non-empty map"));
+    }
+
+    @Nonnull @Override
+    public Set<Long> frameTimestamps() {
+        return frames.keySet();
+    }
+
+    @Override
+    public long keyCount() {
+        return frames.values().stream().mapToLong(f -> f.size).sum();
+    }
+
+    @Nonnull @Override
+    public Traverser<Entry<SnapshotKey, Object>> capture(
+            @Nullable Long2ObjectHashMap<Set<K>> keysByFrame, @Nonnull UnaryOperator<Object> copyFn
+    ) {
+        List<Traverser<Entry<SnapshotKey, Object>>> frameTraversers = new ArrayList<>();
+        for (Long ts : keysByFrame != null ? keysByFrame.keySet() : frames.keySet()) {
+            Frame frame = frames.get(ts);
+            Set<K> keys = keysByFrame != null ? keysByFrame.get(ts) : null;
+            Object[] capturedKeys = new Object[keys != null ? keys.size() : frame.size];
+            long[] capturedValues = new long[capturedKeys.length];
+            int count = 0;
+            if (keys != null) {
+                for (K key : keys) {
+                    int slot = frame.find(keyDictionary.find(key));
+                    assert slot >= 0 : "captured key not found: " + key;
+                    capturedKeys[count] = key;
+                    capturedValues[count++] = frame.values[slot];
+                }
+            } else {
+                for (int i = 0; i < frame.keyIds.length; i++) {
+                    if (frame.keyIds[i] != 0) {
+                        capturedKeys[count] = keyDictionary.key(frame.keyIds[i] - 1);
+                        capturedValues[count++] = frame.values[i];
+                    }
+                }
+            }
+            long frameTs = ts;
+            frameTraversers.add(traverseStream(IntStream.range(0, capturedKeys.length)
+                    .<Entry<SnapshotKey, Object>>mapToObj(i -> {
+                        A acc = createFn.get();
+                        setValue(acc, capturedValues[i]);
+                        return entry(new SnapshotKey(frameTs, capturedKeys[i]), acc);
+                    })));
+        }
+        return traverseIterable(frameTraversers).flatMap(t -> t);
+    }
+
+    // package-visible for test
+    int dictionarySize() {
+        return keyDictionary.size;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        for (Long ts : frames.keySet()) {
+            if (sb.length() > 1) {
+                sb.append(", ");
+            }
+            sb.append(ts).append('=').append(get(ts));
+        }
+        return sb.append('}').toString();
+    }
+
+    private Frame getOrCreateFrame(long frameTs) {
+        Frame frame = frames.get(frameTs);
+        if (frame == null) {
+            frame = new Frame();
+            frames.put(frameTs, frame);
+            lazyIncrement(totalFrames);
+        }
+        return frame;
+    }
+
+    /**
+     * Returns the slot of the key in the frame, inserting the key with the
+     * empty value if it's not there.
+     */
+    private int slotFor(Frame frame, K key) {
+        int keyId = keyDictionary.idOf(key);
+        int sizeBefore = frame.size;
+        int slot = frame.slotFor(keyId, emptyValue);
+        if (frame.size != sizeBefore) {
+            keyDictionary.retain(keyId);
+            lazyIncrement(totalKeysInFrames);
+        }
+        return slot;
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Open-addressing table of the entries of one frame. Entries are never
+     * removed from a frame, the whole frame is discarded instead.
+     */
+    private static final class Frame {
+        private static final int INITIAL_CAPACITY = 8;
+
+        // key ID + 1, 0 means an empty slot
+        int[] keyIds = new int[INITIAL_CAPACITY];
+        long[] values = new long[INITIAL_CAPACITY];
+        int size;
+
+        int slotFor(int keyId, long emptyValue) {
+            int mask = keyIds.length - 1;
+            for (int i = mix(keyId) & mask; ; i = (i + 1) & mask) {
+                if (keyIds[i] == keyId + 1) {
+                    return i;
+                }
+                if (keyIds[i] == 0) {
+                    if (4 * (size + 1) > 3 * keyIds.length) {
+                        grow();
+                        return slotFor(keyId, emptyValue);
+                    }
+                    keyIds[i] = keyId + 1;
+                    values[i] = emptyValue;
+                    size++;
+                    return i;
+                }
+            }
+        }
+
+        /**
+         * Returns the slot of the key or -1, if it's not in the frame.
+         */
+        int find(int keyId) {
+            int mask = keyIds.length - 1;
+            for (int i = mix(keyId) & mask; ; i = (i + 1) & mask) {
+                if (keyIds[i] == keyId + 1) {
+                    return i;
+                }
+                if (keyIds[i] == 0) {
+                    return -1;
+                }
+            }
+        }
+
+        private void grow() {
+            int[] oldKeyIds = keyIds;
+            long[] oldValues = values;
+            keyIds = new int[2 * oldKeyIds.length];
+            values = new long[2 * oldKeyIds.length];
+            int mask = keyIds.length - 1;
+            for (int j = 0; j < oldKeyIds.length; j++) {
+                if (oldKeyIds[j] == 0) {
+                    continue;
+                }
+                int i = mix(oldKeyIds[j] - 1) & mask;
+                while (keyIds[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keyIds[i] = oldKeyIds[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    /**
+     * Assigns dense {@code int} IDs to keys. Counts the frames that reference
+     * each key and removes the key when no frame references it anymore, so
+     * that its ID can be reused.
+     */
+    private static final class KeyDictionary {
+        private static final int INITIAL_CAPACITY = 64;
+
+        // key ID + 1 by hash, 0 means an empty slot; linear probing
+        private int[] table = new int[INITIAL_CAPACITY];
+        // by key ID
+        private Object[] keys = new Object[INITIAL_CAPACITY];
+        private int[] hashes = new int[INITIAL_CAPACITY];
+        private int[] refCounts = new int[INITIAL_CAPACITY];
+        private int[] freeIds = new int[INITIAL_CAPACITY];
+        private int freeIdCount;
+        private int nextId;
+        private int size;
+
+        int idOf(Object key) {
+            int hash = mix(Objects.hashCode(key));
+            int mask = table.length - 1;
+            for (int i = hash & mask; ; i = (i + 1) & mask) {
+                if (table[i] == 0) {
+                    int id = newId(key, hash);
+                    table[i] = id + 1;
+                    if (4 * ++size > 3 * table.length) {
+                        rehash(2 * table.length);
+                    }
+                    return id;
+                }
+                int id = table[i] - 1;
+                if (hashes[id] == hash && Objects.equals(keys[id], key)) {
+                    return id;
+                }
+            }
+        }
+
+        /**
+         * Returns the ID of the key or -1, if it has none.
+         */
+        int find(Object key) {
+            int hash = mix(Objects.hashCode(key));
+            int mask = table.length - 1;
+            for (int i = hash & mask; ; i = (i + 1) & mask) {
+                if (table[i] == 0) {
+                    return -1;
+                }
+                int id = table[i] - 1;
+                if (hashes[id] == hash && Objects.equals(keys[id], key)) {
+                    return id;
+                }
+            }
+        }
+
+        Object key(int id) {
+            return keys[id];
+        }
+
+        void retain(int id) {
+            refCounts[id]++;
+        }
+
+        void release(int id) {
+            if (--refCounts[id] == 0) {
+                delete(id);
+            }
+        }
+
+        private int newId(Object key, int hash) {
+            int id;
+            if (freeIdCount > 0) {
+                id = freeIds[--freeIdCount];
+            } else {
+                id = nextId++;
+                if (id == keys.length) {
+                    keys = Arrays.copyOf(keys, 2 * id);
+                    hashes = Arrays.copyOf(hashes, 2 * id);
+                    refCounts = Arrays.copyOf(refCounts, 2 * id);
+                }
+            }
+            keys[id] = key;
+            hashes[id] = hash;
+            refCounts[id] = 0;
+            return id;
+        }
+
+        private void delete(int id) {
+            int mask = table.length - 1;
+            int i = hashes[id] & mask;
+            while (table[i] != id + 1) {
+                i = (i + 1) & mask;
+            }
+            // backward-shift deletion: move the following entries of the probe
+            // sequence to the freed slot if their home slot allows it
+            for (int j = (i + 1) & mask; table[j] != 0; j = (j + 1) & mask) {
+                int home = hashes[table[j] - 1] & mask;
+                boolean canMove = i <= j ? (home <= i || home > j) : (home <= i && home > j);
+                if (canMove) {
+                    table[i] = table[j];
+                    i = j;
+                }
+            }
+            table[i] = 0;
+            keys[id] = null;
+            size--;
+            if (freeIdCount == freeIds.length) {
+                freeIds = Arrays.copyOf(freeIds, 2 * freeIdCount);
+            }
+            freeIds[freeIdCount++] = id;
+        }
+
+        private void rehash(int newCapacity) {
+            int[] oldTable = table;
+            table = new int[newCapacity];
+            int mask = newCapacity - 1;
+            for (int entry : oldTable) {
+                if (entry == 0) {
+                    continue;
+                }
+                int i = hashes[entry - 1] & mask;
+                while (table[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                table[i] = entry;
+            }
+        }
+    }
+
+    private static final class LongAccumulatorFrameStore<K> extends PrimitiveFrameStore<K, LongAccumulator> {
+        LongAccumulatorFrameStore(
+                Supplier<LongAccumulator> createFn, AtomicLong totalFrames, AtomicLong totalKeysInFrames
+        ) {
+            super(createFn, totalFrames, totalKeysInFrames);
+        }
+
+        @Override
+        long valueOf(LongAccumulator acc) {
+            return acc.get();
+        }
+
+        @Override
+        void setValue(LongAccumulator acc, long value) {
+            acc.set(value);
+        }
+    }
+
+    private static final class DoubleAccumulatorFrameStore<K> extends PrimitiveFrameStore<K, DoubleAccumulator> {
+        DoubleAccumulatorFrameStore(
+                Supplier<DoubleAccumulator> createFn, AtomicLong totalFrames, AtomicLong totalKeysInFrames
+        ) {
+            super(createFn, totalFrames, totalKeysInFrames);
+        }
+
+        @Override
+        long valueOf(DoubleAccumulator acc) {
+            return Double.doubleToRawLongBits(acc.export());
+        }
+
+        @Override
+        void setValue(DoubleAccumulator acc, long value) {
+            acc.set(Double.longBitsToDouble(value));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.core.DefaultPartitionStrategy;
+import com.hazelcast.jet.core.Partitioner;
+import com.hazelcast.jet.impl.execution.init.EdgePartitionStrategy;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+
+/**
+ * Partitioner of the edge into the {@link SortP} vertex. The key is a range
+ * index assigned by {@link SortRouteP}. Consecutive ranges are routed to
+ * the same processor and a higher range never goes to a processor with a
+ * lower global index, so the outputs of the sort processors, taken in the
+ * order of their global index, are globally ordered.
+ */
+public class RangePartitioner implements Partitioner<Integer> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int rangeCount;
+    private transient int[] targetPartitions;
+
+    public RangePartitioner(int rangeCount) {
+        this.rangeCount = rangeCount;
+    }
+
+    @Override
+    public void init(@Nonnull DefaultPartitionStrategy strat) {
+        if (strat instanceof EdgePartitionStrategy) {
+            targetPartitions = Arrays.stream(((EdgePartitionStrategy) strat).processorPartitions())
+                                     .filter(ption -> ption >= 0)
+                                     .toArray();
+        }
+    }
+
+    @Override
+    public int getPartition(@Nonnull Integer range, int partitionCount) {
+        if (targetPartitions == null || targetPartitions.length == 0) {
+            return (int) ((long) range * partitionCount / rangeCount);
+        }
+        return targetPartitions[(int) ((long) range * targetPartitions.length / rangeCount)];
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.JetException;
+import com.hazelcast.jet.impl.execution.IncrementalSnapshotAware;
+import com.hazelcast.jet.impl.execution.VersionedSnapshotValue;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Tracks the versions of the keys restored to an {@link
+ * IncrementalSnapshotAware} processor from a snapshot with deltas. A key can
+ * be restored several times, once from the base snapshot and once from
+ * each later snapshot that changed it, in no particular order. Only the
+ * {@link VersionedSnapshotValue} with the highest snapshot ID must be
+ * applied.
+ */
+final class RestoredVersions {
+
+    private final Map<Object, Long> keyToSnapshotId = new HashMap<>();
+
+    /**
+     * Returns {@code true}, if the given version of the key is later than all
+     * its versions offered so far.
+     *
+     * @throws JetException if the key was already offered with the same
+     *      snapshot ID
+     */
+    boolean isLatest(Object key, long snapshotId) {
+        Long previousSnapshotId = keyToSnapshotId.get(key);
+        if (previousSnapshotId != null) {
+            if (previousSnapshotId == snapshotId) {
+                throw new JetException("Duplicate key in snapshot: " + key);
+            }
+            if (previousSnapshotId > snapshotId) {
+                return false;
+            }
+        }
+        keyToSnapshotId.put(key, snapshotId);
+        return true;
+    }
+}
@@ -18,50 +18,128 @@ package com.hazelcast.jet.impl.processor;
 
 import com.hazelcast.jet.Traverser;
 import com.hazelcast.jet.aggregate.AggregateOperation1;
+import com.hazelcast.jet.config.JobConfig;
+import com.hazelcast.jet.config.ProcessingGuarantee;
 import com.hazelcast.jet.core.AbstractProcessor;
 import com.hazelcast.jet.core.ResettableSingletonTraverser;
 import com.hazelcast.jet.function.DistributedFunction;
 import com.hazelcast.jet.function.DistributedTriFunction;
+import com.hazelcast.jet.impl.execution.BackgroundSnapshotAware;
+import com.hazelcast.jet.impl.execution.IncrementalSnapshotAware;
+import com.hazelcast.jet.impl.execution.VersionedSnapshotValue;
+import com.hazelcast.jet.impl.util.LongKeyFunction;
 import com.hazelcast.jet.pipeline.GeneralStageWithKey;
+import com.hazelcast.util.collection.Long2ObjectHashMap;
 
 import javax.annotation.Nonnull;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
+import java.util.function.UnaryOperator;
 
+import static com.hazelcast.jet.Traversers.traverseArray;
 import static com.hazelcast.jet.Traversers.traverseIterable;
 
 /**
  * Backing processor for {@link GeneralStageWithKey#rollingAggregate}.
+ * <p>
+ * If the key function is a {@link LongKeyFunction}, the accumulators are
+ * kept in a {@link Long2ObjectHashMap} and the key is boxed once per item,
+ * for the {@code mapToOutputFn}. The tracking of the changed keys for the
+ * snapshot reuses that instance.
+ * <p>
+ * If {@linkplain JobConfig#setMaxIncrementalSnapshots(int) incremental
+ * snapshots} are enabled, the processor tracks the keys accumulated since
+ * the previous snapshot. Keys are never removed, so an incremental snapshot
+ * contains no tombstones.
+ * <p>
+ * The state can be {@linkplain JobConfig#setBackgroundSnapshotSaving(boolean)
+ * saved in the background}: an accumulator is copied before it's first
+ * modified after the capture, see {@link CopyOnWriteSnapshot}.
  *
  * @param <T> type of the input item
  * @param <K> type of the key
  * @param <A> type of the accumulator
  * @param <R> type of the output item
  */
-public final class RollingAggregateP<T, K, A, R, OUT> extends AbstractProcessor {
+public final class RollingAggregateP<T, K, A, R, OUT> extends AbstractProcessor
+        implements IncrementalSnapshotAware, BackgroundSnapshotAware {
     private final FlatMapper<T, OUT> flatMapper;
 
-    private final Map<K, A> keyToAcc = new HashMap<>();
+    private final Map<K, A> keyToAcc;
+    // the same map as keyToAcc, if the key is a primitive long
+    private final Long2ObjectHashMap<A> longKeyToAcc;
     private final ResettableSingletonTraverser<OUT> outputTraverser = new ResettableSingletonTraverser<>();
-    private Traverser<Entry<K, A>> snapshotTraverser;
+    private Traverser<Entry<K, Object>> snapshotTraverser;
+    // the snapshot being saved, null if there's none
+    private CopyOnWriteSnapshot<K, A> cowSnapshot;
+    // the keys changed since the previous snapshot, null if incremental snapshots are disabled
+    private Set<K> dirtyKeys;
+    private boolean incrementalSnapshot;
+    private RestoredVersions restoredVersions;
 
+    @SuppressWarnings("unchecked")
     public RollingAggregateP(
             @Nonnull DistributedFunction<? super T, ? extends K> keyFn,
             @Nonnull AggregateOperation1<? super T, A, ? extends R> aggrOp,
             @Nonnull DistributedTriFunction<? super T, ? super K, ? super R, ? extends OUT> mapToOutputFn
     ) {
-        this.flatMapper = flatMapper(item -> {
-            K key = keyFn.apply(item);
-            A acc = keyToAcc.computeIfAbsent(key, k -> aggrOp.createFn().get());
-            aggrOp.accumulateFn().accept(acc, item);
-            R aggResult = aggrOp.exportFn().apply(acc);
-            OUT output = mapToOutputFn.apply(item, key, aggResult);
-            if (output != null) {
-                outputTraverser.accept(output);
-            }
-            return outputTraverser;
-        });
+        if (keyFn instanceof LongKeyFunction) {
+            longKeyToAcc = new Long2ObjectHashMap<>();
+            keyToAcc = (Map<K, A>) longKeyToAcc;
+            this.flatMapper = flatMapper(item -> {
+                long key = ((LongKeyFunction<? super T>) keyFn).applyAsLong(item);
+                A acc = longKeyToAcc.get(key);
+                // box the key once, the same instance is used for the snapshot and the output
+                K boxedKey = (K) (Long) key;
+                if (cowSnapshot != null) {
+                    cowSnapshot.beforeUpdate(boxedKey, acc);
+                }
+                if (acc == null) {
+                    acc = aggrOp.createFn().get();
+                    longKeyToAcc.put(key, acc);
+                }
+                return accumulate(item, boxedKey, acc, aggrOp, mapToOutputFn);
+            });
+        } else {
+            longKeyToAcc = null;
+            keyToAcc = new HashMap<>();
+            this.flatMapper = flatMapper(item -> {
+                K key = keyFn.apply(item);
+                if (cowSnapshot != null) {
+                    cowSnapshot.beforeUpdate(key, keyToAcc.get(key));
+                }
+                A acc = keyToAcc.computeIfAbsent(key, k -> aggrOp.createFn().get());
+                return accumulate(item, key, acc, aggrOp, mapToOutputFn);
+            });
+        }
+    }
+
+    @Override
+    protected void init(@Nonnull Context context) {
+        if (context.processingGuarantee() != ProcessingGuarantee.NONE
+                && context.jobConfig().getMaxIncrementalSnapshots() > 0) {
+            dirtyKeys = new HashSet<>();
+        }
+    }
+
+    private Traverser<OUT> accumulate(
+            T item, K key, A acc,
+            AggregateOperation1<? super T, A, ? extends R> aggrOp,
+            DistributedTriFunction<? super T, ? super K, ? super R, ? extends OUT> mapToOutputFn
+    ) {
+        aggrOp.accumulateFn().accept(acc, item);
+        if (dirtyKeys != null) {
+            dirtyKeys.add(key);
+        }
+        R aggResult = aggrOp.exportFn().apply(acc);
+        OUT output = mapToOutputFn.apply(item, key, aggResult);
+        if (output != null) {
+            outputTraverser.accept(output);
+        }
+        return outputTraverser;
     }
 
     @Override
@@ -70,18 +148,64 @@ public final class RollingAggregateP<T, K, A, R, OUT> extends AbstractProcessor
         return flatMapper.tryProcess((T) item);
     }
 
+    @Override
+    public void setIncrementalSnapshot(boolean incremental) {
+        assert !incremental || dirtyKeys != null : "incremental snapshot requested, but changes not tracked";
+        incrementalSnapshot = incremental;
+    }
+
     @Override
     public boolean saveToSnapshot() {
         if (snapshotTraverser == null) {
-            snapshotTraverser = traverseIterable(keyToAcc.entrySet())
+            // the state doesn't change until the traverser is exhausted, nothing needs to be copied
+            snapshotTraverser = captureSnapshot(UnaryOperator.identity())
                     .onFirstNull(() -> snapshotTraverser = null);
         }
         return emitFromTraverserToSnapshot(snapshotTraverser);
     }
 
+    @Nonnull @Override
+    @SuppressWarnings("unchecked")
+    public Traverser<Entry<K, Object>> captureSnapshot(@Nonnull UnaryOperator<Object> copyFn) {
+        assert cowSnapshot == null : "previous snapshot not saved yet";
+        Traverser<K> keys;
+        if (incrementalSnapshot) {
+            keys = traverseIterable(dirtyKeys);
+            dirtyKeys = new HashSet<>();
+        } else {
+            keys = traverseArray((K[]) keyToAcc.keySet().toArray());
+            if (dirtyKeys != null) {
+                dirtyKeys.clear();
+            }
+        }
+        cowSnapshot = new CopyOnWriteSnapshot<>(keys, keyToAcc::get, copyFn);
+        return cowSnapshot.traverser().onFirstNull(() -> cowSnapshot = null);
+    }
+
     @Override
+    @SuppressWarnings("unchecked")
     protected void restoreFromSnapshot(@Nonnull Object key, @Nonnull Object value) {
-        @SuppressWarnings("unchecked") A old = keyToAcc.put((K) key, (A) value);
+        if (value instanceof VersionedSnapshotValue) {
+            VersionedSnapshotValue versioned = (VersionedSnapshotValue) value;
+            if (restoredVersions == null) {
+                restoredVersions = new RestoredVersions();
+            }
+            if (restoredVersions.isLatest(key, versioned.snapshotId())) {
+                if (versioned.value() != null) {
+                    keyToAcc.put((K) key, (A) versioned.value());
+                } else {
+                    keyToAcc.remove(key);
+                }
+            }
+            return;
+        }
+        A old = keyToAcc.put((K) key, (A) value);
         assert old == null : "Duplicate key '" + key + '\'';
     }
+
+    @Override
+    public boolean finishSnapshotRestore() {
+        restoredVersions = null;
+        return true;
+    }
 }
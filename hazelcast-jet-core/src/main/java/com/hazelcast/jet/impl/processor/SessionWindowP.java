@@ -19,13 +19,17 @@ package com.hazelcast.jet.impl.processor;
 import com.hazelcast.internal.metrics.Probe;
 import com.hazelcast.jet.JetException;
 import com.hazelcast.jet.Traverser;
-import com.hazelcast.jet.Traversers;
 import com.hazelcast.jet.aggregate.AggregateOperation;
+import com.hazelcast.jet.config.JobConfig;
 import com.hazelcast.jet.config.ProcessingGuarantee;
 import com.hazelcast.jet.core.AbstractProcessor;
 import com.hazelcast.jet.core.BroadcastKey;
 import com.hazelcast.jet.core.Watermark;
 import com.hazelcast.jet.function.KeyedWindowResultFunction;
+import com.hazelcast.jet.impl.execution.BackgroundSnapshotAware;
+import com.hazelcast.jet.impl.execution.IncrementalSnapshotAware;
+import com.hazelcast.jet.impl.execution.SnapshotTombstone;
+import com.hazelcast.jet.impl.execution.VersionedSnapshotValue;
 import com.hazelcast.jet.impl.execution.init.JetInitDataSerializerHook;
 import com.hazelcast.nio.ObjectDataInput;
 import com.hazelcast.nio.ObjectDataOutput;
@@ -33,6 +37,7 @@ import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
 import com.hazelcast.util.QuickMath;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -42,17 +47,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
-import java.util.SortedMap;
 import java.util.StringJoiner;
-import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.function.ToLongFunction;
-import java.util.stream.Stream;
+import java.util.function.UnaryOperator;
 
+import static com.hazelcast.jet.Traversers.traverseArray;
 import static com.hazelcast.jet.Traversers.traverseIterable;
-import static com.hazelcast.jet.Traversers.traverseStream;
 import static com.hazelcast.jet.Util.entry;
 import static com.hazelcast.jet.config.ProcessingGuarantee.EXACTLY_ONCE;
 import static com.hazelcast.jet.core.BroadcastKey.broadcastKey;
@@ -64,7 +67,6 @@ import static com.hazelcast.jet.impl.util.Util.toLocalDateTime;
 import static com.hazelcast.util.Preconditions.checkTrue;
 import static java.lang.Math.min;
 import static java.lang.System.arraycopy;
-import static java.util.Collections.emptyList;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
@@ -72,17 +74,33 @@ import static java.util.concurrent.TimeUnit.NANOSECONDS;
  * Session window processor. See {@link
  *      com.hazelcast.jet.core.processor.Processors#aggregateToSessionWindowP
  * Processors.aggregateToSessionWindowP()} for documentation.
+ * <p>
+ * The keys with open sessions are tracked in a {@link DeadlineWheel},
+ * indexed by the end of their earliest session. Extending or merging a
+ * session only relinks the key's {@link Windows} object in the wheel, no
+ * objects are allocated for it.
+ * <p>
+ * If {@linkplain JobConfig#setMaxIncrementalSnapshots(int) incremental
+ * snapshots} are enabled, the processor tracks the keys whose sessions
+ * changed since the previous snapshot. An incremental snapshot contains
+ * their current sessions and a tombstone for each key with no open sessions
+ * left.
+ * <p>
+ * The state can be {@linkplain JobConfig#setBackgroundSnapshotSaving(boolean)
+ * saved in the background}: the sessions of a key are copied before they're
+ * first modified after the capture, see {@link CopyOnWriteSnapshot}.
  *
  * @param <K> type of the extracted grouping key
  * @param <A> type of the accumulator object
  * @param <R> type of the finished result
  */
-public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
+public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor
+        implements IncrementalSnapshotAware, BackgroundSnapshotAware {
     private static final Watermark COMPLETING_WM = new Watermark(Long.MAX_VALUE);
 
     // exposed for testing, to check for memory leaks
     final Map<K, Windows<A>> keyToWindows = new HashMap<>();
-    final SortedMap<Long, Set<K>> deadlineToKeys = new TreeMap<>();
+    final DeadlineWheel<A> deadlines;
     long currentWatermark = Long.MIN_VALUE;
 
     private final long sessionTimeout;
@@ -112,14 +130,25 @@ public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
     private long lastTimeEarlyResultsEmitted;
     private Traverser<OUT> earlyWinTraverser;
 
-    private Traverser snapshotTraverser;
+    private Traverser<Entry<Object, Object>> snapshotTraverser;
+    // the snapshot being saved, null if there's none
+    private CopyOnWriteSnapshot<K, Windows<A>> cowSnapshot;
+    // the keys changed since the previous snapshot, null if incremental snapshots are disabled
+    private Set<K> dirtyKeys;
+    private boolean incrementalSnapshot;
+
+    // values used temporarily during snapshot restore
     private long minRestoredCurrentWatermark = Long.MAX_VALUE;
+    private long restoredWatermarkSnapshotId = Long.MIN_VALUE;
+    private RestoredVersions restoredVersions;
     private boolean inComplete;
 
     // extracted lambdas to reduce GC litter
     private final Function<K, Windows<A>> newWindowsFunction = k -> {
         lazyIncrement(totalKeys);
-        return new Windows<>();
+        Windows<A> w = new Windows<>();
+        w.key = k;
+        return w;
     };
 
     @SuppressWarnings("unchecked")
@@ -140,6 +169,7 @@ public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
         this.combineFn = requireNonNull(aggrOp.combineFn());
         this.mapToOutputFn = mapToOutputFn;
         this.sessionTimeout = sessionTimeout;
+        this.deadlines = new DeadlineWheel<>(sessionTimeout);
         this.closedWindowFlatmapper = flatMapper(this::traverseClosedWindows);
     }
 
@@ -147,6 +177,9 @@ public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
     protected void init(@Nonnull Context context) {
         processingGuarantee = context.processingGuarantee();
         lastTimeEarlyResultsEmitted = NANOSECONDS.toMillis(System.nanoTime());
+        if (processingGuarantee != ProcessingGuarantee.NONE && context.jobConfig().getMaxIncrementalSnapshots() > 0) {
+            dirtyKeys = new HashSet<>();
+        }
     }
 
     @Override
@@ -177,18 +210,26 @@ public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
             return true;
         }
         K key = keyFns.get(ordinal).apply(item);
+        if (cowSnapshot != null) {
+            cowSnapshot.beforeUpdate(key, keyToWindows.get(key));
+        }
         addItem(ordinal,
                 keyToWindows.computeIfAbsent(key, newWindowsFunction),
                 key, timestamp, item);
+        if (dirtyKeys != null) {
+            dirtyKeys.add(key);
+        }
         return true;
     }
 
     @Override
     public boolean tryProcessWatermark(@Nonnull Watermark wm) {
         currentWatermark = wm.timestamp();
-        assert totalWindows.get() == deadlineToKeys.values().stream().mapToInt(Set::size).sum()
-                : "unexpected totalWindows. Expected=" + deadlineToKeys.values().stream().mapToInt(Set::size).sum()
+        assert totalWindows.get() == keyToWindows.values().stream().mapToInt(w -> w.size).sum()
+                : "unexpected totalWindows. Expected=" + keyToWindows.values().stream().mapToInt(w -> w.size).sum()
                 + ", actual=" + totalWindows.get();
+        assert deadlines.size() == keyToWindows.size()
+                : "unexpected deadlines.size. Expected=" + keyToWindows.size() + ", actual=" + deadlines.size();
         return closedWindowFlatmapper.tryProcess(wm);
     }
 
@@ -198,41 +239,17 @@ public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
         return closedWindowFlatmapper.tryProcess(COMPLETING_WM);
     }
 
+    @SuppressWarnings("unchecked")
     private Traverser<Object> traverseClosedWindows(Watermark wm) {
-        SortedMap<Long, Set<K>> windowsToClose = deadlineToKeys.headMap(wm.timestamp());
-
-        Stream<Object> closedWindows = windowsToClose
-                .values().stream()
-                .flatMap(Set::stream)
-                .map(key -> closeWindows(keyToWindows.get(key), key, wm.timestamp()))
-                .flatMap(List::stream);
-        Traverser<Object> result = traverseStream(closedWindows)
-                .onFirstNull(() -> {
-                    lazyAdd(totalWindows, -windowsToClose.values().stream().mapToInt(Set::size).sum());
-                    windowsToClose.clear();
-                });
+        deadlines.expire(wm.timestamp());
+        Traverser<Object> result = ((Traverser<Windows<A>>) deadlines::pollExpired)
+                .flatMap(w -> traverseIterable(closeWindows(w, (K) w.key, wm.timestamp())));
         if (wm != COMPLETING_WM) {
             result = result.append(wm);
         }
         return result;
     }
 
-    private void addToDeadlines(K key, long deadline) {
-        if (deadlineToKeys.computeIfAbsent(deadline, x -> new HashSet<>()).add(key)) {
-            lazyIncrement(totalWindows);
-        }
-    }
-
-    private void removeFromDeadlines(K key, long deadline) {
-        Set<K> ks = deadlineToKeys.get(deadline);
-        ks.remove(key);
-        lazyAdd(totalWindows, -1);
-        if (ks.isEmpty()) {
-            deadlineToKeys.remove(deadline);
-        }
-    }
-
-    @SuppressWarnings("unchecked")
     @Override
     public boolean saveToSnapshot() {
         if (inComplete) {
@@ -241,13 +258,44 @@ public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
             return complete();
         }
         if (snapshotTraverser == null) {
-            snapshotTraverser = Traversers.<Object>traverseIterable(keyToWindows.entrySet())
-                    .append(entry(broadcastKey(Keys.CURRENT_WATERMARK), currentWatermark))
+            // the state doesn't change until the traverser is exhausted, nothing needs to be copied
+            snapshotTraverser = captureSnapshot(UnaryOperator.identity())
                     .onFirstNull(() -> snapshotTraverser = null);
         }
         return emitFromTraverserToSnapshot(snapshotTraverser);
     }
 
+    @Nullable @Override
+    @SuppressWarnings("unchecked")
+    public Traverser<Entry<Object, Object>> captureSnapshot(@Nonnull UnaryOperator<Object> copyFn) {
+        if (inComplete) {
+            return null;
+        }
+        assert cowSnapshot == null : "previous snapshot not saved yet";
+        Traverser<K> keys;
+        if (incrementalSnapshot) {
+            keys = traverseIterable(dirtyKeys);
+            dirtyKeys = new HashSet<>();
+        } else {
+            keys = traverseArray((K[]) keyToWindows.keySet().toArray());
+            if (dirtyKeys != null) {
+                dirtyKeys.clear();
+            }
+        }
+        cowSnapshot = new CopyOnWriteSnapshot<>(keys, keyToWindows::get, copyFn);
+        return cowSnapshot.traverser()
+                .<Entry<Object, Object>>map(e -> entry(e.getKey(),
+                        e.getValue() != null ? e.getValue() : SnapshotTombstone.INSTANCE))
+                .append(entry(broadcastKey(Keys.CURRENT_WATERMARK), currentWatermark))
+                .onFirstNull(() -> cowSnapshot = null);
+    }
+
+    @Override
+    public void setIncrementalSnapshot(boolean incremental) {
+        assert !incremental || dirtyKeys != null : "incremental snapshot requested, but changes not tracked";
+        incrementalSnapshot = incremental;
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     protected void restoreFromSnapshot(@Nonnull Object key, @Nonnull Object value) {
@@ -256,6 +304,18 @@ public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
             if (!Keys.CURRENT_WATERMARK.equals(bcastKey.key())) {
                 throw new JetException("Unexpected broadcast key: " + bcastKey.key());
             }
+            if (value instanceof VersionedSnapshotValue) {
+                VersionedSnapshotValue versioned = (VersionedSnapshotValue) value;
+                if (versioned.snapshotId() < restoredWatermarkSnapshotId) {
+                    return;
+                }
+                if (versioned.snapshotId() > restoredWatermarkSnapshotId) {
+                    // each snapshot saves the watermark, ignore the values from the older ones
+                    restoredWatermarkSnapshotId = versioned.snapshotId();
+                    minRestoredCurrentWatermark = Long.MAX_VALUE;
+                }
+                value = versioned.value();
+            }
             long newCurrentWatermark = (long) value;
             assert processingGuarantee != EXACTLY_ONCE
                     || minRestoredCurrentWatermark == Long.MAX_VALUE
@@ -266,22 +326,43 @@ public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
             return;
         }
 
-        if (keyToWindows.put((K) key, (Windows) value) != null) {
+        if (value instanceof VersionedSnapshotValue) {
+            VersionedSnapshotValue versioned = (VersionedSnapshotValue) value;
+            if (restoredVersions == null) {
+                restoredVersions = new RestoredVersions();
+            }
+            if (!restoredVersions.isLatest(key, versioned.snapshotId())) {
+                return;
+            }
+            if (versioned.value() == null) {
+                keyToWindows.remove(key);
+                return;
+            }
+            Windows<A> w = (Windows<A>) versioned.value();
+            w.key = key;
+            keyToWindows.put((K) key, w);
+            return;
+        }
+        Windows<A> w = (Windows<A>) value;
+        w.key = key;
+        if (keyToWindows.put((K) key, w) != null) {
             throw new JetException("Duplicate key in snapshot: " + key);
         }
     }
 
     @Override
     public boolean finishSnapshotRestore() {
-        assert deadlineToKeys.isEmpty();
-        // populate deadlineToKeys
-        for (Entry<K, Windows<A>> entry : keyToWindows.entrySet()) {
-            for (long end : entry.getValue().ends) {
-                addToDeadlines(entry.getKey(), end);
-            }
+        assert deadlines.isEmpty();
+        restoredVersions = null;
+        // populate deadlines
+        long windowCount = 0;
+        for (Windows<A> w : keyToWindows.values()) {
+            deadlines.update(w);
+            windowCount += w.size;
         }
         currentWatermark = minRestoredCurrentWatermark;
         totalKeys.set(keyToWindows.size());
+        totalWindows.set(windowCount);
         logFine(getLogger(), "Restored currentWatermark from snapshot to: %s", currentWatermark);
         return true;
     }
@@ -309,9 +390,6 @@ public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
     }
 
     private List<OUT> closeWindows(Windows<A> w, K key, long wm) {
-        if (w == null) {
-            return emptyList();
-        }
         List<OUT> results = new ArrayList<>();
         int i = 0;
         for (; i < w.size && w.ends[i] < wm; i++) {
@@ -320,12 +398,23 @@ public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
                 results.add(out);
             }
         }
+        lazyAdd(totalWindows, -i);
         if (i != w.size) {
+            if (cowSnapshot != null) {
+                cowSnapshot.beforeUpdate(key, w);
+            }
             w.removeHead(i);
+            deadlines.update(w);
         } else {
+            if (cowSnapshot != null) {
+                cowSnapshot.beforeRemove(key, w);
+            }
             keyToWindows.remove(key);
             totalKeys.set(keyToWindows.size());
         }
+        if (dirtyKeys != null) {
+            dirtyKeys.add(key);
+        }
         return results;
     }
 
@@ -362,21 +451,23 @@ public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
                 // the window `i + 1` doesn't overlap the event interval
                 w.starts[i] = min(w.starts[i], timestamp);
                 if (w.ends[i] < eventEnd) {
-                    removeFromDeadlines(key, w.ends[i]);
                     w.ends[i] = eventEnd;
-                    addToDeadlines(key, w.ends[i]);
+                    deadlines.update(w);
                 }
                 return w.accs[i];
             }
             // both `i` and `i + 1` windows overlap the event interval
-            removeFromDeadlines(key, w.ends[i]);
             w.ends[i] = w.ends[i + 1];
             combineFn.accept(w.accs[i], w.accs[i + 1]);
             w.removeWindow(i + 1);
+            lazyAdd(totalWindows, -1);
+            deadlines.update(w);
             return w.accs[i];
         }
-        addToDeadlines(key, eventEnd);
-        return insertWindow(w, i, timestamp, eventEnd);
+        A acc = insertWindow(w, i, timestamp, eventEnd);
+        lazyIncrement(totalWindows);
+        deadlines.update(w);
+        return acc;
     }
 
     private A insertWindow(Windows<A> w, int idx, long windowStart, long windowEnd) {
@@ -396,6 +487,14 @@ public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
         @SuppressWarnings("unchecked")
         private A[] accs = (A[]) new Object[2];
 
+        // Not serialized: the key is restored from the snapshot entry and the
+        // links into the DeadlineWheel are rebuilt in finishSnapshotRestore()
+        private Object key;
+        private Windows<A> prevInSlot;
+        private Windows<A> nextInSlot;
+        private long linkedBucket;
+        private boolean linked;
+
         private void removeWindow(int idx) {
             size--;
             copy(idx + 1, idx, size - idx);
@@ -470,6 +569,127 @@ public class SessionWindowP<K, A, R, OUT> extends AbstractProcessor {
         }
     }
 
+    /**
+     * A hashed timer wheel of {@link Windows} objects keyed by the end of
+     * their earliest session. Each slot is an intrusive doubly-linked list
+     * of the {@code Windows} objects whose deadline falls into one of the
+     * buckets mapped to the slot, so that linking, unlinking and relinking
+     * is O(1) and doesn't allocate. The bucket width is about 1/16 of the
+     * session timeout; a slot can contain deadlines from several rotations
+     * of the wheel, these are skipped when the slot is scanned.
+     */
+    static final class DeadlineWheel<A> {
+        static final int SLOT_COUNT = 1024;
+        private static final int SLOT_MASK = SLOT_COUNT - 1;
+        private static final int BUCKETS_PER_TIMEOUT_BITS = 4;
+
+        private final Windows<A>[] slots;
+        private final int bucketShift;
+        // All linked Windows are in this or a later bucket
+        private long nextBucketToScan = Long.MAX_VALUE;
+        private Windows<A> expiredHead;
+        private int size;
+
+        @SuppressWarnings("unchecked")
+        DeadlineWheel(long sessionTimeout) {
+            slots = new Windows[SLOT_COUNT];
+            int timeoutBits = Long.SIZE - 1 - Long.numberOfLeadingZeros(Math.max(1, sessionTimeout));
+            bucketShift = Math.max(0, timeoutBits - BUCKETS_PER_TIMEOUT_BITS);
+        }
+
+        /**
+         * Links the windows to the bucket of their current earliest end,
+         * relinking them if they are linked to another bucket. Must be
+         * called whenever {@code w.ends[0]} changes.
+         */
+        void update(Windows<A> w) {
+            long bucket = w.ends[0] >> bucketShift;
+            if (w.linked) {
+                if (w.linkedBucket == bucket) {
+                    return;
+                }
+                unlink(w);
+            }
+            int slot = (int) bucket & SLOT_MASK;
+            Windows<A> head = slots[slot];
+            w.prevInSlot = null;
+            w.nextInSlot = head;
+            if (head != null) {
+                head.prevInSlot = w;
+            }
+            slots[slot] = w;
+            w.linkedBucket = bucket;
+            w.linked = true;
+            size++;
+            nextBucketToScan = Math.min(nextBucketToScan, bucket);
+        }
+
+        private void unlink(Windows<A> w) {
+            if (w.prevInSlot != null) {
+                w.prevInSlot.nextInSlot = w.nextInSlot;
+            } else {
+                slots[(int) w.linkedBucket & SLOT_MASK] = w.nextInSlot;
+            }
+            if (w.nextInSlot != null) {
+                w.nextInSlot.prevInSlot = w.prevInSlot;
+            }
+            w.prevInSlot = null;
+            w.nextInSlot = null;
+            w.linked = false;
+            size--;
+        }
+
+        /**
+         * Unlinks all windows having a session that ends before the given
+         * watermark and makes them available through {@link #pollExpired()}.
+         */
+        void expire(long wm) {
+            if (wm == Long.MIN_VALUE || size == 0) {
+                return;
+            }
+            long lastBucket = (wm - 1) >> bucketShift;
+            if (lastBucket < nextBucketToScan) {
+                return;
+            }
+            long span = lastBucket - nextBucketToScan;
+            int slotsToScan = span < 0 || span >= SLOT_COUNT ? SLOT_COUNT : (int) span + 1;
+            for (int i = 0; i < slotsToScan; i++) {
+                Windows<A> next;
+                for (Windows<A> w = slots[(int) (nextBucketToScan + i) & SLOT_MASK]; w != null; w = next) {
+                    next = w.nextInSlot;
+                    if (w.ends[0] < wm) {
+                        unlink(w);
+                        w.nextInSlot = expiredHead;
+                        expiredHead = w;
+                    }
+                }
+            }
+            nextBucketToScan = lastBucket;
+        }
+
+        /**
+         * Returns the next windows unlinked by {@link #expire(long)} or {@code
+         * null}, if there are none. The caller must relink them if they still
+         * have open sessions after the expired ones are closed.
+         */
+        Windows<A> pollExpired() {
+            Windows<A> w = expiredHead;
+            if (w != null) {
+                expiredHead = w.nextInSlot;
+                w.nextInSlot = null;
+            }
+            return w;
+        }
+
+        int size() {
+            return size;
+        }
+
+        boolean isEmpty() {
+            return size == 0 && expiredHead == null;
+        }
+    }
+
     // package-visible for test
     enum Keys {
         CURRENT_WATERMARK
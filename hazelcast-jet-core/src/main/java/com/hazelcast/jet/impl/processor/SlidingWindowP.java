@@ -22,6 +22,7 @@ import com.hazelcast.jet.JetException;
 import com.hazelcast.jet.Traverser;
 import com.hazelcast.jet.Traversers;
 import com.hazelcast.jet.aggregate.AggregateOperation;
+import com.hazelcast.jet.config.JobConfig;
 import com.hazelcast.jet.config.ProcessingGuarantee;
 import com.hazelcast.jet.core.AbstractProcessor;
 import com.hazelcast.jet.core.BroadcastKey;
@@ -29,25 +30,32 @@ import com.hazelcast.jet.core.SlidingWindowPolicy;
 import com.hazelcast.jet.core.Watermark;
 import com.hazelcast.jet.core.processor.Processors;
 import com.hazelcast.jet.function.KeyedWindowResultFunction;
+import com.hazelcast.jet.impl.execution.BackgroundSnapshotAware;
+import com.hazelcast.jet.impl.execution.IncrementalSnapshotAware;
+import com.hazelcast.jet.impl.execution.VersionedSnapshotValue;
 import com.hazelcast.jet.impl.execution.init.JetInitDataSerializerHook;
 import com.hazelcast.nio.ObjectDataInput;
 import com.hazelcast.nio.ObjectDataOutput;
 import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
 import com.hazelcast.util.collection.Long2ObjectHashMap;
-import com.hazelcast.util.function.LongFunction;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
 import java.util.stream.LongStream;
 import java.util.stream.Stream;
 
@@ -56,9 +64,7 @@ import static com.hazelcast.jet.Traversers.traverseStream;
 import static com.hazelcast.jet.Util.entry;
 import static com.hazelcast.jet.config.ProcessingGuarantee.EXACTLY_ONCE;
 import static com.hazelcast.jet.core.BroadcastKey.broadcastKey;
-import static com.hazelcast.jet.function.DistributedComparator.naturalOrder;
 import static com.hazelcast.jet.impl.util.LoggingUtil.logFine;
-import static com.hazelcast.jet.impl.util.Util.lazyAdd;
 import static com.hazelcast.jet.impl.util.Util.lazyIncrement;
 import static com.hazelcast.jet.impl.util.Util.logLateEvent;
 import static com.hazelcast.util.Preconditions.checkNotNegative;
@@ -72,20 +78,44 @@ import static java.util.concurrent.TimeUnit.NANOSECONDS;
 /**
  * Handles various setups of sliding and tumbling window aggregation.
  * See {@link Processors} for more documentation.
+ * <p>
+ * If the accumulator is a {@code LongAccumulator} or a {@code
+ * DoubleAccumulator}, the frames are stored in flat primitive arrays (see
+ * {@link PrimitiveFrameStore}), otherwise in a map of accumulator objects per
+ * frame.
+ * <p>
+ * If {@linkplain JobConfig#setMaxIncrementalSnapshots(int) incremental
+ * snapshots} are enabled, the last-stage processor tracks the keys changed in
+ * each frame since the previous snapshot. An incremental snapshot contains
+ * only their accumulators. The evicted frames need no tombstones: the
+ * restored {@code nextWinToEmit} tells which frames were already evicted.
+ * <p>
+ * The last-stage processor can save its frames in the background, see
+ * {@link FrameStore#capture}.
  *
  * @param <A> type of the frame accumulator object
  * @param <R> type of the finished result
  */
-public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
+public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor
+        implements IncrementalSnapshotAware, BackgroundSnapshotAware {
 
     // package-visible for testing
-    final Long2ObjectHashMap<Map<K, A>> tsToKeyToAcc = new Long2ObjectHashMap<>();
+    final FrameStore<K, A> tsToKeyToAcc;
     Map<K, A> slidingWindow;
     // Holds the sliding window while emitting early window results. We reuse the
     // slidingWindow field for early results so the code can be simpler.
     Map<K, A> slidingWindowBackup;
     long nextWinToEmit = Long.MIN_VALUE;
 
+    // Two-stacks state used for sliding windows when the aggregate operation
+    // has no deductFn. The "front stack" holds, for each key, the suffix
+    // aggregates of the frames up to frontTopTs, the "back stack" holds the
+    // aggregate of the frames pushed after that. See computeWindowTwoStacks().
+    final Map<K, FrontStack<A>> keyToFrontStack = new HashMap<>();
+    Map<K, A> backStack = new HashMap<>();
+    private long frontTopTs = Long.MIN_VALUE;
+    private long backTopTs = Long.MIN_VALUE;
+
     @Nonnull
     private final SlidingWindowPolicy winPolicy;
     @Nonnull
@@ -106,7 +136,6 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
     private ProcessingGuarantee processingGuarantee;
 
     // extracted lambdas to reduce GC litter
-    private final LongFunction<Map<K, A>> createMapPerTsFunction;
     private final Function<K, A> createAccFunction;
 
     @Probe
@@ -122,7 +151,11 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
     private Traverser<OUT> earlyWinTraverser;
 
     private Traverser<Object> flushTraverser;
-    private Traverser<Entry> snapshotTraverser;
+    private Traverser<Entry<Object, Object>> snapshotTraverser;
+    // the keys changed in each frame since the previous snapshot, null if
+    // incremental snapshots are disabled
+    private Long2ObjectHashMap<Set<K>> dirtyFrames;
+    private boolean incrementalSnapshot;
 
     // Tracks the upper bound for the keyset of tsToKeyToAcc. Serves as an
     // optimization that avoids a full scan over the entire keyset.
@@ -132,6 +165,8 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
     private long minRestoredNextWinToEmit = Long.MAX_VALUE;
     private long minRestoredFrameTs = Long.MAX_VALUE;
     private boolean badFrameRestored;
+    private long restoredNextWinToEmitSnapshotId = Long.MIN_VALUE;
+    private RestoredVersions restoredVersions;
 
     @SuppressWarnings("unchecked")
     public SlidingWindowP(
@@ -163,20 +198,22 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
                         .onFirstNull(() -> nextWinToEmit = winPolicy.higherFrameTs(wm.timestamp()))
         );
         this.emptyAcc = aggrOp.createFn().get();
-        this.createMapPerTsFunction = x -> {
-            lazyIncrement(totalFrames);
-            return new HashMap<>();
-        };
-        this.createAccFunction = k -> {
-            lazyIncrement(totalKeysInFrames);
-            return aggrOp.createFn().get();
-        };
+        this.createAccFunction = k -> aggrOp.createFn().get();
+        FrameStore<K, A> primitiveStore =
+                PrimitiveFrameStore.tryCreate(aggrOp.createFn(), totalFrames, totalKeysInFrames);
+        this.tsToKeyToAcc = primitiveStore != null
+                ? primitiveStore
+                : new HashMapFrameStore<>(aggrOp.createFn(), totalFrames, totalKeysInFrames);
     }
 
     @Override
     protected void init(@Nonnull Context context) {
         processingGuarantee = context.processingGuarantee();
         lastTimeEarlyResultsEmitted = NANOSECONDS.toMillis(System.nanoTime());
+        if (isLastStage && processingGuarantee != ProcessingGuarantee.NONE
+                && context.jobConfig().getMaxIncrementalSnapshots() > 0) {
+            dirtyFrames = new Long2ObjectHashMap<>();
+        }
     }
 
     @Override
@@ -205,7 +242,7 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
                 winPolicy.frameSize())
             .boxed();
         earlyWinTraverser = traverseStream(earlyWinRange)
-                .flatMap(winEnd -> traverseIterable(computeWindow(winEnd).entrySet())
+                .flatMap(winEnd -> traverseIterable(computeEarlyWindow(winEnd).entrySet())
                         .map(e -> mapToOutputFn.apply(
                                 winEnd - winPolicy.windowSize(), winEnd,
                                 e.getKey(), aggrOp.exportFn().apply(e.getValue())))
@@ -234,11 +271,16 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
             return true;
         }
         final K key = keyFns.get(ordinal).apply(item);
-        A acc = tsToKeyToAcc
-                .computeIfAbsent(frameTs, createMapPerTsFunction)
-                .computeIfAbsent(key, createAccFunction);
-        aggrOp.accumulateFn(ordinal).accept(acc, item);
+        tsToKeyToAcc.accumulate(frameTs, key, aggrOp.accumulateFn(ordinal), item);
         topTs = max(topTs, frameTs);
+        if (dirtyFrames != null) {
+            Set<K> dirtyKeys = dirtyFrames.get(frameTs);
+            if (dirtyKeys == null) {
+                dirtyKeys = new HashSet<>();
+                dirtyFrames.put(frameTs, dirtyKeys);
+            }
+            dirtyKeys.add(key);
+        }
         return true;
     }
 
@@ -258,19 +300,40 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
             return flushBuffers();
         }
         if (snapshotTraverser == null) {
-            snapshotTraverser = traverseIterable(tsToKeyToAcc.entrySet())
-                    .<Entry>flatMap(e -> traverseIterable(e.getValue().entrySet())
-                            .map(e2 -> entry(new SnapshotKey(e.getKey(), e2.getKey()), e2.getValue()))
-                    )
-                    .append(entry(broadcastKey(Keys.NEXT_WIN_TO_EMIT), nextWinToEmit))
-                    .onFirstNull(() -> {
-                        logFine(getLogger(), "Saved nextWinToEmit: %s", nextWinToEmit);
-                        snapshotTraverser = null;
-                    });
+            snapshotTraverser = captureSnapshot(UnaryOperator.identity())
+                    .onFirstNull(() -> snapshotTraverser = null);
         }
         return emitFromTraverserToSnapshot(snapshotTraverser);
     }
 
+    @Nullable @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public Traverser<Entry<Object, Object>> captureSnapshot(@Nonnull UnaryOperator<Object> copyFn) {
+        // the first stage and the flushing processor save in saveToSnapshot()
+        if (!isLastStage || flushTraverser != null) {
+            return null;
+        }
+        Long2ObjectHashMap<Set<K>> keysByFrame = null;
+        if (incrementalSnapshot) {
+            keysByFrame = dirtyFrames;
+            dirtyFrames = new Long2ObjectHashMap<>();
+        } else if (dirtyFrames != null) {
+            dirtyFrames.clear();
+        }
+        long capturedNextWinToEmit = nextWinToEmit;
+        return ((Traverser<Entry<Object, Object>>) (Traverser) tsToKeyToAcc.capture(keysByFrame, copyFn))
+                .append(entry(broadcastKey(Keys.NEXT_WIN_TO_EMIT), capturedNextWinToEmit))
+                .onFirstNull(() -> logFine(getLogger(), "Saved nextWinToEmit: %s", capturedNextWinToEmit));
+    }
+
+    @Override
+    public void setIncrementalSnapshot(boolean incremental) {
+        // the first stage saves no state
+        assert !incremental || dirtyFrames != null || !isLastStage
+                : "incremental snapshot requested, but changes not tracked";
+        incrementalSnapshot = incremental;
+    }
+
     @Override
     @SuppressWarnings("unchecked")
     protected void restoreFromSnapshot(@Nonnull Object key, @Nonnull Object value) {
@@ -279,6 +342,18 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
             if (!Keys.NEXT_WIN_TO_EMIT.equals(bcastKey.key())) {
                 throw new JetException("Unexpected broadcast key: " + bcastKey.key());
             }
+            if (value instanceof VersionedSnapshotValue) {
+                VersionedSnapshotValue versioned = (VersionedSnapshotValue) value;
+                if (versioned.snapshotId() < restoredNextWinToEmitSnapshotId) {
+                    return;
+                }
+                if (versioned.snapshotId() > restoredNextWinToEmitSnapshotId) {
+                    // each snapshot saves nextWinToEmit, ignore the values from the older ones
+                    restoredNextWinToEmitSnapshotId = versioned.snapshotId();
+                    minRestoredNextWinToEmit = Long.MAX_VALUE;
+                }
+                value = versioned.value();
+            }
             long newNextWinToEmit = (long) value;
             assert processingGuarantee != EXACTLY_ONCE
                     || minRestoredNextWinToEmit == Long.MAX_VALUE
@@ -289,6 +364,19 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
             return;
         }
         SnapshotKey k = (SnapshotKey) key;
+        boolean replace = false;
+        if (value instanceof VersionedSnapshotValue) {
+            VersionedSnapshotValue versioned = (VersionedSnapshotValue) value;
+            if (restoredVersions == null) {
+                restoredVersions = new RestoredVersions();
+            }
+            if (!restoredVersions.isLatest(k, versioned.snapshotId())) {
+                return;
+            }
+            // the frames are never removed by a delta, the evicted ones are removed in finishSnapshotRestore()
+            value = versioned.value();
+            replace = true;
+        }
         // align frame timestamp to our frame - they can be misaligned
         // if the slide step was changed in the updated DAG
         long higherFrameTs = winPolicy.higherFrameTs(k.timestamp - 1);
@@ -301,25 +389,26 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
             }
         }
         minRestoredFrameTs = Math.min(higherFrameTs, minRestoredFrameTs);
-        tsToKeyToAcc
-                .computeIfAbsent(higherFrameTs, createMapPerTsFunction)
-                .merge((K) k.key, (A) value, (o, n) -> {
-                    if (!badFrameRestored) {
-                        throw new JetException("Duplicate key in snapshot: " + k);
-                    }
-                    if (combineFn == null) {
-                        throw new JetException("AggregateOperation.combineFn required for merging restored frames");
-                    }
-                    combineFn.accept(o, n);
-                    lazyAdd(totalKeysInFrames, -1);
-                    return o;
-                });
-        lazyIncrement(totalKeysInFrames);
+        boolean replaceOld = replace;
+        tsToKeyToAcc.merge(higherFrameTs, (K) k.key, (A) value, (o, n) -> {
+            if (replaceOld) {
+                return n;
+            }
+            if (!badFrameRestored) {
+                throw new JetException("Duplicate key in snapshot: " + k);
+            }
+            if (combineFn == null) {
+                throw new JetException("AggregateOperation.combineFn required for merging restored frames");
+            }
+            combineFn.accept(o, n);
+            return o;
+        });
         topTs = max(topTs, higherFrameTs);
     }
 
     @Override
     public boolean finishSnapshotRestore() {
+        restoredVersions = null;
         // In the first stage we should theoretically have saved `nextWinToEmit`
         // to the snapshot. We don't bother since the first stage is effectively a
         // tumbling window and it makes no difference in that case. So we don't
@@ -335,11 +424,7 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
             if (nextWinToEmit > Long.MIN_VALUE + winPolicy.windowSize()) {
                 for (long ts = minRestoredFrameTs; ts <= nextWinToEmit - winPolicy.windowSize();
                         ts += winPolicy.frameSize()) {
-                    Map<K, A> removed = tsToKeyToAcc.remove(ts);
-                    if (removed != null) {
-                        lazyAdd(totalFrames, -1);
-                        lazyAdd(totalKeysInFrames, -removed.size());
-                    }
+                    tsToKeyToAcc.remove(ts);
                 }
             }
         }
@@ -375,29 +460,96 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
         // be correctly initialized using the "add leading/deduct trailing" approach
         // because we start from a window that covers at most one existing frame --
         // the lowest one on record.
-        long bottomTs = tsToKeyToAcc
-                .keySet().stream()
-                .min(naturalOrder())
-                .orElseThrow(() -> new AssertionError("Failed to find the min key in a non-empty map"));
+        long bottomTs = tsToKeyToAcc.minFrameTs();
         return min(bottomTs, winPolicy.floorFrameTs(wm));
     }
 
     private Map<K, A> computeWindow(long frameTs) {
         if (winPolicy.isTumbling()) {
-            return tsToKeyToAcc.getOrDefault(frameTs, emptyMap());
+            Map<K, A> frame = tsToKeyToAcc.get(frameTs);
+            return frame != null ? frame : emptyMap();
         }
         if (aggrOp.deductFn() == null) {
-            return recomputeWindow(frameTs);
+            return computeWindowTwoStacks(frameTs);
         }
         if (slidingWindow == null) {
             slidingWindow = recomputeWindow(frameTs);
         } else {
             // add leading-edge frame
-            patchSlidingWindow(aggrOp.combineFn(), tsToKeyToAcc.get(frameTs));
+            patchSlidingWindow(aggrOp.combineFn(), frameTs);
         }
         return slidingWindow;
     }
 
+    private Map<K, A> computeEarlyWindow(long frameTs) {
+        // Early windows contain frames that can still change, we must not push
+        // them to the two-stacks state.
+        if (!winPolicy.isTumbling() && aggrOp.deductFn() == null) {
+            return recomputeWindow(frameTs);
+        }
+        return computeWindow(frameTs);
+    }
+
+    /**
+     * Computes the window ending with the given frame using the two-stacks
+     * algorithm, which needs only {@code combineFn}. Each window is combined
+     * from the front-stack suffix aggregate of its bottom frame and the
+     * back-stack aggregate. When the front stack runs out, we "flip": compute
+     * the suffix aggregates of all the frames in the current window. A frame
+     * is combined into the back stack once and into the suffix aggregates
+     * once, so a slide costs an amortized constant number of combines per
+     * key, instead of one combine per frame in the window.
+     */
+    private Map<K, A> computeWindowTwoStacks(long frameTs) {
+        assert combineFn != null : "combineFn == null";
+        long bottomTs = frameTs - winPolicy.windowSize() + winPolicy.frameSize();
+        if (bottomTs > frontTopTs || frameTs != backTopTs + winPolicy.frameSize()) {
+            flipStacks(bottomTs, frameTs);
+        } else {
+            // push the leading-edge frame to the back stack
+            tsToKeyToAcc.forEach(frameTs, (key, acc) ->
+                    combineFn.accept(backStack.computeIfAbsent(key, createAccFunction), acc));
+        }
+        backTopTs = frameTs;
+
+        Map<K, A> window = new HashMap<>();
+        for (Iterator<Entry<K, FrontStack<A>>> it = keyToFrontStack.entrySet().iterator(); it.hasNext(); ) {
+            Entry<K, FrontStack<A>> e = it.next();
+            A suffixAcc = e.getValue().suffixAcc(bottomTs);
+            if (suffixAcc == null) {
+                it.remove();
+                continue;
+            }
+            A acc = aggrOp.createFn().get();
+            combineFn.accept(acc, suffixAcc);
+            window.put(e.getKey(), acc);
+        }
+        for (Entry<K, A> e : backStack.entrySet()) {
+            combineFn.accept(window.computeIfAbsent(e.getKey(), createAccFunction), e.getValue());
+        }
+        return window;
+    }
+
+    private void flipStacks(long bottomTs, long topTs) {
+        assert combineFn != null : "combineFn == null";
+        keyToFrontStack.clear();
+        backStack = new HashMap<>();
+        Map<K, A> runningSuffix = new HashMap<>();
+        for (long ts = topTs; ts >= bottomTs; ts -= winPolicy.frameSize()) {
+            long frameTs = ts;
+            tsToKeyToAcc.forEach(frameTs, (key, acc) -> {
+                A suffixAcc = aggrOp.createFn().get();
+                combineFn.accept(suffixAcc, acc);
+                A laterSuffixAcc = runningSuffix.put(key, suffixAcc);
+                if (laterSuffixAcc != null) {
+                    combineFn.accept(suffixAcc, laterSuffixAcc);
+                }
+                keyToFrontStack.computeIfAbsent(key, k -> new FrontStack<>()).push(frameTs, suffixAcc);
+            });
+        }
+        frontTopTs = topTs;
+    }
+
     private Map<K, A> recomputeWindow(long frameTs) {
         Map<K, A> window = new HashMap<>();
         for (long ts = frameTs - winPolicy.windowSize() + winPolicy.frameSize();
@@ -405,41 +557,39 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
              ts += winPolicy.frameSize()
         ) {
             assert combineFn != null : "combineFn == null";
-            for (Entry<K, A> entry : tsToKeyToAcc.getOrDefault(ts, emptyMap()).entrySet()) {
-                combineFn.accept(
-                        window.computeIfAbsent(entry.getKey(), k -> aggrOp.createFn().get()),
-                        entry.getValue());
-            }
+            tsToKeyToAcc.forEach(ts, (key, acc) -> combineFn.accept(window.computeIfAbsent(key, createAccFunction), acc));
         }
         return window;
     }
 
-    private void patchSlidingWindow(BiConsumer<? super A, ? super A> patchOp, Map<K, A> patchingFrame) {
-        if (patchingFrame == null) {
-            return;
-        }
-        for (Entry<K, A> e : patchingFrame.entrySet()) {
-            slidingWindow.compute(e.getKey(), (k, acc) -> {
-                A result = acc != null ? acc : aggrOp.createFn().get();
-                patchOp.accept(result, e.getValue());
-                return result.equals(emptyAcc) ? null : result;
-            });
-        }
+    private void patchSlidingWindow(BiConsumer<? super A, ? super A> patchOp, long patchingFrameTs) {
+        tsToKeyToAcc.forEach(patchingFrameTs, (key, patchingAcc) ->
+                slidingWindow.compute(key, (k, acc) -> {
+                    A result = acc != null ? acc : aggrOp.createFn().get();
+                    patchOp.accept(result, patchingAcc);
+                    return result.equals(emptyAcc) ? null : result;
+                }));
     }
 
     private void completeWindow(long frameTs) {
         long tsOfFrameToEvict = frameTs - winPolicy.windowSize() + winPolicy.frameSize();
-        Map<K, A> evictedFrame = tsToKeyToAcc.remove(tsOfFrameToEvict);
-        if (evictedFrame != null) {
-            lazyAdd(totalKeysInFrames, -evictedFrame.size());
-            lazyAdd(totalFrames, -1);
-            if (!winPolicy.isTumbling() && aggrOp.deductFn() != null) {
-                // deduct trailing-edge frame
-                patchSlidingWindow(aggrOp.deductFn(), evictedFrame);
-            }
-        }
-        assert tsToKeyToAcc.values().stream().mapToInt(Map::size).sum() == totalKeysInFrames.get()
-                : "totalKeysInFrames mismatch, expected=" + tsToKeyToAcc.values().stream().mapToInt(Map::size).sum()
+        if (!winPolicy.isTumbling() && aggrOp.deductFn() != null) {
+            // deduct trailing-edge frame
+            patchSlidingWindow(aggrOp.deductFn(), tsOfFrameToEvict);
+        }
+        tsToKeyToAcc.remove(tsOfFrameToEvict);
+        if (dirtyFrames != null) {
+            dirtyFrames.remove(tsOfFrameToEvict);
+        }
+        if (tsToKeyToAcc.isEmpty() && frontTopTs != Long.MIN_VALUE) {
+            // release the two-stacks state when there are no more frames
+            keyToFrontStack.clear();
+            backStack = new HashMap<>();
+            frontTopTs = Long.MIN_VALUE;
+            backTopTs = Long.MIN_VALUE;
+        }
+        assert tsToKeyToAcc.keyCount() == totalKeysInFrames.get()
+                : "totalKeysInFrames mismatch, expected=" + tsToKeyToAcc.keyCount()
                 + ", actual=" + totalKeysInFrames.get();
     }
 
@@ -447,10 +597,7 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
         if (winPolicy.isTumbling() || aggrOp.deductFn() == null) {
             return;
         }
-        Map<K, A> frameToDeduct = tsToKeyToAcc.get(frameTs - winPolicy.windowSize() + winPolicy.frameSize());
-        if (frameToDeduct != null) {
-            patchSlidingWindow(aggrOp.deductFn(), frameToDeduct);
-        }
+        patchSlidingWindow(aggrOp.deductFn(), frameTs - winPolicy.windowSize() + winPolicy.frameSize());
     }
 
     private boolean flushBuffers() {
@@ -474,6 +621,38 @@ public class SlidingWindowP<K, A, R, OUT> extends AbstractProcessor {
                 : LongStream.iterate(start, n -> n + step).limit(1 + (end - start) / step);
     }
 
+    /**
+     * The front stack of a single key: the suffix aggregates of the frames
+     * that contain the key, pushed in descending timestamp order.
+     */
+    static final class FrontStack<A> {
+        private long[] timestamps = new long[4];
+        private Object[] suffixAccs = new Object[4];
+        private int top = -1;
+
+        void push(long ts, A suffixAcc) {
+            if (++top == timestamps.length) {
+                timestamps = Arrays.copyOf(timestamps, 2 * top);
+                suffixAccs = Arrays.copyOf(suffixAccs, 2 * top);
+            }
+            timestamps[top] = ts;
+            suffixAccs[top] = suffixAcc;
+        }
+
+        /**
+         * Pops the entries older than {@code bottomTs} and returns the suffix
+         * aggregate of the oldest remaining frame or {@code null}, if there's
+         * none. {@code bottomTs} must not decrease between calls.
+         */
+        @SuppressWarnings("unchecked")
+        A suffixAcc(long bottomTs) {
+            while (top >= 0 && timestamps[top] < bottomTs) {
+                suffixAccs[top--] = null;
+            }
+            return top >= 0 ? (A) suffixAccs[top] : null;
+        }
+    }
+
     // package-visible for test
     enum Keys {
         NEXT_WIN_TO_EMIT
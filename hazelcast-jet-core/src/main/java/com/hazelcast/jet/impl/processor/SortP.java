@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.internal.metrics.Probe;
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.config.JobConfig;
+import com.hazelcast.jet.core.AbstractProcessor;
+import com.hazelcast.jet.impl.util.ProgressState;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.hazelcast.jet.Traversers.traverseIterable;
+import static com.hazelcast.jet.impl.util.ExceptionUtil.sneakyThrow;
+import static com.hazelcast.jet.impl.util.ProgressState.DONE;
+import static com.hazelcast.jet.impl.util.ProgressState.NO_PROGRESS;
+import static com.hazelcast.jet.impl.util.Util.lazyIncrement;
+
+/**
+ * Last stage of the distributed sort. Receives {@code entry(range, item)}
+ * from the {@link SortRouteP} and emits the items sorted by the
+ * comparator.
+ * <p>
+ * If the job has a {@linkplain JobConfig#setSortSpillThreshold(long) sort
+ * spill threshold} and the buffered items reach it, the processor sorts
+ * them and writes them to a {@link SpillFile} as a sorted run. In {@link
+ * #complete()} it sorts the remaining items in memory and merges them with
+ * the runs. At most {@value #MERGE_FAN_IN} runs are merged at a time: if
+ * there are more, the oldest ones are first merged into a longer run,
+ * until the rest fits into the final merge. The file I/O runs on the spill
+ * I/O executor, the processor doesn't wait for it.
+ *
+ * @param <T> type of the sorted items
+ */
+public class SortP<T> extends AbstractProcessor {
+
+    /**
+     * The maximum number of runs read at the same time, including the
+     * in-memory buffer. Each of them keeps a block in memory.
+     */
+    static final int MERGE_FAN_IN = 16;
+
+    // package-visible for test
+    @Probe
+    final AtomicLong spilledBytes = new AtomicLong();
+    @Probe
+    final AtomicLong spillRuns = new AtomicLong();
+    @Probe
+    final AtomicLong spillMerges = new AtomicLong();
+
+    private final Comparator<? super T> comparator;
+    private final List<T> buffer = new ArrayList<>();
+    private final List<SpillFile> runs = new ArrayList<>();
+
+    private long spillThreshold;
+    private SpillDirectory spillDirectory;
+    private SpillFile writtenRun;
+    private int writtenIndex;
+    private Traverser<T> resultTraverser;
+    private Merge merge;
+
+    public SortP(@Nonnull Comparator<? super T> comparator) {
+        this.comparator = comparator;
+    }
+
+    @Override
+    protected void init(@Nonnull Context context) {
+        spillThreshold = context.jobConfig().getSortSpillThreshold();
+        if (spillThreshold > 0) {
+            spillDirectory = new SpillDirectory(context, "jet-sort-");
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected boolean tryProcess(int ordinal, @Nonnull Object item) {
+        if (writtenRun != null && !writeRun()) {
+            return false;
+        }
+        buffer.add(((Entry<?, T>) item).getValue());
+        if (spillThreshold > 0 && buffer.size() >= spillThreshold) {
+            startRun();
+        }
+        return true;
+    }
+
+    @Override
+    public boolean complete() {
+        if (runs.isEmpty()) {
+            if (resultTraverser == null) {
+                buffer.sort(comparator);
+                resultTraverser = traverseIterable(buffer);
+            }
+            return emitFromTraverser(resultTraverser);
+        }
+        if (writtenRun != null && !writeRun()) {
+            return false;
+        }
+        try {
+            for (;;) {
+                if (merge == null) {
+                    if (runs.size() >= MERGE_FAN_IN) {
+                        List<SpillFile> mergedRuns = runs.subList(0, MERGE_FAN_IN);
+                        merge = new Merge(new ArrayList<>(mergedRuns), false, spillDirectory.newFile());
+                        mergedRuns.clear();
+                        lazyIncrement(spillMerges);
+                    } else {
+                        buffer.sort(comparator);
+                        merge = new Merge(runs, true, null);
+                    }
+                }
+                boolean done = merge.step();
+                spilledBytes.lazySet(spillDirectory.bytesWritten());
+                if (!done) {
+                    return false;
+                }
+                if (merge.output == null) {
+                    break;
+                }
+                runs.add(merge.output);
+                merge = null;
+            }
+        } catch (IOException e) {
+            throw sneakyThrow(e);
+        }
+        spillDirectory.delete();
+        spillDirectory = null;
+        return true;
+    }
+
+    @Override
+    public void close() {
+        if (spillDirectory != null) {
+            spillDirectory.delete();
+        }
+    }
+
+    private void startRun() {
+        buffer.sort(comparator);
+        writtenRun = spillDirectory.newFile();
+        runs.add(writtenRun);
+        writtenIndex = 0;
+        lazyIncrement(spillRuns);
+    }
+
+    /**
+     * Continues writing the run started by {@link #startRun()}. Returns
+     * {@code true}, if all buffered items are written and the buffer was
+     * cleared. Serializes at most one block per call.
+     */
+    private boolean writeRun() {
+        long bytesWritten = spillDirectory.bytesWritten();
+        try {
+            while (writtenIndex < buffer.size()) {
+                if (writtenRun.isFull()) {
+                    return false;
+                }
+                writtenRun.write(buffer.get(writtenIndex++));
+                if (spillDirectory.bytesWritten() != bytesWritten) {
+                    spilledBytes.lazySet(spillDirectory.bytesWritten());
+                    return false;
+                }
+            }
+        } catch (IOException e) {
+            throw sneakyThrow(e);
+        }
+        if (!writtenRun.flush()) {
+            return false;
+        }
+        spilledBytes.lazySet(spillDirectory.bytesWritten());
+        writtenRun = null;
+        buffer.clear();
+        return true;
+    }
+
+    /**
+     * A merge of sorted runs. The final merge, the one without an output
+     * file, emits the items, the others write them to the output run.
+     */
+    private final class Merge {
+        final SpillFile output;
+        private final PriorityQueue<RunCursor> queue;
+        private final List<RunCursor> unreadCursors;
+        private RunCursor pendingCursor;
+
+        Merge(List<SpillFile> inputs, boolean includeBuffer, SpillFile output) {
+            this.output = output;
+            queue = new PriorityQueue<>(inputs.size() + 1, (c1, c2) -> comparator.compare(c1.head, c2.head));
+            unreadCursors = new ArrayList<>(inputs.size() + 1);
+            if (includeBuffer) {
+                unreadCursors.add(new RunCursor(null));
+            }
+            for (SpillFile run : inputs) {
+                unreadCursors.add(new RunCursor(run));
+            }
+        }
+
+        /**
+         * Takes the smallest head of the runs until all runs are exhausted.
+         * Returns {@code true}, if they are and the output is flushed. Reads
+         * at most one block per call.
+         */
+        boolean step() throws IOException {
+            boolean blockRead = false;
+            for (;;) {
+                if (pendingCursor != null) {
+                    if (pendingCursor.needsBlock()) {
+                        if (blockRead) {
+                            return false;
+                        }
+                        ProgressState state = pendingCursor.run.readBlock();
+                        if (state == NO_PROGRESS) {
+                            return false;
+                        }
+                        if (state == DONE) {
+                            pendingCursor.run.close();
+                            pendingCursor = null;
+                            continue;
+                        }
+                        blockRead = true;
+                    }
+                    if (pendingCursor.next()) {
+                        queue.add(pendingCursor);
+                    }
+                    pendingCursor = null;
+                }
+                if (!unreadCursors.isEmpty()) {
+                    pendingCursor = unreadCursors.remove(unreadCursors.size() - 1);
+                    continue;
+                }
+                RunCursor cursor = queue.peek();
+                if (cursor == null) {
+                    return output == null || output.flush();
+                }
+                if (output == null) {
+                    if (!tryEmit(cursor.head)) {
+                        return false;
+                    }
+                } else {
+                    if (output.isFull()) {
+                        return false;
+                    }
+                    output.write(cursor.head);
+                }
+                pendingCursor = queue.poll();
+            }
+        }
+    }
+
+    /**
+     * The position in a sorted run: either a spill file or, if {@code run}
+     * is {@code null}, the in-memory buffer.
+     */
+    private final class RunCursor {
+        final SpillFile run;
+        int bufferIndex;
+        T head;
+
+        RunCursor(SpillFile run) {
+            this.run = run;
+        }
+
+        boolean needsBlock() {
+            return run != null && run.remainingInBlock() == 0;
+        }
+
+        /**
+         * Moves to the next item. Returns {@code false}, if the run is
+         * exhausted. Must not be called when {@link #needsBlock()}.
+         */
+        @SuppressWarnings("unchecked")
+        boolean next() throws IOException {
+            if (run != null) {
+                head = (T) run.read();
+                return true;
+            }
+            if (bufferIndex == buffer.size()) {
+                return false;
+            }
+            head = buffer.get(bufferIndex++);
+            return true;
+        }
+    }
+}
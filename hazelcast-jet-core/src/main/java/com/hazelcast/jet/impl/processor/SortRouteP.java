@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.internal.metrics.Probe;
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.Traversers;
+import com.hazelcast.jet.config.JobConfig;
+import com.hazelcast.jet.core.AbstractProcessor;
+import com.hazelcast.jet.impl.util.ProgressState;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.hazelcast.jet.Traversers.traverseIterable;
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.impl.util.ExceptionUtil.sneakyThrow;
+import static com.hazelcast.jet.impl.util.ProgressState.DONE;
+import static com.hazelcast.jet.impl.util.ProgressState.NO_PROGRESS;
+
+/**
+ * Second stage of the distributed sort. Receives the items from the local
+ * {@link SortSampleP} on ordinal 0 and the samples of all {@code
+ * SortSampleP} processors on ordinal 1. When the samples are complete, it
+ * sorts them and picks {@link #RANGE_COUNT}{@code - 1} range boundaries
+ * so that the total weight of the samples is about the same in every
+ * range. Every processor sees the same samples, so they all pick the same
+ * boundaries. Each item is then emitted as {@code entry(range, item)},
+ * where the range is the index of the first boundary not less than the
+ * item. A {@link RangePartitioner} routes the entries to the {@link SortP}
+ * processors.
+ * <p>
+ * The items that arrive before the boundaries are known are buffered. The
+ * boundaries are known only after all the input was sampled, therefore
+ * only the {@linkplain JobConfig#setSortSpillThreshold(long) sort spill
+ * threshold} or, if there's none, {@value #DEFAULT_BUFFER_LIMIT} items are
+ * kept in memory and the rest are written to a {@link SpillFile}. The file
+ * I/O runs on the spill I/O executor, the processor doesn't wait for it.
+ *
+ * @param <T> type of the sorted items
+ */
+public class SortRouteP<T> extends AbstractProcessor {
+
+    public static final int RANGE_COUNT = 1024;
+
+    /**
+     * The number of buffered items kept in memory if the job has no sort
+     * spill threshold.
+     */
+    static final int DEFAULT_BUFFER_LIMIT = 1 << 16;
+
+    // package-visible for test
+    @Probe
+    final AtomicLong spilledBytes = new AtomicLong();
+
+    private final Comparator<? super T> comparator;
+    private final List<Entry<Double, T>> samples = new ArrayList<>();
+    private final List<T> buffer = new ArrayList<>();
+    private final Traverser<Object> spillTraverser;
+    private T[] boundaries;
+
+    private long bufferLimit;
+    private SpillDirectory spillDirectory;
+    private SpillFile spillFile;
+    private boolean spillFlushed;
+    private Traverser<Object> bufferTraverser;
+    private Traverser<Object> blockTraverser;
+    private boolean drained;
+
+    @SuppressWarnings("unchecked")
+    public SortRouteP(@Nonnull Comparator<? super T> comparator) {
+        this.comparator = comparator;
+        this.spillTraverser = () -> spillFile.remainingInBlock() > 0 ? route((T) readSpilled()) : null;
+    }
+
+    @Override
+    protected void init(@Nonnull Context context) {
+        long spillThreshold = context.jobConfig().getSortSpillThreshold();
+        bufferLimit = spillThreshold > 0 ? spillThreshold : DEFAULT_BUFFER_LIMIT;
+        spillDirectory = new SpillDirectory(context, "jet-sort-route-");
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected boolean tryProcess(int ordinal, @Nonnull Object item) {
+        if (ordinal == 1) {
+            samples.add((Entry<Double, T>) item);
+            return true;
+        }
+        if (boundaries == null) {
+            return bufferItem((T) item);
+        }
+        return drainBuffered() && tryEmit(route((T) item));
+    }
+
+    @Override
+    public boolean completeEdge(int ordinal) {
+        if (ordinal == 1) {
+            boundaries = pickBoundaries();
+            samples.clear();
+        }
+        return true;
+    }
+
+    @Override
+    public boolean complete() {
+        return drainBuffered();
+    }
+
+    @Override
+    public void close() {
+        if (spillDirectory != null) {
+            spillDirectory.delete();
+        }
+    }
+
+    /**
+     * Returns the index of the first range boundary that is not less than
+     * the item or the number of boundaries, if all are less.
+     */
+    int range(T item) {
+        int low = 0;
+        int high = boundaries.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (comparator.compare(boundaries[mid], item) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Sorts the samples and picks the boundaries. Boundary {@code i} is the
+     * first sample at which the cumulative weight, including the sample,
+     * exceeds {@code (i + 1) / RANGE_COUNT} of the total weight. With equal
+     * weights that's the sample at index {@code (i + 1) * n / RANGE_COUNT}.
+     */
+    @SuppressWarnings("unchecked")
+    private T[] pickBoundaries() {
+        if (samples.isEmpty()) {
+            return (T[]) new Object[0];
+        }
+        samples.sort((e1, e2) -> comparator.compare(e1.getValue(), e2.getValue()));
+        double totalWeight = 0;
+        for (Entry<Double, T> sample : samples) {
+            totalWeight += sample.getKey();
+        }
+        T[] result = (T[]) new Object[RANGE_COUNT - 1];
+        int index = 0;
+        double cumulativeWeight = 0;
+        for (int i = 0; i < result.length; i++) {
+            double targetWeight = (i + 1) * totalWeight / RANGE_COUNT;
+            while (index < samples.size() - 1 && cumulativeWeight + samples.get(index).getKey() <= targetWeight) {
+                cumulativeWeight += samples.get(index).getKey();
+                index++;
+            }
+            result[i] = samples.get(index).getValue();
+        }
+        return result;
+    }
+
+    private Object route(T item) {
+        return entry(range(item), item);
+    }
+
+    /**
+     * Buffers an item that arrived before the range boundaries were known.
+     * Returns {@code false}, if the spill file is full.
+     */
+    private boolean bufferItem(T item) {
+        if (buffer.size() < bufferLimit) {
+            buffer.add(item);
+            return true;
+        }
+        if (spillFile == null) {
+            spillFile = spillDirectory.newFile();
+        }
+        if (spillFile.isFull()) {
+            return false;
+        }
+        try {
+            spillFile.write(item);
+        } catch (IOException e) {
+            throw sneakyThrow(e);
+        }
+        spilledBytes.lazySet(spillDirectory.bytesWritten());
+        return true;
+    }
+
+    /**
+     * Emits the items buffered before the range boundaries were known.
+     * Returns {@code true}, if all of them were emitted.
+     */
+    private boolean drainBuffered() {
+        if (drained) {
+            return true;
+        }
+        if (bufferTraverser == null) {
+            bufferTraverser = traverseIterable(buffer).map(this::route);
+        }
+        if (!emitFromTraverser(bufferTraverser)) {
+            return false;
+        }
+        if (!buffer.isEmpty()) {
+            buffer.clear();
+            bufferTraverser = Traversers.empty();
+        }
+        if (spillFile == null) {
+            drained = true;
+            return true;
+        }
+        if (!spillFlushed) {
+            if (!spillFile.flush()) {
+                return false;
+            }
+            spilledBytes.lazySet(spillDirectory.bytesWritten());
+            spillFlushed = true;
+        }
+        boolean blockRead = false;
+        while (blockTraverser == null || emitFromTraverser(blockTraverser)) {
+            if (blockRead) {
+                return false;
+            }
+            ProgressState state = spillFile.readBlock();
+            if (state == NO_PROGRESS) {
+                return false;
+            }
+            if (state == DONE) {
+                spillFile.close();
+                spillFile = null;
+                drained = true;
+                return true;
+            }
+            blockRead = true;
+            blockTraverser = spillTraverser;
+        }
+        return false;
+    }
+
+    private Object readSpilled() {
+        try {
+            return spillFile.read();
+        } catch (IOException e) {
+            throw sneakyThrow(e);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.core.AbstractProcessor;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.hazelcast.jet.Traversers.traverseIterable;
+import static com.hazelcast.jet.Util.entry;
+
+/**
+ * First stage of the distributed sort. Forwards the items to the {@link
+ * SortRouteP} on ordinal 0 and keeps a uniform random sample of them
+ * (reservoir sampling). When the input is exhausted it emits the sample
+ * on ordinal 1, which is broadcast to all {@code SortRouteP} processors.
+ * <p>
+ * The processors receive different numbers of items, but each keeps a
+ * sample of the same size. Therefore each sampled item is emitted as
+ * {@code entry(weight, item)}, where the weight is the number of input
+ * items the sampled item stands for.
+ */
+public class SortSampleP extends AbstractProcessor {
+
+    static final int SAMPLE_SIZE = 256;
+
+    private final List<Object> sample = new ArrayList<>(SAMPLE_SIZE);
+    private long itemCount;
+    private Traverser<Entry<Double, Object>> sampleTraverser;
+
+    @Override
+    protected boolean tryProcess(int ordinal, @Nonnull Object item) {
+        if (!tryEmit(0, item)) {
+            return false;
+        }
+        itemCount++;
+        if (sample.size() < SAMPLE_SIZE) {
+            sample.add(item);
+        } else {
+            long index = ThreadLocalRandom.current().nextLong(itemCount);
+            if (index < SAMPLE_SIZE) {
+                sample.set((int) index, item);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean complete() {
+        if (sampleTraverser == null) {
+            Double weight = (double) itemCount / Math.max(sample.size(), 1);
+            sampleTraverser = traverseIterable(sample).map(item -> entry(weight, item));
+        }
+        return emitFromTraverser(1, sampleTraverser);
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.instance.HazelcastInstanceImpl;
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.jet.config.JobConfig;
+import com.hazelcast.jet.core.Processor.Context;
+import com.hazelcast.nio.IOUtil;
+
+import javax.annotation.Nonnull;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.hazelcast.util.UuidUtil.newUnsecureUuidString;
+import static java.util.concurrent.CompletableFuture.allOf;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+/**
+ * A directory in the job's {@linkplain JobConfig#setSpillDirectory(String)
+ * spill directory} that holds the {@link SpillFile}s of one processor.
+ * <p>
+ * All file system access of the spill files, including creating and
+ * deleting the directory, runs on the {@value #IO_EXECUTOR_NAME} executor
+ * of the member, never on the processor's thread, which is a cooperative
+ * one.
+ */
+final class SpillDirectory {
+
+    static final String IO_EXECUTOR_NAME = "jet:spillIo";
+
+    private final InternalSerializationService serializationService;
+    private final Executor ioExecutor;
+    private final Path path;
+    private final Set<SpillFile> openFiles = new HashSet<>();
+    private CompletableFuture<Void> closedFiles = completedFuture(null);
+    private int fileSequence;
+    private long bytesWritten;
+
+    /**
+     * Doesn't create the directory yet, that's done when the first spill
+     * file is written.
+     */
+    SpillDirectory(@Nonnull Context context, @Nonnull String prefix) {
+        if (context.jetInstance() != null) {
+            HazelcastInstanceImpl hzInstance = (HazelcastInstanceImpl) context.jetInstance().getHazelcastInstance();
+            serializationService = hzInstance.getSerializationService();
+            ioExecutor = hzInstance.node.nodeEngine.getExecutionService().getExecutor(IO_EXECUTOR_NAME);
+        } else {
+            // the processor runs outside of a Jet cluster, in a test
+            serializationService = new DefaultSerializationServiceBuilder().build();
+            ioExecutor = ForkJoinPool.commonPool();
+        }
+        String parent = context.jobConfig().getSpillDirectory();
+        path = Paths.get(parent != null ? parent : System.getProperty("java.io.tmpdir"))
+                    .resolve(prefix + newUnsecureUuidString());
+    }
+
+    /**
+     * Returns a new empty spill file in the directory.
+     */
+    @Nonnull
+    SpillFile newFile() {
+        SpillFile file = new SpillFile(this, path.resolve("spill-" + fileSequence++));
+        openFiles.add(file);
+        return file;
+    }
+
+    /**
+     * Returns the total number of bytes written to the files of the
+     * directory.
+     */
+    long bytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Closes the open files and deletes the directory after all their I/O
+     * is done. Doesn't wait for the deletion.
+     */
+    void delete() {
+        for (SpillFile file : openFiles.toArray(new SpillFile[0])) {
+            file.close();
+        }
+        closedFiles.whenCompleteAsync((r, e) -> IOUtil.deleteQuietly(path.toFile()), ioExecutor);
+    }
+
+    InternalSerializationService serializationService() {
+        return serializationService;
+    }
+
+    Executor ioExecutor() {
+        return ioExecutor;
+    }
+
+    void blockWritten(int length) {
+        bytesWritten += length;
+    }
+
+    void fileClosed(SpillFile file, CompletableFuture<Void> closeFuture) {
+        openFiles.remove(file);
+        closedFiles = allOf(closedFiles, closeFuture);
+    }
+}
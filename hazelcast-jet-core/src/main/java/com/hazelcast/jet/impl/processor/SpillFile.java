@@ -0,0 +1,294 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.impl.util.ProgressState;
+import com.hazelcast.nio.BufferObjectDataInput;
+import com.hazelcast.nio.BufferObjectDataOutput;
+import com.hazelcast.nio.IOUtil;
+
+import javax.annotation.Nonnull;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static com.hazelcast.jet.impl.util.ExceptionUtil.peel;
+import static com.hazelcast.jet.impl.util.ExceptionUtil.sneakyThrow;
+import static com.hazelcast.jet.impl.util.ProgressState.DONE;
+import static com.hazelcast.jet.impl.util.ProgressState.MADE_PROGRESS;
+import static com.hazelcast.jet.impl.util.ProgressState.NO_PROGRESS;
+import static com.hazelcast.jet.impl.util.Util.uncheckCall;
+import static com.hazelcast.nio.Bits.INT_SIZE_IN_BYTES;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+
+/**
+ * A local file to which a processor spills serialized objects that don't
+ * fit into its memory budget. The objects are buffered and written in
+ * blocks: an {@code int} byte length, an {@code int} object count and the
+ * serialized objects. The blocks are read back in the order they were
+ * written.
+ * <p>
+ * The blocks are written and read on the I/O executor of the {@link
+ * SpillDirectory}, one at a time, and the methods never wait for them:
+ * the serialization runs on the caller's thread, but the file access
+ * doesn't. The next block is read ahead while the caller reads the
+ * current one.
+ */
+final class SpillFile {
+
+    static final int BLOCK_SIZE = 1 << 15;
+    private static final int HEADER_SIZE = 2 * INT_SIZE_IN_BYTES;
+
+    private final SpillDirectory directory;
+    private final Path path;
+    private final BufferObjectDataOutput out;
+    private int bufferedCount;
+    private long bytesWritten;
+
+    // the last I/O task, completed with the block it read or with null
+    private CompletableFuture<Block> pendingIo;
+    private CompletableFuture<Void> closeFuture;
+    // accessed only by the I/O tasks, they run one after another
+    private FileChannel channel;
+
+    private long readPosition;
+    private Block readAhead;
+    private BufferObjectDataInput in;
+    private int remainingInBlock;
+
+    SpillFile(@Nonnull SpillDirectory directory, @Nonnull Path path) {
+        this.directory = directory;
+        this.path = path;
+        this.out = directory.serializationService().createObjectDataOutput(BLOCK_SIZE);
+    }
+
+    /**
+     * Appends the object to the buffer. When the buffer becomes full, the
+     * method starts writing it to the file. The object is appended even if
+     * {@link #isFull()}, the buffer then grows over the block size.
+     */
+    void write(Object o) throws IOException {
+        out.writeObject(o);
+        bufferedCount++;
+        flushIfFull();
+    }
+
+    /**
+     * Appends both objects to the same block, see {@link #write(Object)}.
+     */
+    void write(Object o1, Object o2) throws IOException {
+        out.writeObject(o1);
+        out.writeObject(o2);
+        bufferedCount += 2;
+        flushIfFull();
+    }
+
+    /**
+     * Returns {@code true}, if the buffer is full and can't be written yet,
+     * because the previous block is still being written. The caller should
+     * stop writing and try again later.
+     */
+    boolean isFull() {
+        return out.position() >= BLOCK_SIZE && !flush();
+    }
+
+    /**
+     * Starts writing the buffered objects as a block. Returns {@code true},
+     * if the buffer is empty now, {@code false}, if the previous block is
+     * still being written.
+     */
+    boolean flush() {
+        if (!isIoDone()) {
+            return false;
+        }
+        if (bufferedCount == 0) {
+            return true;
+        }
+        byte[] bytes = out.toByteArray();
+        int count = bufferedCount;
+        out.clear();
+        bufferedCount = 0;
+        bytesWritten += HEADER_SIZE + bytes.length;
+        directory.blockWritten(HEADER_SIZE + bytes.length);
+        pendingIo = supplyAsync(() -> uncheckCall(() -> writeBlock(count, bytes)), directory.ioExecutor());
+        return true;
+    }
+
+    /**
+     * Prepares the next block for reading. Returns: <ul>
+     *     <li>{@code MADE_PROGRESS}, if the block is ready to be {@linkplain
+     *     #read() read}
+     *     <li>{@code NO_PROGRESS}, if it's still being read from the file,
+     *     call again later
+     *     <li>{@code DONE}, if all written blocks were already read
+     * </ul>
+     * Call {@link #flush()} until it returns {@code true} before reading the
+     * first block.
+     */
+    ProgressState readBlock() {
+        assert remainingInBlock == 0 : "the current block wasn't fully read";
+        assert bufferedCount == 0 : "the buffer wasn't flushed";
+        if (!isIoDone()) {
+            return NO_PROGRESS;
+        }
+        if (readAhead == null) {
+            if (readPosition == bytesWritten) {
+                return DONE;
+            }
+            startRead();
+            return NO_PROGRESS;
+        }
+        in = directory.serializationService().createObjectDataInput(readAhead.data);
+        remainingInBlock = readAhead.count;
+        readAhead = null;
+        if (readPosition < bytesWritten) {
+            startRead();
+        }
+        return MADE_PROGRESS;
+    }
+
+    /**
+     * Returns the number of objects of the current block that weren't read
+     * yet.
+     */
+    int remainingInBlock() {
+        return remainingInBlock;
+    }
+
+    /**
+     * Reads the next object of the current block.
+     */
+    Object read() throws IOException {
+        assert remainingInBlock > 0 : "no more objects in the current block";
+        remainingInBlock--;
+        return in.readObject();
+    }
+
+    /**
+     * Deletes the file after its pending I/O is done. Doesn't wait for the
+     * deletion.
+     */
+    CompletableFuture<Void> close() {
+        if (closeFuture == null) {
+            CompletableFuture<Block> previous = pendingIo != null ? pendingIo : completedFuture(null);
+            pendingIo = null;
+            readAhead = null;
+            in = null;
+            closeFuture = previous.handleAsync((r, e) -> {
+                IOUtil.closeResource(channel);
+                IOUtil.deleteQuietly(path.toFile());
+                return null;
+            }, directory.ioExecutor());
+            directory.fileClosed(this, closeFuture);
+        }
+        return closeFuture;
+    }
+
+    /**
+     * Returns {@code true}, if there's no pending I/O. Throws the failure of
+     * the last I/O, if it failed.
+     */
+    private boolean isIoDone() {
+        if (pendingIo == null) {
+            return true;
+        }
+        if (!pendingIo.isDone()) {
+            return false;
+        }
+        Block block;
+        try {
+            block = pendingIo.join();
+        } catch (CompletionException e) {
+            throw sneakyThrow(peel(e));
+        }
+        pendingIo = null;
+        if (block != null) {
+            readPosition += HEADER_SIZE + block.data.length;
+            readAhead = block;
+        }
+        return true;
+    }
+
+    private void flushIfFull() {
+        if (out.position() >= BLOCK_SIZE) {
+            flush();
+        }
+    }
+
+    private void startRead() {
+        long position = readPosition;
+        pendingIo = supplyAsync(() -> uncheckCall(() -> readBlockAt(position)), directory.ioExecutor());
+    }
+
+    private Block writeBlock(int count, byte[] bytes) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(bytes.length).putInt(count).flip();
+        ByteBuffer[] buffers = {header, ByteBuffer.wrap(bytes)};
+        FileChannel channel = channel();
+        while (buffers[1].hasRemaining()) {
+            channel.write(buffers);
+        }
+        return null;
+    }
+
+    private Block readBlockAt(long position) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(header, position);
+        header.flip();
+        int length = header.getInt();
+        int count = header.getInt();
+        ByteBuffer data = ByteBuffer.allocate(length);
+        readFully(data, position + HEADER_SIZE);
+        return new Block(count, data.array());
+    }
+
+    private FileChannel channel() throws IOException {
+        if (channel == null) {
+            Files.createDirectories(path.getParent());
+            channel = FileChannel.open(path, CREATE_NEW, READ, WRITE);
+        }
+        return channel;
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        FileChannel channel = channel();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of spill file " + path);
+            }
+        }
+    }
+
+    private static final class Block {
+        final int count;
+        final byte[] data;
+
+        Block(int count, byte[] data) {
+            this.count = count;
+            this.data = data;
+        }
+    }
+}
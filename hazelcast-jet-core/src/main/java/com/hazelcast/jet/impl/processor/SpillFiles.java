@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.impl.util.ProgressState;
+
+import java.io.IOException;
+import java.util.function.BiConsumer;
+
+import static com.hazelcast.jet.impl.util.ProgressState.MADE_PROGRESS;
+import static com.hazelcast.util.HashUtil.MurmurHash3_fmix;
+import static com.hazelcast.util.HashUtil.hashToIndex;
+
+/**
+ * Local files, one per partition, to which {@link GroupP} spills its
+ * key-accumulator pairs and {@link PartitionedHashJoinP} its key-item
+ * pairs. The pairs are partitioned by the key's hash code into {@link
+ * SpillFile}s.
+ * <p>
+ * A partition that doesn't fit into memory when it's read back is split
+ * into spill files of the next <em>level</em>, which partition the keys
+ * with a different hash function. The files are read one partition after
+ * another: {@link #currentPartition()} is the partition being read.
+ */
+final class SpillFiles {
+
+    /**
+     * The deepest level of a split. The keys in a partition of this level
+     * are likely to have equal hash codes, splitting it further wouldn't
+     * help.
+     */
+    static final int MAX_LEVEL = 8;
+
+    private static final int LEVEL_SEED = 0x9e3779b9;
+
+    private final SpillFile[] files;
+    private final int level;
+    private int currentPartition;
+
+    SpillFiles(SpillDirectory directory, int partitionCount, int level) {
+        this.files = new SpillFile[partitionCount];
+        this.level = level;
+        for (int i = 0; i < partitionCount; i++) {
+            files[i] = directory.newFile();
+        }
+    }
+
+    int partitionCount() {
+        return files.length;
+    }
+
+    int level() {
+        return level;
+    }
+
+    /**
+     * Returns {@code true}, if a partition of these files can be split
+     * further.
+     */
+    boolean canSplit() {
+        return level < MAX_LEVEL;
+    }
+
+    /**
+     * Appends the pair to the buffer of the key's partition. Returns {@code
+     * false} and doesn't append the pair, if the buffer is full and can't be
+     * written yet. The caller should stop writing and try again later.
+     */
+    boolean tryWrite(Object key, Object value) throws IOException {
+        SpillFile file = files[partition(key)];
+        if (file.isFull()) {
+            return false;
+        }
+        file.write(key, value);
+        return true;
+    }
+
+    /**
+     * Appends the pair to the buffer of the key's partition, even if it's
+     * full.
+     */
+    void write(Object key, Object value) throws IOException {
+        files[partition(key)].write(key, value);
+    }
+
+    /**
+     * Returns {@code true}, if any buffer {@linkplain SpillFile#isFull() is
+     * full}.
+     */
+    boolean isFull() {
+        for (SpillFile file : files) {
+            if (file.isFull()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Starts writing the non-empty buffers. Returns {@code true}, if all
+     * buffers are empty: all pairs are then written or being written to the
+     * files and they can be read.
+     */
+    boolean flush() {
+        boolean flushed = true;
+        for (SpillFile file : files) {
+            flushed &= file.flush();
+        }
+        return flushed;
+    }
+
+    /**
+     * Returns the partition being read or {@link #partitionCount()}, if all
+     * partitions were read.
+     */
+    int currentPartition() {
+        return currentPartition;
+    }
+
+    /**
+     * Reads the next block of the current partition and passes its pairs to
+     * the consumer. Returns the {@linkplain SpillFile#readBlock() progress}
+     * of the read.
+     */
+    ProgressState readBlock(BiConsumer<Object, Object> consumer) throws IOException {
+        SpillFile file = files[currentPartition];
+        ProgressState state = file.readBlock();
+        if (state == MADE_PROGRESS) {
+            while (file.remainingInBlock() > 0) {
+                Object key = file.read();
+                Object value = file.read();
+                consumer.accept(key, value);
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Deletes the file of the current partition and moves to the next one.
+     */
+    void nextPartition() {
+        files[currentPartition++].close();
+    }
+
+    private int partition(Object key) {
+        int hash = key.hashCode();
+        // a different hash function on each level, so that the keys of one
+        // partition are spread over all partitions of the next level
+        return hashToIndex(level == 0 ? hash : MurmurHash3_fmix(hash + level * LEVEL_SEED), files.length);
+    }
+}
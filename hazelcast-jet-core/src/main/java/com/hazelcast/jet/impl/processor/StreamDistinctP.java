@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.internal.metrics.Probe;
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.core.AbstractProcessor;
+import com.hazelcast.jet.core.BroadcastKey;
+import com.hazelcast.jet.core.Watermark;
+
+import javax.annotation.Nonnull;
+import java.util.HashSet;
+import java.util.Map.Entry;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import static com.hazelcast.jet.Traversers.singleton;
+import static com.hazelcast.jet.Traversers.traverseIterable;
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.core.BroadcastKey.broadcastKey;
+import static com.hazelcast.jet.impl.util.Util.lazyAdd;
+import static com.hazelcast.jet.impl.util.Util.lazyIncrement;
+import static com.hazelcast.jet.impl.util.Util.logLateEvent;
+import static com.hazelcast.jet.impl.util.Util.subtractClamped;
+import static com.hazelcast.util.Preconditions.checkTrue;
+import static java.lang.Math.floorMod;
+import static java.lang.Math.max;
+
+/**
+ * Streaming processor that emits an item only if no other item with the
+ * same key was seen during the last {@code timeToLive} units of event time.
+ * The inbound edge must be partitioned by the key.
+ * <p>
+ * The seen keys are stored in time buckets by the timestamp of the item
+ * and a watermark drops the buckets whose items are all older than {@code
+ * watermark - timeToLive}. A key is therefore remembered for at least
+ * {@code timeToLive} and at most 25% longer. Items older than the oldest
+ * kept bucket are dropped as late.
+ * <p>
+ * In the exact mode the buckets store the keys. If the number of stored
+ * keys reaches {@code maxKeys}, the oldest bucket is dropped early and a
+ * key from it can be emitted again. In the approximate mode each bucket is
+ * a {@link BloomFilter} sized for {@code expectedKeys}: its memory doesn't
+ * grow with the number of keys, but an item can be wrongly dropped as a
+ * duplicate with the given false-positive rate.
+ * <p>
+ * In the exact mode each key is saved to the snapshot partitioned by
+ * itself. The Bloom filters can't be split by key, so they are broadcast
+ * and each processor restores the union of the filters of all processors.
+ * The filters are sized for all the keys so the union is as precise as
+ * each single filter was.
+ *
+ * @param <K> type of the key
+ */
+public class StreamDistinctP<K> extends AbstractProcessor {
+
+    private static final int BUCKETS_PER_TTL = 4;
+
+    @Probe
+    private final AtomicLong lateEventsDropped = new AtomicLong();
+    @Probe
+    private final AtomicLong duplicatesDropped = new AtomicLong();
+    @Probe
+    private final AtomicLong storedKeys = new AtomicLong();
+
+    private final Function<Object, ? extends K> keyFn;
+    private final ToLongFunction<Object> timestampFn;
+    private final long timeToLive;
+    private final long maxKeys;
+    private final long expectedKeys;
+    private final double falsePositiveRate;
+    private final long bucketSize;
+
+    // package-visible for test
+    final NavigableMap<Long, DistinctKeyStore> buckets = new TreeMap<>();
+
+    private long keyCount;
+    private long currentWatermark = Long.MIN_VALUE;
+    private long minRestoredCurrentWatermark = Long.MAX_VALUE;
+    private long minBucket = Long.MIN_VALUE;
+    private Traverser<Entry<?, ?>> snapshotTraverser;
+
+    /**
+     * Creates a processor that stores the keys exactly, up to {@code
+     * maxKeys} keys.
+     */
+    public StreamDistinctP(
+            @Nonnull Function<?, ? extends K> keyFn,
+            @Nonnull ToLongFunction<?> timestampFn,
+            long timeToLive,
+            long maxKeys
+    ) {
+        this(keyFn, timestampFn, timeToLive, maxKeys, 0, 0);
+    }
+
+    /**
+     * Creates a processor that stores the keys in Bloom filters sized for
+     * {@code expectedKeys} keys in {@code timeToLive}.
+     */
+    public StreamDistinctP(
+            @Nonnull Function<?, ? extends K> keyFn,
+            @Nonnull ToLongFunction<?> timestampFn,
+            long timeToLive,
+            long expectedKeys,
+            double falsePositiveRate
+    ) {
+        this(keyFn, timestampFn, timeToLive, Long.MAX_VALUE, expectedKeys, falsePositiveRate);
+        checkTrue(expectedKeys > 0, "expectedKeys must be positive");
+        checkTrue(falsePositiveRate > 0 && falsePositiveRate < 1, "falsePositiveRate must be between 0 and 1");
+    }
+
+    @SuppressWarnings("unchecked")
+    private StreamDistinctP(
+            @Nonnull Function<?, ? extends K> keyFn,
+            @Nonnull ToLongFunction<?> timestampFn,
+            long timeToLive,
+            long maxKeys,
+            long expectedKeys,
+            double falsePositiveRate
+    ) {
+        checkTrue(timeToLive > 0, "timeToLive must be positive");
+        checkTrue(maxKeys > 0, "maxKeys must be positive");
+        this.keyFn = (Function<Object, ? extends K>) keyFn;
+        this.timestampFn = (ToLongFunction<Object>) timestampFn;
+        this.timeToLive = timeToLive;
+        this.maxKeys = maxKeys;
+        this.expectedKeys = expectedKeys;
+        this.falsePositiveRate = falsePositiveRate;
+        this.bucketSize = max(1, timeToLive / BUCKETS_PER_TTL);
+    }
+
+    @Override
+    protected boolean tryProcess(int ordinal, @Nonnull Object item) {
+        long timestamp = timestampFn.applyAsLong(item);
+        if (timestamp < minBucket) {
+            logLateEvent(getLogger(), currentWatermark, item);
+            lazyIncrement(lateEventsDropped);
+            return true;
+        }
+        K key = keyFn.apply(item);
+        for (DistinctKeyStore keys : buckets.values()) {
+            if (keys.contains(key)) {
+                lazyIncrement(duplicatesDropped);
+                return true;
+            }
+        }
+        // store the key only after the item is emitted, otherwise the retry would drop it
+        if (!tryEmit(item)) {
+            return false;
+        }
+        while (keyCount >= maxKeys) {
+            removeBucket(buckets.firstEntry().getValue());
+            buckets.pollFirstEntry();
+        }
+        buckets.computeIfAbsent(bucket(timestamp), x -> newKeyStore()).add(key);
+        keyCount++;
+        lazyIncrement(storedKeys);
+        return true;
+    }
+
+    @Override
+    public boolean tryProcessWatermark(@Nonnull Watermark watermark) {
+        currentWatermark = watermark.timestamp();
+        evict();
+        return tryEmit(watermark);
+    }
+
+    @Override
+    public boolean saveToSnapshot() {
+        if (snapshotTraverser == null) {
+            snapshotTraverser = traverseIterable(buckets.entrySet())
+                    .<Entry<?, ?>>flatMap(e -> isApproximate()
+                            ? singleton(entry(broadcastKey(e.getKey()), ((BloomFilter) e.getValue()).words()))
+                            : traverseIterable((KeySet) e.getValue()).map(key -> entry(key, e.getKey())))
+                    .append(entry(broadcastKey(Keys.CURRENT_WATERMARK), currentWatermark))
+                    .onFirstNull(() -> snapshotTraverser = null);
+        }
+        return emitFromTraverserToSnapshot(snapshotTraverser);
+    }
+
+    @Override
+    protected void restoreFromSnapshot(@Nonnull Object key, @Nonnull Object value) {
+        // the bucket size can be different if the timeToLive was changed in the updated DAG
+        if (key instanceof BroadcastKey) {
+            Object bcastKey = ((BroadcastKey) key).key();
+            if (Keys.CURRENT_WATERMARK.equals(bcastKey)) {
+                minRestoredCurrentWatermark = Math.min((long) value, minRestoredCurrentWatermark);
+            } else {
+                ((BloomFilter) buckets.computeIfAbsent(bucket((Long) bcastKey), x -> newKeyStore()))
+                        .merge((long[]) value);
+            }
+            return;
+        }
+        if (buckets.computeIfAbsent(bucket((Long) value), x -> newKeyStore()).add(key)) {
+            keyCount++;
+            lazyIncrement(storedKeys);
+        }
+    }
+
+    @Override
+    public boolean finishSnapshotRestore() {
+        if (minRestoredCurrentWatermark != Long.MAX_VALUE) {
+            currentWatermark = minRestoredCurrentWatermark;
+            evict();
+        }
+        return true;
+    }
+
+    /**
+     * Removes the buckets that only contain keys older than {@code
+     * currentWatermark - timeToLive}.
+     */
+    private void evict() {
+        long newMinBucket = bucket(subtractClamped(currentWatermark, timeToLive));
+        if (newMinBucket <= minBucket) {
+            return;
+        }
+        minBucket = newMinBucket;
+        NavigableMap<Long, DistinctKeyStore> expired = buckets.headMap(minBucket, false);
+        for (DistinctKeyStore keys : expired.values()) {
+            removeBucket(keys);
+        }
+        expired.clear();
+    }
+
+    private boolean isApproximate() {
+        return expectedKeys > 0;
+    }
+
+    private DistinctKeyStore newKeyStore() {
+        return isApproximate()
+                ? new BloomFilter(max(1, expectedKeys / BUCKETS_PER_TTL), falsePositiveRate / (BUCKETS_PER_TTL + 1))
+                : new KeySet();
+    }
+
+    private void removeBucket(DistinctKeyStore keys) {
+        keyCount -= keys.size();
+        lazyAdd(storedKeys, -keys.size());
+    }
+
+    private long bucket(long timestamp) {
+        // clamped to not overflow for timestamps near Long.MIN_VALUE
+        return subtractClamped(timestamp, floorMod(timestamp, bucketSize));
+    }
+
+    enum Keys {
+        CURRENT_WATERMARK
+    }
+
+    private static final class KeySet extends HashSet<Object> implements DistinctKeyStore {
+        private static final long serialVersionUID = 1L;
+    }
+}
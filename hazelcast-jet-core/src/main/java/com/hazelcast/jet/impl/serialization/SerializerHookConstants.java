@@ -54,6 +54,9 @@ public final class SerializerHookConstants {
     public static final int JET_EVENT = -324;
     public static final int TIMESTAMPED_ITEM = -325;
     public static final int PRIORITY_QUEUE = -326;
+    public static final int HYPER_LOG_LOG_ACC = -327;
+    public static final int QUANTILES_ACC = -328;
+    public static final int FREQUENT_ITEMS_ACC = -329;
 
 
     // reserved for hadoop module: -380 to -390
@@ -18,8 +18,10 @@ package com.hazelcast.jet.impl.util;
 
 import com.hazelcast.jet.core.Inbox;
 
+import javax.annotation.Nullable;
 import java.util.ArrayDeque;
 import java.util.Deque;
+import java.util.function.UnaryOperator;
 
 /**
  * An {@link Inbox} implementation backed by an {@link ArrayDeque}.
@@ -28,12 +30,25 @@ public final class ArrayDequeInbox implements Inbox {
 
     private final ProgressTracker progTracker;
     private final ArrayDeque<Object> queue = new ArrayDeque<>();
+    private final UnaryOperator<Object> firstAccessFn;
 
     /**
      * Constructs the inbox with the provided progress tracker.
      */
     public ArrayDequeInbox(ProgressTracker progTracker) {
+        this(progTracker, null);
+    }
+
+    /**
+     * Constructs the inbox with the provided progress tracker and a function
+     * applied to an item when it's first {@linkplain #peek() peeked} or
+     * {@linkplain #poll() polled}, the inbox then returns the function's
+     * result instead of the item. Items {@linkplain #remove() removed}
+     * without being accessed aren't passed to the function.
+     */
+    public ArrayDequeInbox(ProgressTracker progTracker, @Nullable UnaryOperator<Object> firstAccessFn) {
         this.progTracker = progTracker;
+        this.firstAccessFn = firstAccessFn;
     }
 
     @Override
@@ -43,12 +58,25 @@ public final class ArrayDequeInbox implements Inbox {
 
     @Override
     public Object peek() {
-        return queue.peek();
+        Object item = queue.peek();
+        if (item == null || firstAccessFn == null) {
+            return item;
+        }
+        Object result = firstAccessFn.apply(item);
+        if (result != item) {
+            // replace the head so that the function isn't applied again
+            queue.poll();
+            queue.addFirst(result);
+        }
+        return result;
     }
 
     @Override
     public Object poll() {
         Object result = queue.poll();
+        if (result != null && firstAccessFn != null) {
+            result = firstAccessFn.apply(result);
+        }
         progTracker.madeProgress(result != null);
         return result;
     }
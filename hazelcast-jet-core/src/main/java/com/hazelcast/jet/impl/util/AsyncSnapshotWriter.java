@@ -40,6 +40,12 @@ public interface AsyncSnapshotWriter {
 
     boolean isEmpty();
 
+    /**
+     * Releases the resources held by the writer.
+     */
+    default void close() {
+    }
+
     long getTotalPayloadBytes();
     long getTotalKeys();
     long getTotalChunks();
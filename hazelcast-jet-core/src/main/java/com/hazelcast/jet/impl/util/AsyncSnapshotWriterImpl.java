@@ -18,12 +18,14 @@ package com.hazelcast.jet.impl.util;
 
 import com.hazelcast.core.ExecutionCallback;
 import com.hazelcast.core.HazelcastInstanceNotActiveException;
-import com.hazelcast.core.ICompletableFuture;
 import com.hazelcast.core.IMap;
 import com.hazelcast.core.PartitionAware;
 import com.hazelcast.internal.serialization.impl.HeapData;
 import com.hazelcast.internal.serialization.impl.SerializationConstants;
+import com.hazelcast.jet.config.CompressionType;
+import com.hazelcast.jet.core.SnapshotChunkStore;
 import com.hazelcast.jet.impl.JetService;
+import com.hazelcast.jet.impl.JobRepository;
 import com.hazelcast.jet.impl.execution.SnapshotContext;
 import com.hazelcast.jet.impl.execution.init.JetInitDataSerializerHook;
 import com.hazelcast.logging.ILogger;
@@ -43,10 +45,25 @@ import java.nio.ByteOrder;
 import java.util.Arrays;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 
+import static com.hazelcast.jet.impl.util.Util.lazyAdd;
+
+/**
+ * Writes the snapshot entries to the snapshot map. The serialized entries
+ * are packed into a chunk per partition, each chunk is stored as a single
+ * {@code byte[]} value terminated by {@link SnapshotDataValueTerminator}.
+ * <p>
+ * If a {@link CompressionType} is configured, each chunk is compressed
+ * separately. The compressed value consists of the length of the
+ * uncompressed chunk (a big-endian int) followed by the compressed chunk.
+ * The compression type is stored in the {@link SnapshotDataKey}, a chunk
+ * that doesn't get smaller is stored uncompressed.
+ */
 public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
 
     public static final int DEFAULT_CHUNK_SIZE = 128 * 1024;
@@ -67,7 +84,13 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
     private final SnapshotContext snapshotContext;
     private final String vertexName;
     private final int memberCount;
-    private IMap currentMap;
+    private final boolean incremental;
+    private final CompressionType compression;
+    private final BlockCodec codec;
+    private byte[] compressBuffer = {};
+    private final SnapshotChunkStore chunkStore;
+    private IMap<Object, Object> currentMap;
+    private SnapshotChunkStore currentChunkStore;
     private long currentSnapshotId;
     private final AtomicReference<Throwable> firstError = new AtomicReference<>();
     private final AtomicInteger numActiveFlushes = new AtomicInteger();
@@ -77,6 +100,10 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
     private long totalChunks;
     private long totalPayloadBytes;
 
+    // metrics, cumulative for all snapshots
+    private final AtomicLong rawBytesCounter = new AtomicLong();
+    private final AtomicLong storedBytesCounter = new AtomicLong();
+
     private final ExecutionCallback<Object> callback = new ExecutionCallback<Object>() {
         @Override
         public void onResponse(Object response) {
@@ -94,20 +121,31 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
         }
     };
 
+    /**
+     * @param incremental if the vertex supports incremental snapshots, see
+     *      {@link SnapshotDataKey#isIncremental()}
+     * @param compression the codec used to compress the chunks
+     */
     public AsyncSnapshotWriterImpl(NodeEngine nodeEngine, SnapshotContext snapshotContext, String vertexName,
-                                   int memberIndex, int memberCount) {
-        this(DEFAULT_CHUNK_SIZE, nodeEngine, snapshotContext, vertexName, memberIndex, memberCount);
+                                   int memberIndex, int memberCount, boolean incremental,
+                                   CompressionType compression) {
+        this(DEFAULT_CHUNK_SIZE, nodeEngine, snapshotContext, vertexName, memberIndex, memberCount, incremental,
+                compression);
     }
 
     // for test
     AsyncSnapshotWriterImpl(int chunkSize, NodeEngine nodeEngine, SnapshotContext snapshotContext,
-                            String vertexName, int memberIndex, int memberCount) {
+                            String vertexName, int memberIndex, int memberCount, boolean incremental,
+                            CompressionType compression) {
         this.nodeEngine = nodeEngine;
         this.partitionService = nodeEngine.getPartitionService();
         this.logger = nodeEngine.getLogger(getClass());
         this.snapshotContext = snapshotContext;
         this.vertexName = vertexName;
         this.memberCount = memberCount;
+        this.incremental = incremental;
+        this.compression = compression;
+        this.codec = BlockCodec.newCodec(compression);
         currentSnapshotId = snapshotContext.currentSnapshotId();
 
         useBigEndian = !nodeEngine.getHazelcastInstance().getConfig().getSerializationConfig().isUseNativeByteOrder()
@@ -127,6 +165,7 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
         this.partitionSequence = memberIndex;
 
         this.numConcurrentAsyncOps = jetService.numConcurrentAsyncOps();
+        this.chunkStore = jetService.getSnapshotChunkStore();
 
         byte[] valueTerminatorWithHeader = nodeEngine.getSerializationService().toData(
                 SnapshotDataValueTerminator.INSTANCE).toByteArray();
@@ -229,13 +268,29 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
         try {
             // we put a Data instance to the map directly to avoid the serialization of the byte array
             Data data = dataSupplier.get();
+            lazyAdd(rawBytesCounter, data.dataSize());
+            CompressionType chunkCompression = CompressionType.NONE;
+            if (codec != null) {
+                Data compressed = compress(data);
+                if (compressed != null) {
+                    data = compressed;
+                    chunkCompression = compression;
+                }
+            }
+            lazyAdd(storedBytesCounter, data.dataSize());
             totalPayloadBytes += data.dataSize();
             totalChunks++;
-            ICompletableFuture<Object> future = currentMap.putAsync(
-                    new SnapshotDataKey(partitionKeys[partitionId], currentSnapshotId, vertexName, partitionSequence),
-                    data);
+            SnapshotDataKey key = new SnapshotDataKey(partitionKeys[partitionId], currentSnapshotId, vertexName,
+                    partitionSequence, incremental, chunkCompression);
+            CompletableFuture<Object> future = currentChunkStore.put(currentMap, key, data);
             partitionSequence += memberCount;
-            future.andThen(callback);
+            future.whenComplete((r, t) -> {
+                if (t == null) {
+                    callback.onResponse(r);
+                } else {
+                    callback.onFailure(t);
+                }
+            });
             numActiveFlushes.incrementAndGet();
         } catch (HazelcastInstanceNotActiveException ignored) {
             return false;
@@ -243,6 +298,30 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
         return true;
     }
 
+    /**
+     * Compresses the chunk following the serialization header. Returns {@code
+     * null}, if the compressed chunk isn't smaller than the original.
+     */
+    private Data compress(Data data) {
+        byte[] bytes = data.toByteArray();
+        int headerLength = serializedByteArrayHeader.length;
+        int chunkLength = bytes.length - headerLength;
+        int compressedOffset = headerLength + Bits.INT_SIZE_IN_BYTES;
+        int maxLength = compressedOffset + codec.maxCompressedLength(chunkLength);
+        if (compressBuffer.length < maxLength) {
+            compressBuffer = new byte[maxLength];
+        }
+        int compressedLength = codec.compress(bytes, headerLength, chunkLength, compressBuffer, compressedOffset);
+        if (Bits.INT_SIZE_IN_BYTES + compressedLength >= chunkLength) {
+            return null;
+        }
+        System.arraycopy(bytes, 0, compressBuffer, 0, headerLength);
+        Bits.writeInt(compressBuffer, headerLength, chunkLength, true);
+        byte[] compressed = Arrays.copyOf(compressBuffer, compressedOffset + compressedLength);
+        updateSerializedBytesLength(compressed);
+        return new HeapData(compressed);
+    }
+
     private boolean initCurrentMap() {
         if (currentMap == null) {
             String mapName = snapshotContext.currentMapName();
@@ -250,6 +329,10 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
                 return false;
             }
             currentMap = nodeEngine.getHazelcastInstance().getMap(mapName);
+            // exported snapshots must be self-contained, they are always stored in the map
+            currentChunkStore = mapName.startsWith(JobRepository.EXPORTED_SNAPSHOTS_PREFIX)
+                    ? MapSnapshotChunkStore.INSTANCE
+                    : chunkStore;
             this.currentSnapshotId = snapshotContext.currentSnapshotId();
         }
         return true;
@@ -278,8 +361,8 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
         // we're done
         currentMap = null;
         if (logger.isFineEnabled()) {
-            logger.fine(String.format("Stats for %s: keys=%,d, chunks=%,d, bytes=%,d",
-                    vertexName, totalKeys, totalChunks, totalPayloadBytes));
+            logger.fine(String.format("Stats for %s: keys=%,d, chunks=%,d, bytes=%,d, compression=%s",
+                    vertexName, totalKeys, totalChunks, totalPayloadBytes, compression));
         }
         return true;
     }
@@ -299,6 +382,13 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
         return firstError.getAndSet(null);
     }
 
+    @Override
+    public void close() {
+        if (codec != null) {
+            codec.close();
+        }
+    }
+
     @Override
     public boolean isEmpty() {
         return numActiveFlushes.get() == 0 && Arrays.stream(buffers).allMatch(this::containsOnlyHeader);
@@ -308,21 +398,51 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
         return partitionKeys[partitionId];
     }
 
+    /**
+     * Returns the counter of the bytes of all the chunks before compression.
+     */
+    public AtomicLong getRawBytesCounter() {
+        return rawBytesCounter;
+    }
+
+    /**
+     * Returns the counter of the bytes of all the chunks as stored in the
+     * snapshot map. It's equal to the {@linkplain #getRawBytesCounter() raw
+     * bytes}, if the snapshot isn't compressed.
+     */
+    public AtomicLong getStoredBytesCounter() {
+        return storedBytesCounter;
+    }
+
     public static final class SnapshotDataKey implements IdentifiedDataSerializable, PartitionAware {
         private int partitionKey;
         private long snapshotId;
         private String vertexName;
         private int sequence;
+        private boolean incremental;
+        private CompressionType compression = CompressionType.NONE;
 
         // for deserialization
         public SnapshotDataKey() {
         }
 
         public SnapshotDataKey(int partitionKey, long snapshotId, String vertexName, int sequence) {
+            this(partitionKey, snapshotId, vertexName, sequence, false);
+        }
+
+        public SnapshotDataKey(int partitionKey, long snapshotId, String vertexName, int sequence,
+                               boolean incremental) {
+            this(partitionKey, snapshotId, vertexName, sequence, incremental, CompressionType.NONE);
+        }
+
+        public SnapshotDataKey(int partitionKey, long snapshotId, String vertexName, int sequence,
+                               boolean incremental, CompressionType compression) {
             this.partitionKey = partitionKey;
             this.snapshotId = snapshotId;
             this.vertexName = vertexName;
             this.sequence = sequence;
+            this.incremental = incremental;
+            this.compression = compression;
         }
 
         @Override
@@ -338,6 +458,23 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
             return vertexName;
         }
 
+        /**
+         * Returns true if the chunk was written by a vertex that supports
+         * incremental snapshots. Such a chunk is a part of the state until the
+         * next full snapshot, even if later snapshots were taken. Other chunks
+         * are only valid for their own snapshot.
+         */
+        public boolean isIncremental() {
+            return incremental;
+        }
+
+        /**
+         * Returns the codec with which the chunk is compressed.
+         */
+        public CompressionType compression() {
+            return compression;
+        }
+
         @Override
         public String toString() {
             return "SnapshotDataKey{" +
@@ -345,6 +482,8 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
                     ", snapshotId=" + snapshotId +
                     ", vertexName='" + vertexName + '\'' +
                     ", sequence=" + sequence +
+                    (incremental ? ", incremental" : "") +
+                    (compression != CompressionType.NONE ? ", compression=" + compression : "") +
                     '}';
         }
 
@@ -364,6 +503,8 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
             out.writeLong(snapshotId);
             out.writeUTF(vertexName);
             out.writeInt(sequence);
+            out.writeBoolean(incremental);
+            out.writeByte(compression.ordinal());
         }
 
         @Override
@@ -372,6 +513,8 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
             snapshotId = in.readLong();
             vertexName = in.readUTF();
             sequence = in.readInt();
+            incremental = in.readBoolean();
+            compression = CompressionType.values()[in.readByte()];
         }
 
         @Override
@@ -386,12 +529,14 @@ public class AsyncSnapshotWriterImpl implements AsyncSnapshotWriter {
             return partitionKey == that.partitionKey &&
                     snapshotId == that.snapshotId &&
                     sequence == that.sequence &&
+                    incremental == that.incremental &&
+                    compression == that.compression &&
                     Objects.equals(vertexName, that.vertexName);
         }
 
         @Override
         public int hashCode() {
-            return Objects.hash(partitionKey, snapshotId, vertexName, sequence);
+            return Objects.hash(partitionKey, snapshotId, vertexName, sequence, incremental, compression);
         }
     }
 
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.util;
+
+import com.hazelcast.jet.config.CompressionType;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Compresses and decompresses blocks of bytes. The decompressing side must
+ * know the exact length of the uncompressed block, so it must be transferred
+ * together with the compressed data.
+ * <p>
+ * An instance isn't thread-safe, but it can be reused for any number of
+ * blocks.
+ */
+public interface BlockCodec {
+
+    /**
+     * Returns the maximum length of the compressed form of a block of the
+     * given length. The compressed form of incompressible data can be
+     * slightly larger than the original.
+     */
+    int maxCompressedLength(int length);
+
+    /**
+     * Compresses {@code srcLen} bytes from {@code src}, starting at {@code
+     * srcOff}, into {@code dst}, starting at {@code dstOff}. There must be at
+     * least {@link #maxCompressedLength(int) maxCompressedLength(srcLen)}
+     * bytes available in {@code dst}.
+     *
+     * @return the length of the compressed data
+     */
+    int compress(@Nonnull byte[] src, int srcOff, int srcLen, @Nonnull byte[] dst, int dstOff);
+
+    /**
+     * Decompresses {@code srcLen} bytes of compressed data from {@code src},
+     * starting at {@code srcOff}, into {@code dst}, starting at {@code
+     * dstOff}. {@code dstLen} must be the exact length of the uncompressed
+     * data.
+     *
+     * @throws IllegalArgumentException if the data is malformed
+     */
+    void decompress(@Nonnull byte[] src, int srcOff, int srcLen, @Nonnull byte[] dst, int dstOff, int dstLen);
+
+    /**
+     * Releases the resources held by this codec. The codec can't be used
+     * after this call.
+     */
+    default void close() {
+    }
+
+    /**
+     * Returns a new codec of the given type or {@code null} for {@link
+     * CompressionType#NONE}.
+     */
+    @Nullable
+    static BlockCodec newCodec(@Nonnull CompressionType type) {
+        switch (type) {
+            case NONE:
+                return null;
+            case LZ4:
+                return new Lz4BlockCodec();
+            case DEFLATE:
+                return new DeflateBlockCodec();
+            default:
+                throw new IllegalArgumentException("Unknown compression type: " + type);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.util;
+
+import javax.annotation.Nonnull;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A {@link BlockCodec} using {@link Deflater} at its fastest level. The
+ * deflater and inflater hold native memory, therefore {@link #close()}
+ * should be called when the codec is no longer needed.
+ */
+public class DeflateBlockCodec implements BlockCodec {
+
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final Inflater inflater = new Inflater();
+    private final byte[] overflowBuffer = new byte[1];
+
+    @Override
+    public int maxCompressedLength(int length) {
+        // the bound used by zlib's compressBound()
+        return length + (length >> 12) + (length >> 14) + (length >> 25) + 13;
+    }
+
+    @Override
+    public int compress(@Nonnull byte[] src, int srcOff, int srcLen, @Nonnull byte[] dst, int dstOff) {
+        deflater.reset();
+        deflater.setInput(src, srcOff, srcLen);
+        deflater.finish();
+        int dOff = dstOff;
+        while (!deflater.finished()) {
+            int written = deflater.deflate(dst, dOff, dst.length - dOff);
+            if (written == 0 && dOff == dst.length) {
+                throw new IllegalArgumentException("Destination buffer too small");
+            }
+            dOff += written;
+        }
+        return dOff - dstOff;
+    }
+
+    @Override
+    public void decompress(@Nonnull byte[] src, int srcOff, int srcLen, @Nonnull byte[] dst, int dstOff, int dstLen) {
+        inflater.reset();
+        inflater.setInput(src, srcOff, srcLen);
+        try {
+            int dOff = dstOff;
+            int dEnd = dstOff + dstLen;
+            while (!inflater.finished()) {
+                // when the output is full, the inflater may still have to consume the end of the stream
+                int read = dOff < dEnd ? inflater.inflate(dst, dOff, dEnd - dOff) : inflater.inflate(overflowBuffer);
+                boolean stuck = read == 0 && !inflater.finished()
+                        && (inflater.needsInput() || inflater.needsDictionary());
+                if (stuck || dOff + read > dEnd) {
+                    throw new IllegalArgumentException("Malformed DEFLATE block");
+                }
+                dOff += read;
+            }
+            if (dOff != dEnd) {
+                throw new IllegalArgumentException("Malformed DEFLATE block, expected " + dstLen
+                        + " bytes, got " + (dOff - dstOff));
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Malformed DEFLATE block", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        deflater.end();
+        inflater.end();
+    }
+}
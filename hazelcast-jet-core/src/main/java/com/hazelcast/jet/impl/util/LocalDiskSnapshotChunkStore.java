@@ -0,0 +1,402 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.util;
+
+import com.hazelcast.core.IMap;
+import com.hazelcast.core.Member;
+import com.hazelcast.jet.JetException;
+import com.hazelcast.jet.core.SnapshotChunkStore;
+import com.hazelcast.jet.impl.JetService;
+import com.hazelcast.jet.impl.operation.ReadSnapshotChunkOperation;
+import com.hazelcast.jet.impl.operation.WriteSnapshotChunkOperation;
+import com.hazelcast.logging.ILogger;
+import com.hazelcast.nio.Address;
+import com.hazelcast.nio.IOUtil;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.spi.NodeEngine;
+import com.hazelcast.spi.Operation;
+import com.hazelcast.util.executor.ManagedExecutorService;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.hazelcast.jet.Util.toCompletableFuture;
+import static com.hazelcast.jet.impl.util.Util.uncheckCall;
+import static com.hazelcast.jet.impl.util.Util.uncheckRun;
+import static com.hazelcast.util.executor.ExecutorType.CACHED;
+import static java.nio.channels.FileChannel.MapMode.READ_WRITE;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.CompletableFuture.runAsync;
+import static java.util.concurrent.CompletableFuture.supplyAsync;
+
+/**
+ * A {@link SnapshotChunkStore} which writes each chunk to a file in the
+ * member's subdirectory of the {@linkplain
+ * com.hazelcast.jet.config.InstanceConfig#setSnapshotDirectory(String)
+ * snapshot directory} and copies it to the next member in the member list.
+ * The snapshot map holds a {@link SnapshotChunkRef} for each chunk.
+ * <p>
+ * The files are written and read on a dedicated executor, never on the
+ * calling thread, which is a cooperative one for the snapshot tasklets.
+ * A chunk file of a member that left the cluster is read from the backup
+ * member. When a member leaves, the chunks of which it held one of the
+ * two copies are copied to another member, so that each chunk is on two
+ * members again. The store only tracks the chunks written or copied while
+ * it runs: the files taken over after a restart aren't copied again.
+ * <p>
+ * A member locks a subdirectory named {@code member-<n>} for as long as it
+ * runs: it takes the first one that isn't locked by another member, or
+ * creates a new one. The files are kept when the member shuts down, so a
+ * member started later with the same snapshot directory takes them over.
+ * Since the members don't necessarily get the same subdirectory or
+ * address after a restart, a chunk that neither its owner nor its backup
+ * member has is looked for on all members. The files of a snapshot map
+ * are deleted on all members when the map is cleared or destroyed.
+ */
+public class LocalDiskSnapshotChunkStore implements SnapshotChunkStore {
+
+    private static final String FILE_SUFFIX = ".chunk";
+    private static final String MEMBER_DIRECTORY_PREFIX = "member-";
+    private static final String LOCK_FILE = "member.lock";
+    private static final String IO_EXECUTOR_NAME = "jet:snapshotChunkIo";
+    private static final int IO_THREAD_COUNT = 4;
+
+    private final NodeEngine nodeEngine;
+    private final ILogger logger;
+    private final Path memberDirectory;
+    private final FileLock memberDirectoryLock;
+    private final String filePrefix;
+    private final AtomicLong fileSequence = new AtomicLong();
+    // the path of each chunk this member is responsible for -> the member holding its copy
+    private final ConcurrentMap<String, Address> ownedChunks = new ConcurrentHashMap<>();
+    // the path of each copy this member holds -> the member responsible for the chunk
+    private final ConcurrentMap<String, Address> copiedChunks = new ConcurrentHashMap<>();
+    private final ManagedExecutorService ioExecutor;
+
+    public LocalDiskSnapshotChunkStore(NodeEngine nodeEngine, Path directory) {
+        this.nodeEngine = nodeEngine;
+        this.logger = nodeEngine.getLogger(getClass());
+        // the directory can be shared by several members on the same machine
+        Path parent = directory.toAbsolutePath().normalize();
+        Path candidate;
+        FileLock lock;
+        int index = 0;
+        do {
+            candidate = parent.resolve(MEMBER_DIRECTORY_PREFIX + index++);
+            lock = tryLock(candidate);
+        } while (lock == null);
+        this.memberDirectory = candidate;
+        this.memberDirectoryLock = lock;
+        // the file sequence starts from zero after a restart, the UUID keeps
+        // the names unique
+        this.filePrefix = nodeEngine.getLocalMember().getUuid() + '-';
+        this.ioExecutor = nodeEngine.getExecutionService().register(IO_EXECUTOR_NAME, IO_THREAD_COUNT,
+                Integer.MAX_VALUE, CACHED);
+        logger.info("Storing the snapshot data in " + memberDirectory);
+    }
+
+    /**
+     * Returns the store of the member.
+     *
+     * @throws JetException if the member doesn't store the snapshots in files
+     */
+    public static LocalDiskSnapshotChunkStore of(JetService service) {
+        SnapshotChunkStore store = service.getSnapshotChunkStore();
+        if (!(store instanceof LocalDiskSnapshotChunkStore)) {
+            throw new JetException("Snapshot directory not configured on member");
+        }
+        return (LocalDiskSnapshotChunkStore) store;
+    }
+
+    @Nonnull @Override
+    public CompletableFuture<Object> put(@Nonnull IMap<Object, Object> map, @Nonnull Object key,
+                                         @Nonnull Data chunk) {
+        String path = map.getName() + '/' + filePrefix + fileSequence.incrementAndGet() + FILE_SUFFIX;
+        byte[] bytes = chunk.toByteArray();
+        Address backup = backupAddress();
+        SnapshotChunkRef ref = new SnapshotChunkRef(path, nodeEngine.getThisAddress(), backup);
+        if (backup != null) {
+            ownedChunks.put(path, backup);
+        }
+        // the local file and the backup copy are written in parallel
+        CompletableFuture<Void> localFuture = writeLocal(path, bytes);
+        CompletableFuture<Object> backupFuture = backup == null
+                ? completedFuture(null)
+                : invoke(new WriteSnapshotChunkOperation(path, bytes), backup);
+        return localFuture.thenCombine(backupFuture, (r1, r2) -> r2)
+                          .thenCompose(r -> toCompletableFuture(map.putAsync(key, ref)));
+    }
+
+    @Nonnull @Override
+    public CompletableFuture<byte[]> read(@Nonnull Object value) {
+        if (!(value instanceof SnapshotChunkRef)) {
+            return MapSnapshotChunkStore.INSTANCE.read(value);
+        }
+        SnapshotChunkRef ref = (SnapshotChunkRef) value;
+        return readLocal(ref.path())
+                .thenCompose(localBytes -> localBytes != null ? completedFuture(localBytes) : readRemote(ref))
+                .thenApply(bytes -> {
+                    if (bytes == null) {
+                        throw new JetException("Snapshot chunk not found on any member: " + ref);
+                    }
+                    return bytes;
+                });
+    }
+
+    @Override
+    public void delete(@Nonnull String mapName) {
+        String prefix = mapName + '/';
+        ownedChunks.keySet().removeIf(path -> path.startsWith(prefix));
+        copiedChunks.keySet().removeIf(path -> path.startsWith(prefix));
+        IOUtil.deleteQuietly(resolve(mapName).toFile());
+    }
+
+    @Override
+    public void close() {
+        nodeEngine.getExecutionService().shutdownExecutor(IO_EXECUTOR_NAME);
+        // the files are kept for the member that takes over the directory
+        IOUtil.closeResource(memberDirectoryLock.channel());
+    }
+
+    /**
+     * Copies the chunks of which the removed member held one of the two
+     * copies to the member which is now next to this one in the member
+     * list. This member becomes responsible for the chunks whose copies it
+     * holds for the removed member. Doesn't wait for the copying.
+     */
+    public void onMemberLeave(Address address) {
+        Address backup = backupAddress();
+        int count = 0;
+        for (Entry<String, Address> entry : ownedChunks.entrySet()) {
+            if (entry.getValue().equals(address)) {
+                replicate(entry.getKey(), backup);
+                count++;
+            }
+        }
+        for (Entry<String, Address> entry : copiedChunks.entrySet()) {
+            if (entry.getValue().equals(address) && copiedChunks.remove(entry.getKey(), address)) {
+                replicate(entry.getKey(), backup);
+                count++;
+            }
+        }
+        if (count > 0) {
+            if (backup == null) {
+                logger.warning(count + " snapshot chunks are only stored on this member after " + address
+                        + " left, there's no other member to copy them to");
+            } else {
+                logger.info("Copying " + count + " snapshot chunks to " + backup + " after " + address + " left");
+            }
+        }
+    }
+
+    /**
+     * Writes a copy of a chunk written by another member, see {@link
+     * #writeLocal}.
+     *
+     * @param owner the member responsible for the chunk
+     */
+    @Nonnull
+    public CompletableFuture<Void> writeCopy(String path, byte[] bytes, Address owner) {
+        copiedChunks.put(path, owner);
+        return writeLocal(path, bytes);
+    }
+
+    /**
+     * Writes a chunk file on the I/O executor. An existing file is
+     * overwritten.
+     *
+     * @param path the path of the file, relative to the member's directory
+     */
+    @Nonnull
+    public CompletableFuture<Void> writeLocal(String path, byte[] bytes) {
+        Path file = resolve(path);
+        return runAsync(() -> uncheckRun(() -> writeFile(file, bytes)), ioExecutor);
+    }
+
+    /**
+     * Reads a chunk file on the I/O executor. The future is completed with
+     * {@code null}, if the file isn't stored on this member.
+     *
+     * @param path the path of the file, relative to the member's directory
+     */
+    @Nonnull
+    public CompletableFuture<byte[]> readLocal(String path) {
+        Path file = resolve(path);
+        return supplyAsync(() -> uncheckCall(() -> readFile(file)), ioExecutor);
+    }
+
+    /**
+     * Writes the file through a memory mapping: the bytes are copied to the
+     * page cache directly and the OS writes them back in the background, the
+     * I/O thread doesn't wait for the disk. The mapping is released when
+     * the buffer is garbage-collected; until then, Windows doesn't allow
+     * deleting the file and {@link #delete} leaves it behind.
+     */
+    private static void writeFile(Path file, byte[] bytes) throws IOException {
+        Files.createDirectories(file.getParent());
+        try (FileChannel channel = FileChannel.open(file, CREATE, TRUNCATE_EXISTING, READ, WRITE)) {
+            channel.map(READ_WRITE, 0, bytes.length).put(bytes);
+        }
+    }
+
+    @Nullable
+    private static byte[] readFile(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new EOFException("Snapshot chunk file truncated: " + file);
+                }
+            }
+            return buffer.array();
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Copies a chunk file this member is responsible for to the given
+     * member, or only stops tracking it, if the member is {@code null}.
+     */
+    private void replicate(String path, @Nullable Address backup) {
+        if (backup == null) {
+            ownedChunks.remove(path);
+            return;
+        }
+        ownedChunks.put(path, backup);
+        readLocal(path)
+                .<Object>thenCompose(bytes -> {
+                    if (bytes == null) {
+                        // deleted in the meantime
+                        ownedChunks.remove(path);
+                        return completedFuture(null);
+                    }
+                    return invoke(new WriteSnapshotChunkOperation(path, bytes), backup);
+                })
+                .whenComplete((r, e) -> {
+                    if (e != null) {
+                        logger.warning("Failed to copy snapshot chunk " + path + " to " + backup, e);
+                    }
+                });
+    }
+
+    /**
+     * Locks the member directory, creating it if needed. Returns {@code
+     * null}, if another member holds the lock.
+     */
+    @Nullable
+    private static FileLock tryLock(Path memberDirectory) {
+        FileChannel channel = null;
+        try {
+            Files.createDirectories(memberDirectory);
+            channel = FileChannel.open(memberDirectory.resolve(LOCK_FILE), CREATE, WRITE);
+            FileLock lock = channel.tryLock();
+            if (lock != null) {
+                return lock;
+            }
+        } catch (OverlappingFileLockException e) {
+            // locked by another member in this JVM
+        } catch (IOException e) {
+            IOUtil.closeResource(channel);
+            throw new JetException("Failed to lock the snapshot directory " + memberDirectory + ": " + e, e);
+        }
+        IOUtil.closeResource(channel);
+        return null;
+    }
+
+    private Path resolve(String path) {
+        Path file = memberDirectory.resolve(path).normalize();
+        if (!file.startsWith(memberDirectory)) {
+            throw new IllegalArgumentException("Path outside of the snapshot directory: " + path);
+        }
+        return file;
+    }
+
+    /**
+     * Returns the member following this one in the member list, which is
+     * the same on all members, or {@code null}, if this is the only member.
+     */
+    @Nullable
+    private Address backupAddress() {
+        Member[] members = nodeEngine.getClusterService().getMembers().toArray(new Member[0]);
+        for (int i = 0; i < members.length; i++) {
+            if (members[i].localMember()) {
+                return members.length > 1 ? members[(i + 1) % members.length].getAddress() : null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads the chunk from its owner or, if the owner doesn't have it, from
+     * the backup member and then from the other members, one after another.
+     * Completes with {@code null}, if no member has it.
+     */
+    private CompletableFuture<byte[]> readRemote(SnapshotChunkRef ref) {
+        CompletableFuture<byte[]> future = readRemote(ref.owner(), ref.path());
+        if (ref.backup() != null) {
+            future = future.thenCompose(bytes -> bytes != null
+                    ? completedFuture(bytes)
+                    : readRemote(ref.backup(), ref.path()));
+        }
+        for (Member member : nodeEngine.getClusterService().getMembers()) {
+            Address address = member.getAddress();
+            if (member.localMember() || address.equals(ref.owner()) || address.equals(ref.backup())) {
+                continue;
+            }
+            future = future.thenCompose(bytes -> bytes != null
+                    ? completedFuture(bytes)
+                    : readRemote(address, ref.path()));
+        }
+        return future;
+    }
+
+    private CompletableFuture<byte[]> readRemote(Address address, String path) {
+        return this.<byte[]>invoke(new ReadSnapshotChunkOperation(path), address)
+                .handle((bytes, e) -> {
+                    if (e != null) {
+                        // the next member is tried
+                        logger.fine("Failed to read snapshot chunk " + path + " from " + address + ": " + e);
+                        return null;
+                    }
+                    return bytes;
+                });
+    }
+
+    private <T> CompletableFuture<T> invoke(Operation op, Address address) {
+        return toCompletableFuture(
+                nodeEngine.getOperationService().<T>invokeOnTarget(JetService.SERVICE_NAME, op, address));
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.util;
+
+import com.hazelcast.jet.core.Partitioner;
+import com.hazelcast.jet.function.DistributedFunction;
+import com.hazelcast.jet.function.DistributedToLongFunction;
+
+import javax.annotation.Nonnull;
+import java.util.function.ToLongFunction;
+
+import static com.hazelcast.util.HashUtil.MurmurHash3_fmix;
+import static com.hazelcast.util.HashUtil.hashToIndex;
+
+/**
+ * A key function that extracts a primitive {@code long} key.
+ * <p>
+ * As a {@link DistributedFunction} it returns the boxed key, but we want to
+ * be able to do instanceof check on it so that processors and partitioners
+ * can call {@link #applyAsLong} and avoid boxing the key.
+ */
+public final class LongKeyFunction<T> implements DistributedFunction<T, Long>, ToLongFunction<T> {
+
+    private static final long serialVersionUID = 1L;
+
+    private final DistributedToLongFunction<? super T> keyFn;
+
+    public LongKeyFunction(@Nonnull DistributedToLongFunction<? super T> keyFn) {
+        this.keyFn = keyFn;
+    }
+
+    @Override
+    public Long applyEx(T t) {
+        return keyFn.applyAsLong(t);
+    }
+
+    @Override
+    public long applyAsLong(T t) {
+        return keyFn.applyAsLong(t);
+    }
+
+    /**
+     * Returns a long-key function that applies this function to the result
+     * of the given function.
+     */
+    @Nonnull @Override
+    public <V> LongKeyFunction<V> compose(@Nonnull DistributedFunction<? super V, ? extends T> before) {
+        return new LongKeyFunction<>(v -> keyFn.applyAsLong(before.apply(v)));
+    }
+
+    /**
+     * Returns a partitioner of the items this function is applied to. It
+     * hashes the primitive key, so unlike the default partitioner it doesn't
+     * box and serialize it. The result is stable across JVM processes and
+     * the partitioner is safe to use on distributed edges.
+     */
+    @Nonnull
+    public Partitioner<T> partitioner() {
+        return (item, partitionCount) -> hashToIndex((int) MurmurHash3_fmix(applyAsLong(item)), partitionCount);
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.util;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A pure-Java {@link BlockCodec} producing the <a
+ * href="https://github.com/lz4/lz4/blob/dev/doc/lz4_Block_format.md">LZ4
+ * block format</a>. The compressor is a simple greedy one: it finds matches
+ * using a hash table of 4-byte sequences and doesn't search for longer
+ * alternatives. It trades some of the compression ratio for speed.
+ */
+public class Lz4BlockCodec implements BlockCodec {
+
+    private static final int MIN_MATCH = 4;
+    private static final int MAX_DISTANCE = (1 << 16) - 1;
+    // the last match must start at least 12 bytes before the end of the block
+    private static final int MF_LIMIT = 12;
+    // the last 5 bytes are always literals
+    private static final int LAST_LITERALS = 5;
+    private static final int HASH_LOG = 12;
+    private static final int RUN_MASK = 0x0F;
+    private static final int ML_BITS = 4;
+    private static final int BYTE_MASK = 0xFF;
+
+    // Holds the most recent position of each hashed 4-byte sequence. We don't
+    // clear it between blocks: a stale entry is either out of the range of the
+    // current block or verified by comparing the bytes.
+    private final int[] hashTable = new int[1 << HASH_LOG];
+
+    @Override
+    public int maxCompressedLength(int length) {
+        return length + length / 255 + 16;
+    }
+
+    @Override
+    public int compress(@Nonnull byte[] src, int srcOff, int srcLen, @Nonnull byte[] dst, int dstOff) {
+        final int srcEnd = srcOff + srcLen;
+        final int mfLimit = srcEnd - MF_LIMIT;
+        final int matchLimit = srcEnd - LAST_LITERALS;
+        int dOff = dstOff;
+        int anchor = srcOff;
+        if (srcLen > MF_LIMIT) {
+            int sOff = srcOff;
+            while (sOff < mfLimit) {
+                int seq = readIntLE(src, sOff);
+                int h = hash(seq);
+                int ref = hashTable[h];
+                hashTable[h] = sOff;
+                if (ref < srcOff || ref >= sOff || sOff - ref > MAX_DISTANCE || readIntLE(src, ref) != seq) {
+                    sOff++;
+                    continue;
+                }
+                // extend the match backwards into the pending literals
+                while (sOff > anchor && ref > srcOff && src[sOff - 1] == src[ref - 1]) {
+                    sOff--;
+                    ref--;
+                }
+                int matchLen = MIN_MATCH;
+                while (sOff + matchLen < matchLimit && src[sOff + matchLen] == src[ref + matchLen]) {
+                    matchLen++;
+                }
+                dOff = writeSequence(src, anchor, sOff - anchor, sOff - ref, matchLen, dst, dOff);
+                sOff += matchLen;
+                anchor = sOff;
+            }
+        }
+        // the last sequence has only literals
+        int litLen = srcEnd - anchor;
+        int token = dOff++;
+        dst[token] = (byte) (Math.min(litLen, RUN_MASK) << ML_BITS);
+        dOff = writeLength(litLen, dst, dOff);
+        System.arraycopy(src, anchor, dst, dOff, litLen);
+        return dOff + litLen - dstOff;
+    }
+
+    @Override
+    public void decompress(@Nonnull byte[] src, int srcOff, int srcLen, @Nonnull byte[] dst, int dstOff, int dstLen) {
+        final int srcEnd = srcOff + srcLen;
+        final int dstEnd = dstOff + dstLen;
+        int sOff = srcOff;
+        int dOff = dstOff;
+        try {
+            while (true) {
+                int token = src[sOff++] & BYTE_MASK;
+                int litLen = token >>> ML_BITS;
+                if (litLen == RUN_MASK) {
+                    int b;
+                    do {
+                        b = src[sOff++] & BYTE_MASK;
+                        litLen += b;
+                    } while (b == BYTE_MASK);
+                }
+                if (litLen > dstEnd - dOff || litLen > srcEnd - sOff) {
+                    throw new IllegalArgumentException("Malformed LZ4 block: literals out of bounds");
+                }
+                System.arraycopy(src, sOff, dst, dOff, litLen);
+                sOff += litLen;
+                dOff += litLen;
+                if (sOff == srcEnd) {
+                    break;
+                }
+                int offset = (src[sOff++] & BYTE_MASK) | (src[sOff++] & BYTE_MASK) << 8;
+                int matchLen = token & RUN_MASK;
+                if (matchLen == RUN_MASK) {
+                    int b;
+                    do {
+                        b = src[sOff++] & BYTE_MASK;
+                        matchLen += b;
+                    } while (b == BYTE_MASK);
+                }
+                matchLen += MIN_MATCH;
+                int ref = dOff - offset;
+                if (offset == 0 || ref < dstOff || matchLen > dstEnd - dOff) {
+                    throw new IllegalArgumentException("Malformed LZ4 block: match out of bounds");
+                }
+                if (offset >= matchLen) {
+                    System.arraycopy(dst, ref, dst, dOff, matchLen);
+                } else {
+                    // the match overlaps the output, it repeats a short sequence
+                    for (int i = 0; i < matchLen; i++) {
+                        dst[dOff + i] = dst[ref + i];
+                    }
+                }
+                dOff += matchLen;
+            }
+        } catch (ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Malformed LZ4 block: unexpected end of input", e);
+        }
+        if (dOff != dstEnd) {
+            throw new IllegalArgumentException("Malformed LZ4 block, expected " + dstLen
+                    + " bytes, got " + (dOff - dstOff));
+        }
+    }
+
+    private static int writeSequence(
+            byte[] src, int litOff, int litLen, int offset, int matchLen, byte[] dst, int dOff
+    ) {
+        int token = dOff++;
+        int matchLenCode = matchLen - MIN_MATCH;
+        dst[token] = (byte) (Math.min(litLen, RUN_MASK) << ML_BITS | Math.min(matchLenCode, RUN_MASK));
+        dOff = writeLength(litLen, dst, dOff);
+        System.arraycopy(src, litOff, dst, dOff, litLen);
+        dOff += litLen;
+        dst[dOff++] = (byte) offset;
+        dst[dOff++] = (byte) (offset >>> 8);
+        return writeLength(matchLenCode, dst, dOff);
+    }
+
+    /**
+     * Writes the continuation bytes of a length that didn't fit into its
+     * 4-bit field of the token.
+     */
+    private static int writeLength(int length, byte[] dst, int dOff) {
+        if (length < RUN_MASK) {
+            return dOff;
+        }
+        int remaining = length - RUN_MASK;
+        while (remaining >= BYTE_MASK) {
+            dst[dOff++] = (byte) BYTE_MASK;
+            remaining -= BYTE_MASK;
+        }
+        dst[dOff++] = (byte) remaining;
+        return dOff;
+    }
+
+    private static int readIntLE(byte[] buf, int off) {
+        return (buf[off] & BYTE_MASK)
+                | (buf[off + 1] & BYTE_MASK) << 8
+                | (buf[off + 2] & BYTE_MASK) << 16
+                | (buf[off + 3] & BYTE_MASK) << 24;
+    }
+
+    private static int hash(int seq) {
+        return (seq * -1640531535) >>> (Integer.SIZE - HASH_LOG);
+    }
+}
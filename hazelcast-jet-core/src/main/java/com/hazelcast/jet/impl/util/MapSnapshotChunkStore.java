@@ -0,0 +1,58 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.util;
+
+import com.hazelcast.core.IMap;
+import com.hazelcast.jet.JetException;
+import com.hazelcast.jet.core.SnapshotChunkStore;
+import com.hazelcast.nio.serialization.Data;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.CompletableFuture;
+
+import static com.hazelcast.jet.Util.toCompletableFuture;
+
+/**
+ * The default {@link SnapshotChunkStore}, it stores the chunks directly in
+ * the snapshot map.
+ */
+public final class MapSnapshotChunkStore implements SnapshotChunkStore {
+
+    public static final SnapshotChunkStore INSTANCE = new MapSnapshotChunkStore();
+
+    private MapSnapshotChunkStore() {
+    }
+
+    @Nonnull @Override
+    public CompletableFuture<Object> put(@Nonnull IMap<Object, Object> map, @Nonnull Object key,
+                                         @Nonnull Data chunk) {
+        // we put a Data instance to the map directly to avoid the serialization of the byte array
+        return toCompletableFuture(map.putAsync(key, chunk));
+    }
+
+    @Nonnull @Override
+    public CompletableFuture<byte[]> read(@Nonnull Object value) {
+        // the chunks in the map are never read from the store
+        throw new JetException("Unexpected snapshot chunk: " + value + ". The snapshot was stored outside of "
+                + "the map, but this member doesn't use the same snapshot chunk store");
+    }
+
+    @Override
+    public void delete(@Nonnull String mapName) {
+        // the chunks are deleted with the map
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.util;
+
+import com.hazelcast.jet.impl.execution.init.JetInitDataSerializerHook;
+import com.hazelcast.nio.Address;
+import com.hazelcast.nio.ObjectDataInput;
+import com.hazelcast.nio.ObjectDataOutput;
+import com.hazelcast.nio.serialization.IdentifiedDataSerializable;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+
+/**
+ * The value stored in the snapshot map for a chunk stored by {@link
+ * LocalDiskSnapshotChunkStore}: the path of the chunk file and the members
+ * which hold a copy of it.
+ */
+public final class SnapshotChunkRef implements IdentifiedDataSerializable {
+
+    private String path;
+    private Address owner;
+    private Address backup;
+
+    // for deserialization
+    public SnapshotChunkRef() {
+    }
+
+    SnapshotChunkRef(String path, Address owner, @Nullable Address backup) {
+        this.path = path;
+        this.owner = owner;
+        this.backup = backup;
+    }
+
+    /**
+     * Returns the path of the chunk file, relative to the member's snapshot
+     * directory.
+     */
+    public String path() {
+        return path;
+    }
+
+    /**
+     * Returns the address of the member which wrote the chunk.
+     */
+    public Address owner() {
+        return owner;
+    }
+
+    /**
+     * Returns the address of the member holding the copy of the chunk or
+     * {@code null}, if the cluster had a single member.
+     */
+    @Nullable
+    public Address backup() {
+        return backup;
+    }
+
+    @Override
+    public String toString() {
+        return "SnapshotChunkRef{" +
+                "path='" + path + '\'' +
+                ", owner=" + owner +
+                ", backup=" + backup +
+                '}';
+    }
+
+    @Override
+    public int getFactoryId() {
+        return JetInitDataSerializerHook.FACTORY_ID;
+    }
+
+    @Override
+    public int getId() {
+        return JetInitDataSerializerHook.SNAPSHOT_CHUNK_REF;
+    }
+
+    @Override
+    public void writeData(ObjectDataOutput out) throws IOException {
+        out.writeUTF(path);
+        out.writeObject(owner);
+        out.writeObject(backup);
+    }
+
+    @Override
+    public void readData(ObjectDataInput in) throws IOException {
+        path = in.readUTF();
+        owner = in.readObject();
+        backup = in.readObject();
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.util;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+
+import static java.lang.Integer.parseInt;
+
+/**
+ * Pins threads to CPUs. Setting the affinity of a thread requires a native
+ * call which Java doesn't provide, so we delegate to the <a
+ * href="https://github.com/OpenHFT/Java-Thread-Affinity">OpenHFT Java
+ * Thread Affinity</a> library, if it's on the classpath. We access it
+ * reflectively so that it stays an optional dependency.
+ */
+public final class ThreadAffinity {
+
+    /**
+     * The highest CPU number accepted in a CPU list, it's the maximum number
+     * of CPUs the Linux kernel supports, minus one. It also bounds the size of
+     * the array a range is expanded to.
+     */
+    static final int MAX_CPU = 8191;
+
+    private static final String AFFINITY_CLASS_NAME = "net.openhft.affinity.Affinity";
+
+    private ThreadAffinity() {
+    }
+
+    /**
+     * Parses a comma-separated list of CPU numbers and ranges, such as
+     * {@code "2-5,8"}, into an array of CPU numbers in the order of
+     * appearance.
+     *
+     * @throws IllegalArgumentException if the list is malformed or contains
+     *      a CPU number above {@value #MAX_CPU}
+     */
+    @Nonnull
+    public static int[] parseCpuList(@Nonnull String cpuList) {
+        List<Integer> cpus = new ArrayList<>();
+        try {
+            for (String part : cpuList.split(",")) {
+                int dashIndex = part.indexOf('-');
+                if (dashIndex < 0) {
+                    cpus.add(checkCpu(parseInt(part.trim()), cpuList));
+                    continue;
+                }
+                int from = checkCpu(parseInt(part.substring(0, dashIndex).trim()), cpuList);
+                int to = checkCpu(parseInt(part.substring(dashIndex + 1).trim()), cpuList);
+                if (from > to) {
+                    throw new IllegalArgumentException("Invalid CPU range '" + part.trim() + "' in '" + cpuList + '\'');
+                }
+                for (int cpu = from; cpu <= to; cpu++) {
+                    cpus.add(cpu);
+                }
+            }
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid CPU list: '" + cpuList + '\'', e);
+        }
+        return cpus.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static int checkCpu(int cpu, String cpuList) {
+        if (cpu < 0 || cpu > MAX_CPU) {
+            throw new IllegalArgumentException("CPU number " + cpu + " out of range [0.." + MAX_CPU + "] in '"
+                    + cpuList + '\'');
+        }
+        return cpu;
+    }
+
+    /**
+     * Returns {@code true}, if we run on Linux and the affinity library is
+     * on the classpath.
+     */
+    public static boolean isSupported() {
+        if (!System.getProperty("os.name", "").toLowerCase(Locale.ROOT).contains("linux")) {
+            return false;
+        }
+        try {
+            Class.forName(AFFINITY_CLASS_NAME, false, ThreadAffinity.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Pins the calling thread to the given CPU. Should only be called if
+     * {@link #isSupported()} returned {@code true}.
+     */
+    public static void pinCurrentThread(int cpu) {
+        BitSet cpus = new BitSet();
+        cpus.set(cpu);
+        try {
+            Class.forName(AFFINITY_CLASS_NAME, true, ThreadAffinity.class.getClassLoader())
+                 .getMethod("setAffinity", BitSet.class)
+                 .invoke(null, cpus);
+        } catch (ReflectiveOperationException e) {
+            throw ExceptionUtil.rethrow(e);
+        }
+    }
+}
@@ -85,6 +85,7 @@ import static com.hazelcast.jet.core.Edge.between;
 import static com.hazelcast.jet.core.processor.SinkProcessors.writeMapP;
 import static com.hazelcast.jet.core.processor.SourceProcessors.readMapP;
 import static com.hazelcast.jet.impl.util.ExceptionUtil.sneakyThrow;
+import static com.hazelcast.util.HashUtil.MurmurHash3_fmix;
 import static java.lang.Math.abs;
 import static java.util.Collections.emptyList;
 import static java.util.stream.Collectors.groupingBy;
@@ -97,6 +98,8 @@ public final class Util {
     private static final int BUFFER_SIZE = 1 << 15;
     private static final DateTimeFormatter LOCAL_TIME_FORMATTER = DateTimeFormatter.ofPattern("HH:mm:ss.SSS");
     private static final Pattern TRAILING_NUMBER_PATTERN = Pattern.compile("(.*)-([0-9]+)");
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
 
     private Util() {
     }
@@ -291,6 +294,48 @@ public final class Util {
         return ((a ^ b) & (a ^ diff)) < 0;
     }
 
+    /**
+     * Returns a 64-bit hash of the object which is the same in every JVM.
+     * Strings, boxed primitives, enums and byte arrays are hashed from
+     * their value. Other objects are hashed from their {@code hashCode()},
+     * which then must be based on their value, not on their identity, and
+     * the hash has just 32 bits of entropy.
+     */
+    public static long stableHash64(@Nonnull Object o) {
+        long hash;
+        if (o instanceof String) {
+            hash = fnv1a64(FNV_OFFSET_BASIS, (String) o);
+        } else if (o instanceof Long || o instanceof Integer || o instanceof Short || o instanceof Byte) {
+            hash = ((Number) o).longValue();
+        } else if (o instanceof Double) {
+            hash = Double.doubleToLongBits((Double) o);
+        } else if (o instanceof Float) {
+            hash = Float.floatToIntBits((Float) o);
+        } else if (o instanceof Character) {
+            hash = (Character) o;
+        } else if (o instanceof Boolean) {
+            hash = (Boolean) o ? 1 : 0;
+        } else if (o instanceof Enum) {
+            Enum<?> e = (Enum<?>) o;
+            hash = fnv1a64(fnv1a64(FNV_OFFSET_BASIS, e.getDeclaringClass().getName()), e.name());
+        } else if (o instanceof byte[]) {
+            hash = FNV_OFFSET_BASIS;
+            for (byte b : (byte[]) o) {
+                hash = (hash ^ Byte.toUnsignedInt(b)) * FNV_PRIME;
+            }
+        } else {
+            hash = o.hashCode();
+        }
+        return MurmurHash3_fmix(hash);
+    }
+
+    private static long fnv1a64(long hash, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            hash = (hash ^ s.charAt(i)) * FNV_PRIME;
+        }
+        return hash;
+    }
+
     /**
      * Checks that the {@code object} implements {@link Serializable} and is
      * correctly serializable by actually trying to serialize it. This will
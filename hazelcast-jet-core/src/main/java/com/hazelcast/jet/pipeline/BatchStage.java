@@ -30,9 +30,11 @@ import com.hazelcast.jet.datamodel.Tuple2;
 import com.hazelcast.jet.datamodel.Tuple3;
 import com.hazelcast.jet.function.DistributedBiFunction;
 import com.hazelcast.jet.function.DistributedBiPredicate;
+import com.hazelcast.jet.function.DistributedComparator;
 import com.hazelcast.jet.function.DistributedFunction;
 import com.hazelcast.jet.function.DistributedPredicate;
 import com.hazelcast.jet.function.DistributedSupplier;
+import com.hazelcast.jet.function.DistributedToLongFunction;
 import com.hazelcast.jet.function.DistributedTriFunction;
 
 import javax.annotation.Nonnull;
@@ -58,6 +60,9 @@ public interface BatchStage<T> extends GeneralStage<T> {
     @Nonnull
     <K> BatchStageWithKey<T, K> groupingKey(@Nonnull DistributedFunction<? super T, ? extends K> keyFn);
 
+    @Nonnull @Override
+    BatchStageWithKey<T, Long> groupingLongKey(@Nonnull DistributedToLongFunction<? super T> keyFn);
+
     @Nonnull @Override
     <R> BatchStage<R> map(@Nonnull DistributedFunction<? super T, ? extends R> mapFn);
 
@@ -151,6 +156,43 @@ public interface BatchStage<T> extends GeneralStage<T> {
         return groupingKey(wholeItem()).distinct();
     }
 
+    /**
+     * Attaches a stage that sorts the items of this stage using the given
+     * comparator. Unlike the {@link
+     * com.hazelcast.jet.aggregate.AggregateOperations#sorting sorting()}
+     * aggregate operation, the stage doesn't collect all the items on a
+     * single processor:
+     * <ol><li>
+     *     it samples the items to compute the boundaries of key ranges,
+     *     weighting each processor's sample by the number of items it saw,
+     * </li><li>
+     *     sends each item over a range-partitioned distributed edge to the
+     *     processor in charge of its range. The items that arrive before
+     *     all the input was sampled are buffered, the ones over the {@linkplain
+     *     com.hazelcast.jet.config.JobConfig#setSortSpillThreshold(long) sort
+     *     spill threshold} (or a fixed limit, if there's none) are written to
+     *     the local disk,
+     * </li><li>
+     *     sorts the items locally. With a sort spill threshold the processors
+     *     write the sorted runs that don't fit into memory to the local disk
+     *     and merge them at the end, a bounded number of runs at a time.
+     * </li></ol>
+     * The output of each processor is sorted and the ranges are assigned
+     * in the order of the global processor index, so the outputs
+     * concatenated in the order of the processor index are globally sorted.
+     * The next stage receives the outputs over a local edge that doesn't
+     * keep them apart, so a sink that needs a single sorted sequence has to
+     * merge them.
+     * <p>
+     * The items must be serializable, unless the input is small enough not
+     * to be spilled.
+     *
+     * @param comparator the comparator of the items
+     * @return the newly attached stage
+     */
+    @Nonnull
+    BatchStage<T> sort(@Nonnull DistributedComparator<? super T> comparator);
+
     /**
      * Attaches a stage that emits all the items from this stage as well as all
      * the items from the supplied stage. The other stage's type parameter must
@@ -435,6 +435,22 @@ public interface GeneralStage<T> extends Stage {
     @Nonnull
     <K> GeneralStageWithKey<T, K> groupingKey(@Nonnull DistributedFunction<? super T, ? extends K> keyFn);
 
+    /**
+     * Specifies the function that will extract a primitive {@code long} key
+     * from the items in the associated pipeline stage. It enables the same
+     * operations as {@link #groupingKey}, but the grouping processors keep
+     * the groups in a map keyed by the primitive {@code long} and the items
+     * are partitioned by the hash of the key without boxing and serializing
+     * it. Prefer it if the key is a numeric ID.
+     * <p>
+     * The key passed to the downstream functions, such as {@code
+     * mapToOutputFn}, is a boxed {@code Long}.
+     *
+     * @param keyFn function that extracts the grouping key
+     */
+    @Nonnull
+    GeneralStageWithKey<T, Long> groupingLongKey(@Nonnull DistributedToLongFunction<? super T> keyFn);
+
     /**
      * Adds a timestamp to each item in the stream using the supplied function
      * and specifies the allowed amount of disorder between them. As the stream
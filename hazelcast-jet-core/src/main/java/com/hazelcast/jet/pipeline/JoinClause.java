@@ -21,6 +21,7 @@ import com.hazelcast.jet.function.DistributedFunction;
 import java.util.Map.Entry;
 
 import static com.hazelcast.jet.impl.util.Util.checkSerializable;
+import static com.hazelcast.util.Preconditions.checkNotNegative;
 
 /**
  * Specifies how to join an enriching stream to the primary stream in a
@@ -42,6 +43,13 @@ import static com.hazelcast.jet.impl.util.Util.checkSerializable;
  *  contain just the vaules. In this case the projection function should be
  *  {@code Entry::getValue}. There is direct support for this case with the
  *  method {@link #joinMapEntries(DistributedFunction)}.
+ * <p>
+ * By default the enriching stream is broadcast to all members and each of
+ * them keeps all of it in memory. If the enriching stream is large, give
+ * its estimated size with {@link #withRightSizeHint(long)}: when the hint
+ * reaches {@link #BROADCAST_SIZE_LIMIT}, both streams are partitioned by
+ * the join key instead and each member keeps just its share of the
+ * enriching stream.
  *
  * @param <K> the type of the join key
  * @param <T0> the type of the left-hand stream item
@@ -49,14 +57,23 @@ import static com.hazelcast.jet.impl.util.Util.checkSerializable;
  * @param <T1_OUT> the result type of the right-hand projection function
  */
 public final class JoinClause<K, T0, T1, T1_OUT> {
+
+    /**
+     * The {@linkplain #withRightSizeHint(long) size hint} from which the
+     * enriching stream is partitioned instead of broadcast.
+     */
+    public static final long BROADCAST_SIZE_LIMIT = 1_000_000L;
+
     private final DistributedFunction<? super T0, ? extends K> leftKeyFn;
     private final DistributedFunction<? super T1, ? extends K> rightKeyFn;
     private final DistributedFunction<? super T1, ? extends T1_OUT> rightProjectFn;
+    private final long rightSizeHint;
 
     private JoinClause(
             DistributedFunction<? super T0, ? extends K> leftKeyFn,
             DistributedFunction<? super T1, ? extends K> rightKeyFn,
-            DistributedFunction<? super T1, ? extends T1_OUT> rightProjectFn
+            DistributedFunction<? super T1, ? extends T1_OUT> rightProjectFn,
+            long rightSizeHint
     ) {
         checkSerializable(leftKeyFn, "leftKeyFn");
         checkSerializable(rightKeyFn, "rightKeyFn");
@@ -64,6 +81,7 @@ public final class JoinClause<K, T0, T1, T1_OUT> {
         this.leftKeyFn = leftKeyFn;
         this.rightKeyFn = rightKeyFn;
         this.rightProjectFn = rightProjectFn;
+        this.rightSizeHint = rightSizeHint;
     }
 
     /**
@@ -75,7 +93,7 @@ public final class JoinClause<K, T0, T1, T1_OUT> {
             DistributedFunction<? super T0, ? extends K> leftKeyFn,
             DistributedFunction<? super T1, ? extends K> rightKeyFn
     ) {
-        return new JoinClause<>(leftKeyFn, rightKeyFn, DistributedFunction.identity());
+        return new JoinClause<>(leftKeyFn, rightKeyFn, DistributedFunction.identity(), 0);
     }
 
     /**
@@ -91,7 +109,7 @@ public final class JoinClause<K, T0, T1, T1_OUT> {
     public static <K, T0, T1_OUT> JoinClause<K, T0, Entry<K, T1_OUT>, T1_OUT> joinMapEntries(
             DistributedFunction<? super T0, ? extends K> leftKeyFn
     ) {
-        return new JoinClause<>(leftKeyFn, Entry::getKey, Entry::getValue);
+        return new JoinClause<>(leftKeyFn, Entry::getKey, Entry::getValue, 0);
     }
 
     /**
@@ -101,7 +119,23 @@ public final class JoinClause<K, T0, T1, T1_OUT> {
     public <T1_NEW_OUT> JoinClause<K, T0, T1, T1_NEW_OUT> projecting(
             DistributedFunction<? super T1, ? extends T1_NEW_OUT> rightProjectFn
     ) {
-        return new JoinClause<>(this.leftKeyFn, this.rightKeyFn, rightProjectFn);
+        return new JoinClause<>(this.leftKeyFn, this.rightKeyFn, rightProjectFn, this.rightSizeHint);
+    }
+
+    /**
+     * Returns a copy of this join clause, but with the given estimate of the
+     * number of items in the enriching stream. If it reaches {@link
+     * #BROADCAST_SIZE_LIMIT}, the join partitions both streams by the join
+     * key instead of broadcasting the enriching stream. The left-hand and
+     * right-hand keys must then be of the same type. If several clauses of a
+     * join reach the limit, only the one with the largest hint is
+     * partitioned.
+     * <p>
+     * The default value is 0, which means unknown.
+     */
+    public JoinClause<K, T0, T1, T1_OUT> withRightSizeHint(long itemCount) {
+        checkNotNegative(itemCount, "itemCount can't be negative");
+        return new JoinClause<>(this.leftKeyFn, this.rightKeyFn, this.rightProjectFn, itemCount);
     }
 
     /**
@@ -124,4 +158,12 @@ public final class JoinClause<K, T0, T1, T1_OUT> {
     public DistributedFunction<? super T1, ? extends T1_OUT> rightProjectFn() {
         return rightProjectFn;
     }
+
+    /**
+     * Returns the estimated number of items in the enriching stream, see
+     * {@link #withRightSizeHint(long)}.
+     */
+    public long rightSizeHint() {
+        return rightSizeHint;
+    }
 }
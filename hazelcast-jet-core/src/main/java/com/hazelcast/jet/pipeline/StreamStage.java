@@ -28,11 +28,14 @@ import com.hazelcast.jet.function.DistributedBiPredicate;
 import com.hazelcast.jet.function.DistributedFunction;
 import com.hazelcast.jet.function.DistributedPredicate;
 import com.hazelcast.jet.function.DistributedSupplier;
+import com.hazelcast.jet.function.DistributedToLongFunction;
 import com.hazelcast.jet.function.DistributedTriFunction;
 
 import javax.annotation.Nonnull;
 import java.util.concurrent.CompletableFuture;
 
+import static com.hazelcast.jet.function.DistributedFunctions.wholeItem;
+
 /**
  * A stage in a distributed computation {@link Pipeline pipeline} that will
  * observe an unbounded amount of data (i.e., an event stream). It accepts
@@ -66,6 +69,9 @@ public interface StreamStage<T> extends GeneralStage<T> {
     @Nonnull @Override
     <K> StreamStageWithKey<T, K> groupingKey(@Nonnull DistributedFunction<? super T, ? extends K> keyFn);
 
+    @Nonnull @Override
+    StreamStageWithKey<T, Long> groupingLongKey(@Nonnull DistributedToLongFunction<? super T> keyFn);
+
     @Nonnull @Override
     <R> StreamStage<R> map(@Nonnull DistributedFunction<? super T, ? extends R> mapFn);
 
@@ -146,6 +152,21 @@ public interface StreamStage<T> extends GeneralStage<T> {
     @Nonnull @Override
     <R> StreamStage<R> rollingAggregate(@Nonnull AggregateOperation1<? super T, ?, ? extends R> aggrOp);
 
+    /**
+     * Attaches a stage that emits an item only if no equal item ({@code
+     * equals} and {@code hashCode}) was emitted during the last {@code
+     * timeToLive} units of event time. See {@link
+     * StreamStageWithKey#distinct(long)} for details.
+     *
+     * @param timeToLive the time to remember an item for, in the units of
+     *                   the timestamps
+     * @return the newly attached stage
+     */
+    @Nonnull
+    default StreamStage<T> distinct(long timeToLive) {
+        return groupingKey(wholeItem()).distinct(timeToLive);
+    }
+
     @Nonnull @Override
     <K, T1_IN, T1, R> StreamStage<R> hashJoin(
             @Nonnull BatchStage<T1_IN> stage1,
@@ -48,6 +48,109 @@ public interface StreamStageWithKey<T, K> extends GeneralStageWithKey<T, K> {
     @Nonnull
     StageWithKeyAndWindow<T, K> window(@Nonnull WindowDefinition wDef);
 
+    /**
+     * Attaches a stage that joins the items of this stage with the items of
+     * {@code stage1} that have the same grouping key and whose timestamps
+     * are close to each other: an item {@code t0} from this stage is joined
+     * with an item {@code t1} from {@code stage1} if
+     * <pre>
+     * lowerBound &lt;= timestamp(t1) - timestamp(t0) &lt;= upperBound
+     * </pre>
+     * For each such pair the stage emits the result of {@code
+     * mapToOutputFn}, its timestamp is the later of the two timestamps. An
+     * item is emitted once for each matching item of the other stage, an
+     * item with no match is not emitted.
+     * <p>
+     * The stage buffers the items of both stages and uses the watermarks
+     * to drop the items that can't match any future item. Therefore both
+     * stages must have timestamps and the memory needed is proportional to
+     * the number of items that arrive in an interval of {@code upperBound
+     * - lowerBound} plus the allowed lag of the watermarks. Items that
+     * arrive after the watermark passed their timestamp are dropped.
+     *
+     * @param stage1 the stage to join with
+     * @param lowerBound the least allowed difference of the timestamps
+     * @param upperBound the greatest allowed difference of the timestamps
+     * @param mapToOutputFn the function to create the output item from
+     *                      the joined items
+     * @param <T1> type of the items in {@code stage1}
+     * @param <R> type of the output items
+     */
+    @Nonnull
+    <T1, R> StreamStage<R> intervalJoin(
+            @Nonnull StreamStageWithKey<T1, ? extends K> stage1,
+            long lowerBound,
+            long upperBound,
+            @Nonnull DistributedBiFunction<? super T, ? super T1, ? extends R> mapToOutputFn
+    );
+
+    /**
+     * Attaches a stage that emits an item only if no other item with the
+     * same grouping key was emitted during the last {@code timeToLive}
+     * units of event time. It's useful to remove the duplicates that an
+     * at-least-once source emits after a restart.
+     * <p>
+     * The stage uses the watermarks to forget the old keys, a key is
+     * remembered for at least {@code timeToLive} and at most 25% longer.
+     * Therefore this stage must have timestamps. Items whose timestamp is
+     * more than {@code timeToLive} behind the watermark may be dropped as
+     * late. The remembered keys are saved to the state snapshot.
+     * <p>
+     * The memory needed is proportional to the number of distinct keys in
+     * the {@code timeToLive} interval. See {@link #distinct(long, long)}
+     * to put a bound on it.
+     *
+     * @param timeToLive the time to remember a key for, in the units of
+     *                   the timestamps
+     * @return the newly attached stage
+     */
+    @Nonnull
+    default StreamStage<T> distinct(long timeToLive) {
+        return distinct(timeToLive, Long.MAX_VALUE);
+    }
+
+    /**
+     * Attaches a stage that emits an item only if no other item with the
+     * same grouping key was emitted during the last {@code timeToLive}
+     * units of event time, see {@link #distinct(long)}. Additionally, each
+     * parallel processor of the stage remembers at most {@code maxKeys}
+     * keys: when there are more, it forgets the oldest keys before their
+     * time to live expires and their items can be emitted again.
+     *
+     * @param timeToLive the time to remember a key for, in the units of
+     *                   the timestamps
+     * @param maxKeys the maximum number of keys each processor remembers
+     * @return the newly attached stage
+     */
+    @Nonnull
+    StreamStage<T> distinct(long timeToLive, long maxKeys);
+
+    /**
+     * Attaches a stage that emits an item only if no other item with the
+     * same grouping key was emitted during the last {@code timeToLive}
+     * units of event time, see {@link #distinct(long)}. Instead of the keys
+     * it remembers their hashes in Bloom filters of a fixed size. In
+     * return, an item can be wrongly dropped as a duplicate of another
+     * item with probability up to {@code falsePositiveRate}.
+     * <p>
+     * The filters are sized for {@code expectedKeys}, the number of
+     * distinct keys of the whole stage during {@code timeToLive}. If there
+     * are more keys, the false-positive rate grows. Each parallel processor
+     * allocates filters of this size so that the state of all processors
+     * can be restored to each of them after a restart: a filter takes
+     * about {@code -1.44 * log2(falsePositiveRate)} bits per key.
+     *
+     * @param timeToLive the time to remember a key for, in the units of
+     *                   the timestamps
+     * @param expectedKeys the expected number of distinct keys during
+     *                     {@code timeToLive}
+     * @param falsePositiveRate the desired probability of dropping a
+     *                          non-duplicate item, between 0 and 1
+     * @return the newly attached stage
+     */
+    @Nonnull
+    StreamStage<T> approximateDistinct(long timeToLive, long expectedKeys, double falsePositiveRate);
+
     @Nonnull @Override
     default <V, R> StreamStage<R> mapUsingIMapAsync(
             @Nonnull String mapName,
@@ -19,11 +19,14 @@ package com.hazelcast.jet.aggregate;
 import com.hazelcast.internal.serialization.InternalSerializationService;
 import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
 import com.hazelcast.jet.accumulator.DoubleAccumulator;
+import com.hazelcast.jet.accumulator.FrequentItemsAccumulator;
+import com.hazelcast.jet.accumulator.HyperLogLogAccumulator;
 import com.hazelcast.jet.accumulator.LinTrendAccumulator;
 import com.hazelcast.jet.accumulator.LongAccumulator;
 import com.hazelcast.jet.accumulator.LongDoubleAccumulator;
 import com.hazelcast.jet.accumulator.LongLongAccumulator;
 import com.hazelcast.jet.accumulator.MutableReference;
+import com.hazelcast.jet.accumulator.QuantilesAccumulator;
 import com.hazelcast.jet.datamodel.ItemsByTag;
 import com.hazelcast.jet.datamodel.Tag;
 import com.hazelcast.jet.datamodel.Tuple2;
@@ -36,24 +39,30 @@ import org.junit.runner.RunWith;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.TreeMap;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static com.hazelcast.jet.Util.entry;
 import static com.hazelcast.jet.aggregate.AggregateOperations.allOf;
 import static com.hazelcast.jet.aggregate.AggregateOperations.allOfBuilder;
+import static com.hazelcast.jet.aggregate.AggregateOperations.approximateCountDistinct;
+import static com.hazelcast.jet.aggregate.AggregateOperations.approximateQuantiles;
 import static com.hazelcast.jet.aggregate.AggregateOperations.averagingDouble;
 import static com.hazelcast.jet.aggregate.AggregateOperations.averagingLong;
 import static com.hazelcast.jet.aggregate.AggregateOperations.bottomN;
 import static com.hazelcast.jet.aggregate.AggregateOperations.concatenating;
 import static com.hazelcast.jet.aggregate.AggregateOperations.counting;
+import static com.hazelcast.jet.aggregate.AggregateOperations.frequentItems;
 import static com.hazelcast.jet.aggregate.AggregateOperations.groupingBy;
 import static com.hazelcast.jet.aggregate.AggregateOperations.linearTrend;
 import static com.hazelcast.jet.aggregate.AggregateOperations.mapping;
@@ -73,6 +82,7 @@ import static com.hazelcast.jet.datamodel.Tuple3.tuple3;
 import static com.hazelcast.jet.function.DistributedComparator.naturalOrder;
 import static com.hazelcast.jet.function.DistributedFunctions.entryKey;
 import static com.hazelcast.jet.function.DistributedFunctions.entryValue;
+import static com.hazelcast.util.HashUtil.MurmurHash3_fmix;
 import static java.util.Arrays.asList;
 import static java.util.Collections.singleton;
 import static java.util.Collections.singletonList;
@@ -556,6 +566,93 @@ public class AggregateOperationsTest {
         );
     }
 
+    @Test
+    public void when_approximateCountDistinct() {
+        validateOpWithoutDeduct(
+                approximateCountDistinct(),
+                HyperLogLogAccumulator::estimate,
+                asList(1, 2, 3, 2),
+                asList(3, 4),
+                3L,
+                4L,
+                4L
+        );
+    }
+
+    @Test
+    public void when_approximateCountDistinctOfManyItems_then_estimateWithinError() {
+        // Given
+        AggregateOperation1<Integer, HyperLogLogAccumulator, Long> op = approximateCountDistinct(14);
+        HyperLogLogAccumulator acc1 = op.createFn().get();
+        HyperLogLogAccumulator acc2 = op.createFn().get();
+
+        // When
+        for (int i = 0; i < 100_000; i++) {
+            op.accumulateFn().accept(acc1, i);
+            op.accumulateFn().accept(acc2, i + 50_000);
+        }
+        op.combineFn().accept(acc1, acc2);
+
+        // Then
+        long estimate = op.finishFn().apply(acc1);
+        assertTrue("estimate=" + estimate, Math.abs(estimate - 150_000) < 150_000 * 0.05);
+    }
+
+    @Test
+    public void when_approximateCountDistinctWithHashFn_then_itemsWithEqualHashCountedOnce() {
+        // Given
+        AggregateOperation1<Integer, HyperLogLogAccumulator, Long> op =
+                approximateCountDistinct(12, (Integer i) -> MurmurHash3_fmix((long) (i % 10)));
+        HyperLogLogAccumulator acc = op.createFn().get();
+
+        // When
+        for (int i = 0; i < 1000; i++) {
+            op.accumulateFn().accept(acc, i);
+        }
+
+        // Then
+        assertEquals(10L, (long) op.finishFn().apply(acc));
+    }
+
+    @Test
+    public void when_approximateQuantiles_then_withinRankError() {
+        // Given
+        AggregateOperation1<Integer, QuantilesAccumulator, double[]> op =
+                approximateQuantiles(Integer::doubleValue, 0, 0.1, 0.5, 0.99, 1);
+        assertNull("deductFn must be null", op.deductFn());
+        QuantilesAccumulator acc1 = op.createFn().get();
+        QuantilesAccumulator acc2 = op.createFn().get();
+        List<Integer> items = IntStream.range(0, 100_000).boxed().collect(Collectors.toList());
+        Collections.shuffle(items);
+
+        // When
+        items.subList(0, 30_000).forEach(i -> op.accumulateFn().accept(acc1, i));
+        items.subList(30_000, items.size()).forEach(i -> op.accumulateFn().accept(acc2, i));
+        op.combineFn().accept(acc1, acc2);
+
+        // Then
+        double[] result = op.finishFn().apply(acc1);
+        assertEquals(100_000, acc1.count());
+        assertEquals(0, result[0], 0);
+        assertEquals(10_000, result[1], 2_000);
+        assertEquals(50_000, result[2], 2_000);
+        assertEquals(99_000, result[3], 2_000);
+        assertEquals(99_999, result[4], 0);
+    }
+
+    @Test
+    public void when_frequentItems() {
+        validateOpWithoutDeduct(
+                frequentItems(2),
+                FrequentItemsAccumulator::frequentItems,
+                asList("a", "a", "b"),
+                asList("a", "c"),
+                asList(entry("a", 2L), entry("b", 1L)),
+                singletonList(entry("a", 2L)),
+                singletonList(entry("a", 2L))
+        );
+    }
+
     @Test
     public void when_aggregateOpAsCollector() {
         collectAndVerify(IntStream.range(0, 1000));
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.benchmark;
+
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.jet.core.Watermark;
+import com.hazelcast.jet.core.test.TestInbox;
+import com.hazelcast.jet.core.test.TestOutbox;
+import com.hazelcast.jet.core.test.TestProcessorContext;
+import com.hazelcast.jet.datamodel.WindowResult;
+import com.hazelcast.jet.function.DistributedFunction;
+import com.hazelcast.jet.function.DistributedToLongFunction;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import com.hazelcast.test.annotation.NightlyTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import static com.hazelcast.jet.aggregate.AggregateOperations.counting;
+import static com.hazelcast.jet.core.processor.Processors.aggregateToSessionWindowP;
+import static java.util.Collections.singletonList;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Measures the throughput of the session window processor with a large
+ * number of active sessions. Every event extends the session of its key
+ * by half of the session timeout, so each one moves the key to another
+ * bucket of the deadline index, but no session is closed until the end.
+ * <p>
+ * The larger session counts need a large heap (about 15 GB for 50M
+ * sessions), the counts that don't fit into the max heap are skipped.
+ */
+@Category(NightlyTest.class)
+@RunWith(HazelcastSerialClassRunner.class)
+public class SessionWindowBenchmark {
+
+    private static final long SESSION_TIMEOUT = 10_000;
+    private static final long ESTIMATED_BYTES_PER_SESSION = 300;
+    private static final int MEASURED_PASSES = 2;
+    private static final int INBOX_BATCH_SIZE = 1024;
+
+    @Test
+    public void sessions_1M() throws Exception {
+        run(1_000_000);
+    }
+
+    @Test
+    public void sessions_10M() throws Exception {
+        run(10_000_000);
+    }
+
+    @Test
+    public void sessions_50M() throws Exception {
+        run(50_000_000);
+    }
+
+    private static void run(long sessionCount) throws Exception {
+        if (Runtime.getRuntime().maxMemory() < sessionCount * ESTIMATED_BYTES_PER_SESSION) {
+            System.out.println(String.format("%,d sessions: skipped, max heap of %,d MB is too small",
+                    sessionCount, Runtime.getRuntime().maxMemory() >> 20));
+            return;
+        }
+        Processor p = aggregateToSessionWindowP(
+                SESSION_TIMEOUT,
+                0L,
+                singletonList((DistributedToLongFunction<Long>) item -> timestamp(item, sessionCount)),
+                singletonList((DistributedFunction<Long, Long>) item -> item % sessionCount),
+                counting(),
+                WindowResult::new
+        ).get();
+        TestOutbox outbox = new TestOutbox(INBOX_BATCH_SIZE);
+        p.init(outbox, new TestProcessorContext());
+        TestInbox inbox = new TestInbox();
+
+        // the first pass creates the sessions
+        long start = System.nanoTime();
+        long item = process(p, inbox, outbox, sessionCount, 0, sessionCount);
+        long createNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        process(p, inbox, outbox, sessionCount, item, MEASURED_PASSES * sessionCount);
+        long extendNanos = System.nanoTime() - start;
+
+        long emittedCount = 0;
+        boolean done;
+        do {
+            done = p.complete();
+            emittedCount += outbox.queue(0).size();
+            outbox.queue(0).clear();
+        } while (!done);
+
+        System.out.println(String.format("%,d sessions: create=%,d events/s, extend=%,d events/s, emitted=%,d",
+                sessionCount,
+                sessionCount * SECONDS.toNanos(1) / createNanos,
+                MEASURED_PASSES * sessionCount * SECONDS.toNanos(1) / extendNanos,
+                emittedCount));
+    }
+
+    private static long process(
+            Processor p, TestInbox inbox, TestOutbox outbox, long sessionCount, long firstItem, long count
+    ) {
+        long item = firstItem;
+        for (; item < firstItem + count; item++) {
+            inbox.add(item);
+            if (inbox.size() == INBOX_BATCH_SIZE) {
+                p.process(0, inbox);
+                // lags behind the events by the session timeout, doesn't close any session
+                long wm = timestamp(item, sessionCount) - SESSION_TIMEOUT;
+                while (!p.tryProcessWatermark(new Watermark(wm))) {
+                    outbox.queue(0).clear();
+                }
+                outbox.queue(0).clear();
+            }
+        }
+        p.process(0, inbox);
+        return item;
+    }
+
+    /**
+     * Each key gets an event every half of the session timeout.
+     */
+    private static long timestamp(long item, long sessionCount) {
+        return item * SESSION_TIMEOUT / (2 * sessionCount);
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.jet.benchmark;
+
+import com.hazelcast.jet.accumulator.LongAccumulator;
+import com.hazelcast.jet.aggregate.AggregateOperation;
+import com.hazelcast.jet.aggregate.AggregateOperation1;
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.jet.core.TimestampKind;
+import com.hazelcast.jet.core.test.TestInbox;
+import com.hazelcast.jet.core.test.TestOutbox;
+import com.hazelcast.jet.core.test.TestProcessorContext;
+import com.hazelcast.jet.datamodel.TimestampedEntry;
+import com.hazelcast.jet.function.DistributedFunction;
+import com.hazelcast.jet.function.DistributedToLongFunction;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import com.hazelcast.test.annotation.NightlyTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.Objects;
+
+import static com.hazelcast.jet.core.SlidingWindowPolicy.slidingWinPolicy;
+import static com.hazelcast.jet.core.processor.Processors.aggregateToSlidingWindowP;
+import static java.util.Collections.singletonList;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Compares the heap footprint and the throughput of the sliding window
+ * state for an accumulator that is stored in flat primitive arrays ({@code
+ * LongAccumulator}) and for an equivalent accumulator that is stored as an
+ * object in a map per frame.
+ */
+@Category(NightlyTest.class)
+@RunWith(HazelcastSerialClassRunner.class)
+public class SlidingWindowStateBenchmark {
+
+    private static final int KEY_COUNT = 200_000;
+    private static final int FRAME_COUNT = 60;
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int MEASURED_ROUNDS = 3;
+    private static final int INBOX_BATCH_SIZE = 1024;
+
+    @Test
+    public void primitiveAccumulator() throws Exception {
+        run("LongAccumulator (flat arrays)", AggregateOperation
+                .withCreate(LongAccumulator::new)
+                .andAccumulate((LongAccumulator acc, Long item) -> acc.add(1))
+                .andCombine(LongAccumulator::add)
+                .andDeduct(LongAccumulator::subtract)
+                .andExportFinish(LongAccumulator::get));
+    }
+
+    @Test
+    public void objectAccumulator() throws Exception {
+        run("LongBox (map per frame)", AggregateOperation
+                .withCreate(LongBox::new)
+                .andAccumulate((LongBox acc, Long item) -> acc.value++)
+                .andCombine((LongBox acc1, LongBox acc2) -> acc1.value += acc2.value)
+                .andDeduct((LongBox acc1, LongBox acc2) -> acc1.value -= acc2.value)
+                .andExportFinish(acc -> acc.value));
+    }
+
+    private static void run(String label, AggregateOperation1<Long, ?, Long> aggrOp) throws Exception {
+        for (int round = 0; round < WARMUP_ROUNDS + MEASURED_ROUNDS; round++) {
+            Processor p = aggregateToSlidingWindowP(
+                    singletonList((DistributedFunction<Long, Long>) item -> item % KEY_COUNT),
+                    singletonList((DistributedToLongFunction<Long>) item -> item / KEY_COUNT),
+                    TimestampKind.EVENT,
+                    slidingWinPolicy(FRAME_COUNT, 1),
+                    0L,
+                    aggrOp,
+                    TimestampedEntry::fromWindowResult
+            ).get();
+            TestOutbox outbox = new TestOutbox(INBOX_BATCH_SIZE);
+            p.init(outbox, new TestProcessorContext());
+            TestInbox inbox = new TestInbox();
+            long heapBefore = usedHeap();
+
+            long start = System.nanoTime();
+            for (long item = 0; item < (long) KEY_COUNT * FRAME_COUNT; item++) {
+                inbox.add(item);
+                if (inbox.size() == INBOX_BATCH_SIZE) {
+                    p.process(0, inbox);
+                }
+            }
+            p.process(0, inbox);
+            long accumulateNanos = System.nanoTime() - start;
+            long heapUsed = usedHeap() - heapBefore;
+
+            start = System.nanoTime();
+            long emittedCount = 0;
+            boolean done;
+            do {
+                done = p.complete();
+                emittedCount += outbox.queue(0).size();
+                outbox.queue(0).clear();
+            } while (!done);
+            long emitNanos = System.nanoTime() - start;
+
+            if (round >= WARMUP_ROUNDS) {
+                System.out.println(String.format("%s: heap=%,d MB, accumulate=%,d items/s, emit=%,d items/s",
+                        label, heapUsed >> 20,
+                        (long) KEY_COUNT * FRAME_COUNT * SECONDS.toNanos(1) / accumulateNanos,
+                        emittedCount * SECONDS.toNanos(1) / emitNanos));
+            }
+        }
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static final class LongBox {
+        long value;
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof LongBox && ((LongBox) o).value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(value);
+        }
+    }
+}
@@ -53,18 +53,29 @@ public class JetConfigTest_loadFromClassPath {
         properties.setProperty("flow.control.period", "456");
         properties.setProperty("backup.count", "6");
         properties.setProperty("scale.up.delay.millis", "1234");
+        properties.setProperty("work.stealing.enabled", "true");
+        properties.setProperty("idle.strategy", "PARK");
+        properties.setProperty("cooperative.thread.affinity", "1,3");
+        properties.setProperty("readiness.tracking.enabled", "true");
+        properties.setProperty("snapshot.directory", "/tmp/snapshots");
 
         properties.setProperty("metrics.enabled", "false");
         properties.setProperty("metrics.jmxEnabled", "false");
         properties.setProperty("metrics.retention", "124");
         properties.setProperty("metrics.collection-interval", "123");
         properties.setProperty("metrics.enabled-for-data-structures", "true");
+        properties.setProperty("metrics.tasklet-call-timing", "false");
 
         JetConfig config = JetConfig.loadFromClasspath(TEST_XML_JET_WITH_VARIABLES, properties);
         assertEquals(123, config.getInstanceConfig().getCooperativeThreadCount());
         assertEquals(456, config.getInstanceConfig().getFlowControlPeriodMs());
         assertEquals(6, config.getInstanceConfig().getBackupCount());
         assertEquals(1234, config.getInstanceConfig().getScaleUpDelayMillis());
+        assertTrue(config.getInstanceConfig().isWorkStealingEnabled());
+        assertEquals(IdleStrategyType.PARK, config.getInstanceConfig().getIdleStrategy());
+        assertEquals("1,3", config.getInstanceConfig().getCooperativeThreadAffinity());
+        assertTrue(config.getInstanceConfig().isReadinessTrackingEnabled());
+        assertEquals("/tmp/snapshots", config.getInstanceConfig().getSnapshotDirectory());
 
         MetricsConfig metricsConfig = config.getMetricsConfig();
         assertFalse(metricsConfig.isEnabled());
@@ -72,5 +83,6 @@ public class JetConfigTest_loadFromClassPath {
         assertEquals(123, metricsConfig.getCollectionIntervalSeconds());
         assertEquals(124, metricsConfig.getRetentionSeconds());
         assertTrue(metricsConfig.isMetricsForDataStructuresEnabled());
+        assertFalse(metricsConfig.isTaskletCallTimingEnabled());
     }
 }
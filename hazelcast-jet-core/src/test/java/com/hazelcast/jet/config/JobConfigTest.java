@@ -86,6 +86,46 @@ public class JobConfigTest {
         assertEquals(50, config.getSnapshotIntervalMillis());
     }
 
+    @Test
+    public void when_setGroupSpillThreshold_thenReturnsGroupSpillThreshold() {
+        // When
+        JobConfig config = new JobConfig();
+        config.setGroupSpillThreshold(1000);
+
+        // Then
+        assertEquals(1000, config.getGroupSpillThreshold());
+    }
+
+    @Test
+    public void when_setSortSpillThreshold_thenReturnsSortSpillThreshold() {
+        // When
+        JobConfig config = new JobConfig();
+        config.setSortSpillThreshold(1000);
+
+        // Then
+        assertEquals(1000, config.getSortSpillThreshold());
+    }
+
+    @Test
+    public void when_setJoinSpillThreshold_thenReturnsJoinSpillThreshold() {
+        // When
+        JobConfig config = new JobConfig();
+        config.setJoinSpillThreshold(1000);
+
+        // Then
+        assertEquals(1000, config.getJoinSpillThreshold());
+    }
+
+    @Test
+    public void when_setSpillDirectory_thenReturnsSpillDirectory() {
+        // When
+        JobConfig config = new JobConfig();
+        config.setSpillDirectory("/path/to/spill");
+
+        // Then
+        assertEquals("/path/to/spill", config.getSpillDirectory());
+    }
+
     @Test
     public void when_addClass_thenReturnsResourceConfig() {
         // When
@@ -38,6 +38,7 @@ import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.nullValue;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
@@ -59,12 +60,23 @@ public class XmlConfigTest {
         assertEquals(Runtime.getRuntime().availableProcessors(),
                 jetConfig.getInstanceConfig().getCooperativeThreadCount());
         assertEquals(DEFAULT_FLOW_CONTROL_PERIOD_MS, jetConfig.getInstanceConfig().getFlowControlPeriodMs());
+        assertFalse(jetConfig.getInstanceConfig().isWorkStealingEnabled());
+        assertEquals(IdleStrategyType.BACKOFF, jetConfig.getInstanceConfig().getIdleStrategy());
+        assertNull(jetConfig.getInstanceConfig().getCooperativeThreadAffinity());
+        assertFalse(jetConfig.getInstanceConfig().isReadinessTrackingEnabled());
+        assertNull(jetConfig.getInstanceConfig().getSnapshotDirectory());
+        assertEquals(CompressionType.NONE, jetConfig.getDefaultEdgeConfig().getCompression());
+        assertFalse(jetConfig.getDefaultEdgeConfig().isLazyDeserializationEnabled());
+        assertEquals(FlowControlType.RATE_BASED, jetConfig.getDefaultEdgeConfig().getFlowControl());
+        assertEquals(EdgeConfig.DEFAULT_TARGET_QUEUEING_DELAY_MS,
+                jetConfig.getDefaultEdgeConfig().getTargetQueueingDelayMs());
 
         assertTrue(jetConfig.getMetricsConfig().isEnabled());
         assertTrue(jetConfig.getMetricsConfig().isJmxEnabled());
         assertEquals(DEFAULT_METRICS_RETENTION_SECONDS, jetConfig.getMetricsConfig().getRetentionSeconds());
         assertEquals(DEFAULT_METRICS_COLLECTION_SECONDS, jetConfig.getMetricsConfig().getCollectionIntervalSeconds());
         assertFalse(jetConfig.getMetricsConfig().isMetricsForDataStructuresEnabled());
+        assertTrue(jetConfig.getMetricsConfig().isTaskletCallTimingEnabled());
 
         assertDefaultMemberConfig(jetConfig.getHazelcastConfig());
     }
@@ -144,11 +156,17 @@ public class XmlConfigTest {
         properties.put("flow.control.period", "50");
         properties.put("backup.count", "2");
         properties.put("scale.up.delay.millis", "1234");
+        properties.put("work.stealing.enabled", "true");
+        properties.put("idle.strategy", "YIELD");
+        properties.put("cooperative.thread.affinity", "0-3,6");
+        properties.put("readiness.tracking.enabled", "true");
+        properties.put("snapshot.directory", "/var/lib/jet/snapshots");
         properties.put("metrics.enabled", "false");
         properties.put("metrics.jmxEnabled", "false");
         properties.put("metrics.retention", "124");
         properties.put("metrics.collection-interval", "123");
         properties.put("metrics.enabled-for-data-structures", "true");
+        properties.put("metrics.tasklet-call-timing", "false");
 
         // When
         JetConfig jetConfig = JetConfig.loadDefault(properties);
@@ -190,6 +208,10 @@ public class XmlConfigTest {
         assertEquals("queueSize", 999, edgeConfig.getQueueSize());
         assertEquals("packetSizeLimit", 997, edgeConfig.getPacketSizeLimit());
         assertEquals("receiveWindowMultiplier", 996, edgeConfig.getReceiveWindowMultiplier());
+        assertEquals("compression", CompressionType.LZ4, edgeConfig.getCompression());
+        assertTrue("lazyDeserializationEnabled", edgeConfig.isLazyDeserializationEnabled());
+        assertEquals("flowControl", FlowControlType.DELAY_BASED, edgeConfig.getFlowControl());
+        assertEquals("targetQueueingDelayMs", 25, edgeConfig.getTargetQueueingDelayMs());
     }
 
     private static void assertConfig(JetConfig jetConfig) {
@@ -197,6 +219,13 @@ public class XmlConfigTest {
         assertEquals("backupCount", 2, jetConfig.getInstanceConfig().getBackupCount());
         assertEquals("flowControlMs", 50, jetConfig.getInstanceConfig().getFlowControlPeriodMs());
         assertEquals("scaleUpDelayMillis", 1234, jetConfig.getInstanceConfig().getScaleUpDelayMillis());
+        assertTrue("workStealingEnabled", jetConfig.getInstanceConfig().isWorkStealingEnabled());
+        assertEquals("idleStrategy", IdleStrategyType.YIELD, jetConfig.getInstanceConfig().getIdleStrategy());
+        assertEquals("cooperativeThreadAffinity", "0-3,6",
+                jetConfig.getInstanceConfig().getCooperativeThreadAffinity());
+        assertTrue("readinessTrackingEnabled", jetConfig.getInstanceConfig().isReadinessTrackingEnabled());
+        assertEquals("snapshotDirectory", "/var/lib/jet/snapshots",
+                jetConfig.getInstanceConfig().getSnapshotDirectory());
 
         assertEquals("value1", jetConfig.getProperties().getProperty("property1"));
         assertEquals("value2", jetConfig.getProperties().getProperty("property2"));
@@ -207,6 +236,7 @@ public class XmlConfigTest {
         assertEquals("metricsRetentionSeconds", 124, metricsCfg.getRetentionSeconds());
         assertEquals("metricsCollectionInterval", 123, metricsCfg.getCollectionIntervalSeconds());
         assertTrue("metricsForDataStructures", metricsCfg.isMetricsForDataStructuresEnabled());
+        assertFalse("taskletCallTiming", metricsCfg.isTaskletCallTimingEnabled());
     }
 
     private static void assertDefaultMemberConfig(Config config) {
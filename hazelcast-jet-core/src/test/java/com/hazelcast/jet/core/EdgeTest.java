@@ -25,6 +25,7 @@ import org.junit.runner.RunWith;
 import static com.hazelcast.jet.core.processor.Processors.noopP;
 import static com.hazelcast.jet.function.DistributedFunctions.wholeItem;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
@@ -93,6 +94,18 @@ public class EdgeTest {
         assertEquals(2, e.getPriority());
     }
 
+    @Test
+    public void whenSplitHotKeysNotSet_thenFalse() {
+        final Edge e = Edge.from(a).partitioned(wholeItem());
+        assertFalse(e.isSplittingHotKeys());
+    }
+
+    @Test
+    public void whenSplitHotKeys_thenTrue() {
+        final Edge e = Edge.from(a).partitioned(wholeItem()).splitHotKeys();
+        assertTrue(e.isSplittingHotKeys());
+    }
+
     @Test
     public void whenPartitionedNotSet_thenPartitionerNull() {
         final Edge e = Edge.from(a);
@@ -33,7 +33,9 @@ import com.hazelcast.jet.impl.SnapshotValidationRecord;
 import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataKey;
 import com.hazelcast.test.HazelcastParametersRunnerFactory;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 import org.junit.runners.Parameterized.Parameter;
@@ -42,6 +44,7 @@ import org.junit.runners.Parameterized.Parameters;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.Future;
 
@@ -68,6 +71,9 @@ public class ExportSnapshotTest extends JetTestSupport {
     @Parameter
     public boolean fromClient;
 
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
     @Parameters(name = "fromClient={0}")
     public static Collection<Object> data() {
         return asList(false, true);
@@ -182,6 +188,44 @@ public class ExportSnapshotTest extends JetTestSupport {
         assertTrueEventually(() -> assertTrue(DummyStatefulP.wasRestored));
     }
 
+    @Test
+    public void when_snapshotDirectorySetAndSuspended_then_chunksCopiedToExportedMap() {
+        JetConfig config = new JetConfig();
+        config.getInstanceConfig().setSnapshotDirectory(tempFolder.getRoot().getPath());
+        JetInstance[] instances = createJetMembers(config, 2);
+        JetInstance client = fromClient ? createJetClient() : instances[0];
+        DAG dag = new DAG();
+        dag.newVertex("v", () -> new DummyStatefulP()).localParallelism(1);
+        Job job = client.newJob(dag, new JobConfig().setSnapshotIntervalMillis(10).setProcessingGuarantee(EXACTLY_ONCE));
+        JobRepository jr = new JobRepository(client);
+        assertJobStatusEventually(job, RUNNING);
+        assertTrueEventually(() -> assertTrue(jr.getJobExecutionRecord(job.getId()).snapshotId() >= 0));
+        job.suspend();
+        assertJobStatusEventually(job, SUSPENDED);
+
+        // When - the chunks of the last snapshot are copied from the files by a job
+        job.exportSnapshot("state");
+
+        // Then
+        for (Entry<Object, Object> entry : getSnapshotMap(client, "state").entrySet()) {
+            if (entry.getKey() instanceof SnapshotDataKey) {
+                assertTrue("unexpected value: " + entry.getValue(), entry.getValue() instanceof byte[]);
+            }
+        }
+        // the resumed job reads the chunks from the files
+        DummyStatefulP.wasRestored = false;
+        job.resume();
+        assertJobStatusEventually(job, RUNNING);
+        assertTrueEventually(() -> assertTrue(DummyStatefulP.wasRestored));
+        job.cancel();
+        assertJobStatusEventually(job, FAILED);
+
+        DummyStatefulP.wasRestored = false;
+        Job job2 = client.newJob(dag, new JobConfig().setInitialSnapshotName("state"));
+        assertJobStatusEventually(job2, RUNNING);
+        assertTrueEventually(() -> assertTrue(DummyStatefulP.wasRestored));
+    }
+
     @Test
     public void when_targetMapNotEmpty_then_cleared() {
         JetInstance[] instances = createJetMembers(2);
@@ -0,0 +1,130 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.core;
+
+import com.hazelcast.client.map.helpers.AMapStore;
+import com.hazelcast.config.MapConfig;
+import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.Job;
+import com.hazelcast.jet.config.JetConfig;
+import com.hazelcast.jet.config.JobConfig;
+import com.hazelcast.jet.core.TestProcessors.DummyStatefulP;
+import com.hazelcast.jet.impl.JobExecutionRecord;
+import com.hazelcast.jet.impl.JobRepository;
+import com.hazelcast.jet.impl.SnapshotValidationRecord;
+import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataKey;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.Serializable;
+
+import static com.hazelcast.jet.config.ProcessingGuarantee.EXACTLY_ONCE;
+import static com.hazelcast.jet.core.JobStatus.RUNNING;
+import static com.hazelcast.jet.impl.JobRepository.snapshotDataMapName;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastSerialClassRunner.class)
+public class IncrementalSnapshotFailureTest extends JetTestSupport {
+
+    private static final long NO_FAILURE = -1;
+
+    private static volatile boolean failNextSnapshot;
+    private static volatile long failedSnapshotId;
+
+    private JetInstance instance;
+
+    @Before
+    public void setup() {
+        failNextSnapshot = false;
+        failedSnapshotId = NO_FAILURE;
+        TestProcessors.reset(1);
+
+        JetConfig config = new JetConfig();
+        MapConfig mapConfig = new MapConfig(JobRepository.SNAPSHOT_DATA_MAP_PREFIX + '*');
+        mapConfig.getMapStoreConfig()
+                 .setEnabled(true)
+                 .setImplementation(new FailingOnceMapStore());
+        config.getHazelcastConfig().addMapConfig(mapConfig);
+        instance = createJetMember(config);
+    }
+
+    @Test
+    public void when_incrementalSnapshotFails_then_nextSnapshotIsFull() {
+        // Given
+        DAG dag = new DAG();
+        dag.newVertex("v", DummyStatefulP::new).localParallelism(1);
+        Job job = instance.newJob(dag, new JobConfig()
+                .setProcessingGuarantee(EXACTLY_ONCE)
+                .setSnapshotIntervalMillis(100)
+                .setMaxIncrementalSnapshots(1000));
+        JobRepository jr = new JobRepository(instance);
+        assertJobStatusEventually(job, RUNNING);
+        assertTrueEventually(() -> {
+            SnapshotValidationRecord record = currentValidationRecord(jr, job.getId());
+            assertTrue("no incremental snapshot yet", record.baseSnapshotId() < record.snapshotId());
+        });
+
+        // When
+        failNextSnapshot = true;
+
+        // Then
+        assertTrueEventually(() -> {
+            long failedId = failedSnapshotId;
+            assertTrue("no snapshot failed yet", failedId != NO_FAILURE);
+            SnapshotValidationRecord record = currentValidationRecord(jr, job.getId());
+            assertTrue("no snapshot after the failed one yet", record.snapshotId() > failedId + 1);
+            // the snapshot after the failed one is full, those after it are deltas on top of it
+            assertEquals(failedId + 1, record.baseSnapshotId());
+        });
+    }
+
+    private SnapshotValidationRecord currentValidationRecord(JobRepository jr, long jobId) {
+        JobExecutionRecord executionRecord = jr.getJobExecutionRecord(jobId);
+        assertNotNull("no execution record", executionRecord);
+        SnapshotValidationRecord record = (SnapshotValidationRecord) instance
+                .getMap(snapshotDataMapName(jobId, executionRecord.dataMapIndex()))
+                .get(SnapshotValidationRecord.KEY);
+        assertNotNull("no validation record", record);
+        return record;
+    }
+
+    /**
+     * Fails all the writes of the first snapshot started after {@link
+     * #failNextSnapshot} is set.
+     */
+    private static class FailingOnceMapStore extends AMapStore implements Serializable {
+        @Override
+        public void store(Object key, Object value) {
+            if (!failNextSnapshot || !(key instanceof SnapshotDataKey)) {
+                return;
+            }
+            long snapshotId = ((SnapshotDataKey) key).snapshotId();
+            synchronized (FailingOnceMapStore.class) {
+                if (failedSnapshotId == NO_FAILURE) {
+                    failedSnapshotId = snapshotId;
+                }
+            }
+            if (snapshotId == failedSnapshotId) {
+                throw new UnsupportedOperationException("failing snapshot " + snapshotId);
+            }
+        }
+    }
+}
@@ -23,6 +23,7 @@ import com.hazelcast.jet.Traverser;
 import com.hazelcast.jet.Traversers;
 import com.hazelcast.jet.accumulator.LongAccumulator;
 import com.hazelcast.jet.aggregate.AggregateOperation1;
+import com.hazelcast.jet.config.CompressionType;
 import com.hazelcast.jet.config.JetConfig;
 import com.hazelcast.jet.config.JobConfig;
 import com.hazelcast.jet.core.TestProcessors.DummyStatefulP;
@@ -34,7 +35,9 @@ import com.hazelcast.jet.function.DistributedFunction;
 import com.hazelcast.jet.function.DistributedSupplier;
 import com.hazelcast.jet.impl.JobExecutionRecord;
 import com.hazelcast.jet.impl.JobRepository;
+import com.hazelcast.jet.impl.SnapshotValidationRecord;
 import com.hazelcast.jet.impl.execution.init.JetInitDataSerializerHook;
+import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataKey;
 import com.hazelcast.test.HazelcastSerialClassRunner;
 import org.junit.Before;
 import org.junit.Rule;
@@ -58,6 +61,8 @@ import java.util.stream.IntStream;
 
 import static com.hazelcast.jet.Util.entry;
 import static com.hazelcast.jet.aggregate.AggregateOperations.counting;
+import static com.hazelcast.jet.config.CompressionType.LZ4;
+import static com.hazelcast.jet.config.CompressionType.NONE;
 import static com.hazelcast.jet.config.ProcessingGuarantee.EXACTLY_ONCE;
 import static com.hazelcast.jet.core.BroadcastKey.broadcastKey;
 import static com.hazelcast.jet.core.Edge.between;
@@ -95,24 +100,54 @@ public class JobRestartWithSnapshotTest extends JetTestSupport {
 
     @Before
     public void setup() {
-        JetConfig config = new JetConfig();
-        config.getInstanceConfig().setCooperativeThreadCount(LOCAL_PARALLELISM);
-
+        JetConfig config = createConfig();
         instance1 = createJetMember(config);
         instance2 = createJetMember(config);
     }
 
+    /**
+     * Returns the configuration of the members, subclasses can change it.
+     */
+    protected JetConfig createConfig() {
+        JetConfig config = new JetConfig();
+        config.getInstanceConfig().setCooperativeThreadCount(LOCAL_PARALLELISM);
+        return config;
+    }
+
     @Test
     public void when_nodeDown_then_jobRestartsFromSnapshot_singleStage() throws Exception {
-        when_nodeDown_then_jobRestartsFromSnapshot(false);
+        when_nodeDown_then_jobRestartsFromSnapshot(false, false, 0, NONE);
     }
 
     @Test
     public void when_nodeDown_then_jobRestartsFromSnapshot_twoStage() throws Exception {
-        when_nodeDown_then_jobRestartsFromSnapshot(true);
+        when_nodeDown_then_jobRestartsFromSnapshot(true, false, 0, NONE);
+    }
+
+    @Test
+    public void when_nodeDown_then_jobRestartsFromUnalignedSnapshot_twoStage() throws Exception {
+        when_nodeDown_then_jobRestartsFromSnapshot(true, true, 0, NONE);
     }
 
-    private void when_nodeDown_then_jobRestartsFromSnapshot(boolean twoStage) throws Exception {
+    @Test
+    public void when_nodeDown_then_jobRestartsFromIncrementalSnapshot_singleStage() throws Exception {
+        when_nodeDown_then_jobRestartsFromSnapshot(false, false, 2, NONE);
+    }
+
+    @Test
+    public void when_nodeDown_then_jobRestartsFromIncrementalSnapshot_twoStage() throws Exception {
+        when_nodeDown_then_jobRestartsFromSnapshot(true, false, 2, NONE);
+    }
+
+    @Test
+    public void when_nodeDown_then_jobRestartsFromCompressedSnapshot_twoStage() throws Exception {
+        when_nodeDown_then_jobRestartsFromSnapshot(true, false, 0, LZ4);
+    }
+
+    private void when_nodeDown_then_jobRestartsFromSnapshot(
+            boolean twoStage, boolean unalignedSnapshots, int maxIncrementalSnapshots,
+            CompressionType snapshotCompression
+    ) throws Exception {
         /* Design of this test:
 
         It uses a random partitioned generator of source events. The events are
@@ -139,6 +174,10 @@ public class JobRestartWithSnapshotTest extends JetTestSupport {
 
         The sink writes to an IMap which is an idempotent sink.
 
+        With unaligned snapshots, the items on the edges when the snapshot was
+        taken are restored as in-flight items. A lost or duplicated item changes
+        the count of its window.
+
         The resulting contents of the sink map are compared to expected value.
          */
 
@@ -202,6 +241,9 @@ public class JobRestartWithSnapshotTest extends JetTestSupport {
         JobConfig config = new JobConfig();
         config.setProcessingGuarantee(EXACTLY_ONCE);
         config.setSnapshotIntervalMillis(1200);
+        config.setUnalignedSnapshots(unalignedSnapshots);
+        config.setMaxIncrementalSnapshots(maxIncrementalSnapshots);
+        config.setSnapshotCompression(snapshotCompression);
         Job job = instance1.newJob(dag, config);
 
         JobRepository jobRepository = new JobRepository(instance1);
@@ -209,6 +251,19 @@ public class JobRestartWithSnapshotTest extends JetTestSupport {
 
         waitForFirstSnapshot(jobRepository, job.getId(), timeout);
         waitForNextSnapshot(jobRepository, job.getId(), timeout);
+        JobExecutionRecord record = jobRepository.getJobExecutionRecord(job.getId());
+        IMap<Object, Object> snapshotMap = instance1.getMap(snapshotDataMapName(job.getId(), record.dataMapIndex()));
+        if (maxIncrementalSnapshots > 0) {
+            // the second snapshot is a delta on top of the first one, the job restarts from both
+            SnapshotValidationRecord validationRecord =
+                    (SnapshotValidationRecord) snapshotMap.get(SnapshotValidationRecord.KEY);
+            assertTrue("not an incremental snapshot: " + validationRecord,
+                    validationRecord.baseSnapshotId() < validationRecord.snapshotId());
+        }
+        if (snapshotCompression != NONE) {
+            assertTrue("no compressed chunk", snapshotMap.keySet().stream().anyMatch(key ->
+                    key instanceof SnapshotDataKey && ((SnapshotDataKey) key).compression() == snapshotCompression));
+        }
         // wait a little more to emit something, so that it will be overwritten in the sink map
         Thread.sleep(300);
 
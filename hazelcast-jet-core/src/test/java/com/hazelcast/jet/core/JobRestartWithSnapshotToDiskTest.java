@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.core;
+
+import com.hazelcast.jet.config.JetConfig;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import org.junit.Rule;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+/**
+ * Runs the tests of {@link JobRestartWithSnapshotTest} with the snapshot
+ * chunks stored in the {@linkplain
+ * com.hazelcast.jet.config.InstanceConfig#setSnapshotDirectory(String)
+ * snapshot directory}.
+ */
+@RunWith(HazelcastSerialClassRunner.class)
+public class JobRestartWithSnapshotToDiskTest extends JobRestartWithSnapshotTest {
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Override
+    protected JetConfig createConfig() {
+        JetConfig config = super.createConfig();
+        config.getInstanceConfig().setSnapshotDirectory(tempFolder.getRoot().getPath());
+        return config;
+    }
+}
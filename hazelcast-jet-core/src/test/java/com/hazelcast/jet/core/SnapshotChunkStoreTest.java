@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.core;
+
+import com.hazelcast.core.IMap;
+import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.Job;
+import com.hazelcast.jet.config.JetConfig;
+import com.hazelcast.jet.config.JobConfig;
+import com.hazelcast.jet.core.TestProcessors.DummyStatefulP;
+import com.hazelcast.jet.impl.JobRepository;
+import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataKey;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.hazelcast.jet.Util.toCompletableFuture;
+import static com.hazelcast.jet.config.ProcessingGuarantee.EXACTLY_ONCE;
+import static com.hazelcast.jet.core.JobStatus.FAILED;
+import static com.hazelcast.jet.core.JobStatus.RUNNING;
+import static com.hazelcast.util.UuidUtil.newUnsecureUuidString;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastSerialClassRunner.class)
+public class SnapshotChunkStoreTest extends JetTestSupport {
+
+    private static final Map<String, byte[]> CHUNKS = new ConcurrentHashMap<>();
+    private static final AtomicInteger READ_COUNT = new AtomicInteger();
+
+    private JetInstance[] instances;
+    private DAG dag;
+
+    @Before
+    public void before() {
+        CHUNKS.clear();
+        READ_COUNT.set(0);
+        TestProcessors.reset(2);
+        JetConfig config = new JetConfig();
+        config.getInstanceConfig().setSnapshotChunkStoreFactory(jet -> new InMemoryChunkStore());
+        instances = createJetMembers(config, 2);
+        dag = new DAG();
+        dag.newVertex("v", DummyStatefulP::new).localParallelism(1);
+    }
+
+    @Test
+    public void when_customStore_then_jobRestoredFromIt() {
+        // Given
+        Job job = startJobAndAwaitSnapshot();
+        assertFalse("no chunks stored", CHUNKS.isEmpty());
+
+        // When
+        DummyStatefulP.wasRestored = false;
+        job.restart();
+
+        // Then
+        assertTrueEventually(() -> assertTrue(DummyStatefulP.wasRestored));
+        assertTrue("no chunks read", READ_COUNT.get() > 0);
+        assertJobStatusEventually(job, RUNNING);
+    }
+
+    @Test
+    public void when_customStoreAndExported_then_exportedMapHoldsChunks() {
+        // Given
+        Job job = startJobAndAwaitSnapshot();
+
+        // When
+        job.cancelAndExportSnapshot("state");
+        assertJobStatusEventually(job, FAILED);
+
+        // Then
+        IMap<Object, Object> exportedMap = instances[0].getMap(JobRepository.exportedSnapshotMapName("state"));
+        for (Entry<Object, Object> entry : exportedMap.entrySet()) {
+            if (entry.getKey() instanceof SnapshotDataKey) {
+                assertTrue("unexpected value: " + entry.getValue(), entry.getValue() instanceof byte[]);
+            }
+        }
+        DummyStatefulP.wasRestored = false;
+        Job job2 = instances[0].newJob(dag, new JobConfig().setInitialSnapshotName("state"));
+        assertJobStatusEventually(job2, RUNNING);
+        assertTrueEventually(() -> assertTrue(DummyStatefulP.wasRestored));
+    }
+
+    private Job startJobAndAwaitSnapshot() {
+        Job job = instances[0].newJob(dag,
+                new JobConfig().setProcessingGuarantee(EXACTLY_ONCE).setSnapshotIntervalMillis(10));
+        JobRepository jr = new JobRepository(instances[0]);
+        assertJobStatusEventually(job, RUNNING);
+        assertTrueEventually(() -> assertTrue(jr.getJobExecutionRecord(job.getId()).snapshotId() >= 0));
+        return job;
+    }
+
+    /**
+     * Keeps the chunks in a static map, the snapshot map holds their IDs.
+     */
+    private static final class InMemoryChunkStore implements SnapshotChunkStore {
+
+        @Nonnull @Override
+        public CompletableFuture<Object> put(@Nonnull IMap<Object, Object> map, @Nonnull Object key,
+                                             @Nonnull Data chunk) {
+            String id = map.getName() + '/' + newUnsecureUuidString();
+            CHUNKS.put(id, chunk.toByteArray());
+            return toCompletableFuture(map.putAsync(key, id));
+        }
+
+        @Nonnull @Override
+        public CompletableFuture<byte[]> read(@Nonnull Object value) {
+            READ_COUNT.incrementAndGet();
+            return completedFuture(CHUNKS.get((String) value));
+        }
+
+        @Override
+        public void delete(@Nonnull String mapName) {
+            CHUNKS.keySet().removeIf(id -> id.startsWith(mapName + '/'));
+        }
+    }
+}
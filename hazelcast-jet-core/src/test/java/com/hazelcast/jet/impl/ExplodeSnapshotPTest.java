@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl;
+
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.core.JetTestSupport;
+import com.hazelcast.jet.core.test.TestInbox;
+import com.hazelcast.jet.core.test.TestOutbox;
+import com.hazelcast.jet.core.test.TestProcessorContext;
+import com.hazelcast.jet.impl.execution.InFlightItemKey;
+import com.hazelcast.jet.impl.execution.SnapshotTombstone;
+import com.hazelcast.jet.impl.execution.VersionedSnapshotValue;
+import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataKey;
+import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataValueTerminator;
+import com.hazelcast.nio.BufferObjectDataOutput;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+
+import static com.hazelcast.jet.Util.entry;
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastSerialClassRunner.class)
+public class ExplodeSnapshotPTest extends JetTestSupport {
+
+    private JetInstance instance;
+    private InternalSerializationService serializationService;
+
+    @Before
+    public void setup() {
+        instance = createJetMember();
+        serializationService = getNodeEngineImpl(instance).getSerializationService();
+    }
+
+    @Test
+    public void when_inFlightItemsOfEarlierSnapshot_then_onlyRestoredSnapshotsInFlightItemsEmitted() throws Exception {
+        InFlightItemKey inFlightKey1 = new InFlightItemKey(1, 0, 0, 0);
+        InFlightItemKey inFlightKey2 = new InFlightItemKey(1, 0, 1, 0);
+
+        // snapshot 1 is the base, snapshot 2 is the restored incremental one
+        List<Object> output = explode(1, 2,
+                chunk(1, entry("k", "v1"), entry(inFlightKey1, "inFlight1")),
+                chunk(2, entry(inFlightKey2, "inFlight2")));
+
+        assertEquals(2, output.size());
+        Entry<?, ?> stateEntry = (Entry<?, ?>) output.get(0);
+        assertEquals("k", stateEntry.getKey());
+        VersionedSnapshotValue stateValue = (VersionedSnapshotValue) stateEntry.getValue();
+        assertEquals(1, stateValue.snapshotId());
+        assertEquals("v1", stateValue.value());
+        // in-flight items are never versioned, each snapshot saves its own
+        assertEquals(entry(inFlightKey2, "inFlight2"), output.get(1));
+    }
+
+    @Test
+    public void when_fullSnapshotRestored_then_itsInFlightItemsEmittedUnversioned() throws Exception {
+        InFlightItemKey inFlightKey = new InFlightItemKey(1, 0, 0, 0);
+
+        List<Object> output = explode(2, 2,
+                chunk(2, entry("k", "v2"), entry(inFlightKey, "inFlight2")));
+
+        assertEquals(asList(entry("k", "v2"), entry(inFlightKey, "inFlight2")), output);
+    }
+
+    @Test
+    public void when_chunksOutsideOfBaseAndRestoredSnapshot_then_ignored() throws Exception {
+        // snapshot 2 is the base, snapshot 4 is the restored incremental one
+        List<Object> output = explode(2, 4,
+                chunk(1, entry("k", "v1")),
+                chunk(2, entry("k", "v2")),
+                chunk(3, entry("k", SnapshotTombstone.INSTANCE)),
+                chunk(4, entry("k", "v4")),
+                chunk(5, entry("k", "v5")));
+
+        assertEquals(asList(
+                entry("k", entry(2L, "v2")),
+                entry("k", entry(3L, null)),
+                entry("k", entry(4L, "v4"))),
+                unwrapVersions(output));
+    }
+
+    @Test
+    public void when_nonIncrementalChunksOfEarlierSnapshots_then_onlyRestoredSnapshotsEmitted() throws Exception {
+        List<Object> output = explode(2, 4,
+                chunk(2, false, entry("k", "v2")),
+                chunk(3, false, entry("k", "v3")),
+                chunk(4, false, entry("k", "v4")));
+
+        assertEquals(singletonList(entry("k", "v4")), output);
+    }
+
+    private List<Object> explode(long baseSnapshotId, long expectedSnapshotId, Object... chunks) throws Exception {
+        ExplodeSnapshotP p = new ExplodeSnapshotP(singletonMap("vertex", 0), expectedSnapshotId, baseSnapshotId);
+        TestOutbox outbox = new TestOutbox(128);
+        p.init(outbox, new TestProcessorContext().setJetInstance(instance));
+        TestInbox inbox = new TestInbox();
+        for (Object chunk : chunks) {
+            inbox.add(chunk);
+        }
+        p.process(0, inbox);
+        assertTrue(inbox.isEmpty());
+        p.close();
+
+        List<Object> output = new ArrayList<>();
+        outbox.drainQueueAndReset(0, output, false);
+        return output;
+    }
+
+    /**
+     * {@link VersionedSnapshotValue} has no {@code equals()}, returns its
+     * fields as an entry instead.
+     */
+    private static List<Object> unwrapVersions(List<Object> output) {
+        List<Object> result = new ArrayList<>();
+        for (Object o : output) {
+            Entry<?, ?> e = (Entry<?, ?>) o;
+            VersionedSnapshotValue versioned = (VersionedSnapshotValue) e.getValue();
+            result.add(entry(e.getKey(), entry(versioned.snapshotId(), versioned.value())));
+        }
+        return result;
+    }
+
+    @SafeVarargs
+    private final Entry<SnapshotDataKey, byte[]> chunk(long snapshotId, Entry<Object, Object>... entries)
+            throws Exception {
+        return chunk(snapshotId, true, entries);
+    }
+
+    @SafeVarargs
+    private final Entry<SnapshotDataKey, byte[]> chunk(
+            long snapshotId, boolean incremental, Entry<Object, Object>... entries
+    ) throws Exception {
+        BufferObjectDataOutput out = serializationService.createObjectDataOutput();
+        for (Entry<Object, Object> e : entries) {
+            out.writeObject(e.getKey());
+            out.writeObject(e.getValue());
+        }
+        out.writeObject(SnapshotDataValueTerminator.INSTANCE);
+        return entry(new SnapshotDataKey(0, snapshotId, "vertex", 0, incremental), out.toByteArray());
+    }
+}
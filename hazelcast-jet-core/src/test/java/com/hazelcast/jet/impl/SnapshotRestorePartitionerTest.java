@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl;
+
+import com.hazelcast.jet.impl.MasterJobContext.SnapshotRestorePartitioner;
+import com.hazelcast.jet.impl.execution.InFlightItemKey;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class SnapshotRestorePartitionerTest {
+
+    private static final int PARTITION_COUNT = 271;
+
+    private SnapshotRestorePartitioner partitioner;
+
+    @Before
+    public void setup() {
+        partitioner = new SnapshotRestorePartitioner();
+        partitioner.init(key -> 42);
+    }
+
+    @Test
+    public void when_inFlightItemKey_then_routedToSavedPartition() {
+        assertEquals(7, partitioner.getPartition(new InFlightItemKey(1, 3, 0, 7), PARTITION_COUNT));
+        assertEquals(0, partitioner.getPartition(new InFlightItemKey(1, 3, 1, 0), PARTITION_COUNT));
+    }
+
+    @Test
+    public void when_otherKey_then_routedToDefaultPartition() {
+        assertEquals(42, partitioner.getPartition("key", PARTITION_COUNT));
+    }
+}
@@ -111,4 +111,14 @@ public class MockInboundStream implements InboundEdgeStream {
     public long coalescedWm() {
         return 0;
     }
+
+    @Override
+    public boolean canSaveInFlightItems() {
+        return true;
+    }
+
+    @Override
+    public int inFlightItemPartition(Object item) {
+        return 0;
+    }
 }
@@ -0,0 +1,158 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.jet.core.Partitioner;
+import com.hazelcast.jet.impl.execution.OutboundCollector.Partitioned;
+import com.hazelcast.jet.impl.util.ProgressState;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.hazelcast.jet.impl.execution.OutboundCollector.Partitioned.SAMPLES_PER_WINDOW;
+import static com.hazelcast.jet.impl.execution.OutboundCollector.Partitioned.SAMPLE_INTERVAL;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class PartitionedCollectorTest {
+
+    private static final int PARTITION_COUNT = 4;
+    private static final int ITEMS_PER_WINDOW = SAMPLE_INTERVAL * SAMPLES_PER_WINDOW;
+
+    // partition of an Integer item is the item itself
+    private final Partitioner<Object> partitioner = (item, partitionCount) -> (Integer) item;
+
+    private final PartitionCollector[] collectors = {
+            new PartitionCollector(0, 1),
+            new PartitionCollector(2, 3)
+    };
+
+    @Test
+    public void when_balancedLoad_then_noHotPartitions() {
+        // Given
+        Partitioned partitioned = new Partitioned(collectors, partitioner, PARTITION_COUNT, true);
+
+        // When
+        for (int i = 0; i < 4 * ITEMS_PER_WINDOW; i++) {
+            assertTrue(partitioned.offer(i % PARTITION_COUNT).isDone());
+        }
+
+        // Then
+        assertTrue("skewPercent=" + partitioned.skewPercent(),
+                partitioned.skewPercent() >= 100 && partitioned.skewPercent() < 120);
+        for (int i = 0; i < PARTITION_COUNT; i++) {
+            assertFalse(partitioned.isHot(i));
+        }
+        assertEquals(0, partitioned.splitItemCount());
+        assertEquals(2 * ITEMS_PER_WINDOW, collectors[0].items.size());
+        assertEquals(2 * ITEMS_PER_WINDOW, collectors[1].items.size());
+    }
+
+    @Test
+    public void when_skewedLoadAndSplittingDisabled_then_skewReportedAndItemsNotSplit() {
+        // Given
+        Partitioned partitioned = new Partitioned(collectors, partitioner, PARTITION_COUNT, false);
+
+        // When
+        offerUntilHot(partitioned, 0);
+        for (int i = 0; i < ITEMS_PER_WINDOW; i++) {
+            assertTrue(partitioned.offer(0).isDone());
+        }
+
+        // Then
+        assertEquals(200, partitioned.skewPercent());
+        assertEquals(0, partitioned.splitItemCount());
+        assertEquals(0, collectors[1].items.size());
+    }
+
+    @Test
+    public void when_hotPartitionDetected_then_itemsSplitRoundRobin() {
+        // Given
+        Partitioned partitioned = new Partitioned(collectors, partitioner, PARTITION_COUNT, true);
+        int itemsBeforeHot = offerUntilHot(partitioned, 0);
+
+        // When
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(partitioned.offer(0).isDone());
+        }
+
+        // Then
+        assertTrue(partitioned.isHot(0));
+        assertEquals(1000, partitioned.splitItemCount());
+        assertEquals(itemsBeforeHot + 500, collectors[0].items.size());
+        assertEquals(500, collectors[1].items.size());
+    }
+
+    @Test
+    public void when_splitCollectorFull_then_itemRetriedOnSameCollector() {
+        // Given
+        Partitioned partitioned = new Partitioned(collectors, partitioner, PARTITION_COUNT, true);
+        int itemsBeforeHot = offerUntilHot(partitioned, 0);
+        collectors[0].full = true;
+
+        // When
+        ProgressState first = partitioned.offer(0);
+        collectors[0].full = false;
+        ProgressState second = partitioned.offer(0);
+
+        // Then
+        assertFalse(first.isDone());
+        assertTrue(second.isDone());
+        assertEquals(itemsBeforeHot + 1, collectors[0].items.size());
+        assertEquals(0, collectors[1].items.size());
+    }
+
+    private static int offerUntilHot(Partitioned partitioned, int item) {
+        int count = 0;
+        while (!partitioned.isHot(item)) {
+            assertTrue(partitioned.offer(item).isDone());
+            count++;
+            assertTrue("partition not hot after " + count + " items", count <= 4 * ITEMS_PER_WINDOW);
+        }
+        return count;
+    }
+
+    private static final class PartitionCollector implements OutboundCollector {
+        final List<Object> items = new ArrayList<>();
+        final int[] partitions;
+        boolean full;
+
+        PartitionCollector(int... partitions) {
+            this.partitions = partitions;
+        }
+
+        @Override
+        public ProgressState offer(Object item) {
+            if (full) {
+                return ProgressState.NO_PROGRESS;
+            }
+            items.add(item);
+            return ProgressState.DONE;
+        }
+
+        @Override
+        public int[] getPartitions() {
+            return partitions;
+        }
+    }
+}
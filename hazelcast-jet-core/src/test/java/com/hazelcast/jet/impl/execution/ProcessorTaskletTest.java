@@ -16,6 +16,7 @@
 
 package com.hazelcast.jet.impl.execution;
 
+import com.hazelcast.internal.serialization.InternalSerializationService;
 import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
 import com.hazelcast.jet.core.Inbox;
 import com.hazelcast.jet.core.Outbox;
@@ -23,12 +24,14 @@ import com.hazelcast.jet.core.Processor;
 import com.hazelcast.jet.core.Watermark;
 import com.hazelcast.jet.core.test.TestProcessorContext;
 import com.hazelcast.jet.impl.util.ProgressState;
+import com.hazelcast.nio.BufferObjectDataOutput;
 import com.hazelcast.test.HazelcastParallelClassRunner;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import javax.annotation.Nonnull;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
@@ -246,13 +249,83 @@ public class ProcessorTaskletTest {
         assertEquals(expected, actual);
     }
 
+    @Test
+    public void when_inputQueuesEmpty_then_notMarkedReady() {
+        // Given
+        MockInboundStream instream1 = new MockInboundStream(0, mockInput, 4);
+        MockOutboundStream outstream1 = new MockOutboundStream(0);
+        instreams.add(instream1);
+        outstreams.add(outstream1);
+        TaskletReadiness readiness = new TaskletReadiness();
+        Tasklet tasklet = createTasklet(readiness);
+
+        // When
+        callUntil(tasklet, NO_PROGRESS);
+        readiness.checkAndClear();
+        assertEquals(NO_PROGRESS, tasklet.call());
+
+        // Then
+        assertEquals(mockInput, outstream1.getBuffer());
+        assertFalse(readiness.checkAndClear());
+    }
+
+    @Test
+    public void when_outboxFull_then_markedReady() {
+        // Given
+        MockInboundStream instream1 = new MockInboundStream(0, mockInput, 4);
+        MockOutboundStream outstream1 = new MockOutboundStream(0, 1);
+        instreams.add(instream1);
+        outstreams.add(outstream1);
+        TaskletReadiness readiness = new TaskletReadiness();
+        Tasklet tasklet = createTasklet(readiness);
+
+        // When
+        tasklet.call();
+        readiness.checkAndClear();
+        tasklet.call();
+
+        // Then
+        assertEquals(1, outstream1.getBuffer().size());
+        assertTrue(readiness.checkAndClear());
+    }
+
+    @Test
+    public void when_serializedItemsInInput_then_deserialized() throws IOException {
+        // Given
+        InternalSerializationService serService = new DefaultSerializationServiceBuilder().build();
+        List<Object> serializedInput = new ArrayList<>();
+        for (Object item : mockInput) {
+            BufferObjectDataOutput out = serService.createObjectDataOutput();
+            out.writeObject(item);
+            serializedInput.add(new SerializedItem(out.toByteArray()));
+        }
+        serializedInput.add(DONE_ITEM);
+        MockInboundStream instream1 = new MockInboundStream(0, serializedInput, serializedInput.size());
+        MockOutboundStream outstream1 = new MockOutboundStream(0);
+        instreams.add(instream1);
+        outstreams.add(outstream1);
+        Tasklet tasklet = createTasklet();
+
+        // When
+        callUntil(tasklet, DONE);
+
+        // Then
+        mockInput.add(DONE_ITEM);
+        assertEquals(mockInput, outstream1.getBuffer());
+    }
+
     private ProcessorTasklet createTasklet() {
+        return createTasklet(null);
+    }
+
+    private ProcessorTasklet createTasklet(TaskletReadiness readiness) {
         for (int i = 0; i < instreams.size(); i++) {
             instreams.get(i).setOrdinal(i);
         }
 
         final ProcessorTasklet t = new ProcessorTasklet(context, new DefaultSerializationServiceBuilder().build(),
-                processor, instreams, outstreams, mock(SnapshotContext.class), new MockOutboundCollector(10), null);
+                processor, instreams, outstreams, mock(SnapshotContext.class), new MockOutboundCollector(10), null, null,
+                readiness);
         t.init();
         return t;
     }
@@ -292,7 +292,8 @@ public class ProcessorTaskletTest_Blocking {
             instreams.get(i).setOrdinal(i);
         }
         final ProcessorTasklet t = new ProcessorTasklet(context, new DefaultSerializationServiceBuilder().build(),
-                processor, instreams, outstreams, mock(SnapshotContext.class), new MockOutboundCollector(10), null);
+                processor, instreams, outstreams, mock(SnapshotContext.class), new MockOutboundCollector(10), null, null,
+                null);
         t.init();
         return t;
     }
@@ -17,6 +17,9 @@
 package com.hazelcast.jet.impl.execution;
 
 import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.jet.JetException;
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.config.JobConfig;
 import com.hazelcast.jet.config.ProcessingGuarantee;
 import com.hazelcast.jet.core.Inbox;
 import com.hazelcast.jet.core.Outbox;
@@ -35,13 +38,16 @@ import org.junit.runner.RunWith;
 import javax.annotation.Nonnull;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Queue;
+import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
+import static com.hazelcast.jet.Traversers.traverseIterable;
 import static com.hazelcast.jet.Util.entry;
 import static com.hazelcast.jet.config.ProcessingGuarantee.EXACTLY_ONCE;
 import static com.hazelcast.jet.impl.execution.DoneItem.DONE_ITEM;
@@ -50,6 +56,7 @@ import static com.hazelcast.jet.impl.util.ProgressState.MADE_PROGRESS;
 import static com.hazelcast.jet.impl.util.ProgressState.NO_PROGRESS;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -158,7 +165,7 @@ public class ProcessorTaskletTest_Snapshots {
         assertEquals(emptyList(), getSnapshotBufferValues());
 
         // When
-        snapshotContext.startNewSnapshot(0, "map", false);
+        snapshotContext.startNewSnapshot(0, "map", false, false);
         outstream1.flush();
 
         callUntil(tasklet, NO_PROGRESS);
@@ -191,6 +198,256 @@ public class ProcessorTaskletTest_Snapshots {
         assertEquals(asList(ssEntry1.getValue(), ssEntry2.getValue(), barrier(0), DONE_ITEM), getSnapshotBufferValues());
     }
 
+    @Test
+    public void when_unalignedSnapshot_then_barrierOvertakesInFlightItems() {
+        // Given
+        context = new TestProcessorContext()
+                .setProcessingGuarantee(EXACTLY_ONCE)
+                .setJobConfig(new JobConfig().setUnalignedSnapshots(true));
+        List<Object> input1 = new ArrayList<>();
+        input1.addAll(mockInput.subList(0, 2));
+        input1.add(barrier(0));
+        input1.addAll(mockInput.subList(2, 4));
+        MockInboundStream instream1 = new MockInboundStream(0, input1, 1024);
+        MockInboundStream instream2 = new MockInboundStream(0, mockInput.subList(4, 6), 1024);
+        MockOutboundStream outstream1 = new MockOutboundStream(0);
+
+        instreams.add(instream1);
+        instreams.add(instream2);
+        outstreams.add(outstream1);
+
+        Tasklet tasklet = createTasklet(EXACTLY_ONCE);
+
+        // When
+        callUntil(tasklet, NO_PROGRESS);
+
+        // Then
+        assertEquals(singletonList(barrier(0)), outstream1.getBuffer());
+        assertEquals(asList(0, 1, 4, 5), getSnapshotBufferValues());
+
+        // When
+        instream2.push(barrier(0));
+        callUntil(tasklet, NO_PROGRESS);
+
+        // Then
+        assertEquals(asList(0, 1, 4, 5, barrier(0)), getSnapshotBufferValues());
+        List<Object> output = outstream1.getBuffer();
+        assertEquals(barrier(0), output.get(0));
+        assertEquals(new HashSet<>(mockInput.subList(0, 6)), new HashSet<>(output.subList(1, output.size())));
+    }
+
+    @Test
+    public void when_unalignedSnapshotStartedLocally_then_queuedItemsSavedAsInFlight() {
+        // Given
+        useUnalignedSnapshots();
+        MockInboundStream instream1 = new MockInboundStream(0, emptyList(), 1024);
+        MockInboundStream instream2 = new MockInboundStream(0, emptyList(), 1024);
+        MockOutboundStream outstream1 = new MockOutboundStream(0);
+
+        instreams.add(instream1);
+        instreams.add(instream2);
+        outstreams.add(outstream1);
+
+        Tasklet tasklet = createTasklet(EXACTLY_ONCE);
+        callUntil(tasklet, NO_PROGRESS);
+
+        // When
+        instream1.push(0, 1);
+        instream2.push(2, 3);
+        snapshotContext.startNewSnapshot(0, "map", false, false);
+        callUntil(tasklet, NO_PROGRESS);
+
+        // Then
+        assertEquals(singletonList(barrier(0)), outstream1.getBuffer());
+        assertEquals(asList(0, 1, 2, 3), getSnapshotBufferValues());
+        assertEquals(asList(
+                new InFlightItemKey(0, 0, 0, 0),
+                new InFlightItemKey(0, 0, 1, 0),
+                new InFlightItemKey(1, 0, 2, 0),
+                new InFlightItemKey(1, 0, 3, 0)),
+                getSnapshotBufferKeys());
+
+        // When
+        instream1.push(barrier(0));
+        instream2.push(barrier(0));
+        callUntil(tasklet, NO_PROGRESS);
+
+        // Then
+        assertEquals(asList(0, 1, 2, 3, barrier(0)), getSnapshotBufferValues());
+        List<Object> output = outstream1.getBuffer();
+        assertEquals(new HashSet<>(asList(barrier(0), 0, 1, 2, 3)), new HashSet<>(output));
+        assertEquals(barrier(0), output.get(0));
+    }
+
+    @Test
+    public void when_watermarkAmongInFlightItems_then_notSavedAndProcessedInOrder() {
+        // Given
+        useUnalignedSnapshots();
+        MockInboundStream instream1 = new MockInboundStream(0, emptyList(), 1024);
+        MockOutboundStream outstream1 = new MockOutboundStream(0);
+
+        instreams.add(instream1);
+        outstreams.add(outstream1);
+
+        Tasklet tasklet = createTasklet(EXACTLY_ONCE);
+        callUntil(tasklet, NO_PROGRESS);
+
+        // When
+        instream1.push(0, wm(10), 1);
+        snapshotContext.startNewSnapshot(0, "map", false, false);
+        callUntil(tasklet, NO_PROGRESS);
+
+        // Then
+        assertEquals(asList(0, 1), getSnapshotBufferValues());
+
+        // When
+        instream1.push(barrier(0));
+        callUntil(tasklet, NO_PROGRESS);
+
+        // Then
+        assertEquals(asList(0, 1, barrier(0)), getSnapshotBufferValues());
+        assertEquals(asList(barrier(0), 0, wm(10), 1), outstream1.getBuffer());
+    }
+
+    @Test
+    public void when_edgeCompletesWithInFlightItems_then_completeEdgeCalledOnceAfterThem() {
+        // Given
+        useUnalignedSnapshots();
+        MockInboundStream instream1 = new MockInboundStream(0, emptyList(), 1024);
+        MockInboundStream instream2 = new MockInboundStream(0, emptyList(), 1024);
+        MockOutboundStream outstream1 = new MockOutboundStream(0);
+
+        instreams.add(instream1);
+        instreams.add(instream2);
+        outstreams.add(outstream1);
+
+        Tasklet tasklet = createTasklet(EXACTLY_ONCE);
+        callUntil(tasklet, NO_PROGRESS);
+
+        // When
+        instream1.push(0, 1);
+        instream2.push(2, 3, DONE_ITEM);
+        snapshotContext.startNewSnapshot(0, "map", false, false);
+        callUntil(tasklet, NO_PROGRESS);
+
+        // Then
+        assertEquals(asList(0, 1, 2, 3), getSnapshotBufferValues());
+        assertEquals(emptyList(), processor.completedEdges);
+
+        // When
+        instream1.push(barrier(0));
+        callUntil(tasklet, NO_PROGRESS);
+
+        // Then
+        assertEquals(1, processor.completedEdges.size());
+        assertEquals(1, (int) processor.completedEdges.get(0).getKey());
+        assertTrue(processor.completedEdges.get(0).getValue().containsAll(asList(2, 3)));
+
+        // When
+        instream1.push(DONE_ITEM);
+        callUntil(tasklet, DONE);
+
+        // Then
+        assertEquals(2, processor.completedEdges.size());
+        assertEquals(0, (int) processor.completedEdges.get(1).getKey());
+        List<Object> output = outstream1.getBuffer();
+        assertEquals(new HashSet<>(asList(barrier(0), 0, 1, 2, 3, DONE_ITEM)), new HashSet<>(output));
+        assertEquals(DONE_ITEM, output.get(output.size() - 1));
+    }
+
+    @Test
+    public void when_inFlightItemsRestored_then_processedInSavedOrderBeforeNewItems() {
+        // Given
+        Entry<String, String> ssEntry1 = entry("k1", "v1");
+        List<Object> restoredSnapshot = asList(
+                ssEntry1,
+                entry(new InFlightItemKey(1, 1, 0, 0), "c"),
+                entry(new InFlightItemKey(1, 0, 1, 0), "b"),
+                entry(new InFlightItemKey(1, 0, 0, 0), "a"),
+                DONE_ITEM);
+        MockInboundStream instream1 = new MockInboundStream(Integer.MIN_VALUE, restoredSnapshot, 1024);
+        MockInboundStream instream2 = new MockInboundStream(0, asList("d", DONE_ITEM), 1024);
+        MockOutboundStream outstream1 = new MockOutboundStream(0);
+
+        instreams.add(instream1);
+        instreams.add(instream2);
+        outstreams.add(outstream1);
+
+        Tasklet tasklet = createTasklet(EXACTLY_ONCE);
+
+        // When
+        callUntil(tasklet, DONE);
+
+        // Then
+        assertEquals(asList("finishRestore", "a", "b", "c", "d", DONE_ITEM), outstream1.getBuffer());
+        assertEquals(ssEntry1, processor.snapshotQueue.peek());
+    }
+
+    @Test(expected = JetException.class)
+    public void when_inFlightItemRestoredToRestoreOrdinal_then_fail() {
+        when_inFlightItemRestoredToOrdinal_then_fail(0);
+    }
+
+    @Test(expected = JetException.class)
+    public void when_inFlightItemRestoredToUnknownOrdinal_then_fail() {
+        when_inFlightItemRestoredToOrdinal_then_fail(2);
+    }
+
+    private void when_inFlightItemRestoredToOrdinal_then_fail(int ordinal) {
+        // Given
+        List<Object> restoredSnapshot = asList(entry(new InFlightItemKey(ordinal, 0, 0, 0), "a"), DONE_ITEM);
+        instreams.add(new MockInboundStream(Integer.MIN_VALUE, restoredSnapshot, 1024));
+        instreams.add(new MockInboundStream(0, singletonList(DONE_ITEM), 1024));
+        outstreams.add(new MockOutboundStream(0));
+
+        Tasklet tasklet = createTasklet(EXACTLY_ONCE);
+
+        // When
+        callUntil(tasklet, DONE);
+    }
+
+    @Test
+    public void when_backgroundSnapshotSaving_then_processingContinuesWhileSaving() {
+        // Given
+        processor = new BackgroundSnapshottableProcessor();
+        context = new TestProcessorContext()
+                .setProcessingGuarantee(EXACTLY_ONCE)
+                .setJobConfig(new JobConfig().setBackgroundSnapshotSaving(true));
+        snapshotCollector = new MockOutboundCollector(2);
+        List<Object> input = new ArrayList<>();
+        input.addAll(mockInput.subList(0, 4));
+        input.add(barrier(0));
+        input.addAll(mockInput.subList(4, 8));
+        MockInboundStream instream1 = new MockInboundStream(0, input, input.size());
+        MockOutboundStream outstream1 = new MockOutboundStream(0);
+
+        instreams.add(instream1);
+        outstreams.add(outstream1);
+
+        Tasklet tasklet = createTasklet(EXACTLY_ONCE);
+
+        // When
+        callUntil(tasklet, NO_PROGRESS);
+
+        // Then
+        assertEquals(asList(0, 1, 2, 3, barrier(0), 4, 5, 6, 7), outstream1.getBuffer());
+        assertEquals(asList(0, 1), getSnapshotBufferValues());
+
+        // When
+        snapshotCollector.getBuffer().clear();
+        callUntil(tasklet, NO_PROGRESS);
+
+        // Then
+        assertEquals(asList(2, 3), getSnapshotBufferValues());
+
+        // When
+        snapshotCollector.getBuffer().clear();
+        callUntil(tasklet, NO_PROGRESS);
+
+        // Then
+        assertEquals(singletonList(barrier(0)), getSnapshotBufferValues());
+    }
+
     private ProcessorTasklet createTasklet(ProcessingGuarantee guarantee) {
         for (int i = 0; i < instreams.size(); i++) {
             instreams.get(i).setOrdinal(i);
@@ -198,7 +455,7 @@ public class ProcessorTaskletTest_Snapshots {
         snapshotContext = new SnapshotContext(mock(ILogger.class), "test job", -1, guarantee);
         snapshotContext.initTaskletCount(1, 0);
         final ProcessorTasklet t = new ProcessorTasklet(context, serializationService, processor, instreams, outstreams,
-                snapshotContext, snapshotCollector, null);
+                snapshotContext, snapshotCollector, null, null, null);
         t.init();
         return t;
     }
@@ -209,6 +466,13 @@ public class ProcessorTaskletTest_Snapshots {
                                 .collect(Collectors.toList());
     }
 
+    private List<Object> getSnapshotBufferKeys() {
+        return snapshotCollector.getBuffer().stream()
+                                .filter(e -> e instanceof Map.Entry)
+                                .map(e -> serializationService.toObject(((Map.Entry) e).getKey()))
+                                .collect(Collectors.toList());
+    }
+
     private Object deserializeEntryValue(Entry e) {
         return serializationService.toObject(e.getValue());
     }
@@ -228,6 +492,16 @@ public class ProcessorTaskletTest_Snapshots {
         return new SnapshotBarrier(snapshotId, false);
     }
 
+    private static Watermark wm(long timestamp) {
+        return new Watermark(timestamp);
+    }
+
+    private void useUnalignedSnapshots() {
+        context = new TestProcessorContext()
+                .setProcessingGuarantee(EXACTLY_ONCE)
+                .setJobConfig(new JobConfig().setUnalignedSnapshots(true));
+    }
+
     private static class SnapshottableProcessor implements Processor {
 
         int nullaryProcessCallCountdown;
@@ -235,7 +509,10 @@ public class ProcessorTaskletTest_Snapshots {
         int completedCount;
         private Outbox outbox;
 
-        private Queue<Map.Entry> snapshotQueue = new ArrayDeque<>();
+        Queue<Map.Entry> snapshotQueue = new ArrayDeque<>();
+        final List<Object> processedItems = new ArrayList<>();
+        // the ordinals of the completed edges with the items processed before each
+        final List<Entry<Integer, List<Object>>> completedEdges = new ArrayList<>();
 
         @Override
         public void init(@Nonnull Outbox outbox, @Nonnull Context context) {
@@ -248,11 +525,18 @@ public class ProcessorTaskletTest_Snapshots {
                 if (!outbox.offer(item)) {
                     return;
                 } else {
+                    processedItems.add(item);
                     snapshotQueue.offer(entry(UuidUtil.newUnsecureUUID(), inbox.poll()));
                 }
             }
         }
 
+        @Override
+        public boolean completeEdge(int ordinal) {
+            completedEdges.add(entry(ordinal, new ArrayList<>(processedItems)));
+            return true;
+        }
+
         @Override
         public boolean tryProcessWatermark(@Nonnull Watermark watermark) {
             return outbox.offer(watermark);
@@ -297,4 +581,16 @@ public class ProcessorTaskletTest_Snapshots {
             return outbox.offer("finishRestore");
         }
     }
+
+    private static class BackgroundSnapshottableProcessor extends SnapshottableProcessor
+            implements BackgroundSnapshotAware {
+
+        @Override
+        public Traverser<Entry<?, ?>> captureSnapshot(@Nonnull UnaryOperator<Object> copyFn) {
+            // the entries are never modified, there's nothing to copy
+            Traverser<Entry<?, ?>> traverser = traverseIterable(new ArrayList<>(snapshotQueue)).map(e -> (Entry<?, ?>) e);
+            snapshotQueue.clear();
+            return traverser;
+        }
+    }
 }
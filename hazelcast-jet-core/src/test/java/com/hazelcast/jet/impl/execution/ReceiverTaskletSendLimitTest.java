@@ -17,6 +17,8 @@
 package com.hazelcast.jet.impl.execution;
 
 import com.hazelcast.instance.BuildInfoProvider;
+import com.hazelcast.jet.config.EdgeConfig;
+import com.hazelcast.jet.config.FlowControlType;
 import com.hazelcast.logging.LoggingServiceImpl;
 import com.hazelcast.test.HazelcastSerialClassRunner;
 import org.junit.Before;
@@ -29,6 +31,7 @@ import static com.hazelcast.jet.impl.execution.ReceiverTasklet.INITIAL_RECEIVE_W
 import static java.lang.Math.abs;
 import static java.lang.Math.ceil;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -40,13 +43,13 @@ public class ReceiverTaskletSendLimitTest {
     private static final long ACK_PERIOD = MILLISECONDS.toNanos(DEFAULT_FLOW_CONTROL_PERIOD_MS);
     private static final int RWIN_MULTIPLIER = 3;
     private static final int FLOW_CONTROL_PERIOD_MS = 100;
+    private static final long TARGET_QUEUEING_DELAY = MILLISECONDS.toNanos(10);
 
     private ReceiverTasklet tasklet;
 
     @Before
     public void before() {
-        tasklet = new ReceiverTasklet(null, RWIN_MULTIPLIER, FLOW_CONTROL_PERIOD_MS,
-                new LoggingServiceImpl(null, null, BuildInfoProvider.getBuildInfo()), "");
+        tasklet = createTasklet(FlowControlType.RATE_BASED);
     }
 
     @Test
@@ -138,4 +141,58 @@ public class ReceiverTaskletSendLimitTest {
         final long rwin = seqLimitAfterRecover - ackedSeqCompressed;
         assertTrue(rwin >= RWIN_MULTIPLIER * ackedSeqsPerIterCompressed);
     }
+
+    @Test
+    public void when_delayBasedAndQueueingDelayAboveTarget_then_rwinShrinks() {
+        // Given
+        tasklet = createTasklet(FlowControlType.DELAY_BASED);
+        tasklet.updateAndGetSendSeqLimitCompressed(START);
+
+        // When
+        tasklet.setQueueingDelayNanos(2 * TARGET_QUEUEING_DELAY);
+        long seqLimit = 0;
+        for (int i = 1; i <= 3; i++) {
+            seqLimit = tasklet.updateAndGetSendSeqLimitCompressed(START + i * ACK_PERIOD);
+        }
+
+        // Then
+        assertEquals(INITIAL_RECEIVE_WINDOW_COMPRESSED / 8, seqLimit);
+    }
+
+    @Test
+    public void when_delayBasedAndSenderBlockedWithoutQueueing_then_rwinGrows() {
+        // Given
+        tasklet = createTasklet(FlowControlType.DELAY_BASED);
+        tasklet.updateAndGetSendSeqLimitCompressed(START);
+
+        // When
+        tasklet.setWindowExhaustedSince(START + ACK_PERIOD / 2);
+        long seqLimit = tasklet.updateAndGetSendSeqLimitCompressed(START + ACK_PERIOD);
+
+        // Then
+        assertEquals(2 * INITIAL_RECEIVE_WINDOW_COMPRESSED, seqLimit);
+        assertEquals(ACK_PERIOD / 2, tasklet.getSenderStallNanosCounter().get());
+    }
+
+    @Test
+    public void when_delayBasedAndSenderNotBlocked_then_rwinUnchanged() {
+        // Given
+        tasklet = createTasklet(FlowControlType.DELAY_BASED);
+        tasklet.updateAndGetSendSeqLimitCompressed(START);
+
+        // When
+        long seqLimit = tasklet.updateAndGetSendSeqLimitCompressed(START + ACK_PERIOD);
+
+        // Then
+        assertEquals(INITIAL_RECEIVE_WINDOW_COMPRESSED, seqLimit);
+    }
+
+    private static ReceiverTasklet createTasklet(FlowControlType flowControl) {
+        EdgeConfig edgeConfig = new EdgeConfig()
+                .setReceiveWindowMultiplier(RWIN_MULTIPLIER)
+                .setFlowControl(flowControl)
+                .setTargetQueueingDelayMs(NANOSECONDS.toMillis(TARGET_QUEUEING_DELAY));
+        return new ReceiverTasklet(null, edgeConfig, FLOW_CONTROL_PERIOD_MS,
+                new LoggingServiceImpl(null, null, BuildInfoProvider.getBuildInfo()), "", null);
+    }
 }
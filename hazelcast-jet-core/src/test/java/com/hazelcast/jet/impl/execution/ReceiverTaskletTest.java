@@ -18,6 +18,9 @@ package com.hazelcast.jet.impl.execution;
 
 import com.hazelcast.internal.serialization.InternalSerializationService;
 import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.jet.config.CompressionType;
+import com.hazelcast.jet.config.EdgeConfig;
+import com.hazelcast.jet.impl.util.BlockCodec;
 import com.hazelcast.logging.LoggingService;
 import com.hazelcast.nio.BufferObjectDataOutput;
 import com.hazelcast.test.HazelcastSerialClassRunner;
@@ -27,6 +30,7 @@ import org.junit.runner.RunWith;
 
 import java.io.IOException;
 
+import static com.hazelcast.jet.impl.execution.DoneItem.DONE_ITEM;
 import static java.util.Arrays.asList;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.mock;
@@ -41,7 +45,7 @@ public class ReceiverTaskletTest {
     @Before
     public void before() {
         collector = new MockOutboundCollector(2);
-        t = new ReceiverTasklet(collector, 3, 100, mock(LoggingService.class), "");
+        t = new ReceiverTasklet(collector, new EdgeConfig(), 100, mock(LoggingService.class), "", null);
         serService = new DefaultSerializationServiceBuilder().build();
     }
 
@@ -52,6 +56,57 @@ public class ReceiverTaskletTest {
         assertEquals(asList(1, 2), collector.getBuffer());
     }
 
+    @Test
+    public void when_receiveCompressedPacket_then_emitItems() throws IOException {
+        t = new ReceiverTasklet(collector, new EdgeConfig().setCompression(CompressionType.LZ4), 100,
+                mock(LoggingService.class), "", null);
+        final BufferObjectDataOutput body = serService.createObjectDataOutput();
+        body.writeInt(2);
+        for (Object obj : new Object[] {"foo", "foo"}) {
+            body.writeObject(obj);
+            body.writeInt(Math.abs(obj.hashCode())); // partition id
+        }
+        final byte[] bodyBytes = body.toByteArray();
+        final BlockCodec codec = BlockCodec.newCodec(CompressionType.LZ4);
+        final byte[] compressed = new byte[codec.maxCompressedLength(bodyBytes.length)];
+        final int compressedLength = codec.compress(bodyBytes, 0, bodyBytes.length, compressed, 0);
+
+        final BufferObjectDataOutput out = serService.createObjectDataOutput();
+        out.writeInt(bodyBytes.length);
+        out.writeInt(compressedLength);
+        out.write(compressed, 0, compressedLength);
+        t.receiveStreamPacket(serService.createObjectDataInput(out.toByteArray()));
+        t.call();
+
+        assertEquals(asList("foo", "foo"), collector.getBuffer());
+        assertEquals(bodyBytes.length, t.getUncompressedBytesInCounter().get());
+    }
+
+    @Test
+    public void when_lazyDeserialization_then_emitSerializedItems() throws IOException {
+        t = new ReceiverTasklet(collector, new EdgeConfig().setLazyDeserializationEnabled(true), 100,
+                mock(LoggingService.class), "", null);
+        final BufferObjectDataOutput out = serService.createObjectDataOutput();
+        out.writeInt(2);
+        final BufferObjectDataOutput item = serService.createObjectDataOutput();
+        item.writeObject("foo");
+        out.writeInt(item.position());
+        out.write(item.toByteArray());
+        out.writeInt(1); // partition id
+        // a control item must be deserialized by the receiver
+        out.writeInt(-1);
+        out.writeObject(DONE_ITEM);
+        out.writeInt(-1); // partition id
+        t.receiveStreamPacket(serService.createObjectDataInput(out.toByteArray()));
+        t.call();
+        t.call();
+
+        assertEquals(2, collector.getBuffer().size());
+        final SerializedItem serialized = (SerializedItem) collector.getBuffer().get(0);
+        assertEquals("foo", serialized.deserialize(serService));
+        assertEquals(DONE_ITEM, collector.getBuffer().get(1));
+    }
+
     private void pushObjects(Object... objs) throws IOException {
         final BufferObjectDataOutput out = serService.createObjectDataOutput();
         out.writeInt(objs.length);
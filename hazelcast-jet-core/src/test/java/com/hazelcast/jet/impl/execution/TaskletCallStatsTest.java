@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution;
+
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static com.hazelcast.jet.impl.execution.TaskletCallStats.BUCKET_COUNT;
+import static com.hazelcast.jet.impl.execution.TaskletCallStats.SUB_BUCKET_COUNT;
+import static com.hazelcast.jet.impl.execution.TaskletCallStats.bucketIndex;
+import static com.hazelcast.jet.impl.execution.TaskletCallStats.bucketUpperBound;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class TaskletCallStatsTest {
+
+    @Test
+    public void when_durationBelowUpperBound_then_inBucket() {
+        assertEquals(0, bucketIndex(0));
+        assertEquals(0, bucketIndex(bucketUpperBound(0) - 1));
+        for (int i = 1; i < BUCKET_COUNT - 1; i++) {
+            assertEquals(i, bucketIndex(bucketUpperBound(i - 1)));
+            assertEquals(i, bucketIndex(bucketUpperBound(i) - 1));
+        }
+        assertEquals(BUCKET_COUNT - 1, bucketIndex(bucketUpperBound(BUCKET_COUNT - 2)));
+        assertEquals(BUCKET_COUNT - 1, bucketIndex(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void when_record_then_statsUpdated() {
+        // Given
+        TaskletCallStats stats = new TaskletCallStats();
+
+        // When
+        stats.record(100);
+        stats.record(5000);
+        stats.record(300);
+
+        // Then
+        assertEquals(3, stats.callCount());
+        assertEquals(5400, stats.busyNanos());
+        assertEquals(5000, stats.maxCallNanos());
+        assertEquals(1, stats.histogramCount(bucketIndex(100)));
+        assertEquals(1, stats.histogramCount(bucketIndex(300)));
+        assertEquals(1, stats.histogramCount(bucketIndex(5000)));
+    }
+
+    @Test
+    public void when_bucketsWiden_then_relativeErrorBounded() {
+        for (int i = 2 * SUB_BUCKET_COUNT; i < BUCKET_COUNT - 1; i++) {
+            long lowerBound = bucketUpperBound(i - 1);
+            long width = bucketUpperBound(i) - lowerBound;
+            assertTrue("bucket " + i, width * SUB_BUCKET_COUNT <= lowerBound);
+        }
+    }
+
+    @Test
+    public void when_percentile_then_fromHistogram() {
+        // Given
+        TaskletCallStats stats = new TaskletCallStats();
+        assertEquals(0, stats.percentileNanos(990));
+
+        // When
+        for (int i = 0; i < 990; i++) {
+            stats.record(1000);
+        }
+        for (int i = 0; i < 10; i++) {
+            stats.record(1_000_000);
+        }
+
+        // Then
+        assertEquals(bucketUpperBound(bucketIndex(1000)) - 1, stats.percentileNanos(500));
+        assertEquals(bucketUpperBound(bucketIndex(1000)) - 1, stats.percentileNanos(990));
+        // the percentile never exceeds the longest call
+        assertEquals(1_000_000, stats.percentileNanos(999));
+    }
+}
@@ -19,6 +19,8 @@ package com.hazelcast.jet.impl.execution;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.internal.metrics.ProbeLevel;
 import com.hazelcast.internal.metrics.impl.MetricsRegistryImpl;
+import com.hazelcast.jet.config.IdleStrategyType;
+import com.hazelcast.jet.config.InstanceConfig;
 import com.hazelcast.jet.core.JetTestSupport;
 import com.hazelcast.jet.impl.exception.ShutdownInProgressException;
 import com.hazelcast.jet.impl.util.ProgressState;
@@ -37,12 +39,16 @@ import org.mockito.Mockito;
 
 import javax.annotation.Nonnull;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.LockSupport;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import static com.hazelcast.jet.impl.util.ExceptionUtil.peel;
@@ -51,6 +57,7 @@ import static com.hazelcast.jet.impl.util.ProgressState.DONE;
 import static com.hazelcast.jet.impl.util.ProgressState.MADE_PROGRESS;
 import static com.hazelcast.jet.impl.util.ProgressState.NO_PROGRESS;
 import static java.util.Arrays.asList;
+import static java.util.Collections.newSetFromMap;
 import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toList;
 import static org.junit.Assert.assertEquals;
@@ -74,6 +81,11 @@ public class TaskletExecutionServiceTest extends JetTestSupport {
 
     @Before
     public void before() {
+        es = newExecutionService(new InstanceConfig().setCooperativeThreadCount(THREAD_COUNT));
+        classLoaderMock = mock(ClassLoader.class);
+    }
+
+    private static TaskletExecutionService newExecutionService(InstanceConfig config) {
         NodeEngineImpl neMock = mock(NodeEngineImpl.class);
         HazelcastInstance hzMock = mock(HazelcastInstance.class);
         LoggingService loggingService = mock(LoggingService.class);
@@ -84,8 +96,7 @@ public class TaskletExecutionServiceTest extends JetTestSupport {
         Mockito.when(neMock.getMetricsRegistry()).thenReturn(metricsRegistry);
         Mockito.when(loggingService.getLogger(TaskletExecutionService.class))
                .thenReturn(Logger.getLogger(TaskletExecutionService.class));
-        es = new TaskletExecutionService(neMock, THREAD_COUNT);
-        classLoaderMock = mock(ClassLoader.class);
+        return new TaskletExecutionService(neMock, config);
     }
 
     @After
@@ -198,6 +209,99 @@ public class TaskletExecutionServiceTest extends JetTestSupport {
         tasklets.forEach(MockTasklet::assertDone);
     }
 
+    @Test
+    public void when_workStealingEnabledAndLoadSkewed_then_busyTaskletsMoveToIdleWorkers() {
+        // Given
+        es.shutdown(false);
+        es = newExecutionService(new InstanceConfig().setCooperativeThreadCount(THREAD_COUNT)
+                                                     .setWorkStealingEnabled(true));
+        // tasklets are assigned to workers round-robin, all busy ones will start on the first worker
+        final List<ThreadRecordingTasklet> tasklets = IntStream.range(0, 4 * THREAD_COUNT)
+                .mapToObj(i -> new ThreadRecordingTasklet(i % THREAD_COUNT == 0))
+                .collect(toList());
+
+        // When
+        CompletableFuture<Void> f = es.beginExecute(tasklets, cancellationFuture, classLoaderMock);
+
+        // Then
+        assertTrueEventually(() -> assertTrue("busy tasklets were not spread to other threads",
+                tasklets.stream().flatMap(t -> t.threads.stream()).distinct().count() > 1));
+        cancellationFuture.cancel(true);
+        assertTrueEventually(() -> assertTrue(f.isDone()));
+    }
+
+    @Test
+    public void when_anyIdleStrategy_then_taskletsExecuted() {
+        for (IdleStrategyType idleStrategy : IdleStrategyType.values()) {
+            // Given
+            es.shutdown(false);
+            es = newExecutionService(new InstanceConfig().setCooperativeThreadCount(THREAD_COUNT)
+                                                         .setIdleStrategy(idleStrategy));
+            final List<MockTasklet> tasklets =
+                    Stream.generate(() -> new MockTasklet().callsBeforeDone(10)).limit(10).collect(toList());
+
+            // When
+            executeAndJoin(tasklets);
+
+            // Then
+            tasklets.forEach(MockTasklet::assertDone);
+        }
+    }
+
+    @Test
+    public void when_threadAffinityConfigured_then_taskletsExecuted() {
+        // Given
+        es.shutdown(false);
+        es = newExecutionService(new InstanceConfig().setCooperativeThreadCount(THREAD_COUNT)
+                                                     .setCooperativeThreadAffinity("0"));
+        final List<MockTasklet> tasklets =
+                Stream.generate(() -> new MockTasklet().callsBeforeDone(10)).limit(10).collect(toList());
+
+        // When
+        executeAndJoin(tasklets);
+
+        // Then
+        tasklets.forEach(MockTasklet::assertDone);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void when_threadAffinityMalformed_then_failOnStart() {
+        newExecutionService(new InstanceConfig().setCooperativeThreadCount(THREAD_COUNT)
+                                                .setCooperativeThreadAffinity("0-x"));
+    }
+
+    @Test
+    public void when_taskletNotReady_then_calledOnlyPeriodically() {
+        // Given
+        final IdleTasklet t = new IdleTasklet();
+
+        // When
+        CompletableFuture<Void> f = es.beginExecute(singletonList(t), cancellationFuture, classLoaderMock);
+        sleepMillis(200);
+
+        // Then
+        // without readiness tracking the tasklet would be called about every millisecond
+        assertTrue("too many calls: " + t.callCount.get(), t.callCount.get() < 100);
+        assertFalse(f.isDone());
+        t.done = true;
+        t.readiness.markReady();
+        assertTrueEventually(() -> assertTrue(f.isDone()));
+    }
+
+    @Test
+    public void when_taskletHasCallStats_then_callsRecorded() {
+        // Given
+        final MockTasklet cooperative = new MockTasklet().callsBeforeDone(10).withCallStats();
+        final MockTasklet blocking = new MockTasklet().blocking().callsBeforeDone(10).withCallStats();
+
+        // When
+        executeAndJoin(asList(cooperative, blocking));
+
+        // Then
+        assertEquals(11, cooperative.callStats.callCount());
+        assertEquals(11, blocking.callStats.callCount());
+    }
+
     @Test
     public void when_nonBlockingTaskletIsCancelled_then_completesEarly() throws Exception {
         // Given
@@ -358,6 +462,7 @@ public class TaskletExecutionServiceTest extends JetTestSupport {
         boolean initFails;
         boolean callFails;
         int callsBeforeDone;
+        TaskletCallStats callStats;
 
         private boolean willMakeProgress = true;
         private boolean isSleeping;
@@ -394,6 +499,11 @@ public class TaskletExecutionServiceTest extends JetTestSupport {
                     : NO_PROGRESS;
         }
 
+        @Override
+        public TaskletCallStats callStats() {
+            return callStats;
+        }
+
         @Override
         public void init() {
             if (initFails) {
@@ -427,6 +537,11 @@ public class TaskletExecutionServiceTest extends JetTestSupport {
             return this;
         }
 
+        MockTasklet withCallStats() {
+            callStats = new TaskletCallStats();
+            return this;
+        }
+
         MockTasklet callsBeforeDone(int count) {
             callsBeforeDone = count;
             return this;
@@ -457,4 +572,44 @@ public class TaskletExecutionServiceTest extends JetTestSupport {
             return callCount > 50 ? DONE : MADE_PROGRESS;
         }
     }
+
+    private static class IdleTasklet implements Tasklet {
+
+        final TaskletReadiness readiness = new TaskletReadiness();
+        final AtomicInteger callCount = new AtomicInteger();
+        volatile boolean done;
+
+        @Nonnull
+        @Override
+        public ProgressState call() {
+            callCount.incrementAndGet();
+            return done ? DONE : NO_PROGRESS;
+        }
+
+        @Override
+        public TaskletReadiness readiness() {
+            return readiness;
+        }
+    }
+
+    private static class ThreadRecordingTasklet implements Tasklet {
+
+        final Set<Thread> threads = newSetFromMap(new ConcurrentHashMap<>());
+        private final boolean busy;
+
+        ThreadRecordingTasklet(boolean busy) {
+            this.busy = busy;
+        }
+
+        @Nonnull
+        @Override
+        public ProgressState call() {
+            if (!busy) {
+                return NO_PROGRESS;
+            }
+            threads.add(Thread.currentThread());
+            LockSupport.parkNanos(100_000);
+            return MADE_PROGRESS;
+        }
+    }
 }
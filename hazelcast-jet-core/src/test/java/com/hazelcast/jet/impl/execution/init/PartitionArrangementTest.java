@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.execution.init;
+
+import com.hazelcast.nio.Address;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.net.UnknownHostException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class PartitionArrangementTest {
+
+    private Address[] members;
+    private Address[] partitionOwners;
+
+    @Before
+    public void before() throws UnknownHostException {
+        Address a0 = new Address("1.2.3.4", 5701);
+        Address a1 = new Address("1.2.3.5", 5701);
+        members = new Address[] {a0, a1};
+        partitionOwners = new Address[] {a1, a0, a0, a1, a0, a1, a1, a0, a1};
+    }
+
+    @Test
+    public void when_distributed_then_firstPartitionAssignedOnProcessorsMember() {
+        int localParallelism = 2;
+        int[] firstPartitions = new PartitionArrangement(partitionOwners, members[0])
+                .firstPartitionPerProcessor(members, localParallelism, true);
+
+        assertEquals(members.length * localParallelism, firstPartitions.length);
+        for (int m = 0; m < members.length; m++) {
+            int[][] assigned = new PartitionArrangement(partitionOwners, members[m])
+                    .assignPartitionsToProcessors(localParallelism, true);
+            for (int i = 0; i < localParallelism; i++) {
+                assertEquals("member " + m + ", processor " + i,
+                        firstOrMinusOne(assigned[i]), firstPartitions[m * localParallelism + i]);
+            }
+        }
+    }
+
+    @Test
+    public void when_distributed_then_sameOnAllMembers() {
+        int[] onMember0 = new PartitionArrangement(partitionOwners, members[0])
+                .firstPartitionPerProcessor(members, 3, true);
+        int[] onMember1 = new PartitionArrangement(partitionOwners, members[1])
+                .firstPartitionPerProcessor(members, 3, true);
+
+        assertArrayEquals(onMember0, onMember1);
+    }
+
+    @Test
+    public void when_moreProcessorsThanLocalPartitions_then_minusOne() {
+        // member 0 owns 4 partitions, member 1 owns 5
+        int localParallelism = 6;
+        int[] firstPartitions = new PartitionArrangement(partitionOwners, members[0])
+                .firstPartitionPerProcessor(members, localParallelism, true);
+
+        assertEquals(-1, firstPartitions[4]);
+        assertEquals(-1, firstPartitions[5]);
+        assertEquals(-1, firstPartitions[localParallelism + 5]);
+        assertEquals(members[1], partitionOwners[firstPartitions[localParallelism + 4]]);
+    }
+
+    @Test
+    public void when_notDistributed_then_localProcessorsOnly() {
+        int localParallelism = 3;
+        PartitionArrangement arrangement = new PartitionArrangement(partitionOwners, members[1]);
+        int[] firstPartitions = arrangement.firstPartitionPerProcessor(members, localParallelism, false);
+        int[][] assigned = arrangement.assignPartitionsToProcessors(localParallelism, false);
+
+        assertEquals(localParallelism, firstPartitions.length);
+        for (int i = 0; i < localParallelism; i++) {
+            assertEquals(firstOrMinusOne(assigned[i]), firstPartitions[i]);
+        }
+    }
+
+    private static int firstOrMinusOne(int[] partitions) {
+        return partitions.length > 0 ? partitions[0] : -1;
+    }
+}
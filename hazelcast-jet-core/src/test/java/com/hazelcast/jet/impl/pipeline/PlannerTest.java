@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.pipeline;
+
+import com.hazelcast.jet.core.DAG;
+import com.hazelcast.jet.core.Vertex;
+import com.hazelcast.jet.pipeline.BatchStage;
+import com.hazelcast.jet.pipeline.Pipeline;
+import com.hazelcast.jet.pipeline.Sinks;
+import com.hazelcast.jet.pipeline.Sources;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.StreamSupport;
+
+import static com.hazelcast.jet.Traversers.traverseItems;
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class PlannerTest {
+
+    @Test
+    public void when_chainOfStatelessStages_then_fusedIntoSingleVertex() {
+        // Given
+        Pipeline p = Pipeline.create();
+        p.drawFrom(Sources.<Integer>list("src"))
+         .map(i -> i + 1)
+         .filter(i -> i % 2 == 0)
+         .flatMap(i -> traverseItems(i, i))
+         .drainTo(Sinks.list("sink"));
+
+        // When
+        Set<String> vertexNames = vertexNames(p.toDag());
+
+        // Then
+        assertEquals(set("listSource(src)", "fused(map, filter, flat-map)", "listSink(sink)"), vertexNames);
+    }
+
+    @Test
+    public void when_differentLocalParallelism_then_notFused() {
+        // Given
+        Pipeline p = Pipeline.create();
+        p.drawFrom(Sources.<Integer>list("src"))
+         .map(i -> i + 1)
+         .filter(i -> i % 2 == 0).setLocalParallelism(1)
+         .drainTo(Sinks.list("sink"));
+
+        // When
+        Set<String> vertexNames = vertexNames(p.toDag());
+
+        // Then
+        assertEquals(set("listSource(src)", "map", "filter", "listSink(sink)"), vertexNames);
+    }
+
+    @Test
+    public void when_stageHasTwoDownstreams_then_chainEndsThere() {
+        // Given
+        Pipeline p = Pipeline.create();
+        BatchStage<Integer> mapped = p.drawFrom(Sources.<Integer>list("src"))
+                                      .map(i -> i + 1)
+                                      .map(i -> i * 2);
+        mapped.filter(i -> i > 10).drainTo(Sinks.list("sink1"));
+        mapped.filter(i -> i < 5).drainTo(Sinks.list("sink2"));
+
+        // When
+        Set<String> vertexNames = vertexNames(p.toDag());
+
+        // Then
+        assertEquals(set("listSource(src)", "fused(map, map-2)", "filter", "listSink(sink1)",
+                "filter-2", "listSink(sink2)"), vertexNames);
+    }
+
+    private static Set<String> vertexNames(DAG dag) {
+        return StreamSupport.stream(dag.spliterator(), false)
+                            .map(Vertex::getName)
+                            .collect(toSet());
+    }
+
+    private static Set<String> set(String... names) {
+        return new HashSet<>(asList(names));
+    }
+}
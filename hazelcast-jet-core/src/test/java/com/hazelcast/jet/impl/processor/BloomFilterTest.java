@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class BloomFilterTest {
+
+    private static final int KEY_COUNT = 10_000;
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+
+    @Test
+    public void when_keysAdded_then_noFalseNegatives() {
+        // Given
+        BloomFilter filter = new BloomFilter(KEY_COUNT, FALSE_POSITIVE_RATE);
+
+        // When
+        for (int i = 0; i < KEY_COUNT; i++) {
+            filter.add("key" + i);
+        }
+
+        // Then
+        for (int i = 0; i < KEY_COUNT; i++) {
+            assertTrue(filter.contains("key" + i));
+        }
+    }
+
+    @Test
+    public void when_expectedKeysAdded_then_falsePositiveRateAsRequested() {
+        // Given
+        BloomFilter filter = new BloomFilter(KEY_COUNT, FALSE_POSITIVE_RATE);
+        for (int i = 0; i < KEY_COUNT; i++) {
+            filter.add("key" + i);
+        }
+
+        // When
+        int falsePositives = 0;
+        for (int i = 0; i < KEY_COUNT; i++) {
+            if (filter.contains("other" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // Then
+        assertTrue("falsePositives=" + falsePositives, falsePositives < 2 * FALSE_POSITIVE_RATE * KEY_COUNT);
+    }
+
+    @Test
+    public void when_merged_then_containsKeysOfBoth() {
+        // Given
+        BloomFilter filter1 = new BloomFilter(KEY_COUNT, FALSE_POSITIVE_RATE);
+        BloomFilter filter2 = new BloomFilter(KEY_COUNT, FALSE_POSITIVE_RATE);
+        filter1.add("a");
+        filter2.add("b");
+
+        // When
+        filter1.merge(filter2.words());
+
+        // Then
+        assertTrue(filter1.contains("a"));
+        assertTrue(filter1.contains("b"));
+        assertEquals(1, filter1.size());
+    }
+
+    @Test
+    public void when_keysWithEqualHashCode_then_distinguished() {
+        // Given
+        BloomFilter filter = new BloomFilter(KEY_COUNT, FALSE_POSITIVE_RATE);
+        long key = 0L;
+        long otherKey = 1L << 32 | 1L;
+        assertEquals(Long.hashCode(key), Long.hashCode(otherKey));
+
+        // When
+        filter.add(key);
+
+        // Then
+        assertTrue(filter.contains(key));
+        assertFalse(filter.contains(otherKey));
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import static com.hazelcast.jet.Traversers.traverseItems;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+@Category(ParallelTest.class)
+@RunWith(HazelcastParallelClassRunner.class)
+public class CopyOnWriteSnapshotTest {
+
+    private final Map<String, long[]> state = new HashMap<>();
+    private int copyCount;
+
+    @Test
+    public void when_valueModifiedAfterCapture_then_capturedValueReturned() {
+        // Given
+        state.put("a", new long[] {1});
+        state.put("b", new long[] {2});
+        CopyOnWriteSnapshot<String, long[]> snapshot = capture("a", "b");
+        Traverser<Entry<String, Object>> traverser = snapshot.traverser();
+
+        // When
+        update(snapshot, "a", 10);
+        update(snapshot, "a", 100);
+        update(snapshot, "b", 20);
+
+        // Then - each value copied once
+        assertEquals(2, copyCount);
+        assertSaved(traverser.next(), "a", 1);
+        update(snapshot, "b", 200);
+        assertSaved(traverser.next(), "b", 2);
+        assertNull(traverser.next());
+        assertEquals(2, copyCount);
+        assertEquals(111, state.get("a")[0]);
+        assertEquals(222, state.get("b")[0]);
+    }
+
+    @Test
+    public void when_keyNotModified_then_currentValueReturnedWithoutCopy() {
+        // Given
+        state.put("a", new long[] {1});
+        CopyOnWriteSnapshot<String, long[]> snapshot = capture("a");
+
+        // When
+        Entry<String, Object> e = snapshot.traverser().next();
+
+        // Then
+        assertSaved(e, "a", 1);
+        assertEquals(0, copyCount);
+    }
+
+    @Test
+    public void when_keyRemovedAndAddedAgain_then_removedValueReturned() {
+        // Given
+        long[] value = {1};
+        state.put("a", value);
+        CopyOnWriteSnapshot<String, long[]> snapshot = capture("a");
+
+        // When
+        snapshot.beforeRemove("a", state.get("a"));
+        state.remove("a");
+        update(snapshot, "a", 5);
+
+        // Then
+        Entry<String, Object> e = snapshot.traverser().next();
+        assertEquals(0, copyCount);
+        assertEquals(value, e.getValue());
+        assertSaved(e, "a", 1);
+    }
+
+    @Test
+    public void when_capturedKeyAbsentAndAddedLater_then_nullReturned() {
+        // Given - e.g. a key removed since the previous incremental snapshot
+        CopyOnWriteSnapshot<String, long[]> snapshot = capture("a");
+
+        // When
+        update(snapshot, "a", 5);
+
+        // Then
+        Entry<String, Object> e = snapshot.traverser().next();
+        assertEquals("a", e.getKey());
+        assertNull(e.getValue());
+    }
+
+    private CopyOnWriteSnapshot<String, long[]> capture(String... keys) {
+        return new CopyOnWriteSnapshot<>(traverseItems(keys), state::get, value -> {
+            copyCount++;
+            return ((long[]) value).clone();
+        });
+    }
+
+    private void update(CopyOnWriteSnapshot<String, long[]> snapshot, String key, long delta) {
+        snapshot.beforeUpdate(key, state.get(key));
+        state.computeIfAbsent(key, k -> new long[1])[0] += delta;
+    }
+
+    private static void assertSaved(Entry<String, Object> e, String expectedKey, long expectedValue) {
+        assertEquals(expectedKey, e.getKey());
+        assertEquals(expectedValue, ((long[]) e.getValue())[0]);
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.Util;
+import com.hazelcast.jet.accumulator.LongAccumulator;
+import com.hazelcast.jet.aggregate.AggregateOperation;
+import com.hazelcast.jet.aggregate.AggregateOperation1;
+import com.hazelcast.jet.config.JobConfig;
+import com.hazelcast.jet.core.test.TestInbox;
+import com.hazelcast.jet.core.test.TestOutbox;
+import com.hazelcast.jet.core.test.TestProcessorContext;
+import com.hazelcast.jet.impl.util.LongKeyFunction;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import static com.hazelcast.jet.aggregate.AggregateOperations.counting;
+import static com.hazelcast.jet.core.JetTestSupport.assertTrueEventually;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class GroupPTest {
+
+    private static final int KEY_COUNT = 5_000;
+    private static final int ITEM_COUNT = 50_000;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void when_spillThresholdReached_then_resultSameAsWithoutSpilling() throws Exception {
+        // Given
+        GroupP<Integer, LongAccumulator, Long, Entry<Integer, Long>> p = new GroupP<>(
+                (Integer item) -> item % KEY_COUNT, counting(), Util::entry);
+        File spillDir = tempFolder.newFolder();
+
+        // When
+        Map<Integer, Long> result = run(p, new JobConfig()
+                .setGroupSpillThreshold(KEY_COUNT / 10)
+                .setSpillDirectory(spillDir.getPath()));
+
+        // Then
+        assertEquals(expectedCounts(), result);
+        assertTrue("spillRuns=" + p.spillRuns.get(), p.spillRuns.get() > 10);
+        assertTrue("spilledBytes=" + p.spilledBytes.get(), p.spilledBytes.get() > 0);
+        assertTrueEventually(() -> assertEquals("spill files not deleted", 0, spillDir.list().length));
+    }
+
+    @Test
+    public void when_spillPartitionLargerThanThreshold_then_splitAndResultSameAsWithoutSpilling() throws Exception {
+        // Given
+        // all keys are multiples of the partition count, they fall into the same spill partition
+        GroupP<Integer, LongAccumulator, Long, Entry<Integer, Long>> p = new GroupP<>(
+                (Integer item) -> item % KEY_COUNT * GroupP.SPILL_PARTITION_COUNT, counting(), Util::entry);
+        File spillDir = tempFolder.newFolder();
+
+        // When
+        Map<Integer, Long> result = run(p, new JobConfig()
+                .setGroupSpillThreshold(KEY_COUNT / 10)
+                .setSpillDirectory(spillDir.getPath()));
+
+        // Then
+        Map<Integer, Long> expected = new HashMap<>();
+        expectedCounts().forEach((k, v) -> expected.put(k * GroupP.SPILL_PARTITION_COUNT, v));
+        assertEquals(expected, result);
+        assertTrue("spillSplits=" + p.spillSplits.get(), p.spillSplits.get() > 0);
+        assertTrueEventually(() -> assertEquals("spill files not deleted", 0, spillDir.list().length));
+    }
+
+    @Test
+    public void when_noSpillThreshold_then_notSpilled() throws Exception {
+        // Given
+        GroupP<Integer, LongAccumulator, Long, Entry<Integer, Long>> p = new GroupP<>(
+                (Integer item) -> item % KEY_COUNT, counting(), Util::entry);
+
+        // When
+        Map<Integer, Long> result = run(p, new JobConfig());
+
+        // Then
+        assertEquals(expectedCounts(), result);
+        assertEquals(0, p.spillRuns.get());
+    }
+
+    @Test
+    public void when_noCombineFn_then_notSpilled() throws Exception {
+        // Given
+        AggregateOperation1<Object, LongAccumulator, Long> countingWithoutCombine = AggregateOperation
+                .withCreate(LongAccumulator::new)
+                .andAccumulate((LongAccumulator acc, Object item) -> acc.add(1))
+                .andExportFinish(LongAccumulator::get);
+        GroupP<Integer, LongAccumulator, Long, Entry<Integer, Long>> p = new GroupP<>(
+                (Integer item) -> item % KEY_COUNT, countingWithoutCombine, Util::entry);
+
+        // When
+        Map<Integer, Long> result = run(p, new JobConfig()
+                .setGroupSpillThreshold(KEY_COUNT / 10)
+                .setSpillDirectory(tempFolder.newFolder().getPath()));
+
+        // Then
+        assertEquals(expectedCounts(), result);
+        assertEquals(0, p.spillRuns.get());
+    }
+
+    @Test
+    public void when_longKeysAndSpillThresholdReached_then_resultSameAsWithoutSpilling() throws Exception {
+        // Given
+        GroupP<Long, LongAccumulator, Long, Entry<Long, Long>> p = new GroupP<>(
+                new LongKeyFunction<Integer>(item -> item % KEY_COUNT), counting(), Util::entry);
+
+        // When
+        Map<Long, Long> result = run(p, new JobConfig()
+                .setGroupSpillThreshold(KEY_COUNT / 10)
+                .setSpillDirectory(tempFolder.newFolder().getPath()));
+
+        // Then
+        Map<Long, Long> expected = new HashMap<>();
+        expectedCounts().forEach((k, v) -> expected.put((long) k, v));
+        assertEquals(expected, result);
+        assertTrue("spillRuns=" + p.spillRuns.get(), p.spillRuns.get() > 10);
+    }
+
+    private static <K> Map<K, Long> run(GroupP<K, ?, Long, Entry<K, Long>> p, JobConfig jobConfig)
+            throws Exception {
+        // small outbox to make the processor return in the middle of emitting
+        TestOutbox outbox = new TestOutbox(16);
+        p.init(outbox, new TestProcessorContext().setJobConfig(jobConfig));
+        Map<K, Long> result = new HashMap<>();
+        TestInbox inbox = new TestInbox();
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            inbox.add(i);
+        }
+        while (!inbox.isEmpty()) {
+            p.process(0, inbox);
+        }
+        boolean done;
+        do {
+            done = p.complete();
+            for (Entry<K, Long> e; (e = outbox.queue(0).poll()) != null; ) {
+                assertEquals("duplicate key " + e.getKey(), null, result.put(e.getKey(), e.getValue()));
+            }
+        } while (!done);
+        p.close();
+        return result;
+    }
+
+    private static Map<Integer, Long> expectedCounts() {
+        Map<Integer, Long> expected = new HashMap<>();
+        for (int i = 0; i < ITEM_COUNT; i++) {
+            expected.merge(i % KEY_COUNT, 1L, Long::sum);
+        }
+        return expected;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.accumulator.LongAccumulator;
+import com.hazelcast.jet.impl.processor.SlidingWindowP.SnapshotKey;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.test.annotation.ParallelTest;
+import com.hazelcast.util.collection.Long2ObjectHashMap;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+@Category(ParallelTest.class)
+@RunWith(HazelcastParallelClassRunner.class)
+public class HashMapFrameStoreTest {
+
+    private final HashMapFrameStore<String, LongAccumulator> store =
+            new HashMapFrameStore<>(LongAccumulator::new, new AtomicLong(), new AtomicLong());
+
+    @Test
+    public void when_accumulatedDuringCapture_then_capturedValuesSaved() {
+        // Given
+        store.accumulate(1, "a", LongAccumulator::add, 1L);
+        store.accumulate(1, "b", LongAccumulator::add, 2L);
+        store.accumulate(2, "a", LongAccumulator::add, 3L);
+        Traverser<Entry<SnapshotKey, Object>> traverser = capture(null);
+
+        // When
+        Map<SnapshotKey, Long> saved = new HashMap<>();
+        for (Entry<SnapshotKey, Object> e; (e = traverser.next()) != null; ) {
+            saved.put(e.getKey(), ((LongAccumulator) e.getValue()).get());
+            store.accumulate(1, "a", LongAccumulator::add, 10L);
+            store.merge(1, "b", new LongAccumulator(10), LongAccumulator::add);
+            store.accumulate(2, "a", LongAccumulator::add, 10L);
+            store.accumulate(2, "c", LongAccumulator::add, 10L);
+            store.accumulate(3, "a", LongAccumulator::add, 10L);
+        }
+
+        // Then - the keys added during the capture aren't saved
+        Map<SnapshotKey, Long> expected = new HashMap<>();
+        expected.put(new SnapshotKey(1, "a"), 1L);
+        expected.put(new SnapshotKey(1, "b"), 2L);
+        expected.put(new SnapshotKey(2, "a"), 3L);
+        assertEquals(expected, saved);
+        assertEquals(31, store.get(1).get("a").get());
+        assertEquals(32, store.get(1).get("b").get());
+        assertEquals(33, store.get(2).get("a").get());
+        assertEquals(30, store.get(3).get("a").get());
+    }
+
+    @Test
+    public void when_frameRemovedAndCreatedAgainDuringCapture_then_removedFrameSaved() {
+        // Given
+        store.accumulate(1, "a", LongAccumulator::add, 1L);
+        store.accumulate(1, "b", LongAccumulator::add, 2L);
+        Traverser<Entry<SnapshotKey, Object>> traverser = capture(null);
+        Entry<SnapshotKey, Object> first = traverser.next();
+
+        // When
+        store.remove(1);
+        store.accumulate(1, "a", LongAccumulator::add, 10L);
+        store.accumulate(1, "b", LongAccumulator::add, 20L);
+
+        // Then
+        Entry<SnapshotKey, Object> second = traverser.next();
+        assertNull(traverser.next());
+        Map<Object, Long> saved = new HashMap<>();
+        saved.put(first.getKey().key, ((LongAccumulator) first.getValue()).get());
+        saved.put(second.getKey().key, ((LongAccumulator) second.getValue()).get());
+        Map<Object, Long> expected = new HashMap<>();
+        expected.put("a", 1L);
+        expected.put("b", 2L);
+        assertEquals(expected, saved);
+
+        // When - a capture after the previous one ended sees the new frame
+        traverser = capture(null);
+
+        // Then
+        Map<String, Long> current = new HashMap<>();
+        for (Entry<SnapshotKey, Object> e; (e = traverser.next()) != null; ) {
+            current.put((String) e.getKey().key, ((LongAccumulator) e.getValue()).get());
+        }
+        Map<String, Long> expectedCurrent = new HashMap<>();
+        expectedCurrent.put("a", 10L);
+        expectedCurrent.put("b", 20L);
+        assertEquals(expectedCurrent, current);
+    }
+
+    @Test
+    public void when_dirtyKeyHasNoValue_then_notSaved() {
+        // Given
+        store.accumulate(1, "a", LongAccumulator::add, 1L);
+        store.accumulate(1, "b", LongAccumulator::add, 2L);
+        Long2ObjectHashMap<Set<String>> keysByFrame = new Long2ObjectHashMap<>();
+        keysByFrame.put(1, new HashSet<>(asList("a", "missing")));
+
+        // When
+        Traverser<Entry<SnapshotKey, Object>> traverser = capture(keysByFrame);
+        store.accumulate(1, "a", LongAccumulator::add, 10L);
+
+        // Then
+        Entry<SnapshotKey, Object> e = traverser.next();
+        assertNull(traverser.next());
+        assertEquals(singletonMap(new SnapshotKey(1, "a"), 1L),
+                singletonMap(e.getKey(), ((LongAccumulator) e.getValue()).get()));
+    }
+
+    private Traverser<Entry<SnapshotKey, Object>> capture(Long2ObjectHashMap<Set<String>> keysByFrame) {
+        return store.capture(keysByFrame, acc -> new LongAccumulator(((LongAccumulator) acc).get()));
+    }
+}
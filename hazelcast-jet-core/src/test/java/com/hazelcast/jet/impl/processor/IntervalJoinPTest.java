@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.core.Processor;
+import com.hazelcast.jet.core.Watermark;
+import com.hazelcast.jet.core.test.TestInbox;
+import com.hazelcast.jet.core.test.TestOutbox;
+import com.hazelcast.jet.core.test.TestProcessorContext;
+import com.hazelcast.jet.function.DistributedBiFunction;
+import com.hazelcast.jet.function.DistributedFunction;
+import com.hazelcast.jet.function.DistributedSupplier;
+import com.hazelcast.jet.function.DistributedToLongFunction;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.core.test.TestSupport.SAME_ITEMS_ANY_ORDER;
+import static com.hazelcast.jet.core.test.TestSupport.verifyProcessor;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.nCopies;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class IntervalJoinPTest {
+
+    private static final long LOWER_BOUND = -2;
+    private static final long UPPER_BOUND = 5;
+
+    private DistributedSupplier<Processor> supplier;
+    private IntervalJoinP<String> lastSuppliedProcessor;
+
+    @Before
+    public void before() {
+        supplier = () -> lastSuppliedProcessor = createProcessor();
+    }
+
+    @After
+    public void after() {
+        // Check against memory leaks
+        if (lastSuppliedProcessor != null) {
+            assertTrue("buffer 0 not empty", lastSuppliedProcessor.buffers.get(0).isEmpty());
+            assertTrue("buffer 1 not empty", lastSuppliedProcessor.buffers.get(1).isEmpty());
+        }
+    }
+
+    @Test
+    public void when_itemsWithinBounds_then_joined() {
+        verifyProcessor(supplier)
+                .inputs(asList(
+                        asList(entry("a", 10L), entry("b", 10L)),
+                        asList(entry("a", 8L), entry("a", 12L), entry("a", 16L), entry("b", 20L), new Watermark(100))
+                ))
+                .outputChecker(SAME_ITEMS_ANY_ORDER)
+                .expectOutput(asList("a:10-8", "a:10-12", new Watermark(100)));
+    }
+
+    @Test
+    public void when_lateEvent_then_dropped() {
+        verifyProcessor(supplier)
+                .inputs(asList(
+                        asList(new Watermark(20), entry("a", 19L)),
+                        emptyList()
+                ))
+                .expectOutput(singletonList(new Watermark(20)));
+    }
+
+    @Test
+    public void when_watermark_then_onlyItemsThatCannotJoinEvicted() {
+        // Given
+        IntervalJoinP<String> p = createProcessor();
+        TestOutbox outbox = new TestOutbox(16);
+        p.init(outbox, new TestProcessorContext());
+        List<Object> result = new ArrayList<>();
+
+        // When
+        process(p, 0, entry("a", 10L));
+        // a future item from ordinal 1 with timestamp >= 14 can still join the item
+        assertTrue(p.tryProcessWatermark(new Watermark(14)));
+        process(p, 1, entry("a", 15L));
+        outbox.drainQueueAndReset(0, result, false);
+
+        // Then
+        assertEquals(asList(new Watermark(14), "a:10-15"), result);
+        assertTrue(p.tryProcessWatermark(new Watermark(16)));
+        assertTrue("buffer 0 not empty", p.buffers.get(0).isEmpty());
+        assertEquals(1, p.buffers.get(1).size());
+        assertTrue(p.tryProcessWatermark(new Watermark(18)));
+        assertTrue("buffer 1 not empty", p.buffers.get(1).isEmpty());
+    }
+
+    private static void process(IntervalJoinP<String> p, int ordinal, Object item) {
+        TestInbox inbox = new TestInbox();
+        inbox.add(item);
+        p.process(ordinal, inbox);
+        assertTrue(inbox.isEmpty());
+    }
+
+    private static IntervalJoinP<String> createProcessor() {
+        DistributedFunction<Entry<String, Long>, String> keyFn = Entry::getKey;
+        DistributedToLongFunction<Entry<String, Long>> timestampFn = Entry::getValue;
+        DistributedBiFunction<Entry<String, Long>, Entry<String, Long>, String> mapToOutputFn =
+                (e0, e1) -> e0.getKey() + ':' + e0.getValue() + '-' + e1.getValue();
+        return new IntervalJoinP<>(nCopies(2, keyFn), nCopies(2, timestampFn), LOWER_BOUND, UPPER_BOUND,
+                mapToOutputFn);
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.config.JobConfig;
+import com.hazelcast.jet.core.test.TestInbox;
+import com.hazelcast.jet.core.test.TestOutbox;
+import com.hazelcast.jet.core.test.TestProcessorContext;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import static com.hazelcast.jet.core.JetTestSupport.assertTrueEventually;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.IntStream.range;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class PartitionedHashJoinPTest {
+
+    private static final int BUILD_COUNT = 10_000;
+    private static final int PROBE_COUNT = 30_000;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @Test
+    public void when_spillThresholdReached_then_resultSameAsWithoutSpilling() throws Exception {
+        // Given
+        PartitionedHashJoinP<Integer> p = createProcessor(true, 1);
+        File spillDir = tempFolder.newFolder();
+
+        // When
+        List<String> result = run(p, new JobConfig()
+                .setJoinSpillThreshold(BUILD_COUNT / 10)
+                .setSpillDirectory(spillDir.getPath()));
+
+        // Then
+        assertEquals(expected(), result);
+        assertTrue("spilledBytes=" + p.spilledBytes.get(), p.spilledBytes.get() > 0);
+        assertTrueEventually(() -> assertEquals("spill files not deleted", 0, spillDir.list().length));
+    }
+
+    @Test
+    public void when_buildPartitionLargerThanThreshold_then_splitAndResultSameAsWithoutSpilling() throws Exception {
+        // Given
+        // all keys are multiples of the partition count, they fall into the same spill partition
+        PartitionedHashJoinP<Integer> p = createProcessor(true, PartitionedHashJoinP.SPILL_PARTITION_COUNT);
+        File spillDir = tempFolder.newFolder();
+
+        // When
+        List<String> result = run(p, new JobConfig()
+                .setJoinSpillThreshold(BUILD_COUNT / 10)
+                .setSpillDirectory(spillDir.getPath()));
+
+        // Then
+        assertEquals(expected(), result);
+        assertTrue("spillSplits=" + p.spillSplits.get(), p.spillSplits.get() > 0);
+        assertTrueEventually(() -> assertEquals("spill files not deleted", 0, spillDir.list().length));
+    }
+
+    @Test
+    public void when_spillNotAllowed_then_notSpilled() throws Exception {
+        // Given
+        PartitionedHashJoinP<Integer> p = createProcessor(false, 1);
+
+        // When
+        List<String> result = run(p, new JobConfig()
+                .setJoinSpillThreshold(BUILD_COUNT / 10)
+                .setSpillDirectory(tempFolder.newFolder().getPath()));
+
+        // Then
+        assertEquals(expected(), result);
+        assertEquals(0, p.spilledBytes.get());
+    }
+
+    private static PartitionedHashJoinP<Integer> createProcessor(boolean spillAllowed, int keyMultiplier) {
+        // every other probe item has no match
+        Function<Integer, Object> probeKeyFn = i -> i % (2 * BUILD_COUNT) * keyMultiplier;
+        BiFunction<Integer, String, String> mapToOutputFn = (i, joined) -> i + ":" + joined;
+        Function<Integer, Integer> buildKeyFn = i -> i * keyMultiplier;
+        Function<Integer, String> buildProjectFn = i -> "v" + i;
+        return new PartitionedHashJoinP<>(singletonList(probeKeyFn), emptyList(), mapToOutputFn, null,
+                1, buildKeyFn, buildProjectFn, spillAllowed);
+    }
+
+    private static List<String> run(PartitionedHashJoinP<Integer> p, JobConfig jobConfig) throws Exception {
+        // small outbox to make the processor return in the middle of emitting
+        TestOutbox outbox = new TestOutbox(16);
+        p.init(outbox, new TestProcessorContext().setJobConfig(jobConfig));
+        List<String> result = new ArrayList<>();
+        TestInbox inbox = new TestInbox();
+        range(0, BUILD_COUNT).forEach(inbox::add);
+        while (!inbox.isEmpty()) {
+            p.process(1, inbox);
+        }
+        range(0, PROBE_COUNT).forEach(inbox::add);
+        while (!inbox.isEmpty()) {
+            p.process(0, inbox);
+            outbox.drainQueueAndReset(0, result, false);
+        }
+        boolean done;
+        do {
+            done = p.complete();
+            outbox.drainQueueAndReset(0, result, false);
+        } while (!done);
+        p.close();
+        result.sort(null);
+        return result;
+    }
+
+    private static List<String> expected() {
+        return range(0, PROBE_COUNT)
+                .mapToObj(i -> i + ":" + (i % (2 * BUILD_COUNT) < BUILD_COUNT ? "v" + i % (2 * BUILD_COUNT) : null))
+                .sorted()
+                .collect(toList());
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.Traverser;
+import com.hazelcast.jet.accumulator.DoubleAccumulator;
+import com.hazelcast.jet.accumulator.LongAccumulator;
+import com.hazelcast.jet.accumulator.MutableReference;
+import com.hazelcast.jet.impl.processor.SlidingWindowP.SnapshotKey;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import com.hazelcast.util.collection.Long2ObjectHashMap;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class PrimitiveFrameStoreTest {
+
+    private final AtomicLong totalFrames = new AtomicLong();
+    private final AtomicLong totalKeys = new AtomicLong();
+
+    @Test
+    public void when_objectAccumulator_then_notCreated() {
+        assertNull(PrimitiveFrameStore.tryCreate(MutableReference::new, totalFrames, totalKeys));
+    }
+
+    @Test
+    public void when_randomOperations_then_sameAsHashMapStore() {
+        // Given
+        FrameStore<Object, LongAccumulator> store =
+                PrimitiveFrameStore.tryCreate(LongAccumulator::new, totalFrames, totalKeys);
+        AtomicLong expectedTotalFrames = new AtomicLong();
+        AtomicLong expectedTotalKeys = new AtomicLong();
+        FrameStore<Object, LongAccumulator> expected =
+                new HashMapFrameStore<>(LongAccumulator::new, expectedTotalFrames, expectedTotalKeys);
+        Random random = new Random(42);
+
+        // When
+        for (int i = 0; i < 200_000; i++) {
+            long frameTs = random.nextInt(20);
+            // mix keys of different types to have different hash distributions
+            Object key = random.nextInt(10) == 0 ? "key" + random.nextInt(300) : random.nextInt(500);
+            long value = random.nextInt(100);
+            int operation = random.nextInt(1000);
+            if (operation < 3) {
+                store.remove(frameTs);
+                expected.remove(frameTs);
+            } else if (operation < 10) {
+                store.merge(frameTs, key, new LongAccumulator(value), LongAccumulator::add);
+                expected.merge(frameTs, key, new LongAccumulator(value), LongAccumulator::add);
+            } else {
+                store.accumulate(frameTs, key, LongAccumulator::add, value);
+                expected.accumulate(frameTs, key, LongAccumulator::add, value);
+            }
+        }
+
+        // Then
+        assertEquals(expected.frameTimestamps(), new HashSet<>(store.frameTimestamps()));
+        for (long frameTs : expected.frameTimestamps()) {
+            assertEquals(expected.get(frameTs), store.get(frameTs));
+        }
+        assertEquals(expected.minFrameTs(), store.minFrameTs());
+        assertEquals(expectedTotalFrames.get(), totalFrames.get());
+        assertEquals(expectedTotalKeys.get(), totalKeys.get());
+        assertEquals(expected.keyCount(), store.keyCount());
+
+        // When
+        for (long frameTs : new ArrayList<>(expected.frameTimestamps())) {
+            store.remove(frameTs);
+        }
+
+        // Then
+        assertTrue(store.isEmpty());
+        assertEquals(0, totalFrames.get());
+        assertEquals(0, totalKeys.get());
+        assertEquals(0, ((PrimitiveFrameStore) store).dictionarySize());
+    }
+
+    @Test
+    public void when_doubleAccumulator_then_valuePreserved() {
+        // Given
+        FrameStore<String, DoubleAccumulator> store =
+                PrimitiveFrameStore.tryCreate(DoubleAccumulator::new, totalFrames, totalKeys);
+
+        // When
+        store.accumulate(1, "key", DoubleAccumulator::accumulate, 1.5);
+        store.accumulate(1, "key", DoubleAccumulator::accumulate, 2.25);
+
+        // Then
+        assertEquals(singletonMap("key", new DoubleAccumulator(3.75)), store.get(1));
+    }
+
+    @Test
+    public void when_forEach_then_allEntriesVisited() {
+        // Given
+        FrameStore<Integer, LongAccumulator> store =
+                PrimitiveFrameStore.tryCreate(LongAccumulator::new, totalFrames, totalKeys);
+        for (int i = 0; i < 100; i++) {
+            store.accumulate(1, i, LongAccumulator::add, (long) i);
+        }
+
+        // When
+        LongAccumulator sum = new LongAccumulator();
+        store.forEach(1, (key, acc) -> sum.add(acc.get() - key));
+
+        // Then
+        assertEquals(0, sum.get());
+        assertEquals(100, totalKeys.get());
+    }
+
+    @Test
+    public void when_modifiedDuringCapture_then_capturedStateUnchanged() {
+        FrameStore<Integer, LongAccumulator> primitiveStore =
+                PrimitiveFrameStore.tryCreate(LongAccumulator::new, totalFrames, totalKeys);
+        assertCaptureUnchanged(primitiveStore, false);
+        assertCaptureUnchanged(primitiveStore, true);
+        FrameStore<Integer, LongAccumulator> hashMapStore =
+                new HashMapFrameStore<>(LongAccumulator::new, new AtomicLong(), new AtomicLong());
+        assertCaptureUnchanged(hashMapStore, false);
+        assertCaptureUnchanged(hashMapStore, true);
+    }
+
+    private static void assertCaptureUnchanged(FrameStore<Integer, LongAccumulator> store, boolean dirtyKeysOnly) {
+        // Given
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            store.accumulate(random.nextInt(10), random.nextInt(100), LongAccumulator::add, (long) i);
+        }
+        Long2ObjectHashMap<Set<Integer>> keysByFrame = null;
+        if (dirtyKeysOnly) {
+            keysByFrame = new Long2ObjectHashMap<>();
+            for (long frameTs : store.frameTimestamps()) {
+                keysByFrame.put(frameTs, new HashSet<>(new ArrayList<>(store.get(frameTs).keySet()).subList(0, 1)));
+            }
+        }
+        Map<SnapshotKey, Long> expected = new HashMap<>();
+        for (long frameTs : store.frameTimestamps()) {
+            Set<Integer> keys = keysByFrame != null ? keysByFrame.get(frameTs) : null;
+            store.forEach(frameTs, (key, acc) -> {
+                if (keys == null || keys.contains(key)) {
+                    expected.put(new SnapshotKey(frameTs, key), acc.get());
+                }
+            });
+        }
+
+        // When
+        Traverser<Entry<SnapshotKey, Object>> traverser =
+                store.capture(keysByFrame, acc -> new LongAccumulator(((LongAccumulator) acc).get()));
+        Map<SnapshotKey, Long> captured = new HashMap<>();
+        for (Entry<SnapshotKey, Object> e; (e = traverser.next()) != null; ) {
+            captured.put(e.getKey(), ((LongAccumulator) e.getValue()).get());
+            store.accumulate(random.nextInt(12), random.nextInt(120), LongAccumulator::add, 1L);
+            store.merge(random.nextInt(12), random.nextInt(120), new LongAccumulator(1), LongAccumulator::add);
+            if (random.nextInt(20) == 0) {
+                store.remove(random.nextInt(10));
+            }
+        }
+
+        // Then
+        assertEquals(expected, captured);
+        for (long frameTs : new ArrayList<>(store.frameTimestamps())) {
+            store.remove(frameTs);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.impl.execution.init.EdgePartitionStrategy;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class RangePartitionerTest {
+
+    private static final int RANGE_COUNT = 1024;
+    private static final int PARTITION_COUNT = 271;
+
+    @Test
+    public void when_processorsHavePartitions_then_rangesSplitEvenlyInProcessorOrder() {
+        // Given
+        // global processor index -> the first partition routed to it
+        int[] processorPartitions = {17, 3, 250, 42};
+        RangePartitioner partitioner = new RangePartitioner(RANGE_COUNT);
+
+        // When
+        partitioner.init(new EdgePartitionStrategy(o -> 0, () -> processorPartitions));
+
+        // Then
+        int[] rangesPerProcessor = new int[processorPartitions.length];
+        int previousProcessor = 0;
+        for (int range = 0; range < RANGE_COUNT; range++) {
+            int processor = processorOf(processorPartitions, partitioner.getPartition(range, PARTITION_COUNT));
+            assertTrue("range " + range + " routed to a lower processor", processor >= previousProcessor);
+            rangesPerProcessor[processor]++;
+            previousProcessor = processor;
+        }
+        for (int count : rangesPerProcessor) {
+            assertEquals(RANGE_COUNT / processorPartitions.length, count);
+        }
+    }
+
+    @Test
+    public void when_processorWithoutPartition_then_skipped() {
+        // Given
+        int[] processorPartitions = {5, -1, 7, -1};
+        RangePartitioner partitioner = new RangePartitioner(RANGE_COUNT);
+
+        // When
+        partitioner.init(new EdgePartitionStrategy(o -> 0, () -> processorPartitions));
+
+        // Then
+        assertEquals(5, partitioner.getPartition(0, PARTITION_COUNT));
+        assertEquals(5, partitioner.getPartition(RANGE_COUNT / 2 - 1, PARTITION_COUNT));
+        assertEquals(7, partitioner.getPartition(RANGE_COUNT / 2, PARTITION_COUNT));
+        assertEquals(7, partitioner.getPartition(RANGE_COUNT - 1, PARTITION_COUNT));
+    }
+
+    @Test
+    public void when_notEdgePartitionStrategy_then_rangesSplitOverAllPartitions() {
+        // Given
+        RangePartitioner partitioner = new RangePartitioner(RANGE_COUNT);
+
+        // When
+        partitioner.init(o -> 0);
+
+        // Then
+        assertEquals(0, partitioner.getPartition(0, 8));
+        assertEquals(0, partitioner.getPartition(RANGE_COUNT / 8 - 1, 8));
+        assertEquals(1, partitioner.getPartition(RANGE_COUNT / 8, 8));
+        assertEquals(7, partitioner.getPartition(RANGE_COUNT - 1, 8));
+    }
+
+    private static int processorOf(int[] processorPartitions, int partition) {
+        for (int i = 0; i < processorPartitions.length; i++) {
+            if (processorPartitions[i] == partition) {
+                return i;
+            }
+        }
+        throw new AssertionError("partition " + partition + " not routed to any processor");
+    }
+}
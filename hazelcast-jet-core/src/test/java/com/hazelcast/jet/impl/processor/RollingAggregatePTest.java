@@ -16,21 +16,37 @@
 
 package com.hazelcast.jet.impl.processor;
 
+import com.hazelcast.jet.Traverser;
 import com.hazelcast.jet.aggregate.AggregateOperation;
+import com.hazelcast.jet.config.JobConfig;
 import com.hazelcast.jet.core.Processor;
 import com.hazelcast.jet.core.processor.Processors;
+import com.hazelcast.jet.core.test.TestInbox;
+import com.hazelcast.jet.core.test.TestOutbox;
+import com.hazelcast.jet.core.test.TestProcessorContext;
 import com.hazelcast.jet.core.test.TestSupport;
 import com.hazelcast.jet.function.DistributedSupplier;
+import com.hazelcast.jet.impl.execution.BackgroundSnapshotAware;
+import com.hazelcast.jet.impl.execution.IncrementalSnapshotAware;
+import com.hazelcast.jet.impl.execution.VersionedSnapshotValue;
+import com.hazelcast.jet.impl.util.LongKeyFunction;
 import com.hazelcast.test.HazelcastParallelClassRunner;
 import com.hazelcast.test.annotation.ParallelTest;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.junit.runner.RunWith;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map.Entry;
 
 import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.config.ProcessingGuarantee.EXACTLY_ONCE;
 import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 @Category(ParallelTest.class)
 @RunWith(HazelcastParallelClassRunner.class)
@@ -61,6 +77,31 @@ public class RollingAggregatePTest {
                 ));
     }
 
+    @Test
+    public void rollingAggregate_longKey() {
+        DistributedSupplier<Processor> supplier = Processors.rollingAggregateP(
+                new LongKeyFunction<Entry<Long, Long>>(Entry::getKey),
+                AggregateOperation
+                        .withCreate(() -> new long[1])
+                        .<Entry<Long, Long>>andAccumulate((acc, t) -> acc[0] += t.getValue())
+                        .andExportFinish(acc -> acc[0]),
+                (item, key, result) -> entry(key, result));
+
+        TestSupport.verifyProcessor(supplier)
+                .input(asList(
+                        entry(1L, 1L),
+                        entry(2L, 2L),
+                        entry(1L, 3L),
+                        entry(2L, 4L)
+                ))
+                .expectOutput(asList(
+                        entry(1L, 1L),
+                        entry(2L, 2L),
+                        entry(1L, 4L),
+                        entry(2L, 6L)
+                ));
+    }
+
     @Test
     public void rollingAggregate_withFiltering() {
         DistributedSupplier<Processor> supplier = Processors.rollingAggregateP(
@@ -83,4 +124,122 @@ public class RollingAggregatePTest {
                         entry("b", 6L)
                 ));
     }
+
+    @Test
+    public void when_incrementalSnapshot_then_onlyChangedKeysSaved() throws Exception {
+        // Given
+        Processor p = sumByKeyP().get();
+        TestOutbox outbox = new TestOutbox(new int[] {16}, 16);
+        p.init(outbox, incrementalSnapshotsContext());
+        process(p, entry("a", 1L), entry("b", 2L));
+        assertEquals(asList(entry("a", 1L), entry("b", 2L)), saveSnapshot(p, outbox, false));
+
+        // When
+        process(p, entry("a", 3L));
+
+        // Then
+        assertEquals(singletonList(entry("a", 4L)), saveSnapshot(p, outbox, true));
+        assertTrue(saveSnapshot(p, outbox, true).isEmpty());
+        assertEquals(asList(entry("a", 4L), entry("b", 2L)), saveSnapshot(p, outbox, false));
+    }
+
+    @Test
+    public void when_restoreVersionedValues_then_latestVersionUsed() throws Exception {
+        // Given
+        Processor p = sumByKeyP().get();
+        TestOutbox outbox = new TestOutbox(new int[] {16}, 16);
+        p.init(outbox, incrementalSnapshotsContext());
+        TestInbox inbox = new TestInbox();
+        inbox.add(entry("a", new VersionedSnapshotValue(2, new long[] {4})));
+        inbox.add(entry("a", new VersionedSnapshotValue(1, new long[] {1})));
+        inbox.add(entry("b", new VersionedSnapshotValue(1, new long[] {2})));
+        inbox.add(entry("c", new VersionedSnapshotValue(1, new long[] {5})));
+        inbox.add(entry("c", new VersionedSnapshotValue(2, null)));
+
+        // When
+        p.restoreFromSnapshot(inbox);
+        assertTrue(p.finishSnapshotRestore());
+        process(p, entry("a", 10L), entry("b", 10L), entry("c", 10L));
+
+        // Then
+        List<Object> output = new ArrayList<>();
+        outbox.drainQueueAndReset(0, output, false);
+        assertEquals(asList(entry("a", 14L), entry("b", 12L), entry("c", 10L)), output);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void when_stateChangedWhileSnapshotSavedInBackground_then_capturedValuesSaved() throws Exception {
+        // Given
+        Processor p = sumByKeyP().get();
+        TestOutbox outbox = new TestOutbox(new int[] {1024}, 16);
+        p.init(outbox, new TestProcessorContext().setProcessingGuarantee(EXACTLY_ONCE));
+        for (int i = 0; i < 10; i++) {
+            process(p, entry("k" + i, (long) i));
+        }
+        Traverser<Entry<String, Object>> traverser = (Traverser<Entry<String, Object>>)
+                ((BackgroundSnapshotAware) p).captureSnapshot(acc -> ((long[]) acc).clone());
+
+        // When - the entries are saved in batches, the state changes between them
+        List<Entry<String, Long>> saved = new ArrayList<>();
+        for (Entry<String, Object> e; (e = traverser.next()) != null; ) {
+            saved.add(entry(e.getKey(), ((long[]) e.getValue())[0]));
+            if (saved.size() % 3 == 0) {
+                for (int i = 0; i < 12; i++) {
+                    process(p, entry("k" + i, 100L));
+                }
+            }
+        }
+
+        // Then
+        saved.sort(Entry.comparingByKey());
+        List<Entry<String, Long>> expected = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            expected.add(entry("k" + i, (long) i));
+        }
+        expected.sort(Entry.comparingByKey());
+        assertEquals(expected, saved);
+        // the processor's own state wasn't affected by the copies
+        outbox.drainQueueAndReset(0, new ArrayList<>(), false);
+        process(p, entry("k0", 1L), entry("k11", 1L));
+        List<Object> output = new ArrayList<>();
+        outbox.drainQueueAndReset(0, output, false);
+        assertEquals(asList(entry("k0", 301L), entry("k11", 301L)), output);
+    }
+
+    private static DistributedSupplier<Processor> sumByKeyP() {
+        return Processors.rollingAggregateP(
+                Entry<String, Long>::getKey,
+                AggregateOperation
+                        .withCreate(() -> new long[1])
+                        .<Entry<String, Long>>andAccumulate((acc, t) -> acc[0] += t.getValue())
+                        .andExportFinish(acc -> acc[0]),
+                (item, key, result) -> entry(key, result));
+    }
+
+    private static TestProcessorContext incrementalSnapshotsContext() {
+        return new TestProcessorContext()
+                .setProcessingGuarantee(EXACTLY_ONCE)
+                .setJobConfig(new JobConfig().setMaxIncrementalSnapshots(2));
+    }
+
+    @SafeVarargs
+    private static void process(Processor p, Entry<String, Long>... items) {
+        TestInbox inbox = new TestInbox();
+        inbox.addAll(asList(items));
+        p.process(0, inbox);
+        assertTrue(inbox.isEmpty());
+    }
+
+    private static List<Entry<String, Long>> saveSnapshot(Processor p, TestOutbox outbox, boolean incremental) {
+        ((IncrementalSnapshotAware) p).setIncrementalSnapshot(incremental);
+        assertTrue(p.saveToSnapshot());
+        List<Entry<String, long[]>> snapshot = new ArrayList<>();
+        outbox.drainSnapshotQueueAndReset(snapshot, false);
+        outbox.drainQueueAndReset(0, new ArrayList<>(), false);
+        return snapshot.stream()
+                       .map(e -> entry(e.getKey(), e.getValue()[0]))
+                       .sorted(Entry.comparingByKey())
+                       .collect(toList());
+    }
 }
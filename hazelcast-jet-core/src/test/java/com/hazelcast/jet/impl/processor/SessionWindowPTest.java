@@ -32,7 +32,9 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Random;
 import java.util.concurrent.ThreadLocalRandom;
@@ -71,7 +73,7 @@ public class SessionWindowPTest {
     public void after() {
         // Check against memory leaks
         assertTrue("keyToWindows not empty", lastSuppliedProcessor.keyToWindows.isEmpty());
-        assertTrue("deadlineToKeys not empty", lastSuppliedProcessor.deadlineToKeys.isEmpty());
+        assertTrue("deadlines not empty", lastSuppliedProcessor.deadlines.isEmpty());
     }
 
     @Test
@@ -151,6 +153,54 @@ public class SessionWindowPTest {
                 ));
     }
 
+    @Test
+    public void when_deadlinesSpanManyWheelRotations_then_allSessionsEmitted() {
+        // Given
+        // the timestamps span many times DeadlineWheel.SLOT_COUNT buckets
+        Random rnd = new Random();
+        List<Object> events = new ArrayList<>();
+        Map<String, List<Long>> keyToTimestamps = new HashMap<>();
+        long timestamp = 0;
+        for (int i = 0; i < 300; i++) {
+            timestamp += rnd.nextInt(300);
+            String key = "k" + rnd.nextInt(20);
+            events.add(entry(key, timestamp));
+            keyToTimestamps.computeIfAbsent(key, k -> new ArrayList<>()).add(timestamp);
+            if (i % 10 == 9) {
+                events.add(new Watermark(timestamp - SESSION_TIMEOUT));
+            }
+        }
+        List<Object> expectedOutput = new ArrayList<>();
+        for (Entry<String, List<Long>> e : keyToTimestamps.entrySet()) {
+            expectedOutput.addAll(expectedSessions(e.getKey(), e.getValue()));
+        }
+        events.stream().filter(Watermark.class::isInstance).forEach(expectedOutput::add);
+
+        // When-Then
+        verifyProcessor(supplier)
+                .outputChecker(SAME_ITEMS_ANY_ORDER)
+                .input(events)
+                .expectOutput(expectedOutput);
+    }
+
+    private static List<WindowResult<String, Long>> expectedSessions(String key, List<Long> sortedTimestamps) {
+        List<WindowResult<String, Long>> sessions = new ArrayList<>();
+        long start = sortedTimestamps.get(0);
+        long end = start + SESSION_TIMEOUT;
+        long count = 0;
+        for (long ts : sortedTimestamps) {
+            if (ts >= end) {
+                sessions.add(new WindowResult<>(start, end, key, count));
+                start = ts;
+                count = 0;
+            }
+            end = Math.max(end, ts + SESSION_TIMEOUT);
+            count++;
+        }
+        sessions.add(new WindowResult<>(start, end, key, count));
+        return sessions;
+    }
+
     private void assertCorrectness(List<Object> events) {
         List<Object> expectedOutput = events.stream()
                                                .map(e -> ((Entry<String, Long>) e).getKey())
@@ -16,16 +16,23 @@
 
 package com.hazelcast.jet.impl.processor;
 
+import com.hazelcast.internal.serialization.InternalSerializationService;
+import com.hazelcast.internal.serialization.impl.DefaultSerializationServiceBuilder;
+import com.hazelcast.jet.Traverser;
 import com.hazelcast.jet.accumulator.LongAccumulator;
 import com.hazelcast.jet.aggregate.AggregateOperation1;
+import com.hazelcast.jet.config.JobConfig;
 import com.hazelcast.jet.config.ProcessingGuarantee;
 import com.hazelcast.jet.core.BroadcastKey;
-import com.hazelcast.jet.core.Outbox;
 import com.hazelcast.jet.core.Processor.Context;
+import com.hazelcast.jet.core.Watermark;
+import com.hazelcast.jet.core.test.TestInbox;
 import com.hazelcast.jet.core.test.TestOutbox;
 import com.hazelcast.jet.core.test.TestProcessorContext;
 import com.hazelcast.jet.datamodel.WindowResult;
 import com.hazelcast.jet.function.DistributedToLongFunction;
+import com.hazelcast.jet.impl.execution.SnapshotTombstone;
+import com.hazelcast.jet.impl.execution.VersionedSnapshotValue;
 import com.hazelcast.jet.impl.processor.SessionWindowP.Keys;
 import com.hazelcast.test.HazelcastParallelClassRunner;
 import com.hazelcast.test.annotation.ParallelTest;
@@ -35,14 +42,27 @@ import org.junit.experimental.categories.Category;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
+import java.util.function.UnaryOperator;
 
+import static com.hazelcast.jet.Util.entry;
 import static com.hazelcast.jet.aggregate.AggregateOperations.counting;
 import static com.hazelcast.jet.config.ProcessingGuarantee.AT_LEAST_ONCE;
 import static com.hazelcast.jet.config.ProcessingGuarantee.EXACTLY_ONCE;
+import static com.hazelcast.jet.core.JetTestSupport.wm;
 import static com.hazelcast.jet.function.DistributedFunctions.entryKey;
+import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
+import static java.util.Comparator.comparing;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 @RunWith(HazelcastParallelClassRunner.class)
 @Category(ParallelTest.class)
@@ -52,8 +72,13 @@ public class SessionWindowP_failoverTest {
     public ExpectedException exception = ExpectedException.none();
 
     private SessionWindowP<Entry<String, Long>, ?, Long, ?> p;
+    private TestOutbox outbox;
 
     private void init(ProcessingGuarantee guarantee) throws Exception {
+        init(new TestProcessorContext().setProcessingGuarantee(guarantee));
+    }
+
+    private void init(Context context) throws Exception {
         AggregateOperation1<Object, LongAccumulator, Long> aggrOp = counting();
         p = new SessionWindowP<>(
                 5000,
@@ -63,9 +88,7 @@ public class SessionWindowP_failoverTest {
                 aggrOp,
                 WindowResult::new);
 
-        Outbox outbox = new TestOutbox(128);
-        Context context = new TestProcessorContext()
-                .setProcessingGuarantee(guarantee);
+        outbox = new TestOutbox(new int[] {128}, 128);
         p.init(outbox, context);
     }
 
@@ -95,4 +118,145 @@ public class SessionWindowP_failoverTest {
 
         assertEquals(Long.MIN_VALUE, p.currentWatermark);
     }
+
+    @Test
+    public void when_restoredFromBaseAndDeltas_then_latestSessionsRestoredAndClosedNot() throws Exception {
+        // Given
+        init(incrementalSnapshotsContext());
+        process(entry("a", 1L), entry("b", 1L));
+        Map<Object, Object> base = saveSnapshot(false);
+        process(entry("b", 10_000L));
+        // closes all sessions of "a" and the first one of "b"
+        assertTrue(p.tryProcessWatermark(wm(6000)));
+        Map<Object, Object> delta1 = saveSnapshot(true);
+        process(entry("c", 10_000L));
+        Map<Object, Object> delta2 = saveSnapshot(true);
+
+        // Then - a delta contains the changed keys, a tombstone for a key without sessions, and the watermark
+        assertEquals(new HashSet<>(asList("a", "b", BroadcastKey.broadcastKey(Keys.CURRENT_WATERMARK))), base.keySet());
+        assertEquals(new HashSet<>(asList("a", "b", BroadcastKey.broadcastKey(Keys.CURRENT_WATERMARK))), delta1.keySet());
+        assertSame(SnapshotTombstone.INSTANCE, delta1.get("a"));
+        assertEquals(new HashSet<>(asList("c", BroadcastKey.broadcastKey(Keys.CURRENT_WATERMARK))), delta2.keySet());
+
+        // When
+        init(incrementalSnapshotsContext());
+        TestInbox inbox = new TestInbox();
+        addVersioned(inbox, 1, base);
+        addVersioned(inbox, 2, delta1);
+        addVersioned(inbox, 3, delta2);
+        p.restoreFromSnapshot(inbox);
+        assertTrue(p.finishSnapshotRestore());
+
+        // Then
+        assertEquals(6000L, p.currentWatermark);
+        assertEquals(new HashSet<>(asList("b", "c")), p.keyToWindows.keySet());
+        assertTrue(p.tryProcessWatermark(wm(20_000)));
+        List<Object> output = new ArrayList<>();
+        outbox.drainQueueAndReset(0, output, false);
+        assertEquals(new HashSet<>(asList(
+                new WindowResult<>(10_000, 15_000, "b", 1L),
+                new WindowResult<>(10_000, 15_000, "c", 1L),
+                wm(20_000))),
+                new HashSet<>(output));
+    }
+
+    @Test
+    public void when_sessionsChangedWhileSnapshotSavedInBackground_then_capturedSessionsSaved() throws Exception {
+        // Given
+        init(EXACTLY_ONCE);
+        process(entry("a", 1L), entry("a", 2L), entry("b", 1L), entry("c", 1L));
+        InternalSerializationService serializationService = new DefaultSerializationServiceBuilder().build();
+        // the tasklet serializes the entries as they're returned, we copy them the same way
+        UnaryOperator<Object> copyFn = o -> serializationService.toObject(serializationService.toData(o));
+        Traverser<Entry<Object, Object>> traverser = p.captureSnapshot(copyFn);
+
+        // When - sessions are extended, closed and created between the saved entries
+        Map<Object, Object> saved = new HashMap<>();
+        Entry<Object, Object> e = traverser.next();
+        saved.put(e.getKey(), copyFn.apply(e.getValue()));
+        process(entry("a", 3L), entry("b", 2L));
+        assertTrue(p.tryProcessWatermark(wm(6000)));
+        process(entry("d", 10_000L));
+        for (; (e = traverser.next()) != null; ) {
+            assertNull("duplicate key: " + e.getKey(), saved.put(e.getKey(), copyFn.apply(e.getValue())));
+            process(entry("c", 10_001L));
+        }
+
+        // Then - the sessions were closed with the changes
+        List<Object> output = new ArrayList<>();
+        outbox.drainQueueAndReset(0, output, false);
+        assertEquals(asList(
+                new WindowResult<>(1, 5003, "a", 3L),
+                new WindowResult<>(1, 5002, "b", 2L),
+                new WindowResult<>(1, 5001, "c", 1L),
+                wm(6000)),
+                sortedWindowResults(output));
+        assertEquals(new HashSet<>(asList("c", "d")), p.keyToWindows.keySet());
+
+        // When - the saved state is restored
+        init(EXACTLY_ONCE);
+        TestInbox inbox = new TestInbox();
+        inbox.addAll(saved.entrySet());
+        p.restoreFromSnapshot(inbox);
+        assertTrue(p.finishSnapshotRestore());
+        assertTrue(p.tryProcessWatermark(wm(6000)));
+
+        // Then - the sessions are as they were at the capture
+        output.clear();
+        outbox.drainQueueAndReset(0, output, false);
+        assertEquals(asList(
+                new WindowResult<>(1, 5002, "a", 2L),
+                new WindowResult<>(1, 5001, "b", 1L),
+                new WindowResult<>(1, 5001, "c", 1L),
+                wm(6000)),
+                sortedWindowResults(output));
+        assertTrue(p.keyToWindows.isEmpty());
+    }
+
+    private static TestProcessorContext incrementalSnapshotsContext() {
+        return new TestProcessorContext()
+                .setProcessingGuarantee(EXACTLY_ONCE)
+                .setJobConfig(new JobConfig().setMaxIncrementalSnapshots(3));
+    }
+
+    @SafeVarargs
+    private final void process(Entry<String, Long>... items) {
+        TestInbox inbox = new TestInbox();
+        inbox.addAll(asList(items));
+        p.process(0, inbox);
+        assertTrue(inbox.isEmpty());
+    }
+
+    private Map<Object, Object> saveSnapshot(boolean incremental) {
+        p.setIncrementalSnapshot(incremental);
+        assertTrue(p.saveToSnapshot());
+        List<Entry<Object, Object>> snapshot = new ArrayList<>();
+        outbox.drainSnapshotQueueAndReset(snapshot, false);
+        outbox.drainQueueAndReset(0, new ArrayList<>(), false);
+        Map<Object, Object> result = new HashMap<>();
+        for (Entry<Object, Object> e : snapshot) {
+            assertNull("duplicate key: " + e.getKey(), result.put(e.getKey(), e.getValue()));
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object> sortedWindowResults(List<Object> output) {
+        List<Object> sorted = new ArrayList<>(output);
+        sorted.sort(comparing(o -> o instanceof WindowResult ? ((WindowResult<String, ?>) o).getKey() : ""));
+        // the watermark last
+        sorted.sort(comparing(o -> o instanceof Watermark));
+        return sorted;
+    }
+
+    /**
+     * Adds the entries as {@link com.hazelcast.jet.impl.ExplodeSnapshotP}
+     * does for a snapshot with deltas.
+     */
+    private static void addVersioned(TestInbox inbox, long snapshotId, Map<Object, Object> snapshot) {
+        for (Entry<Object, Object> e : snapshot.entrySet()) {
+            Object value = e.getValue() == SnapshotTombstone.INSTANCE ? null : e.getValue();
+            inbox.add(entry(e.getKey(), new VersionedSnapshotValue(snapshotId, value)));
+        }
+    }
 }
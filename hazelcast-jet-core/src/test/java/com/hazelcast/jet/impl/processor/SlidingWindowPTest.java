@@ -122,6 +122,10 @@ public class SlidingWindowPTest {
                 lastSuppliedProcessor.tsToKeyToAcc.isEmpty());
         assertTrue("slidingWindow is not empty: " + lastSuppliedProcessor.slidingWindow,
                 lastSuppliedProcessor.slidingWindow == null || lastSuppliedProcessor.slidingWindow.isEmpty());
+        assertTrue("keyToFrontStack is not empty: " + lastSuppliedProcessor.keyToFrontStack,
+                lastSuppliedProcessor.keyToFrontStack.isEmpty());
+        assertTrue("backStack is not empty: " + lastSuppliedProcessor.backStack,
+                lastSuppliedProcessor.backStack.isEmpty());
     }
 
     @Test
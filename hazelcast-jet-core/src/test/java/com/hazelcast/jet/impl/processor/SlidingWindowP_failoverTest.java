@@ -18,16 +18,19 @@ package com.hazelcast.jet.impl.processor;
 
 import com.hazelcast.jet.accumulator.LongAccumulator;
 import com.hazelcast.jet.aggregate.AggregateOperation1;
+import com.hazelcast.jet.config.JobConfig;
 import com.hazelcast.jet.config.ProcessingGuarantee;
 import com.hazelcast.jet.core.BroadcastKey;
-import com.hazelcast.jet.core.Outbox;
 import com.hazelcast.jet.core.Processor.Context;
 import com.hazelcast.jet.core.SlidingWindowPolicy;
+import com.hazelcast.jet.core.test.TestInbox;
 import com.hazelcast.jet.core.test.TestOutbox;
 import com.hazelcast.jet.core.test.TestProcessorContext;
 import com.hazelcast.jet.datamodel.TimestampedEntry;
 import com.hazelcast.jet.function.DistributedToLongFunction;
+import com.hazelcast.jet.impl.execution.VersionedSnapshotValue;
 import com.hazelcast.jet.impl.processor.SlidingWindowP.Keys;
+import com.hazelcast.jet.impl.processor.SlidingWindowP.SnapshotKey;
 import com.hazelcast.test.HazelcastParallelClassRunner;
 import com.hazelcast.test.annotation.ParallelTest;
 import org.junit.Rule;
@@ -36,14 +39,21 @@ import org.junit.experimental.categories.Category;
 import org.junit.rules.ExpectedException;
 import org.junit.runner.RunWith;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map.Entry;
 
+import static com.hazelcast.jet.Util.entry;
 import static com.hazelcast.jet.aggregate.AggregateOperations.counting;
 import static com.hazelcast.jet.config.ProcessingGuarantee.AT_LEAST_ONCE;
 import static com.hazelcast.jet.config.ProcessingGuarantee.EXACTLY_ONCE;
+import static com.hazelcast.jet.core.JetTestSupport.wm;
 import static com.hazelcast.jet.function.DistributedFunctions.entryKey;
+import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 @RunWith(HazelcastParallelClassRunner.class)
 @Category(ParallelTest.class)
@@ -53,8 +63,13 @@ public class SlidingWindowP_failoverTest {
     public ExpectedException exception = ExpectedException.none();
 
     private SlidingWindowP<Entry<String, Long>, ?, Long, ?> p;
+    private TestOutbox outbox;
 
     private void init(ProcessingGuarantee guarantee) throws Exception {
+        init(new TestProcessorContext().setProcessingGuarantee(guarantee));
+    }
+
+    private void init(Context context) throws Exception {
         SlidingWindowPolicy wDef = SlidingWindowPolicy.tumblingWinPolicy(1);
         AggregateOperation1<Object, LongAccumulator, Long> aggrOp = counting();
         p = new SlidingWindowP<>(
@@ -66,9 +81,7 @@ public class SlidingWindowP_failoverTest {
                 TimestampedEntry::fromWindowResult,
                 true);
 
-        Outbox outbox = new TestOutbox(128);
-        Context context = new TestProcessorContext()
-                .setProcessingGuarantee(guarantee);
+        outbox = new TestOutbox(new int[] {128}, 128);
         p.init(outbox, context);
     }
 
@@ -98,4 +111,88 @@ public class SlidingWindowP_failoverTest {
 
         assertEquals(Long.MIN_VALUE, p.nextWinToEmit);
     }
+
+    @Test
+    public void when_restoredFromBaseAndDeltas_then_latestFramesRestoredAndEvictedNot() throws Exception {
+        // Given
+        init(incrementalSnapshotsContext());
+        process(entry("a", 1L), entry("b", 1L), entry("a", 2L));
+        List<Entry<Object, Object>> base = saveSnapshot(false);
+        // the window of timestamp 1 is emitted and its frame evicted
+        assertTrue(p.tryProcessWatermark(wm(2)));
+        process(entry("a", 2L));
+        List<Entry<Object, Object>> delta1 = saveSnapshot(true);
+        process(entry("b", 3L));
+        List<Entry<Object, Object>> delta2 = saveSnapshot(true);
+
+        // Then - a delta contains the changed keys and nextWinToEmit, no tombstone for the evicted frame
+        assertEquals(asList("a", "b"), frameKeys(base));
+        assertEquals(singletonList("a"), frameKeys(delta1));
+        assertEquals(singletonList("b"), frameKeys(delta2));
+        assertEquals(1, delta1.size() - frameKeys(delta1).size());
+
+        // When
+        init(incrementalSnapshotsContext());
+        TestInbox inbox = new TestInbox();
+        addVersioned(inbox, 1, base);
+        addVersioned(inbox, 2, delta1);
+        addVersioned(inbox, 3, delta2);
+        p.restoreFromSnapshot(inbox);
+        assertTrue(p.finishSnapshotRestore());
+        assertTrue(p.tryProcessWatermark(wm(10)));
+
+        // Then
+        List<Object> output = new ArrayList<>();
+        outbox.drainQueueAndReset(0, output, false);
+        assertEquals(asList(new TimestampedEntry<>(3L, "a", 2L), new TimestampedEntry<>(4L, "b", 1L), wm(10)),
+                output);
+    }
+
+    @Test
+    public void when_deltaRestoredWithNewerBroadcastKey_then_olderNextWinToEmitIgnored() throws Exception {
+        init(incrementalSnapshotsContext());
+
+        p.restoreFromSnapshot(BroadcastKey.broadcastKey(Keys.NEXT_WIN_TO_EMIT), new VersionedSnapshotValue(2, 5L));
+        p.restoreFromSnapshot(BroadcastKey.broadcastKey(Keys.NEXT_WIN_TO_EMIT), new VersionedSnapshotValue(1, 1L));
+        assertTrue(p.finishSnapshotRestore());
+
+        assertEquals(5L, p.nextWinToEmit);
+    }
+
+    private static TestProcessorContext incrementalSnapshotsContext() {
+        return new TestProcessorContext()
+                .setProcessingGuarantee(EXACTLY_ONCE)
+                .setJobConfig(new JobConfig().setMaxIncrementalSnapshots(3));
+    }
+
+    @SafeVarargs
+    private final void process(Entry<String, Long>... items) {
+        TestInbox inbox = new TestInbox();
+        inbox.addAll(asList(items));
+        p.process(0, inbox);
+        assertTrue(inbox.isEmpty());
+    }
+
+    private List<Entry<Object, Object>> saveSnapshot(boolean incremental) {
+        p.setIncrementalSnapshot(incremental);
+        assertTrue(p.saveToSnapshot());
+        List<Entry<Object, Object>> snapshot = new ArrayList<>();
+        outbox.drainSnapshotQueueAndReset(snapshot, false);
+        outbox.drainQueueAndReset(0, new ArrayList<>(), false);
+        return snapshot;
+    }
+
+    private static List<Object> frameKeys(List<Entry<Object, Object>> snapshot) {
+        return snapshot.stream()
+                       .filter(e -> e.getKey() instanceof SnapshotKey)
+                       .map(e -> ((SnapshotKey) e.getKey()).key)
+                       .sorted()
+                       .collect(toList());
+    }
+
+    private static void addVersioned(TestInbox inbox, long snapshotId, List<Entry<Object, Object>> snapshot) {
+        for (Entry<Object, Object> e : snapshot) {
+            inbox.add(entry(e.getKey(), new VersionedSnapshotValue(snapshotId, e.getValue())));
+        }
+    }
 }
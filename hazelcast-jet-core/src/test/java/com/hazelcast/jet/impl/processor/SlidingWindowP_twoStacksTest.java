@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.core.SlidingWindowPolicy;
+import com.hazelcast.jet.core.test.TestInbox;
+import com.hazelcast.jet.core.test.TestOutbox;
+import com.hazelcast.jet.core.test.TestProcessorContext;
+import com.hazelcast.jet.datamodel.TimestampedEntry;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static com.hazelcast.jet.aggregate.AggregateOperations.toList;
+import static com.hazelcast.jet.core.JetTestSupport.wm;
+import static com.hazelcast.jet.core.SlidingWindowPolicy.slidingWinPolicy;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the two-stacks window computation used for aggregate operations
+ * without {@code deductFn}. The {@code toList()} operation is not
+ * commutative, so the test also checks the order of combining.
+ */
+@RunWith(HazelcastParallelClassRunner.class)
+public class SlidingWindowP_twoStacksTest {
+
+    private static final int WINDOW_SIZE = 10;
+    private static final int KEY_COUNT = 5;
+    private static final int TS_COUNT = 100;
+
+    @Test
+    public void when_randomEventsAndWatermarks_then_sameResultAsRecompute() throws Exception {
+        // Given
+        SlidingWindowPolicy winPolicy = slidingWinPolicy(WINDOW_SIZE, 1);
+        SlidingWindowP<Integer, ?, List<Integer>, TimestampedEntry<Integer, List<Integer>>> p = new SlidingWindowP<>(
+                singletonList((Integer t) -> t % KEY_COUNT),
+                singletonList((Integer t) -> winPolicy.higherFrameTs(t / KEY_COUNT)),
+                winPolicy,
+                0L,
+                toList(),
+                TimestampedEntry::fromWindowResult,
+                true);
+        TestOutbox outbox = new TestOutbox(new int[]{TS_COUNT * KEY_COUNT * WINDOW_SIZE}, 0);
+        p.init(outbox, new TestProcessorContext());
+
+        // item = ts * KEY_COUNT + key
+        Random random = new Random(42);
+        Map<Long, List<Integer>> frameTsToItems = new HashMap<>();
+        TestInbox inbox = new TestInbox();
+        long wm = Long.MIN_VALUE;
+
+        // When
+        for (int ts = 0; ts < TS_COUNT; ts++) {
+            for (int i = random.nextInt(4); i > 0; i--) {
+                int item = ts * KEY_COUNT + random.nextInt(KEY_COUNT);
+                inbox.add(item);
+                frameTsToItems.computeIfAbsent(winPolicy.higherFrameTs(ts), x -> new ArrayList<>()).add(item);
+            }
+            if (random.nextInt(3) == 0) {
+                p.process(0, inbox);
+                assertTrue(inbox.isEmpty());
+                // the watermark sometimes skips several frames
+                wm = Math.max(wm, ts - random.nextInt(WINDOW_SIZE / 2));
+                assertTrue(p.tryProcessWatermark(wm(wm)));
+            }
+        }
+        p.process(0, inbox);
+        assertTrue(p.complete());
+
+        // Then
+        Map<Long, Map<Integer, List<Integer>>> expected = new HashMap<>();
+        for (long winEnd = 1; winEnd < TS_COUNT + WINDOW_SIZE; winEnd++) {
+            for (long frameTs = winEnd - WINDOW_SIZE + 1; frameTs <= winEnd; frameTs++) {
+                for (int item : frameTsToItems.getOrDefault(frameTs, new ArrayList<>())) {
+                    expected.computeIfAbsent(winEnd, x -> new HashMap<>())
+                            .computeIfAbsent(item % KEY_COUNT, x -> new ArrayList<>())
+                            .add(item);
+                }
+            }
+        }
+        Map<Long, Map<Integer, List<Integer>>> actual = new HashMap<>();
+        for (Object o; (o = outbox.queue(0).poll()) != null; ) {
+            if (o instanceof TimestampedEntry) {
+                @SuppressWarnings("unchecked")
+                TimestampedEntry<Integer, List<Integer>> e = (TimestampedEntry<Integer, List<Integer>>) o;
+                actual.computeIfAbsent(e.getTimestamp(), x -> new HashMap<>()).put(e.getKey(), e.getValue());
+            }
+        }
+        assertEquals(expected, actual);
+        assertTrue(p.tsToKeyToAcc.isEmpty());
+        assertTrue(p.keyToFrontStack.isEmpty());
+        assertTrue(p.backStack.isEmpty());
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.config.JobConfig;
+import com.hazelcast.jet.core.AbstractProcessor;
+import com.hazelcast.jet.core.test.TestInbox;
+import com.hazelcast.jet.core.test.TestOutbox;
+import com.hazelcast.jet.core.test.TestProcessorContext;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Random;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.core.JetTestSupport.assertTrueEventually;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class SortPTest {
+
+    private static final int ITEM_COUNT = 50_000;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private final List<Integer> input = new Random(42).ints(ITEM_COUNT, 0, 1_000_000).boxed().collect(toList());
+
+    @Test
+    public void when_spillThresholdReached_then_resultSameAsWithoutSpilling() throws Exception {
+        // Given
+        SortP<Integer> p = new SortP<>(Comparator.naturalOrder());
+        File spillDir = tempFolder.newFolder();
+
+        // When
+        List<Object> result = run(p, new JobConfig()
+                .setSortSpillThreshold(ITEM_COUNT / 20)
+                .setSpillDirectory(spillDir.getPath()));
+
+        // Then
+        assertEquals(sortedInput(), result);
+        assertTrue("spillRuns=" + p.spillRuns.get(), p.spillRuns.get() >= 19);
+        assertTrue("spilledBytes=" + p.spilledBytes.get(), p.spilledBytes.get() > 0);
+        assertTrueEventually(() -> assertEquals("spill files not deleted", 0, spillDir.list().length));
+    }
+
+    @Test
+    public void when_moreRunsThanFanIn_then_mergedInSeveralPasses() throws Exception {
+        // Given
+        SortP<Integer> p = new SortP<>(Comparator.naturalOrder());
+        File spillDir = tempFolder.newFolder();
+
+        // When
+        List<Object> result = run(p, new JobConfig()
+                .setSortSpillThreshold(ITEM_COUNT / 200)
+                .setSpillDirectory(spillDir.getPath()));
+
+        // Then
+        assertEquals(sortedInput(), result);
+        assertTrue("spillRuns=" + p.spillRuns.get(), p.spillRuns.get() >= 199);
+        // 200 runs need 13 merges of 16 runs into one to leave less than 16
+        assertTrue("spillMerges=" + p.spillMerges.get(), p.spillMerges.get() >= 2);
+        assertTrueEventually(() -> assertEquals("spill files not deleted", 0, spillDir.list().length));
+    }
+
+    @Test
+    public void when_noSpillThreshold_then_notSpilled() throws Exception {
+        // Given
+        SortP<Integer> p = new SortP<>(Comparator.naturalOrder());
+
+        // When
+        List<Object> result = run(p, new JobConfig());
+
+        // Then
+        assertEquals(sortedInput(), result);
+        assertEquals(0, p.spillRuns.get());
+    }
+
+    @Test
+    public void when_routed_then_rangesDoNotOverlap() throws Exception {
+        // Given
+        SortRouteP<Integer> p = new SortRouteP<>(Comparator.naturalOrder());
+        File spillDir = tempFolder.newFolder();
+        TestOutbox outbox = new TestOutbox(16);
+        p.init(outbox, new TestProcessorContext().setJobConfig(new JobConfig()
+                .setSortSpillThreshold(ITEM_COUNT / 10)
+                .setSpillDirectory(spillDir.getPath())));
+        List<Object> result = new ArrayList<>();
+
+        // When
+        // half of the items arrive before the samples are complete
+        TestInbox inbox = new TestInbox();
+        inbox.addAll(input.subList(0, ITEM_COUNT / 2));
+        process(p, 0, inbox, outbox, result);
+        input.stream().filter(i -> i % 100 == 0).forEach(i -> inbox.add(entry(1d, i)));
+        process(p, 1, inbox, outbox, result);
+        assertTrue(p.completeEdge(1));
+        inbox.addAll(input.subList(ITEM_COUNT / 2, ITEM_COUNT));
+        process(p, 0, inbox, outbox, result);
+        complete(p, outbox, result);
+        p.close();
+
+        // Then
+        assertEquals(ITEM_COUNT, result.size());
+        assertTrue("spilledBytes=" + p.spilledBytes.get(), p.spilledBytes.get() > 0);
+        assertTrueEventually(() -> assertEquals("spill files not deleted", 0, spillDir.list().length));
+        int[] rangeMin = new int[SortRouteP.RANGE_COUNT];
+        int[] rangeMax = new int[SortRouteP.RANGE_COUNT];
+        Arrays.fill(rangeMin, Integer.MAX_VALUE);
+        Arrays.fill(rangeMax, Integer.MIN_VALUE);
+        for (Object o : result) {
+            @SuppressWarnings("unchecked")
+            Entry<Integer, Integer> e = (Entry<Integer, Integer>) o;
+            rangeMin[e.getKey()] = Math.min(rangeMin[e.getKey()], e.getValue());
+            rangeMax[e.getKey()] = Math.max(rangeMax[e.getKey()], e.getValue());
+        }
+        int prevMax = Integer.MIN_VALUE;
+        for (int range = 0; range < SortRouteP.RANGE_COUNT; range++) {
+            if (rangeMin[range] != Integer.MAX_VALUE) {
+                assertTrue("range " + range + " overlaps with a lower range", rangeMin[range] >= prevMax);
+                prevMax = rangeMax[range];
+            }
+        }
+    }
+
+    @Test
+    public void when_routedWithoutSpillThreshold_then_bufferBounded() throws Exception {
+        // Given
+        SortRouteP<Integer> p = new SortRouteP<>(Comparator.naturalOrder());
+        File spillDir = tempFolder.newFolder();
+        TestOutbox outbox = new TestOutbox(16);
+        p.init(outbox, new TestProcessorContext().setJobConfig(new JobConfig()
+                .setSpillDirectory(spillDir.getPath())));
+        List<Object> result = new ArrayList<>();
+        int itemCount = SortRouteP.DEFAULT_BUFFER_LIMIT + ITEM_COUNT;
+
+        // When
+        TestInbox inbox = new TestInbox();
+        for (int i = 0; i < itemCount; i++) {
+            inbox.add(i);
+        }
+        process(p, 0, inbox, outbox, result);
+        inbox.add(entry(1d, itemCount / 2));
+        process(p, 1, inbox, outbox, result);
+        assertTrue(p.completeEdge(1));
+        complete(p, outbox, result);
+        p.close();
+
+        // Then
+        assertEquals(itemCount, result.size());
+        assertTrue("spilledBytes=" + p.spilledBytes.get(), p.spilledBytes.get() > 0);
+        assertTrueEventually(() -> assertEquals("spill files not deleted", 0, spillDir.list().length));
+    }
+
+    @Test
+    public void when_samplesWeighted_then_boundariesFollowWeights() {
+        // Given
+        SortRouteP<Integer> p = new SortRouteP<>(Comparator.naturalOrder());
+        TestOutbox outbox = new TestOutbox(16);
+        p.init(outbox, new TestProcessorContext());
+
+        // When
+        // two samplers with samples of equal size: the first one had 100
+        // items, the second one 900
+        TestInbox inbox = new TestInbox();
+        for (int i = 0; i < 100; i++) {
+            inbox.add(entry(1d, i));
+            inbox.add(entry(9d, 1000 + i));
+        }
+        process(p, 1, inbox, outbox, new ArrayList<>());
+        assertTrue(p.completeEdge(1));
+
+        // Then
+        // the items of the first sampler are a tenth of the total weight,
+        // they take a tenth of the ranges, unweighted they'd take half
+        int range = p.range(99);
+        assertTrue("range=" + range, Math.abs(range - SortRouteP.RANGE_COUNT / 10) <= 1);
+        assertEquals(range + 1, p.range(100));
+    }
+
+    private List<Object> run(SortP<Integer> p, JobConfig jobConfig) throws Exception {
+        // small outbox to make the processor return in the middle of emitting
+        TestOutbox outbox = new TestOutbox(16);
+        p.init(outbox, new TestProcessorContext().setJobConfig(jobConfig));
+        List<Object> result = new ArrayList<>();
+        TestInbox inbox = new TestInbox();
+        input.forEach(i -> inbox.add(entry(0, i)));
+        process(p, 0, inbox, outbox, result);
+        complete(p, outbox, result);
+        p.close();
+        return result;
+    }
+
+    private static void process(
+            AbstractProcessor p, int ordinal, TestInbox inbox, TestOutbox outbox, List<Object> result
+    ) {
+        while (!inbox.isEmpty()) {
+            p.process(ordinal, inbox);
+            outbox.drainQueueAndReset(0, result, false);
+        }
+    }
+
+    private static void complete(AbstractProcessor p, TestOutbox outbox, List<Object> result) {
+        boolean done;
+        do {
+            done = p.complete();
+            outbox.drainQueueAndReset(0, result, false);
+        } while (!done);
+    }
+
+    private List<Integer> sortedInput() {
+        return input.stream().sorted().collect(toList());
+    }
+}
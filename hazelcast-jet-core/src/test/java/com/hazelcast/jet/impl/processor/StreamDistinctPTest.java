@@ -0,0 +1,74 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.processor;
+
+import com.hazelcast.jet.core.Watermark;
+import com.hazelcast.jet.function.DistributedFunction;
+import com.hazelcast.jet.function.DistributedToLongFunction;
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Map.Entry;
+
+import static com.hazelcast.jet.Util.entry;
+import static com.hazelcast.jet.core.test.TestSupport.verifyProcessor;
+import static java.util.Arrays.asList;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class StreamDistinctPTest {
+
+    private static final long TIME_TO_LIVE = 10;
+
+    private final DistributedFunction<Entry<String, Long>, String> keyFn = Entry::getKey;
+    private final DistributedToLongFunction<Entry<String, Long>> timestampFn = Entry::getValue;
+
+    @Test
+    public void when_duplicateWithinTimeToLive_then_dropped() {
+        verifyProcessor(() -> new StreamDistinctP<>(keyFn, timestampFn, TIME_TO_LIVE, Long.MAX_VALUE))
+                .input(asList(entry("a", 10L), entry("b", 11L), entry("a", 15L), entry("b", 11L)))
+                .expectOutput(asList(entry("a", 10L), entry("b", 11L)));
+    }
+
+    @Test
+    public void when_timeToLiveExpired_then_emittedAgain() {
+        verifyProcessor(() -> new StreamDistinctP<>(keyFn, timestampFn, TIME_TO_LIVE, Long.MAX_VALUE))
+                .input(asList(entry("a", 10L), new Watermark(30), entry("a", 25L), entry("a", 26L)))
+                .expectOutput(asList(entry("a", 10L), new Watermark(30), entry("a", 25L)));
+    }
+
+    @Test
+    public void when_lateEvent_then_dropped() {
+        verifyProcessor(() -> new StreamDistinctP<>(keyFn, timestampFn, TIME_TO_LIVE, Long.MAX_VALUE))
+                .input(asList(new Watermark(30), entry("a", 15L), entry("b", 20L)))
+                .expectOutput(asList(new Watermark(30), entry("b", 20L)));
+    }
+
+    @Test
+    public void when_maxKeysReached_then_oldestBucketForgotten() {
+        verifyProcessor(() -> new StreamDistinctP<>(keyFn, timestampFn, 100, 2))
+                .input(asList(entry("a", 0L), entry("b", 30L), entry("c", 60L), entry("c", 61L), entry("a", 62L)))
+                .expectOutput(asList(entry("a", 0L), entry("b", 30L), entry("c", 60L), entry("a", 62L)));
+    }
+
+    @Test
+    public void when_approximate_then_duplicateDropped() {
+        verifyProcessor(() -> new StreamDistinctP<>(keyFn, timestampFn, TIME_TO_LIVE, 1000, 0.01))
+                .input(asList(entry("a", 10L), entry("b", 11L), entry("a", 15L), new Watermark(30), entry("a", 25L)))
+                .expectOutput(asList(entry("a", 10L), entry("b", 11L), new Watermark(30), entry("a", 25L)));
+    }
+}
@@ -23,10 +23,12 @@ import org.junit.runner.RunWith;
 
 import java.util.ArrayList;
 import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static java.util.Collections.singletonList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 @RunWith(HazelcastParallelClassRunner.class)
@@ -64,6 +66,40 @@ public class ArrayDequeInboxTest {
         inbox.remove();
     }
 
+    @Test
+    public void when_peekThenPollWithFirstAccessFn_then_sameConvertedItem() {
+        // Given
+        inbox = new ArrayDequeInbox(new ProgressTracker(),
+                item -> item instanceof Integer ? String.valueOf(item) : item);
+        inbox.queue().add(ITEM);
+
+        // When
+        Object peeked = inbox.peek();
+        Object polled = inbox.poll();
+
+        // Then
+        assertEquals("1", peeked);
+        assertSame(peeked, polled);
+    }
+
+    @Test
+    public void when_removeWithFirstAccessFn_then_notApplied() {
+        // Given
+        AtomicInteger applyCount = new AtomicInteger();
+        inbox = new ArrayDequeInbox(new ProgressTracker(), item -> {
+            applyCount.incrementAndGet();
+            return item;
+        });
+        inbox.queue().add(ITEM);
+
+        // When
+        inbox.remove();
+
+        // Then
+        assertTrue(inbox.isEmpty());
+        assertEquals(0, applyCount.get());
+    }
+
     @Test
     public void when_drainToCollection_then_allDrained() {
         ArrayList<Object> sink = new ArrayList<>();
@@ -24,8 +24,10 @@ import com.hazelcast.internal.partition.InternalPartitionService;
 import com.hazelcast.internal.serialization.InternalSerializationService;
 import com.hazelcast.internal.serialization.impl.HeapData;
 import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.config.CompressionType;
 import com.hazelcast.jet.config.JetConfig;
 import com.hazelcast.jet.core.JetTestSupport;
+import com.hazelcast.jet.impl.ExplodeSnapshotP;
 import com.hazelcast.jet.impl.JetService;
 import com.hazelcast.jet.impl.execution.SnapshotContext;
 import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.CustomByteArrayOutputStream;
@@ -55,6 +57,7 @@ import java.util.stream.Stream;
 
 import static com.hazelcast.jet.Util.entry;
 import static com.hazelcast.jet.impl.util.Util.uncheckCall;
+import static java.util.Collections.emptyMap;
 import static java.util.stream.Collectors.joining;
 import static java.util.stream.Stream.generate;
 import static junit.framework.TestCase.assertEquals;
@@ -78,6 +81,7 @@ public class AsyncSnapshotWriterImplTest extends JetTestSupport {
     private InternalSerializationService serializationService;
     private InternalPartitionService partitionService;
     private SnapshotContext snapshotContext;
+    private NodeEngineImpl nodeEngine;
 
     @Before
     public void before() {
@@ -89,13 +93,14 @@ public class AsyncSnapshotWriterImplTest extends JetTestSupport {
               .setImplementation(new AlwaysFailingMapStore());
 
         JetInstance instance = createJetMember(jetConfig);
-        NodeEngineImpl nodeEngine = ((HazelcastInstanceImpl) instance.getHazelcastInstance()).node.nodeEngine;
+        nodeEngine = ((HazelcastInstanceImpl) instance.getHazelcastInstance()).node.nodeEngine;
         serializationService = ((HazelcastInstanceImpl) instance.getHazelcastInstance()).getSerializationService();
         partitionService = nodeEngine.getPartitionService();
         snapshotContext = mock(SnapshotContext.class);
         when(snapshotContext.currentMapName()).thenReturn("map1");
         when(snapshotContext.currentSnapshotId()).thenReturn(0L);
-        writer = new AsyncSnapshotWriterImpl(128, nodeEngine, snapshotContext, "vertex", 0, 1);
+        writer = new AsyncSnapshotWriterImpl(128, nodeEngine, snapshotContext, "vertex", 0, 1, false,
+                CompressionType.NONE);
         when(snapshotContext.currentSnapshotId()).thenReturn(1L); // simulates starting new snapshot
         map = instance.getHazelcastInstance().getMap("map1");
         assertTrue(writer.usableChunkSize > 0);
@@ -197,6 +202,36 @@ public class AsyncSnapshotWriterImplTest extends JetTestSupport {
         assertEquals(SnapshotDataValueTerminator.INSTANCE, in.readObject());
     }
 
+    @Test
+    public void when_compressed_then_storedSmallerAndDecompresses() throws IOException {
+        // Given
+        AsyncSnapshotWriterImpl compressingWriter = new AsyncSnapshotWriterImpl(128, nodeEngine, snapshotContext,
+                "vertex", 0, 1, false, CompressionType.LZ4);
+        String key = "k";
+        String value = generate(() -> "a").limit(128).collect(joining());
+
+        // When
+        assertTrue(compressingWriter.offer(entry(serialize(key), serialize(value))));
+        assertTrue(compressingWriter.flushAndResetMap());
+        compressingWriter.close();
+
+        // Then
+        int partitionKey = compressingWriter.partitionKey(partitionService.getPartitionId(key));
+        SnapshotDataKey mapKey = new SnapshotDataKey(partitionKey, 1, "vertex", 0, false, CompressionType.LZ4);
+        assertTrueEventually(() -> assertTrue(map.containsKey(mapKey)), 3);
+        byte[] data = map.get(mapKey);
+        assertTrue(compressingWriter.getStoredBytesCounter().get() < compressingWriter.getRawBytesCounter().get());
+
+        // Then2 - decompress as the restore does and deserialize the entry
+        ExplodeSnapshotP explodeP = new ExplodeSnapshotP(emptyMap(), 1, 1);
+        byte[] chunk = explodeP.decompress(entry(mapKey, data));
+        explodeP.close();
+        BufferObjectDataInput in = serializationService.createObjectDataInput(chunk);
+        assertEquals(key, in.readObject());
+        assertEquals(value, in.readObject());
+        assertEquals(SnapshotDataValueTerminator.INSTANCE, in.readObject());
+    }
+
     @Test
     public void when_cannotAutoFlush_then_offerReturnsFalse() {
         // When
@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.util;
+
+import com.hazelcast.jet.config.CompressionType;
+import com.hazelcast.test.HazelcastParametersRunnerFactory;
+import com.hazelcast.test.annotation.ParallelTest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameter;
+import org.junit.runners.Parameterized.Parameters;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Random;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(Parameterized.class)
+@Category(ParallelTest.class)
+@Parameterized.UseParametersRunnerFactory(HazelcastParametersRunnerFactory.class)
+public class BlockCodecTest {
+
+    @Parameter
+    public CompressionType compression;
+
+    private BlockCodec codec;
+
+    @Parameters(name = "compression={0}")
+    public static Collection<Object> parameters() {
+        return asList(CompressionType.LZ4, CompressionType.DEFLATE);
+    }
+
+    @Before
+    public void before() {
+        codec = BlockCodec.newCodec(compression);
+    }
+
+    @After
+    public void after() {
+        codec.close();
+    }
+
+    @Test
+    public void when_empty_then_roundTrips() {
+        assertRoundTrip(new byte[0]);
+    }
+
+    @Test
+    public void when_shorterThanMinimumMatch_then_roundTrips() {
+        assertRoundTrip(new byte[] {1, 2, 3, 1, 2, 3, 1, 2, 3});
+    }
+
+    @Test
+    public void when_repetitive_then_roundTripsAndCompresses() {
+        byte[] data = new byte[100_000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) "the quick brown fox".charAt(i % 19);
+        }
+        int compressedLength = assertRoundTrip(data);
+        assertTrue("compressedLength=" + compressedLength, compressedLength < data.length / 10);
+    }
+
+    @Test
+    public void when_singleByteRun_then_roundTrips() {
+        // a match overlapping the output
+        byte[] data = new byte[1000];
+        Arrays.fill(data, (byte) 7);
+        assertRoundTrip(data);
+    }
+
+    @Test
+    public void when_random_then_roundTrips() {
+        Random random = new Random(42);
+        for (int length : new int[] {13, 100, 1 << 14, 1 << 17}) {
+            byte[] data = new byte[length];
+            random.nextBytes(data);
+            assertRoundTrip(data);
+        }
+    }
+
+    @Test
+    public void when_mixedWithOffsets_then_roundTrips() {
+        Random random = new Random(42);
+        byte[] data = new byte[1 << 16];
+        for (int i = 0; i < data.length; i++) {
+            // a small alphabet gives many short matches at varying distances
+            data[i] = (byte) ('a' + random.nextInt(4));
+        }
+        int srcOff = 7;
+        byte[] src = new byte[srcOff + data.length];
+        System.arraycopy(data, 0, src, srcOff, data.length);
+        int dstOff = 11;
+        byte[] compressed = new byte[dstOff + codec.maxCompressedLength(data.length)];
+        int compressedLength = codec.compress(src, srcOff, data.length, compressed, dstOff);
+        byte[] decompressed = new byte[3 + data.length];
+        codec.decompress(compressed, dstOff, compressedLength, decompressed, 3, data.length);
+        assertArrayEquals(data, Arrays.copyOfRange(decompressed, 3, decompressed.length));
+    }
+
+    @Test
+    public void when_codecReused_then_roundTrips() {
+        Random random = new Random(42);
+        for (int i = 0; i < 10; i++) {
+            byte[] data = new byte[random.nextInt(5000)];
+            for (int j = 0; j < data.length; j++) {
+                data[j] = (byte) random.nextInt(i + 1);
+            }
+            assertRoundTrip(data);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void when_wrongUncompressedLength_then_fail() {
+        byte[] data = new byte[100];
+        byte[] compressed = new byte[codec.maxCompressedLength(data.length)];
+        int compressedLength = codec.compress(data, 0, data.length, compressed, 0);
+        codec.decompress(compressed, 0, compressedLength, new byte[200], 0, 200);
+    }
+
+    private int assertRoundTrip(byte[] data) {
+        byte[] compressed = new byte[codec.maxCompressedLength(data.length)];
+        int compressedLength = codec.compress(data, 0, data.length, compressed, 0);
+        byte[] decompressed = new byte[data.length];
+        codec.decompress(compressed, 0, compressedLength, decompressed, 0, data.length);
+        assertArrayEquals(data, decompressed);
+        return compressedLength;
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.hazelcast.jet.impl.util;
+
+import com.hazelcast.core.IMap;
+import com.hazelcast.instance.HazelcastInstanceImpl;
+import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.config.JetConfig;
+import com.hazelcast.jet.core.JetTestSupport;
+import com.hazelcast.jet.impl.JetService;
+import com.hazelcast.jet.impl.util.AsyncSnapshotWriterImpl.SnapshotDataKey;
+import com.hazelcast.nio.serialization.Data;
+import com.hazelcast.spi.impl.NodeEngineImpl;
+import com.hazelcast.test.HazelcastSerialClassRunner;
+import com.hazelcast.test.annotation.QuickTest;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+
+import java.util.concurrent.CompletionException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+@Category(QuickTest.class)
+@RunWith(HazelcastSerialClassRunner.class)
+public class LocalDiskSnapshotChunkStoreTest extends JetTestSupport {
+
+    private static final byte[] CHUNK = {1, 2, 3, 4};
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private JetConfig config;
+    private JetInstance[] instances;
+    private SnapshotDataKey key;
+    private byte[] serializedChunk;
+
+    @Before
+    public void before() {
+        config = new JetConfig();
+        config.getInstanceConfig().setSnapshotDirectory(tempFolder.getRoot().getPath());
+        instances = createJetMembers(config, 3);
+        key = new SnapshotDataKey(0, 1, "vertex", 0);
+        serializedChunk = toData(CHUNK).toByteArray();
+    }
+
+    @Test
+    public void when_put_then_mapContainsRefAndChunkReadable() throws Exception {
+        IMap<Object, Object> map = instances[0].getHazelcastInstance().getMap("map");
+        store(instances[0]).put(map, key, toData(CHUNK)).join();
+
+        Object value = map.get(key);
+        assertTrue("value is " + value, value instanceof SnapshotChunkRef);
+        SnapshotChunkRef ref = (SnapshotChunkRef) value;
+        assertArrayEquals(serializedChunk, store(instances[0]).readLocal(ref.path()).join());
+        assertArrayEquals(serializedChunk, store(instances[1]).readLocal(ref.path()).join());
+        assertNull(store(instances[2]).readLocal(ref.path()).join());
+        for (JetInstance instance : instances) {
+            assertArrayEquals(serializedChunk, store(instance).read(value).join());
+        }
+    }
+
+    @Test
+    public void when_ownerShutDown_then_chunkReadFromBackup() {
+        IMap<Object, Object> map = instances[0].getHazelcastInstance().getMap("map");
+        store(instances[0]).put(map, key, toData(CHUNK)).join();
+
+        instances[0].shutdown();
+
+        Object value = instances[2].getHazelcastInstance().getMap("map").get(key);
+        assertArrayEquals(serializedChunk, store(instances[2]).read(value).join());
+    }
+
+    @Test
+    public void when_backupMemberShutDown_then_chunkCopiedToNextMember() {
+        IMap<Object, Object> map = instances[0].getHazelcastInstance().getMap("map");
+        store(instances[0]).put(map, key, toData(CHUNK)).join();
+        SnapshotChunkRef ref = (SnapshotChunkRef) map.get(key);
+
+        instances[1].shutdown();
+
+        assertTrueEventually(() ->
+                assertArrayEquals(serializedChunk, store(instances[2]).readLocal(ref.path()).join()));
+    }
+
+    @Test
+    public void when_ownerShutDown_then_chunkCopiedByBackupMember() {
+        IMap<Object, Object> map = instances[0].getHazelcastInstance().getMap("map");
+        store(instances[0]).put(map, key, toData(CHUNK)).join();
+        SnapshotChunkRef ref = (SnapshotChunkRef) map.get(key);
+
+        instances[0].shutdown();
+
+        assertTrueEventually(() ->
+                assertArrayEquals(serializedChunk, store(instances[2]).readLocal(ref.path()).join()));
+        assertArrayEquals(serializedChunk, store(instances[1]).readLocal(ref.path()).join());
+    }
+
+    @Test
+    public void when_clusterRestarted_then_chunkReadable() {
+        IMap<Object, Object> map = instances[0].getHazelcastInstance().getMap("map");
+        store(instances[0]).put(map, key, toData(CHUNK)).join();
+        SnapshotChunkRef ref = (SnapshotChunkRef) map.get(key);
+
+        for (JetInstance instance : instances) {
+            instance.shutdown();
+        }
+        instances = createJetMembers(config, 3);
+
+        for (JetInstance instance : instances) {
+            assertArrayEquals(serializedChunk, store(instance).read(ref).join());
+        }
+    }
+
+    @Test
+    public void when_deleted_then_chunkNotReadable() throws Exception {
+        IMap<Object, Object> map = instances[0].getHazelcastInstance().getMap("map");
+        store(instances[0]).put(map, key, toData(CHUNK)).join();
+        SnapshotChunkRef ref = (SnapshotChunkRef) map.get(key);
+
+        for (JetInstance instance : instances) {
+            store(instance).delete("map");
+        }
+
+        assertNull(store(instances[0]).readLocal(ref.path()).join());
+        assertNull(store(instances[1]).readLocal(ref.path()).join());
+        try {
+            store(instances[2]).read(ref).join();
+            fail("read didn't fail");
+        } catch (CompletionException expected) {
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void when_pathOutsideOfDirectory_then_fail() throws Exception {
+        store(instances[0]).readLocal("../other/file.chunk");
+    }
+
+    private static LocalDiskSnapshotChunkStore store(JetInstance instance) {
+        NodeEngineImpl nodeEngine = ((HazelcastInstanceImpl) instance.getHazelcastInstance()).node.nodeEngine;
+        return LocalDiskSnapshotChunkStore.of(nodeEngine.getService(JetService.SERVICE_NAME));
+    }
+
+    private Data toData(byte[] chunk) {
+        return ((HazelcastInstanceImpl) instances[0].getHazelcastInstance()).getSerializationService().toData(chunk);
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2008-2019, Hazelcast, Inc. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.hazelcast.jet.impl.util;
+
+import com.hazelcast.test.HazelcastParallelClassRunner;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static com.hazelcast.jet.impl.util.ThreadAffinity.MAX_CPU;
+import static com.hazelcast.jet.impl.util.ThreadAffinity.parseCpuList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+@RunWith(HazelcastParallelClassRunner.class)
+public class ThreadAffinityTest {
+
+    @Test
+    public void when_singleCpu_then_parsed() {
+        assertArrayEquals(new int[] {3}, parseCpuList("3"));
+    }
+
+    @Test
+    public void when_cpusAndRanges_then_parsedInOrder() {
+        assertArrayEquals(new int[] {6, 2, 3, 4, 0}, parseCpuList("6, 2-4 ,0"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void when_descendingRange_then_fail() {
+        parseCpuList("4-2");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void when_notANumber_then_fail() {
+        parseCpuList("1,a");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void when_hugeRange_then_failWithoutExpanding() {
+        parseCpuList("0-2147483647");
+    }
+
+    @Test
+    public void when_maxCpu_then_parsed() {
+        assertEquals(MAX_CPU + 1, parseCpuList("0-" + MAX_CPU).length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void when_empty_then_fail() {
+        parseCpuList("");
+    }
+}
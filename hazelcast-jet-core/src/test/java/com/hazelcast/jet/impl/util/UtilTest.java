@@ -28,6 +28,7 @@ import org.junit.runner.RunWith;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
@@ -37,9 +38,12 @@ import static com.hazelcast.jet.impl.util.Util.addClamped;
 import static com.hazelcast.jet.impl.util.Util.addOrIncrementIndexInName;
 import static com.hazelcast.jet.impl.util.Util.gcd;
 import static com.hazelcast.jet.impl.util.Util.memoizeConcurrent;
+import static com.hazelcast.jet.impl.util.Util.stableHash64;
 import static com.hazelcast.jet.impl.util.Util.subtractClamped;
+import static com.hazelcast.util.HashUtil.MurmurHash3_fmix;
 import static java.util.stream.Collectors.toMap;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 
 @RunWith(HazelcastParallelClassRunner.class)
@@ -156,4 +160,17 @@ public class UtilTest extends JetTestSupport {
         assertEquals("a-1-3", addOrIncrementIndexInName("a-1-2"));
         assertEquals("a--1-2", addOrIncrementIndexInName("a--1"));
     }
+
+    @Test
+    public void test_stableHash64() {
+        // the 64-bit FNV-1a hash of "a", not derived from String.hashCode()
+        assertEquals(MurmurHash3_fmix(0xaf63dc4c8601ec8cL), stableHash64("a"));
+        assertEquals(stableHash64("a"), stableHash64(new String(new char[] {'a'})));
+        assertEquals(stableHash64("a"), stableHash64(new byte[] {'a'}));
+        assertEquals(MurmurHash3_fmix(42L), stableHash64(42));
+        assertEquals(stableHash64(42), stableHash64(42L));
+        assertEquals(stableHash64(TimeUnit.SECONDS), stableHash64(TimeUnit.valueOf("SECONDS")));
+        assertNotEquals(stableHash64(TimeUnit.SECONDS), stableHash64(TimeUnit.MINUTES));
+        assertNotEquals(stableHash64(1.0), stableHash64(2.0));
+    }
 }
@@ -416,6 +416,24 @@ public class BatchAggregateTest extends PipelineTestSupport {
         assertEquals(toBag(expected.entrySet()), sinkToBag());
     }
 
+    @Test
+    public void groupAggregate_longKey() {
+        // Given
+        List<Integer> input = sequence(itemCount);
+        putToBatchSrcMap(input);
+
+        // When
+        BatchStage<Entry<Long, Long>> aggregated = srcStage
+                .groupingLongKey(i -> i % 5L)
+                .aggregate(summingLong(i -> i));
+
+        //Then
+        aggregated.drainTo(sink);
+        execute();
+        Map<Long, Long> expected = input.stream().collect(groupingBy(i -> i % 5L, Collectors.summingLong(i -> i)));
+        assertEquals(toBag(expected.entrySet()), sinkToBag());
+    }
+
     @Test
     public void groupAggregate2_withSeparateAggrOps() {
         AggregateOperation1<Integer, ?, Long> aggrOp = summingLong(i -> i);
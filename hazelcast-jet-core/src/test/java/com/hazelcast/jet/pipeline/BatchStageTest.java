@@ -16,10 +16,15 @@
 
 package com.hazelcast.jet.pipeline;
 
+import com.hazelcast.core.IList;
 import com.hazelcast.core.IMap;
 import com.hazelcast.core.ReplicatedMap;
 import com.hazelcast.jet.JetInstance;
 import com.hazelcast.jet.Util;
+import com.hazelcast.jet.core.AbstractProcessor;
+import com.hazelcast.jet.core.DAG;
+import com.hazelcast.jet.core.Edge;
+import com.hazelcast.jet.core.ProcessorMetaSupplier;
 import com.hazelcast.jet.core.processor.Processors;
 import com.hazelcast.jet.datamodel.ItemsByTag;
 import com.hazelcast.jet.datamodel.Tag;
@@ -31,12 +36,15 @@ import com.hazelcast.test.HazelcastTestSupport;
 import org.junit.Before;
 import org.junit.Test;
 
+import javax.annotation.Nonnull;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Random;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.stream.IntStream;
 import java.util.stream.LongStream;
 import java.util.stream.Stream;
@@ -48,10 +56,13 @@ import static com.hazelcast.jet.aggregate.AggregateOperations.counting;
 import static com.hazelcast.jet.datamodel.ItemsByTag.itemsByTag;
 import static com.hazelcast.jet.datamodel.Tuple2.tuple2;
 import static com.hazelcast.jet.datamodel.Tuple3.tuple3;
+import static com.hazelcast.jet.function.DistributedComparator.naturalOrder;
 import static com.hazelcast.jet.function.DistributedFunctions.wholeItem;
 import static com.hazelcast.jet.impl.pipeline.AbstractStage.transformOf;
 import static com.hazelcast.jet.pipeline.JoinClause.joinMapEntries;
 import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
 import static java.util.stream.Collectors.toList;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
@@ -121,6 +132,35 @@ public class BatchStageTest extends PipelineTestSupport {
         assertEquals(toBag(expected), sinkToBag());
     }
 
+    @Test
+    public void sort() {
+        // Given
+        List<Integer> input = new Random(42).ints(itemCount * 10, 0, itemCount).boxed().collect(toList());
+        putToBatchSrcMap(input);
+        String listName = sinkName;
+
+        // When
+        srcStage.sort(naturalOrder())
+                .drainTo(Sinks.fromProcessor("sortedSink",
+                        ProcessorMetaSupplier.of(() -> new IndexedListSinkP(listName))));
+        DAG dag = p.toDag();
+        // keep the outputs of the sort processors apart, see BatchStage#sort
+        dag.getInboundEdges("sortedSink").forEach(Edge::isolated);
+        jet().newJob(dag).join();
+
+        // Then
+        @SuppressWarnings("unchecked")
+        Map<Integer, List<Integer>> outputByProcessor = sinkList
+                .stream()
+                .map(o -> (Entry<Integer, Integer>) o)
+                .collect(groupingBy(Entry::getKey, TreeMap::new, mapping(Entry::getValue, toList())));
+        assertTrue("all items sorted by one processor", outputByProcessor.size() > 1);
+        List<Integer> concatenated = outputByProcessor.values().stream()
+                                                      .flatMap(List::stream)
+                                                      .collect(toList());
+        assertEquals(input.stream().sorted().collect(toList()), concatenated);
+    }
+
     @Test
     public void filter() {
         // Given
@@ -156,6 +196,31 @@ public class BatchStageTest extends PipelineTestSupport {
         assertEquals(toBag(expected), sinkToBag());
     }
 
+    @Test
+    public void when_chainOfStatelessStages_then_sameResultAsSeparateStages() {
+        // Given
+        List<Integer> input = sequence(itemCount);
+        putToBatchSrcMap(input);
+
+        // When
+        BatchStage<String> chained = srcStage
+                .map(i -> i * 2)
+                .filter(i -> i % 3 != 0)
+                .flatMap(i -> traverseIterable(asList(i + "A", i + "B")))
+                .map(String::toLowerCase);
+
+        // Then
+        chained.drainTo(sink);
+        execute();
+        List<String> expected = input.stream()
+                                     .map(i -> i * 2)
+                                     .filter(i -> i % 3 != 0)
+                                     .flatMap(i -> Stream.of(i + "A", i + "B"))
+                                     .map(String::toLowerCase)
+                                     .collect(toList());
+        assertEquals(toBag(expected), sinkToBag());
+    }
+
     @Test
     public void mapUsingContext() {
         // Given
@@ -469,6 +534,32 @@ public class BatchStageTest extends PipelineTestSupport {
         assertEquals(toBag(expected), sinkToBag());
     }
 
+    @Test
+    public void hashJoinTwo_partitioned() {
+        // Given
+        List<Integer> input = sequence(itemCount);
+        putToBatchSrcMap(input);
+        String enrichingName = HazelcastTestSupport.randomName();
+        IMap<Integer, String> enriching = jet().getMap(enrichingName);
+        input.forEach(i -> enriching.put(i, i + "A"));
+        BatchStage<Entry<Integer, String>> enrichingStage = p.drawFrom(Sources.map(enrichingName));
+
+        // When
+        BatchStage<Tuple2<Integer, String>> joined = srcStage.hashJoin(
+                enrichingStage,
+                JoinClause.<Integer, Integer, String>joinMapEntries(wholeItem())
+                        .withRightSizeHint(JoinClause.BROADCAST_SIZE_LIMIT),
+                Tuple2::tuple2);
+
+        // Then
+        joined.drainTo(sink);
+        execute();
+        List<Tuple2<Integer, String>> expected = input.stream()
+                                                      .map(i -> tuple2(i, i + "A"))
+                                                      .collect(toList());
+        assertEquals(toBag(expected), sinkToBag());
+    }
+
     @Test
     public void hashJoinThree() {
         // Given
@@ -607,4 +698,35 @@ public class BatchStageTest extends PipelineTestSupport {
         // multiple processors will observe the same keys and the counts won't match.
         assertEquals(toBag(asList(0, 1)), sinkToBag());
     }
+
+    /**
+     * Adds {@code entry(globalProcessorIndex, item)} to the list for each
+     * received item.
+     */
+    private static final class IndexedListSinkP extends AbstractProcessor {
+        private final String listName;
+        private IList<Object> list;
+        private int processorIndex;
+
+        IndexedListSinkP(String listName) {
+            this.listName = listName;
+        }
+
+        @Override
+        public boolean isCooperative() {
+            return false;
+        }
+
+        @Override
+        protected void init(@Nonnull Context context) {
+            list = context.jetInstance().getList(listName);
+            processorIndex = context.globalProcessorIndex();
+        }
+
+        @Override
+        protected boolean tryProcess(int ordinal, @Nonnull Object item) {
+            list.add(entry(processorIndex, item));
+            return true;
+        }
+    }
 }
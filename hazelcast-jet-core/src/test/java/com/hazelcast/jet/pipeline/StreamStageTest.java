@@ -401,6 +401,23 @@ public class StreamStageTest extends PipelineStreamTestSupport {
         assertTrueEventually(() -> assertEquals(expected, sinkToBag()));
     }
 
+    @Test
+    public void distinct_withTimeToLive() {
+        // Given
+        List<Integer> input = sequence(itemCount);
+        addToSrcMapJournal(input);
+        addToSrcMapJournal(input);
+
+        // When
+        StreamStage<Integer> distinct = srcStage.withTimestamps(i -> i, maxLag)
+                                                .distinct(itemCount);
+
+        // Then
+        distinct.drainTo(sink);
+        executeAsync();
+        assertTrueEventually(() -> assertEquals(toBag(input), sinkToBag()));
+    }
+
     @Test
     public void merge() {
         // Given
@@ -26,7 +26,10 @@ import com.hazelcast.jet.IListJet;
 import com.hazelcast.jet.IMapJet;
 import com.hazelcast.jet.Jet;
 import com.hazelcast.jet.JetInstance;
+import com.hazelcast.jet.config.CompressionType;
 import com.hazelcast.jet.config.EdgeConfig;
+import com.hazelcast.jet.config.FlowControlType;
+import com.hazelcast.jet.config.IdleStrategyType;
 import com.hazelcast.jet.config.InstanceConfig;
 import com.hazelcast.jet.config.JetConfig;
 import com.hazelcast.jet.config.MetricsConfig;
@@ -96,11 +99,20 @@ public class TestApplicationContext {
         assertEquals(2, instanceConfig.getCooperativeThreadCount());
         assertEquals(200, instanceConfig.getFlowControlPeriodMs());
         assertEquals(1234, instanceConfig.getScaleUpDelayMillis());
+        assertTrue(instanceConfig.isWorkStealingEnabled());
+        assertEquals(IdleStrategyType.PARK, instanceConfig.getIdleStrategy());
+        assertEquals("1-2", instanceConfig.getCooperativeThreadAffinity());
+        assertTrue(instanceConfig.isReadinessTrackingEnabled());
+        assertEquals("/var/lib/jet/snapshots", instanceConfig.getSnapshotDirectory());
 
         EdgeConfig edgeConfig = jetConfig.getDefaultEdgeConfig();
         assertEquals(8, edgeConfig.getQueueSize());
         assertEquals(3, edgeConfig.getPacketSizeLimit());
         assertEquals(5, edgeConfig.getReceiveWindowMultiplier());
+        assertEquals(CompressionType.DEFLATE, edgeConfig.getCompression());
+        assertTrue(edgeConfig.isLazyDeserializationEnabled());
+        assertEquals(FlowControlType.DELAY_BASED, edgeConfig.getFlowControl());
+        assertEquals(7, edgeConfig.getTargetQueueingDelayMs());
 
         assertEquals("bar", jetConfig.getProperties().getProperty("foo"));
 
@@ -109,6 +121,7 @@ public class TestApplicationContext {
         assertEquals(123, metricsConfig.getRetentionSeconds());
         assertEquals(10, metricsConfig.getCollectionIntervalSeconds());
         assertTrue(metricsConfig.isMetricsForDataStructuresEnabled());
+        assertFalse(metricsConfig.isTaskletCallTimingEnabled());
     }
 
     private void assertHazelcastConfig(Config cfg) {